@@ -0,0 +1,57 @@
+package com.todolist;
+
+import javafx.application.Platform;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+
+// --- Gemeinsame Hilfen für die Benchmarks: JavaFX ohne Bildschirm und reproduzierbare Testbilder ---
+// Die FX-Benchmarks laufen mit Monocle (Headless) und dem Software-Renderer; die nötigen
+// Systemeigenschaften setzen sie per @Fork(jvmArgsAppend = ...).
+final class BenchSupport {
+
+    private static boolean started;
+
+    private BenchSupport() { }
+
+    // --- Startet den FX-Toolkit einmal pro JVM ---
+    static synchronized void startFx() throws InterruptedException {
+        if (started) return;
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.startup(latch::countDown);
+        Platform.setImplicitExit(false);
+        latch.await();
+        started = true;
+    }
+
+    // --- Führt task im FX Application Thread aus und wartet auf das Ergebnis ---
+    static <T> T onFx(Callable<T> task) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        AtomicReference<Exception> error = new AtomicReference<>();
+        CountDownLatch latch = new CountDownLatch(1);
+        Platform.runLater(() -> {
+            try { result.set(task.call()); } catch (Exception ex) { error.set(ex); } finally { latch.countDown(); }
+        });
+        latch.await();
+        if (error.get() != null) throw error.get();
+        return result.get();
+    }
+
+    // --- Raster mit Verlauf und Strichmuster (realistischer für die Kompression als Rauschen oder Einfarbig) ---
+    static TiledRaster sampleRaster(int width, int height) {
+        TiledRaster r = new TiledRaster(width, height, 0xFFFFFFFF);
+        int[] row = new int[width];
+        for (int y = 0; y < height; y++) {
+            for (int x = 0; x < width; x++) {
+                boolean line = ((x + y) % 97) < 3 || ((x * 7 + y * 3) % 211) < 2; // Diagonale "Striche"
+                row[x] = line ? 0xFF000000 | ((x * 31) & 0xFF) << 16 | ((y * 17) & 0xFF) : 0xFFFFFFFF - ((x / 64 + y / 64) & 0x1F) * 0x010101;
+            }
+            r.writeRect(0, y, width, 1, row, 0, width);
+        }
+        return r;
+    }
+
+    // --- Breite und Höhe (4:3) für eine Bildgröße in Megapixeln ---
+    static int widthFor(int megapixels) { return (int) Math.round(Math.sqrt(megapixels * 1_000_000.0 * 4 / 3)); }
+    static int heightFor(int megapixels) { return (int) Math.round(megapixels * 1_000_000.0 / widthFor(megapixels)); }
+}
@@ -0,0 +1,53 @@
+package com.todolist;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// --- Filter auf einer voll belegten 4K-Ebene (3840 x 2160) ---
+// "tiles" ist der Weg der Anwendung (FilterPipeline: Kacheln mit Rand, Fork/Join), "preview" der Vorschauausschnitt
+// (512 x 512, halbe Auflösung: Radius halbiert) im FX-Thread.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class FilterBenchmark {
+
+    private static final int W = 3840, H = 2160;
+
+    @Param({"gaussian2", "gaussian10", "unsharp", "levels", "grayscale"})
+    public String filter;
+
+    private TiledRaster raster;
+    private ImageFilter f;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        raster = new TiledRaster(W, H, 0xFFFFFFFF);
+        Random rnd = new Random(1);
+        int[] row = new int[W];
+        for (int y = 0; y < H; y++) {
+            for (int x = 0; x < W; x++) row[x] = 0xFF000000 | rnd.nextInt(0x1000000);
+            raster.writeRect(0, y, W, 1, row, 0, W);
+        }
+        switch (filter) {
+            case "gaussian2": f = ImageFilter.gaussian(2); break;
+            case "gaussian10": f = ImageFilter.gaussian(10); break;
+            case "unsharp": f = ImageFilter.unsharp(3, 1, 2); break;
+            case "levels": f = ImageFilter.levels(20, 230, 1.4); break;
+            default: f = ImageFilter.grayscale();
+        }
+    }
+
+    @Benchmark
+    public TiledRaster tiles() {
+        return FilterPipeline.run(f, raster, null, null);
+    }
+
+    @Benchmark
+    public int[] preview() {
+        return FilterPipeline.filterRect(f.scaled(0.5), raster, 1000, 800, 512, 512);
+    }
+}
@@ -0,0 +1,45 @@
+package com.todolist;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// --- Füllwerkzeug auf einer 4K-Ebene (3840 x 2160) ---
+// "region" füllt die Fläche außerhalb eines Kreisumrisses (ca. 7 Mio. Pixel) inklusive Lesen und Zurückschreiben,
+// "buffer" nur den Algorithmus auf dem int-Puffer. Die Füllfarbe wechselt bei jedem Aufruf, damit jedes Mal gefüllt wird.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+public class FloodFillBenchmark {
+
+    private static final int W = 3840, H = 2160;
+    private static final int[] COLORS = { 0xFFFF0000, 0xFF0000FF };
+
+    private TiledRaster raster;
+    private final FloodFill fill = new FloodFill();
+    private int[] pixels;
+    private int turn;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        raster = new TiledRaster(W, H, 0xFFFFFFFF);
+        for (int a = 0; a < 20000; a++) { // Kreisumriss mit Radius 800 um die Bildmitte
+            double t = a * 2 * Math.PI / 20000;
+            raster.setPixel((int) (W / 2 + 800 * Math.cos(t)), (int) (H / 2 + 800 * Math.sin(t)), 0xFF000000);
+        }
+        pixels = new int[W * H];
+        raster.readRect(0, 0, W, H, pixels, 0, W);
+    }
+
+    @Benchmark
+    public int[] region() {
+        return fill.fill(raster, 5, 5, COLORS[turn++ & 1], 0);
+    }
+
+    @Benchmark
+    public int[] buffer() {
+        return FloodFill.fill(pixels, W, H, 5, 5, COLORS[turn++ & 1], 0);
+    }
+}
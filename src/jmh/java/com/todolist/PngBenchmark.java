@@ -0,0 +1,73 @@
+package com.todolist;
+
+import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+import javax.imageio.ImageIO;
+import org.openjdk.jmh.annotations.*;
+
+// --- PNG kodieren und dekodieren von 1 bis 100 Megapixel ---
+// Jeweils der Weg der Anwendung (PngWriter / ImageLoader in ein TiledRaster) und ImageIO als Vergleich.
+// Ein Durchlauf dauert bei 100 MP mehrere Sekunden, daher SingleShotTime mit wenigen Wiederholungen.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx8g"})
+public class PngBenchmark {
+
+    @Param({"1", "10", "25", "100"})
+    public int megapixels;
+
+    private TiledRaster raster;
+    private BufferedImage image;            // Dasselbe Bild als TYPE_INT_RGB für ImageIO
+    private File file;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        int w = BenchSupport.widthFor(megapixels), h = BenchSupport.heightFor(megapixels);
+        raster = BenchSupport.sampleRaster(w, h);
+        image = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        int[] row = new int[w];
+        for (int y = 0; y < h; y++) { raster.readRect(0, y, w, 1, row, 0, w); image.setRGB(0, y, w, 1, row, 0, w); }
+        file = File.createTempFile("bench-" + megapixels + "mp-", ".png");
+        file.deleteOnExit();
+        try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(file.toPath()), 1 << 16)) {
+            new PngWriter(6).write(raster, out, null, null);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() { file.delete(); }
+
+    @Benchmark
+    public void encodePngWriter() throws IOException {
+        new PngWriter(6).write(raster, OutputStream.nullOutputStream(), null, null);
+    }
+
+    @Benchmark
+    public void encodeImageIO() throws IOException {
+        ImageIO.write(image, "png", OutputStream.nullOutputStream());
+    }
+
+    @Benchmark
+    public TiledRaster decodeImageLoader() throws IOException {
+        TiledRaster[] target = new TiledRaster[1];
+        new ImageLoader(Long.MAX_VALUE, 64L << 20).load(file, new ImageLoader.Sink() {
+            @Override public void begin(int width, int height, int subsampling) { target[0] = new TiledRaster(width, height, 0xFFFFFFFF); }
+            @Override public void preview(int[] pixels, int width, int height) { }
+            @Override public void rows(int y, int height, int[] pixels, int width) { target[0].writeRect(0, y, width, height, pixels, 0, width); }
+        }, null, null);
+        return target[0];
+    }
+
+    @Benchmark
+    public BufferedImage decodeImageIO() throws IOException {
+        return ImageIO.read(file);
+    }
+}
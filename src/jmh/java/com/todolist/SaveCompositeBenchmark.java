@@ -0,0 +1,67 @@
+package com.todolist;
+
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// --- Zusammensetzen des Bildes auf Weiß vor dem PNG-Kodieren ---
+// "fxImage" ist der frühere Weg aus onSave (Snapshot -> SwingFXUtils.fromFXImage -> TYPE_INT_RGB mit weißer Füllung),
+// "tiledRgb" der heutige Weg in PngWriter (Kachelbänder lesen, zeilenweise nach RGB8 auf Weiß).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw", "-Djava.awt.headless=true", "-Xmx6g"})
+public class SaveCompositeBenchmark {
+
+    @Param({"1", "4", "16"})
+    public int megapixels;
+
+    private TiledRaster raster;
+    private WritableImage snapshot;         // Entspricht dem früheren canvas.snapshot(...)
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchSupport.startFx();
+        int w = BenchSupport.widthFor(megapixels), h = BenchSupport.heightFor(megapixels);
+        raster = BenchSupport.sampleRaster(w, h);
+        snapshot = new WritableImage(w, h);
+        int[] band = new int[w * TiledRaster.TILE_SIZE];
+        for (int y = 0; y < h; y += TiledRaster.TILE_SIZE) {
+            int bh = Math.min(TiledRaster.TILE_SIZE, h - y);
+            raster.readRect(0, y, w, bh, band, 0, w);
+            snapshot.getPixelWriter().setPixels(0, y, w, bh, PixelFormat.getIntArgbPreInstance(), band, 0, w);
+        }
+    }
+
+    @Benchmark
+    public BufferedImage fxImage() {
+        BufferedImage argb = SwingFXUtils.fromFXImage(snapshot, null);
+        BufferedImage rgb = new BufferedImage(argb.getWidth(), argb.getHeight(), BufferedImage.TYPE_INT_RGB);
+        Graphics2D g = rgb.createGraphics();
+        g.setColor(java.awt.Color.WHITE);
+        g.fillRect(0, 0, rgb.getWidth(), rgb.getHeight());
+        g.drawImage(argb, 0, 0, null);
+        g.dispose();
+        return rgb;
+    }
+
+    @Benchmark
+    public long tiledRgb() {
+        int w = raster.getWidth(), h = raster.getHeight(), band = TiledRaster.TILE_SIZE;
+        int[] pixels = new int[w * band];
+        byte[] rgb = new byte[w * 3];
+        long sum = 0;
+        for (int y = 0; y < h; y += band) {
+            int bh = Math.min(band, h - y);
+            raster.readRect(0, y, w, bh, pixels, 0, w);
+            for (int row = 0; row < bh; row++) { PngWriter.toRgbOnWhite(pixels, row * w, w, rgb); sum += rgb[row % rgb.length]; }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,65 @@
+package com.todolist;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// --- Ein Frame der Formvorschau beim Aufziehen eines Rechtecks auf einem Full-HD-Viewport ---
+// "dirty" ist ShapePreview (nur alte ∪ neue Begrenzung), "full" das frühere Vorgehen (ganzes Canvas löschen).
+// Ein Canvas ohne Szene wird erst beim Snapshot gerastert; der Snapshot gehört daher zu jedem Frame.
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw", "-Djava.awt.headless=true", "-Xmx4g"})
+public class ShapePreviewBenchmark {
+
+    private static final int W = 1920, H = 1080;
+
+    @Param({"dirty", "full"})
+    public String mode;
+
+    @Param({"40", "600"})
+    public int size;                        // Ungefähre Kantenlänge der Form in Pixeln
+
+    private Canvas canvas;
+    private GraphicsContext g;
+    private ShapePreview preview;
+    private WritableImage frame;
+    private int step;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        BenchSupport.startFx();
+        BenchSupport.onFx(() -> {
+            canvas = new Canvas(W, H);
+            g = canvas.getGraphicsContext2D();
+            TileRenderer renderer = new TileRenderer(new Canvas(W, H));
+            renderer.setRaster(new TiledRaster(W, H, 0xFFFFFFFF));
+            preview = new ShapePreview(canvas, renderer);
+            frame = new WritableImage(W, H);
+            return null;
+        });
+    }
+
+    @Benchmark
+    public WritableImage frame() throws Exception {
+        return BenchSupport.onFx(() -> {
+            step = (step + 1) & 63; // Maus bewegt sich um ein paar Pixel pro Frame
+            double x1 = 400, y1 = 300, x2 = x1 + size + step, y2 = y1 + size * 0.6 + step / 2.0;
+            if (mode.equals("dirty")) {
+                preview.show(StrokeLog.RECTANGLE, x1, y1, x2, y2, Color.CRIMSON, 3);
+                preview.paint();
+            } else {
+                g.clearRect(0, 0, W, H);
+                StrokeLog.configureStroke(g, 3, Color.CRIMSON);
+                g.strokeRect(x1, y1, x2 - x1, y2 - y1);
+            }
+            return canvas.snapshot(null, frame);
+        });
+    }
+}
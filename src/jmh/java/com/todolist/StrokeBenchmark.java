@@ -0,0 +1,94 @@
+package com.todolist;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.geom.Path2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+// --- Rasterisierung eines Stiftstrichs in das TiledRaster ---
+// "fxBridge" ist der Weg der Anwendung (Canvas-Snapshot über FxRasterBridge, Monocle headless),
+// "java2d" zeichnet denselben Strich mit Java2D in einen Puffer und übernimmt ihn per compositeRect,
+// "software"/"softwareSerial" mit SoftwareRasterizer (Zeilenbänder parallel bzw. in einem Thread).
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class StrokeBenchmark {
+
+    @Param({"2", "24"})
+    public float lineWidth;
+
+    @Param({"50", "2000"})
+    public int points;                      // Anzahl Punkte des Strichs (Zickzack über ca. 1500 x 800 px)
+
+    private TiledRaster raster;
+    private StrokeLog log;
+    private int stroke;
+    private double[] bounds;
+    private FxRasterBridge bridge;
+    private BufferedImage buffer;
+    private final SoftwareRasterizer software = new SoftwareRasterizer(), softwareSerial = new SoftwareRasterizer();
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        raster = new TiledRaster(2048, 1024, 0xFFFFFFFF);
+        log = new StrokeLog();
+        stroke = log.beginStroke(StrokeLog.STROKE, 0xFF2040C0, lineWidth, 100, 100);
+        for (int i = 1; i < points; i++) log.addPoint(100 + 1500.0 * i / points, 100 + (i % 2 == 0 ? 0 : 800) * ((double) (i % 7) / 6));
+        bounds = log.bounds(stroke);
+        softwareSerial.setParallel(false);
+        buffer = new BufferedImage((int) Math.ceil(bounds[2]) + 1, (int) Math.ceil(bounds[3]) + 1, BufferedImage.TYPE_INT_ARGB_PRE);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Dglass.platform=Monocle", "-Dmonocle.platform=Headless", "-Dprism.order=sw", "-Djava.awt.headless=true", "-Xmx4g"})
+    public TiledRaster fxBridge() throws Exception {
+        BenchSupport.startFx();
+        return BenchSupport.onFx(() -> {
+            if (bridge == null) bridge = new FxRasterBridge();
+            bridge.render(raster, bounds[0], bounds[1], bounds[2], bounds[3], g -> log.replay(g, stroke, raster.getWidth(), raster.getHeight()));
+            return raster;
+        });
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Djava.awt.headless=true", "-Xmx4g"})
+    public TiledRaster java2d() {
+        int bx = (int) Math.floor(bounds[0]), by = (int) Math.floor(bounds[1]); // Strich liegt vollständig im Raster
+        int bw = Math.min(buffer.getWidth(), raster.getWidth() - bx), bh = Math.min(buffer.getHeight(), raster.getHeight() - by);
+        int[] px = ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData();
+        java.util.Arrays.fill(px, 0);
+        Graphics2D g = buffer.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        g.translate(-bx, -by);
+        g.setColor(new java.awt.Color(log.argb(stroke), true));
+        g.setStroke(new BasicStroke(log.width(stroke), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+        Path2D.Float path = new Path2D.Float();
+        path.moveTo(log.x(stroke, 0), log.y(stroke, 0));
+        for (int p = 1; p < log.pointCount(stroke); p++) path.lineTo(log.x(stroke, p), log.y(stroke, p));
+        g.draw(path);
+        g.dispose();
+        raster.compositeRect(bx, by, bw, bh, px, 0, buffer.getWidth());
+        return raster;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+    public TiledRaster software() {
+        software.replay(log, stroke, raster);
+        return raster;
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = {"-Xmx4g"})
+    public TiledRaster softwareSerial() {
+        softwareSerial.replay(log, stroke, raster);
+        return raster;
+    }
+}
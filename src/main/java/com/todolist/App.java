@@ -1,22 +1,28 @@
 package com.todolist;
 
 // --- IMPORTANWEISUNGEN ---
+import javafx.animation.AnimationTimer;
+import javafx.animation.KeyFrame;
 import javafx.animation.PauseTransition;
+import javafx.animation.Timeline;
 import javafx.application.Application;
 import javafx.application.Platform;
 import javafx.beans.value.ChangeListener;
-import javafx.embed.swing.SwingFXUtils;
+import javafx.concurrent.Task;
+import javafx.geometry.Bounds;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.Cursor;
 import javafx.scene.Node;
 import javafx.scene.Scene;
-import javafx.scene.SnapshotParameters;
 import javafx.scene.canvas.Canvas;
 import javafx.scene.canvas.GraphicsContext;
 import javafx.scene.control.*;
-import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
 import javafx.scene.image.WritableImage;
+import javafx.scene.input.KeyCode;
+import javafx.scene.input.KeyCodeCombination;
+import javafx.scene.input.KeyCombination;
 import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
@@ -24,41 +30,107 @@ import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 import javafx.stage.Window;
 import javafx.util.Duration;
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
+import java.io.BufferedOutputStream;
 import java.io.File;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class App extends Application {
 
     // --- Enum für die Werkzeuge ---
     // Hinweis: Enum-Konstanten bleiben auf Englisch, um Codeänderungen zu minimieren.
-    private enum Tool { PEN, ERASER, RECTANGLE, OVAL }
+    private enum Tool { PEN, ERASER, RECTANGLE, OVAL, FILL, SELECT }
 
     // --- Zustandvariablen ---
     private Tool currentTool = Tool.PEN;        // Aktuell ausgewähltes Werkzeug
     private Color currentColor = Color.BLACK;   // Aktuelle Zeichenfarbe
     private Color backgroundColor = Color.WHITE;// Hintergrundfarbe (für Radierer/Löschen)
     private double currentLineWidth = 2.0;      // Aktuelle Linienbreite
+    private int fillTolerance = 32;             // Farbtoleranz des Füllwerkzeugs (0-255 je Kanal)
     private double startX, startY;             // Startkoordinaten für Formen/Linien
     private double currentScale = 1.0;          // Aktueller Zoomfaktor
+    private double lastX, lastY;                // Letzter Punkt des aktuellen Strichs
+    private int activeStroke = -1;              // Index des laufenden Strichs im Protokoll
+    private int selectedShape = -1;             // Gewählte Vektorform der aktiven Ebene (-1 = keine)
+    private double dragDx, dragDy;              // Bisherige Verschiebung der gewählten Form beim Ziehen
+    private final StrokeInput strokeInput = new StrokeInput(1024); // Puffert Mauspunkte, dezimiert und glättet sie einmal pro Pulse
+    private final StrokeInput.Sink strokeSink = this::appendStrokePoints;
+    private AnimationTimer inputPulse;          // Verarbeitet gepufferte Strichpunkte (nur aktiv, solange welche ausstehen)
+    private AnimationTimer frameClock;          // Misst den Abstand der Pulses (nur aktiv bei sichtbarem HUD oder -Dpaint.metrics.file)
     private static final double MIN_SCALE = 0.1; // Minimaler Zoomfaktor
     private static final double MAX_SCALE = 10.0;// Maximaler Zoomfaktor
     private static final double ZOOM_FACTOR = 1.1;// Zoom-Schrittfaktor
+    private static final long FILTER_PREVIEW_PIXELS = 1 << 18; // Höchstens so viele Pixel rechnet die Filtervorschau
 
     // --- UI-Komponenten ---
-    private Canvas canvas, previewCanvas;         // Haupt-Canvas und Vorschau-Canvas
+    private Canvas canvas, previewCanvas;         // Haupt-Canvas und Vorschau-Canvas (jeweils nur Viewport-Größe)
     private GraphicsContext gc, previewGc;       // Zeichenkontexte für die Canvases
     private Label widthValueLabel;                // Label zur Anzeige der Linienbreite
     private ColorPicker colorPicker;              // Farbwähler
     private Slider lineWidthSlider;               // Schieberegler für Linienbreite
     private ToggleGroup toolGroup;                // Gruppe für Werkzeug-Buttons
-    private ToggleButton penButton, eraserButton, rectButton, ovalButton; // Werkzeug-Buttons
-    private Button clearButton, saveButton, loadButton; // Aktions-Buttons
-    private StackPane canvasPane;                 // Container, der Canvases übereinanderlegt
+    private ToggleButton penButton, eraserButton, rectButton, ovalButton, fillButton, selectButton; // Werkzeug-Buttons
+    private Spinner<Integer> toleranceSpinner;    // Farbtoleranz für das Füllwerkzeug
+    private Button clearButton, saveButton, exportButton, loadButton; // Aktions-Buttons
+    private Button undoButton, redoButton;        // Verlaufs-Buttons
+    private Button filterButton;                  // Filter für die aktive Ebene (erst nach dem ersten Bild, siehe setupDeferredControls)
+    private boolean locked;                       // Filter, Laden oder Wiederherstellung läuft im Hintergrund (Bearbeiten gesperrt)
+    private VBox layersPanel;                     // Ebenenbereich rechts (erst nach dem ersten Bild)
+    private Label historyLabel;                   // Anzeige von Schritten und Speicherbedarf des Verlaufs
+    private Label previewStatsLabel;              // Berührte Pixel der Formvorschau im letzten Frame
+    private Label hudLabel;                       // Messwerte (F3 ein/aus; erst nach dem ersten Bild)
+    private Timeline hudTimer;                    // Aktualisiert hudLabel, solange es sichtbar ist
+    private CheckBox smoothCheckBox;              // Strichglättung an/aus
+    private ProgressBar ioProgress;               // Fortschritt beim Speichern/Laden
+    private Button cancelIoButton;                // Speichern/Laden abbrechen
+    private Task<Void> ioTask;                    // Laufender Speicher-/Ladevorgang (oder null)
+    private ExecutorService ioExecutor;           // Hintergrund-Thread für Speichern/Laden
+    private Pane canvasPane;                      // Container in Dokumentgröße, der die Canvases im Viewport hält
     private ScrollPane scrollPane;                // Container mit Scrollbars für canvasPane
+    private BorderPane rootPane;                  // Hauptlayout (Ebenenbereich wird nachträglich rechts eingesetzt)
+    private HBox controlsBar;                     // Obere Kontrollleiste (Filter und Messwerte werden nachträglich eingefügt)
     private PauseTransition debounceTimer;        // Timer für verzögertes Neuzeichnen nach Resize
     private Stage primaryStage;                   // Referenz auf das Hauptfenster
+    private ListView<Layer> layerList;            // Ebenen (oberste zuerst)
+    private Button addLayerButton, removeLayerButton, layerUpButton, layerDownButton; // Ebenen-Buttons
+    private CheckBox layerVisibleCheckBox;        // Sichtbarkeit der aktiven Ebene
+    private Slider layerOpacitySlider;            // Deckkraft der aktiven Ebene (0-100 %)
+    private ComboBox<Layer.BlendMode> blendModeBox; // Mischmodus der aktiven Ebene
+    private boolean syncingLayerControls;         // Unterdrückt Rückkopplung beim Übernehmen der Ebenenwerte
+
+    // --- Rasterdaten ---
+    private LayerStack layers;                    // Ebenen des Dokuments
+    private Compositor compositor;                // Gemischtes Gesamtbild (nur geänderte Kacheln werden neu gemischt)
+    private TiledRaster raster;                   // Raster der aktiven Ebene (Ziel aller Zeichenbefehle)
+    private TileRenderer renderer;                // Zeichnet sichtbare Kacheln auf canvas
+    private ShapePreview shapePreview;            // Formvorschau auf previewCanvas (Dirty-Rectangles, einmal pro Pulse)
+    private final FxRasterBridge bridge = new FxRasterBridge(); // Überträgt GC-Zeichnungen in das Raster
+    // Mit -Dpaint.rasterizer=software zeichnet statt des GraphicsContext der Rasterisierer in reinem Java
+    private final SoftwareRasterizer software = "software".equals(System.getProperty("paint.rasterizer")) ? new SoftwareRasterizer() : null;
+    private SoftwareRasterizer.StrokeCoverage strokeCoverage; // Deckung des laufenden Strichs (nur Software-Vorschau, sonst null)
+    private WritableImage softwarePreview;        // Strichvorschau des Software-Rasterisierers (wächst bei Bedarf)
+    private int[] softwarePreviewPixels = new int[0];
+    private final FloodFill floodFill = new FloodFill(); // Füllwerkzeug (liest nur die erreichten Kacheln)
+    private final StrokeLog log = new StrokeLog(); // Protokoll aller Zeichenbefehle (seit dem letzten Laden)
+    private ProjectFile project;                  // Zugehörige Projektdatei (null = noch nie als Projekt gespeichert)
+    // Verlauf mit Speicherbudget (MB, per -Dpaint.undo.budgetMb konfigurierbar)
+    private final UndoHistory history = new UndoHistory(Long.getLong("paint.undo.budgetMb", 256L) * 1024 * 1024);
+    // --- Messwerte (HUD, JFR, Export) ---
+    private final Metrics metrics = new Metrics();
+    // --- Automatisches Sichern (Journal + Sicherungspunkte, siehe Journal) ---
+    private Journal journal;                      // null = abgeschaltet
+    private Timeline checkpointTimer;             // Periodischer Sicherungspunkt, falls seitdem etwas geschrieben wurde
+    private PauseTransition checkpointDebounce;   // Sicherungspunkt nach Eigenschaftsänderungen (Regler ziehen)
+    private long inputNanos;                      // Zeitpunkt des ältesten noch nicht gezeichneten Mausereignisses (0 = keins)
 
 
     public static void main(String[] args) {
@@ -68,10 +140,28 @@ public class App extends Application {
     @Override
     public void start(Stage primaryStage) {
          this.primaryStage = primaryStage; // Referenz speichern
+        metrics.startup("launch", Metrics.nanosSinceProcessStart()); // JVM-Start und JavaFX-Initialisierung
         primaryStage.setTitle("Modernes Malprogramm - v3.1"); // Fenstertitel
-        // Canvases mit Standardgröße erstellen (wird ggf. beim Laden angepasst)
-        canvas = new Canvas(1024, 768); gc = canvas.getGraphicsContext2D();
-        previewCanvas = new Canvas(1024, 768); previewGc = previewCanvas.getGraphicsContext2D();
+        // Raster mit Standardgröße erstellen (wird ggf. beim Laden ersetzt)
+        layers = new LayerStack(1024, 768, TileRenderer.toArgbPre(backgroundColor));
+        raster = layers.getActive().getRaster();
+        compositor = new Compositor(layers); compositor.update();
+        // Canvases werden an den sichtbaren Bereich angepasst
+        canvas = new Canvas(1, 1); gc = canvas.getGraphicsContext2D();
+        previewCanvas = new Canvas(1, 1); previewGc = previewCanvas.getGraphicsContext2D();
+        renderer = new TileRenderer(canvas); renderer.setRaster(compositor.getOutput());
+        renderer.setOnFrame(() -> metrics.render(renderer.getNanosLastFrame(), renderer.getUploadsLastFrame()));
+        // Frame-Zeit = Abstand zweier Pulses; erfasst auch Pulses ohne Neuzeichnen und Arbeit außerhalb von render()
+        frameClock = new AnimationTimer() {
+            private long last;
+            @Override public void handle(long now) { if (last != 0) metrics.pulse(now - last); last = now; }
+            @Override public void stop() { super.stop(); last = 0; }
+        };
+        if (System.getProperty("paint.metrics.file") != null) frameClock.start();
+        shapePreview = new ShapePreview(previewCanvas, renderer);
+        inputPulse = new AnimationTimer() {
+            @Override public void handle(long now) { strokeInput.drain(strokeSink); stop(); }
+        };
         // Zeichenkontexte konfigurieren
         setupGC();
         setupPreviewGC();
@@ -83,6 +173,7 @@ public class App extends Application {
         setupMouseHandlers();
         // Zoom-Ereignisbehandler registrieren
         setupZoomHandler();
+        // Journal öffnen und ggf. letzten Stand wiederherstellen erst nach dem ersten Bild (siehe onFirstPaint)
         // Initiales Löschen nach Anzeigen des Fensters (verzögert)
     }
 
@@ -113,48 +204,77 @@ public class App extends Application {
         // Maus gedrückt
         previewCanvas.setOnMousePressed(e -> {
             scrollPane.setPannable(false); // Scrollen per Ziehen deaktivieren
-            // Koordinaten durch aktuellen Maßstab korrigieren
-            startX = e.getX() / currentScale;
-            startY = e.getY() / currentScale;
+            // Viewport-Koordinaten in Dokumentkoordinaten umrechnen
+            startX = renderer.toDocX(e.getX());
+            startY = renderer.toDocY(e.getY());
+            // Beide GCs zeichnen in Dokumentkoordinaten
+            renderer.applyDocTransform(gc); renderer.applyDocTransform(previewGc);
             // Einstellungen auf beide GCs anwenden
             gc.setLineWidth(currentLineWidth); previewGc.setLineWidth(currentLineWidth);
             gc.setStroke(currentColor); previewGc.setStroke(currentColor);
             // Aktion je nach Werkzeug
             switch(currentTool){
-                case PEN: // Stift: Neuen Pfad beginnen
-                    gc.beginPath(); gc.moveTo(startX, startY); gc.stroke(); break;
-                case ERASER: // Radierer: Mit Hintergrundfarbe zeichnen
-                    gc.setStroke(backgroundColor); gc.beginPath(); gc.moveTo(startX, startY); gc.stroke(); gc.setStroke(currentColor); break;
+                case PEN: // Stift: Neuen Strich im Protokoll beginnen
+                    markInput();
+                    activeStroke = log.beginStroke(StrokeLog.STROKE, StrokeLog.toArgb(currentColor), currentLineWidth, startX, startY);
+                    beginStrokeInput();
+                    if(software!=null) beginSoftwarePreview(); else gc.strokeLine(startX, startY, startX, startY);
+                    markDrawn(); break;
+                case ERASER: // Radierer: Mit Hintergrundfarbe zeichnen (auf transparenten Ebenen: zu Transparenz radieren)
+                    markInput();
+                    activeStroke = log.beginStroke(StrokeLog.ERASE, raster.getBackground()==0 ? 0 : StrokeLog.toArgb(backgroundColor), currentLineWidth, startX, startY);
+                    beginStrokeInput();
+                    if(software!=null && !log.isTransparentErase(activeStroke)) beginSoftwarePreview();
+                    else { gc.setStroke(backgroundColor); gc.strokeLine(startX, startY, startX, startY); gc.setStroke(currentColor); }
+                    markDrawn(); break;
                 case RECTANGLE: case OVAL: // Formen: Vorschau löschen
-                    if(previewCanvas.getWidth()>0 && previewCanvas.getHeight()>0) previewGc.clearRect(0,0,previewCanvas.getWidth(),previewCanvas.getHeight()); break;
+                    shapePreview.clear(); break;
+                case FILL: // Füllen: sofort beim Drücken
+                    markInput(); fillAt(startX, startY); break;
+                case SELECT: // Auswahl: oberste Form unter dem Mauszeiger (Toleranz ca. 4 Bildschirmpixel)
+                    markInput();
+                    selectedShape = layers.getActive().getShapes().hitTest(startX, startY, 4 / currentScale);
+                    dragDx = 0; dragDy = 0; drawSelection(); markDrawn(); break;
             }
         });
         // Maus gezogen
         previewCanvas.setOnMouseDragged(e -> {
-            double cX = e.getX() / currentScale; double cY = e.getY() / currentScale;
+            markInput();
+            double cX = renderer.toDocX(e.getX()); double cY = renderer.toDocY(e.getY());
             gc.setLineWidth(currentLineWidth); // Für Stift/Radierer wichtig
             switch(currentTool){
-                case PEN: // Stift: Linie zum Punkt ziehen
-                    gc.lineTo(cX, cY); gc.stroke(); break;
-                case ERASER: // Radierer: Linie mit Hintergrundfarbe ziehen
-                    gc.setStroke(backgroundColor); gc.lineTo(cX, cY); gc.stroke(); gc.setStroke(currentColor); break;
-                case RECTANGLE: case OVAL: // Formen: Alte Vorschau löschen, neue zeichnen
-                    if(previewCanvas.getWidth()>0 && previewCanvas.getHeight()>0) previewGc.clearRect(0,0,previewCanvas.getWidth(),previewCanvas.getHeight());
-                    drawPreviewShape(startX, startY, cX, cY, currentTool); break;
+                case PEN: case ERASER: // Stift/Radierer: Punkt nur puffern, gezeichnet wird einmal pro Pulse
+                    if(activeStroke<0) break;
+                    strokeInput.add(cX, cY, strokeSink); inputPulse.start(); break;
+                case RECTANGLE: case OVAL: // Formen: Vorschau anfordern (gezeichnet wird einmal pro Pulse, nur der geänderte Bereich)
+                    shapePreview.show(currentTool==Tool.RECTANGLE ? StrokeLog.RECTANGLE : StrokeLog.OVAL, startX, startY, cX, cY, currentColor, currentLineWidth); break;
+                case SELECT: // Gewählte Form mitziehen
+                    if(selectedShape>=0) moveSelection(cX - startX - dragDx, cY - startY - dragDy);
+                    break;
             }
         });
         // Maus losgelassen
         previewCanvas.setOnMouseReleased(e -> {
+            markInput();
             try { // try-finally für sicheres Reaktivieren des Pannings
-                double endX = e.getX() / currentScale; double endY = e.getY() / currentScale;
+                double endX = renderer.toDocX(e.getX()); double endY = renderer.toDocY(e.getY());
                 gc.setLineWidth(currentLineWidth); gc.setStroke(currentColor);
                 switch(currentTool){
-                    case PEN: case ERASER: break; // Nichts zu tun
+                    case PEN: case ERASER: // Restliche Punkte ausgeben, dann den Strich einmalig als Ganzes in das Raster übernehmen
+                        inputPulse.stop();
+                        if(activeStroke>=0){ strokeInput.end(strokeSink); commitCommand(activeStroke); }
+                        activeStroke = -1; strokeCoverage = null; break;
                     case RECTANGLE: case OVAL: // Formen: Vorschau löschen, finale Form zeichnen
-                        if(previewCanvas.getWidth()>0 && previewCanvas.getHeight()>0) previewGc.clearRect(0,0,previewCanvas.getWidth(),previewCanvas.getHeight());
+                        shapePreview.clear();
                         if(currentColor != backgroundColor && currentColor != Color.TRANSPARENT) // Nur zeichnen, wenn sichtbar
                             drawPermanentShape(startX, startY, endX, endY, currentTool);
                         break;
+                    case SELECT: // Verschiebung als ein Verlaufsschritt
+                        if(selectedShape>=0 && (dragDx!=0 || dragDy!=0)){
+                            history.push(layers.getActive().getShapes().movedEntry(selectedShape, dragDx, dragDy)); updateHistoryControls();
+                            if(journal!=null) journal.shapeMoved(layers.getActiveIndex(), layers.getActive().getShapes(), selectedShape, dragDx, dragDy);
+                        }
+                        dragDx = 0; dragDy = 0; break;
                 }
                 if(currentTool == Tool.ERASER) gc.setStroke(currentColor); // Farbe für GC zurücksetzen
             } finally {
@@ -164,16 +284,258 @@ public class App extends Application {
         updateCursor(); // Initialen Cursor setzen
     }
 
-    // --- Zeichenmethoden ---
-    private void drawPreviewShape(double x1, double y1, double x2, double y2, Tool shapeType) {
-        if(previewGc==null)return; previewGc.setLineWidth(currentLineWidth); previewGc.setStroke(currentColor);
-        double tX=Math.min(x1,x2),tY=Math.min(y1,y2),w=Math.abs(x1-x2),h=Math.abs(y1-y2);
-        if(w>0&&h>0){if(shapeType==Tool.RECTANGLE)previewGc.strokeRect(tX,tY,w,h); else if(shapeType==Tool.OVAL)previewGc.strokeOval(tX,tY,w,h);}
+    // --- Strich-Eingabe: Toleranzen folgen dem Zoom (ca. ein halber bzw. zwei Bildschirmpixel) ---
+    private void beginStrokeInput() {
+        lastX = startX; lastY = startY;
+        strokeInput.setTolerances(0.5 / currentScale, 2.0 / currentScale);
+        strokeInput.begin(startX, startY);
     }
+    // --- Übernimmt die fertigen Punkte eines Pulses ins Protokoll und zeichnet sie als ein Pfad ---
+    private void appendStrokePoints(float[] xy, int count) {
+        if(activeStroke<0) return;
+        if(strokeCoverage!=null){
+            for(int i=0;i<count;i++) log.addPoint(xy[2*i], xy[2*i+1]);
+            previewSoftwareStroke();
+            lastX = xy[2*count-2]; lastY = xy[2*count-1];
+            markDrawn();
+            return;
+        }
+        gc.setLineWidth(currentLineWidth);
+        gc.setStroke(currentTool==Tool.ERASER ? backgroundColor : currentColor);
+        gc.beginPath(); gc.moveTo(lastX, lastY);
+        for(int i=0;i<count;i++){ log.addPoint(xy[2*i], xy[2*i+1]); gc.lineTo(xy[2*i], xy[2*i+1]); }
+        gc.stroke();
+        gc.setStroke(currentColor);
+        lastX = xy[2*count-2]; lastY = xy[2*count-1];
+        markDrawn();
+    }
+    // --- Strichvorschau mit -Dpaint.rasterizer=software: dieselben Pixel, die commitCommand ins Raster schreibt ---
+    // Je Pulse rastert StrokeCoverage nur die neuen Segmente in die Deckung des ganzen Strichs. Die Kacheln unter ihnen
+    // werden aus dem Gesamtbild neu gezeichnet, darüber die Deckung, beschnitten auf diese Kacheln und den Sichtbereich
+    // (keine doppelte Deckung an Pulse-Grenzen). Radieren zu Transparenz zeigt weiterhin die gc-Vorschau in Hintergrundfarbe.
+    private void beginSoftwarePreview() {
+        strokeCoverage = new SoftwareRasterizer.StrokeCoverage(log, activeStroke, raster.getWidth(), raster.getHeight());
+        previewSoftwareStroke();
+    }
+    private void previewSoftwareStroke() {
+        double[] b = strokeCoverage.update();
+        if(b==null) return;
+        renderer.render(b[0], b[1], b[2], b[3]);
+        int span = TiledRaster.TILE_SIZE << renderer.getLevelLastFrame(); // Neu gezeichnet wurden ganze Kacheln dieser Stufe
+        int px0 = Math.max(Math.max(0, (int) Math.floor(renderer.toDocX(0))), (int) Math.floor(b[0] / span) * span);
+        int py0 = Math.max(Math.max(0, (int) Math.floor(renderer.toDocY(0))), (int) Math.floor(b[1] / span) * span);
+        int px1 = Math.min(Math.min(raster.getWidth(), (int) Math.ceil(renderer.toDocX(canvas.getWidth()))), (int) Math.ceil((b[0] + b[2]) / span) * span);
+        int py1 = Math.min(Math.min(raster.getHeight(), (int) Math.ceil(renderer.toDocY(canvas.getHeight()))), (int) Math.ceil((b[1] + b[3]) / span) * span);
+        int w = px1 - px0, h = py1 - py0;
+        if(w<=0 || h<=0) return;
+        if(softwarePreviewPixels.length < w * h) softwarePreviewPixels = new int[w * h];
+        strokeCoverage.paint(softwarePreviewPixels, 0, w, px0, py0, w, h);
+        if(softwarePreview==null || softwarePreview.getWidth()<w || softwarePreview.getHeight()<h)
+            softwarePreview = new WritableImage(Math.max(w, softwarePreview==null ? 0 : (int) softwarePreview.getWidth()), Math.max(h, softwarePreview==null ? 0 : (int) softwarePreview.getHeight()));
+        softwarePreview.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbPreInstance(), softwarePreviewPixels, 0, w);
+        gc.save();
+        gc.setImageSmoothing(currentScale < 1.0); // Wie TileRenderer: vergrößert scharfe Pixel
+        gc.drawImage(softwarePreview, 0, 0, w, h, px0, py0, w, h);
+        gc.restore();
+    }
+    // --- Eingabelatenz: Mausereignis merken / Pixel des Werkzeugs sind gezeichnet ---
+    // (JavaFX-Mausereignisse tragen keinen Zeitstempel; gemessen wird ab Eintritt in den Handler)
+    private void markInput() { if(inputNanos==0) inputNanos = System.nanoTime(); }
+    private void markDrawn() {
+        if(inputNanos==0) return;
+        metrics.latency(currentTool.name().toLowerCase(), System.nanoTime() - inputNanos);
+        inputNanos = 0;
+    }
+
+    // --- Zeichenmethoden ---
+    // Rechtecke und Ovale bleiben als Vektorformen der aktiven Ebene erhalten (Auswahlwerkzeug kann sie verschieben)
     private void drawPermanentShape(double x1, double y1, double x2, double y2, Tool shapeType) {
-        if(gc==null)return; gc.setLineWidth(currentLineWidth); gc.setStroke(currentColor);
-        double tX=Math.min(x1,x2),tY=Math.min(y1,y2),w=Math.abs(x1-x2),h=Math.abs(y1-y2);
-        if(w>0&&h>0){if(shapeType==Tool.RECTANGLE)gc.strokeRect(tX,tY,w,h); else if(shapeType==Tool.OVAL)gc.strokeOval(tX,tY,w,h);}
+        if(raster==null)return;
+        if(Math.abs(x1-x2)<=0||Math.abs(y1-y2)<=0)return;
+        int type = shapeType==Tool.RECTANGLE ? StrokeLog.RECTANGLE : StrokeLog.OVAL;
+        VectorShapes shapes = layers.getActive().getShapes();
+        int id = shapes.add(type, StrokeLog.toArgb(currentColor), currentLineWidth, x1, y1, x2, y2);
+        history.push(shapes.addedEntry(id));
+        if(journal!=null) journal.shapeAdded(layers.getActiveIndex(), shapes, id);
+        double[] b = shapes.bounds(id);
+        updateComposite(); renderer.render(b[0], b[1], b[2], b[3]);
+        updateHistoryControls();
+        metrics.dirty("commit", (long) (Math.min(b[2], raster.getWidth()) * Math.min(b[3], raster.getHeight()))); markDrawn();
+    }
+    // --- Verschiebt die gewählte Form; neu gemischt und gezeichnet werden nur die Kacheln unter altem und neuem Rechteck ---
+    private void moveSelection(double dx, double dy) {
+        if(dx==0 && dy==0) return;
+        VectorShapes shapes = layers.getActive().getShapes();
+        double[] before = shapes.bounds(selectedShape);
+        shapes.move(selectedShape, dx, dy);
+        dragDx += dx; dragDy += dy;
+        double[] after = shapes.bounds(selectedShape);
+        updateComposite();
+        renderer.render(before[0], before[1], before[2], before[3]); renderer.render(after[0], after[1], after[2], after[3]);
+        metrics.dirty("commit", (long) shapes.getTilesLastChange() * TiledRaster.TILE_PIXELS);
+        drawSelection(); markDrawn();
+    }
+    // --- Gestrichelter Rahmen um die gewählte Form auf dem Vorschau-Canvas ---
+    private void drawSelection() {
+        clearPreview();
+        VectorShapes shapes = layers.getActive().getShapes();
+        if(!shapes.isAlive(selectedShape)){ selectedShape = -1; return; }
+        double[] b = shapes.bounds(selectedShape);
+        previewGc.save();
+        previewGc.setStroke(Color.DODGERBLUE); previewGc.setLineWidth(1 / currentScale); previewGc.setLineDashes(4 / currentScale);
+        previewGc.strokeRect(b[0], b[1], b[2], b[3]);
+        previewGc.restore();
+    }
+    // --- Füllt die Fläche unter dem Punkt; gesichert und zurückgeschrieben wird nur das geänderte Rechteck ---
+    private void fillAt(double x, double y) {
+        int px = (int) Math.floor(x), py = (int) Math.floor(y);
+        long t0 = System.nanoTime();
+        UndoHistory.Entry flat = flattenShapes(null); // Umrisse der Formen begrenzen die Füllung (Fläche steht erst danach fest)
+        int[] box = floodFill.compute(raster, px, py, TileRenderer.toArgbPre(currentColor), fillTolerance);
+        if(box==null){ if(flat!=null) flat.undo(); return; }
+        int index = log.addFill(StrokeLog.toArgb(currentColor), fillTolerance, px, py);
+        TileDelta.Recorder rec = TileDelta.record(raster, box[0], box[1], box[2], box[3], log, index); // Vorher-Zustand sichern
+        floodFill.apply(raster, box);
+        history.push(UndoHistory.group(flat, rec.finish()));
+        if(journal!=null) journal.command(layers.getActiveIndex(), log, index);
+        updateComposite(); renderer.render(box[0], box[1], box[2], box[3]);
+        updateHistoryControls();
+        metrics.dirty("commit", (long) box[2] * box[3]); markDrawn();
+        metrics.operation("fill", System.nanoTime() - t0, floodFill.getFilledLastRun());
+    }
+    // --- Überträgt einen Protokollbefehl in das Raster und zeichnet den betroffenen Bereich neu ---
+    private void commitCommand(int index) {
+        double[] b = log.bounds(index);
+        UndoHistory.Entry flat = flattenShapes(b); // Nur Formen, die der Strich berühren kann
+        if(b==null){ b = new double[]{0, 0, raster.getWidth(), raster.getHeight()}; }
+        TileDelta.Recorder rec = TileDelta.record(raster, b[0], b[1], b[2], b[3], log, index); // Vorher-Zustand sichern
+        if(software!=null) software.replay(log, index, raster);
+        else if(log.isTransparentErase(index)) bridge.erase(raster, b[0], b[1], b[2], b[3], g -> log.replay(g, index, raster.getWidth(), raster.getHeight()));
+        else bridge.render(raster, b[0], b[1], b[2], b[3], g -> log.replay(g, index, raster.getWidth(), raster.getHeight()));
+        history.push(UndoHistory.group(flat, rec.finish()));
+        if(journal!=null) journal.command(layers.getActiveIndex(), log, index);
+        updateComposite(); renderer.render(b[0], b[1], b[2], b[3]);
+        updateHistoryControls();
+        metrics.dirty("commit", (long) (Math.min(b[2], raster.getWidth()) * Math.min(b[3], raster.getHeight()))); markDrawn();
+    }
+    // --- Übernimmt vor einem Raster-Befehl die Formen der aktiven Ebene, die sein Rechteck b berühren (null = alle), ---
+    // in ihr Raster (Zeichenreihenfolge bleibt erhalten, alle anderen Formen bleiben bearbeitbar).
+    // Das Gesamtbild sieht danach gleich aus; liefert den Rückgängig-Schritt oder null.
+    private UndoHistory.Entry flattenShapes(double[] b) {
+        VectorShapes shapes = layers.getActive().getShapes();
+        UndoHistory.Entry flat = shapes.flattenInto(raster, b);
+        if(flat!=null && selectedShape>=0 && !shapes.isAlive(selectedShape)){ selectedShape = -1; clearPreview(); }
+        return flat;
+    }
+    // --- Filter auf die aktive Ebene: Live-Vorschau im sichtbaren Ausschnitt, dann volle Auflösung im Hintergrund ---
+    private void onFilter() {
+        if(ioTask!=null || activeStroke>=0) return;
+        selectedShape = -1;
+        Window ownerWindow = (scrollPane != null && scrollPane.getScene() != null) ? scrollPane.getScene().getWindow() : primaryStage;
+        java.util.Optional<ImageFilter> chosen = FilterDialog.show(ownerWindow, this::previewFilter);
+        clearPreview();
+        chosen.ifPresent(this::applyFilter);
+    }
+    // Vorschau: sichtbarer Ausschnitt des Gesamtbilds auf einer Mip-Stufe mit höchstens FILTER_PREVIEW_PIXELS,
+    // Filterradius entsprechend verkleinert (bei mehreren Ebenen eine Näherung, angewendet wird auf die aktive)
+    private void previewFilter(ImageFilter f) {
+        clearPreview();
+        MipPyramid pyramid = renderer.getPyramid();
+        TiledRaster out = compositor.getOutput();
+        double x0 = Math.max(0, renderer.toDocX(0)), y0 = Math.max(0, renderer.toDocY(0));
+        double x1 = Math.min(out.getWidth(), renderer.toDocX(previewCanvas.getWidth())), y1 = Math.min(out.getHeight(), renderer.toDocY(previewCanvas.getHeight()));
+        if(x1<=x0 || y1<=y0) return;
+        int level = pyramid.levelFor(currentScale);
+        while(level+1<pyramid.levelCount() && (x1-x0)*(y1-y0)/(1L<<(2*level)) > FILTER_PREVIEW_PIXELS) level++;
+        pyramid.update(level);
+        TiledRaster src = pyramid.level(level);
+        double scale = 1.0 / (1 << level);
+        int x = (int) Math.floor(x0*scale), y = (int) Math.floor(y0*scale);
+        int w = Math.min(src.getWidth(), (int) Math.ceil(x1*scale)) - x, h = Math.min(src.getHeight(), (int) Math.ceil(y1*scale)) - y;
+        if(w<=0 || h<=0) return;
+        long t0 = System.nanoTime();
+        int[] px = FilterPipeline.filterRect(f.scaled(scale), src, x, y, w, h);
+        WritableImage image = new WritableImage(w, h);
+        image.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbPreInstance(), px, 0, w);
+        previewGc.save(); renderer.applyDocTransform(previewGc);
+        previewGc.setImageSmoothing(level>0);
+        previewGc.drawImage(image, x/scale, y/scale, w/scale, h/scale);
+        previewGc.restore();
+        metrics.dirty("preview", (long) w * h); markDrawn();
+        metrics.operation("filterPreview", System.nanoTime() - t0, (long) w * h);
+    }
+    // Volle Auflösung auf einem Snapshot der aktiven Ebene, Verlaufseintrag ebenfalls im Hintergrund;
+    // im FX-Thread werden nur noch die fertigen Kacheln eingesetzt
+    private void applyFilter(ImageFilter f) {
+        UndoHistory.Entry flat = flattenShapes(null); // Formen werden mitgefiltert
+        TiledRaster target = raster, source = raster.snapshot();
+        Task<Void> task = new Task<>() {
+            private TiledRaster result;
+            private TileDelta delta;
+            @Override protected Void call() {
+                long t0 = System.nanoTime();
+                result = FilterPipeline.run(f, source, p -> updateProgress(p, 1), this::isCancelled);
+                metrics.operation("filter", System.nanoTime() - t0, (long) source.getWidth() * source.getHeight()); // Metrics ist threadsicher
+                delta = TileDelta.between(target, source, result); // Liest nur Snapshot und Ergebnis
+                return null;
+            }
+            @Override protected void succeeded() {
+                endIoTask(); setLocked(false);
+                FilterPipeline.applyTo(result, target);
+                history.push(UndoHistory.group(flat, delta)); updateHistoryControls();
+                checkpoint(); // Filter stehen nicht im Protokoll
+                updateComposite(); renderer.render();
+                metrics.dirty("commit", (long) target.getWidth() * target.getHeight()); markDrawn();
+            }
+        };
+        Runnable restoreShapes = () -> { if(flat!=null){ flat.undo(); updateComposite(); renderer.render(); } };
+        task.setOnCancelled(e -> { endIoTask(); setLocked(false); restoreShapes.run(); });
+        task.setOnFailed(e -> {
+            endIoTask(); setLocked(false); restoreShapes.run();
+            Throwable ex = task.getException();
+            showErrorAlert("Unerwarteter Fehler", "Filter:\n" + (ex == null ? "?" : ex.getMessage()));
+            if (ex != null) ex.printStackTrace();
+        });
+        setLocked(true);
+        startIoTask(task);
+    }
+    // Während Filter, Laden oder Wiederherstellung bleiben Zeichenfläche, Ebenen und Verlauf gesperrt (das Ergebnis ersetzt die Ebene bzw. das Dokument)
+    private void setLocked(boolean on) {
+        locked = on;
+        canvasPane.setDisable(on); clearButton.setDisable(on);
+        if(layersPanel!=null){ layersPanel.setDisable(on); filterButton.setDisable(on); } // Noch nicht angelegt: übernimmt setupDeferredControls
+        if(on){ undoButton.setDisable(true); redoButton.setDisable(true); } else updateHistoryControls();
+    }
+    // --- Verlauf: Rückgängig / Wiederholen ---
+    private void undo() {
+        if(activeStroke>=0 || locked || !history.undo()) return; // Nicht während eines laufenden Strichs, Filters oder der Wiederherstellung
+        updateComposite(); renderer.render(); updateHistoryControls();
+        checkpoint(); // Rückgängig lässt sich nicht als Operation abspielen
+        if(selectedShape>=0) drawSelection(); // Auswahlrahmen folgt der Form (bzw. verschwindet mit ihr)
+    }
+    private void redo() {
+        if(activeStroke>=0 || locked || !history.redo()) return;
+        updateComposite(); renderer.render(); updateHistoryControls();
+        checkpoint();
+        if(selectedShape>=0) drawSelection();
+    }
+    // --- Mischt geänderte Kacheln neu; der Renderer lädt danach nur Kacheln mit neuer Version hoch ---
+    private void updateComposite() {
+        if(compositor.update()>0) metrics.dirty("composite", (long) compositor.getBlendedLastUpdate() * TiledRaster.TILE_PIXELS);
+        if(renderer.getRaster()!=compositor.getOutput()) renderer.setRaster(compositor.getOutput());
+    }
+    private void updateHistoryControls() {
+        if(undoButton==null) return;
+        undoButton.setDisable(!history.canUndo()); redoButton.setDisable(!history.canRedo());
+        historyLabel.setText(history.describe());
+    }
+    // --- Löscht das Vorschau-Canvas (unabhängig von der aktuellen Transformation) ---
+    private void clearPreview() {
+        if(previewGc==null||previewCanvas.getWidth()<=0||previewCanvas.getHeight()<=0)return;
+        previewGc.save(); previewGc.setTransform(1,0,0,1,0,0);
+        previewGc.clearRect(0,0,previewCanvas.getWidth(),previewCanvas.getHeight());
+        previewGc.restore();
+        if(shapePreview!=null) shapePreview.reset(); // Vorschau-Rechteck ist nun ohnehin gelöscht
     }
 
 
@@ -185,6 +547,12 @@ public class App extends Application {
         eraserButton = createToolButton("Radierer", Tool.ERASER, toolGroup, false);
         rectButton = createToolButton("Rechteck", Tool.RECTANGLE, toolGroup, false);
         ovalButton = createToolButton("Oval", Tool.OVAL, toolGroup, false);
+        fillButton = createToolButton("Füllen", Tool.FILL, toolGroup, false);
+        selectButton = createToolButton("Auswahl", Tool.SELECT, toolGroup, false);
+        selectButton.setTooltip(new Tooltip("Rechtecke und Ovale auswählen und verschieben"));
+        toleranceSpinner = new Spinner<>(0, 255, fillTolerance, 8); toleranceSpinner.setEditable(true); toleranceSpinner.setPrefWidth(75); toleranceSpinner.getStyleClass().add("control-element");
+        toleranceSpinner.setTooltip(new Tooltip("Farbtoleranz beim Füllen (0 = nur exakt gleiche Farbe)"));
+        toleranceSpinner.valueProperty().addListener((obs, ov, nV) -> fillTolerance = nV);
 
         // Farbwähler
         colorPicker = new ColorPicker(currentColor); colorPicker.getStyleClass().add("control-element"); colorPicker.setTooltip(new Tooltip("Farbe wählen"));
@@ -202,19 +570,77 @@ public class App extends Application {
         // Weitere Buttons
         // **** KORREKTUR HIER ****
         clearButton = new Button("Leeren"); clearButton.getStyleClass().addAll("control-element","clear-button"); clearButton.setTooltip(new Tooltip("Zeichnung löschen")); clearButton.setOnAction(e -> clearCanvas());
-        saveButton = new Button("Speichern"); saveButton.getStyleClass().add("control-element"); saveButton.setTooltip(new Tooltip("Als PNG speichern")); saveButton.setOnAction(e->onSave());
-        loadButton = new Button("Laden"); loadButton.getStyleClass().add("control-element"); loadButton.setTooltip(new Tooltip("PNG laden")); loadButton.setOnAction(e->onLoad());
+        saveButton = new Button("Speichern"); saveButton.getStyleClass().add("control-element"); saveButton.setTooltip(new Tooltip("Als Projekt speichern (nur geänderte Kacheln, Strg+S)")); saveButton.setOnAction(e->onSave());
+        exportButton = new Button("Exportieren"); exportButton.getStyleClass().add("control-element"); exportButton.setTooltip(new Tooltip("Als PNG exportieren")); exportButton.setOnAction(e->onExport());
+        loadButton = new Button("Laden"); loadButton.getStyleClass().add("control-element"); loadButton.setTooltip(new Tooltip("Projekt oder Bild laden")); loadButton.setOnAction(e->onLoad());
+        undoButton = new Button("Rückgängig"); undoButton.getStyleClass().add("control-element"); undoButton.setTooltip(new Tooltip("Letzten Schritt rückgängig machen (Strg+Z)")); undoButton.setOnAction(e->undo());
+        redoButton = new Button("Wiederholen"); redoButton.getStyleClass().add("control-element"); redoButton.setTooltip(new Tooltip("Schritt wiederholen (Strg+Y)")); redoButton.setOnAction(e->redo());
+        historyLabel = new Label(); historyLabel.getStyleClass().add("info-label"); historyLabel.setTooltip(new Tooltip("Schritte (rückgängig/wiederholen) und Speicherbedarf des Verlaufs"));
+        updateHistoryControls();
+        previewStatsLabel = new Label("0 px"); previewStatsLabel.getStyleClass().add("info-label"); previewStatsLabel.setMinWidth(70);
+        previewStatsLabel.setTooltip(new Tooltip("Von der Formvorschau im letzten Frame berührte Pixel"));
+        shapePreview.setOnFrame(() -> {
+            previewStatsLabel.setText(String.format("%,d px", shapePreview.getPixelsLastFrame()));
+            metrics.dirty("preview", shapePreview.getPixelsLastFrame()); markDrawn();
+        });
+        smoothCheckBox = new CheckBox("Glätten"); smoothCheckBox.getStyleClass().add("control-element"); smoothCheckBox.setSelected(strokeInput.isSmoothing());
+        smoothCheckBox.setTooltip(new Tooltip("Stift- und Radiererstriche glätten (Catmull-Rom)"));
+        smoothCheckBox.selectedProperty().addListener((obs, ov, nV) -> strokeInput.setSmoothing(nV));
+        ioProgress = new ProgressBar(0); ioProgress.setPrefWidth(100); ioProgress.setVisible(false); ioProgress.setTooltip(new Tooltip("Speichern/Laden läuft"));
+        cancelIoButton = new Button("Abbrechen"); cancelIoButton.getStyleClass().add("control-element"); cancelIoButton.setTooltip(new Tooltip("Speichern/Laden abbrechen")); cancelIoButton.setVisible(false);
+        cancelIoButton.setOnAction(e -> { if (ioTask != null) ioTask.cancel(); });
 
         // Listener für Werkzeugwechsel
         // **** KORREKTUR HIER ****
         toolGroup.selectedToggleProperty().addListener((obs, ov, nT) -> {
-            if(previewGc!=null) previewGc.clearRect(0,0,previewCanvas.getWidth(),previewCanvas.getHeight()); // Vorschau löschen
+            clearPreview(); // Vorschau löschen
+            selectedShape = -1;
             if(nT!=null) currentTool=(Tool)nT.getUserData(); // Neues Werkzeug setzen
             else{currentTool=Tool.PEN; if(penButton!=null) penButton.setSelected(true);} // Fallback
             updateCursor(); // Cursor anpassen
             System.out.println("Werkzeug gewählt: "+currentTool); // Konsolenausgabe
         });
      }
+    // --- Erstellt nach dem ersten Bild, was zum Zeichnen nicht gebraucht wird: Ebenenbereich, Filter-Button, Messwerte ---
+    // (Der Ebenenbereich verkleinert dabei den Viewport; updateViewport zeichnet über den Listener neu)
+    private void setupDeferredControls() {
+        filterButton = new Button("Filter…"); filterButton.getStyleClass().add("control-element"); filterButton.setTooltip(new Tooltip("Weichzeichnen, Schärfen, Tonwerte, Kurven oder Graustufen (aktive Ebene)")); filterButton.setOnAction(e->onFilter());
+        controlsBar.getChildren().add(controlsBar.getChildren().indexOf(historyLabel) + 1, filterButton);
+        hudLabel = new Label(); hudLabel.getStyleClass().add("info-label"); hudLabel.managedProperty().bind(hudLabel.visibleProperty());
+        hudLabel.setTooltip(new Tooltip("Messwerte: Frame-Zeit (Pulse zu Pulse), Zeichenzeit, Eingabelatenz, geänderte Fläche, Speichern/Laden (F3 ein/aus, Strg+Umschalt+M exportieren)"));
+        hudTimer = new Timeline(new KeyFrame(Duration.millis(250), e -> hudLabel.setText(metrics.hudText())));
+        hudTimer.setCycleCount(Timeline.INDEFINITE);
+        controlsBar.getChildren().add(controlsBar.getChildren().indexOf(previewStatsLabel) + 1, hudLabel);
+        setHudVisible(Boolean.getBoolean("paint.hud"));
+
+        // Ebenen
+        layerList = new ListView<>(); layerList.setPrefWidth(180); layerList.setPrefHeight(240); layerList.getStyleClass().add("layer-list");
+        layerList.getSelectionModel().selectedIndexProperty().addListener((obs, ov, nV) -> {
+            if(syncingLayerControls || nV.intValue()<0) return;
+            editLayers(() -> layers.setActiveIndex(layers.size() - 1 - nV.intValue()));
+        });
+        addLayerButton = new Button("+"); addLayerButton.getStyleClass().add("control-element"); addLayerButton.setTooltip(new Tooltip("Neue Ebene über der aktiven"));
+        addLayerButton.setOnAction(e -> editLayers(layers::addLayer));
+        removeLayerButton = new Button("−"); removeLayerButton.getStyleClass().add("control-element"); removeLayerButton.setTooltip(new Tooltip("Aktive Ebene löschen (leert den Verlauf)"));
+        removeLayerButton.setOnAction(e -> editLayers(() -> { if(layers.remove(layers.getActiveIndex())){ history.clear(); updateHistoryControls(); } }));
+        layerUpButton = new Button("▲"); layerUpButton.getStyleClass().add("control-element"); layerUpButton.setTooltip(new Tooltip("Ebene nach oben"));
+        layerUpButton.setOnAction(e -> editLayers(() -> layers.move(layers.getActiveIndex(), 1)));
+        layerDownButton = new Button("▼"); layerDownButton.getStyleClass().add("control-element"); layerDownButton.setTooltip(new Tooltip("Ebene nach unten"));
+        layerDownButton.setOnAction(e -> editLayers(() -> layers.move(layers.getActiveIndex(), -1)));
+        layerVisibleCheckBox = new CheckBox("Sichtbar"); layerVisibleCheckBox.getStyleClass().add("control-element");
+        layerVisibleCheckBox.selectedProperty().addListener((obs, ov, nV) -> editActiveLayer(l -> l.setVisible(nV)));
+        layerOpacitySlider = new Slider(0, 100, 100); layerOpacitySlider.getStyleClass().add("control-element"); layerOpacitySlider.setTooltip(new Tooltip("Deckkraft der Ebene (%)"));
+        layerOpacitySlider.valueProperty().addListener((obs, ov, nV) -> editActiveLayer(l -> l.setOpacity(nV.floatValue() / 100f)));
+        blendModeBox = new ComboBox<>(); blendModeBox.getItems().setAll(Layer.BlendMode.values()); blendModeBox.getStyleClass().add("control-element"); blendModeBox.setTooltip(new Tooltip("Mischmodus der Ebene"));
+        blendModeBox.valueProperty().addListener((obs, ov, nV) -> { if(nV!=null) editActiveLayer(l -> l.setMode(nV)); });
+        HBox layerButtons = new HBox(5, addLayerButton, removeLayerButton, layerUpButton, layerDownButton);
+        layersPanel = new VBox(8, new Label("Ebenen:"), layerList, layerButtons, layerVisibleCheckBox,
+                new Label("Deckkraft:"), layerOpacitySlider, new Label("Mischmodus:"), blendModeBox);
+        layersPanel.setPadding(new Insets(10)); layersPanel.getStyleClass().add("layers-panel");
+        refreshLayerList();
+        setLocked(locked); // Sperre auf die neuen Elemente übertragen
+        rootPane.setRight(layersPanel);
+    }
     // --- Hilfsmethode zum Erstellen der Werkzeug-Buttons ---
     private ToggleButton createToolButton(String text, Tool tool, ToggleGroup group, boolean selected) {
         ToggleButton button = new ToggleButton(text);
@@ -227,11 +653,19 @@ public class App extends Application {
     }
 
 
-    // --- Löscht beide Canvases ---
+    // --- Löscht das Raster samt Formen der aktiven Ebene und die Vorschau ---
     private void clearCanvas() {
-        double w=canvas.getWidth(), h=canvas.getHeight();
-        if(gc!=null && w>0 && h>0){gc.setFill(backgroundColor); gc.fillRect(0,0,w,h); gc.setStroke(currentColor);}
-        if(previewGc!=null && previewCanvas!=null){double pw=previewCanvas.getWidth(),ph=previewCanvas.getHeight(); if(pw>0 && ph>0)previewGc.clearRect(0,0,pw,ph);}
+        if(raster!=null){
+            UndoHistory.Entry flat = layers.getActive().getShapes().removeAll(); // Formen werden mit geleert (ohne sie vorher zu zeichnen)
+            selectedShape = -1;
+            TileDelta.Recorder rec = TileDelta.record(raster, 0, 0, raster.getWidth(), raster.getHeight(), log, log.size());
+            boolean transparent = raster.getBackground()==0; // Obere Ebenen werden transparent geleert
+            log.addClear(transparent ? 0 : StrokeLog.toArgb(backgroundColor)); raster.clear(transparent ? 0 : TileRenderer.toArgbPre(backgroundColor));
+            history.push(UndoHistory.group(flat, rec.finish())); updateComposite(); renderer.render(); updateHistoryControls();
+            if(journal!=null) journal.command(layers.getActiveIndex(), log, log.last()); // Wird beim Wiederherstellen wie ein Strich abgespielt
+        }
+        if(gc!=null) gc.setStroke(currentColor);
+        clearPreview();
         // System.out.println("Canvases gelöscht: "+w+"x"+h);
     }
     // --- Aktualisiert den Mauscursor ---
@@ -240,15 +674,54 @@ public class App extends Application {
         switch(currentTool){
             case PEN: previewCanvas.setCursor(Cursor.CROSSHAIR); break; // Fadenkreuz
             case ERASER: previewCanvas.setCursor(Cursor.HAND); break;    // Hand (oder spezifischer Radierercursor)
+            case FILL: previewCanvas.setCursor(Cursor.CROSSHAIR); break;
+            case SELECT: previewCanvas.setCursor(Cursor.MOVE); break;
             case RECTANGLE: case OVAL: default: previewCanvas.setCursor(Cursor.DEFAULT); break; // Standardpfeil
         }
     }
 
 
-    // --- Speichert die Zeichnung als PNG ---
+    // --- Speichert das Projekt im nativen Format (beim ersten Mal mit Dateiauswahl, danach nur geänderte Kacheln) ---
     private void onSave() {
+        if (project == null) {
+            FileChooser fileChooser = new FileChooser();
+            fileChooser.setTitle("Projekt speichern");
+            fileChooser.setInitialFileName("meine_zeichnung" + ProjectFile.EXTENSION);
+            fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("Projektdateien", "*" + ProjectFile.EXTENSION));
+            Window ownerWindow = (scrollPane != null && scrollPane.getScene() != null) ? scrollPane.getScene().getWindow() : primaryStage;
+            if (ownerWindow == null) { showErrorAlert("Interner Fehler", "Fenster konnte nicht ermittelt werden."); return; }
+            File file = fileChooser.showSaveDialog(ownerWindow);
+            if (file == null) { System.out.println("Speichern abgebrochen."); return; }
+            project = new ProjectFile(file.toPath());
+        }
+        ProjectFile target = project;
+        // Snapshots im FX-Thread (Copy-on-Write), geschrieben wird im Hintergrund
+        List<Layer> layerCopies = layers.snapshot();
+        StrokeLog logCopy = log.copyRange(0, log.size());
+        Task<Void> task = new Task<>() {
+            @Override protected Void call() throws Exception {
+                Metrics.IoTimer timer = metrics.beginIo("io.save");
+                target.save(layerCopies, logCopy, p -> updateProgress(p, 1.0), this::isCancelled);
+                timer.finish(target.getPath(), target.getLastSaveBytes());
+                return null;
+            }
+        };
+        task.setOnSucceeded(e -> { endIoTask(); System.out.printf("Gespeichert: %s (%,d Bytes geschrieben)%n", target.getPath(), target.getLastSaveBytes()); });
+        task.setOnCancelled(e -> { endIoTask(); System.out.println("Speichern abgebrochen."); });
+        task.setOnFailed(e -> {
+            endIoTask();
+            Throwable ex = task.getException();
+            if (ex instanceof IOException) showErrorAlert("I/O Fehler", "Speichern:\n" + ex.getMessage());
+            else showErrorAlert("Unerwarteter Fehler", "Speichern:\n" + (ex == null ? "?" : ex.getMessage()));
+            if (ex != null) ex.printStackTrace();
+        });
+        startIoTask(task);
+    }
+
+    // --- Exportiert die Zeichnung als PNG ---
+    private void onExport() {
         FileChooser fileChooser = new FileChooser();
-        fileChooser.setTitle("Zeichnung speichern"); // Dialogtitel
+        fileChooser.setTitle("Als PNG exportieren"); // Dialogtitel
         fileChooser.setInitialFileName("meine_zeichnung.png"); // Standard-Dateiname
         fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PNG Dateien", "*.png")); // Dateifilter
 
@@ -258,76 +731,290 @@ public class App extends Application {
         File file = fileChooser.showSaveDialog(ownerWindow);
 
         if (file != null) { // Nur fortfahren, wenn Datei ausgewählt wurde
-            Platform.runLater(() -> { // Grafikoperationen im FX-Thread
-                try {
-                    double cw = canvas.getWidth(), ch = canvas.getHeight();
-                    if (cw <= 0 || ch <= 0 || !Double.isFinite(cw) || !Double.isFinite(ch)) { showErrorAlert("Speichern Fehler", "Ungültige Canvas-Größe ("+cw+"x"+ch+")."); return; }
-
-                    // Snapshot erstellen
-                    SnapshotParameters params = new SnapshotParameters(); params.setFill(Color.TRANSPARENT);
-                    WritableImage wi = new WritableImage((int)Math.ceil(cw), (int)Math.ceil(ch));
-                    canvas.snapshot(params, wi);
-                    if (wi.isError()) { showErrorAlert("Snapshot Fehler", "Konnte keine Momentaufnahme erstellen: " + wi.getException()); return; }
-
-                    // Konvertieren & Hintergrund hinzufügen
-                    BufferedImage bi = SwingFXUtils.fromFXImage(wi, null);
-                    if (bi == null) { showErrorAlert("Konvertierungsfehler", "Bild konnte nicht konvertiert werden."); return; }
-                    BufferedImage finalImage = new BufferedImage(bi.getWidth(), bi.getHeight(), BufferedImage.TYPE_INT_RGB);
-                    java.awt.Graphics2D g2d = finalImage.createGraphics(); g2d.setColor(java.awt.Color.WHITE); g2d.fillRect(0,0,finalImage.getWidth(),finalImage.getHeight()); g2d.drawImage(bi,0,0,null); g2d.dispose();
-
-                    // Schreiben
-                    boolean success = ImageIO.write(finalImage, "png", file);
-                    if (!success) { showErrorAlert("Schreibfehler", "ImageIO konnte PNG nicht schreiben."); }
-                    else { System.out.println("Gespeichert: " + file.getAbsolutePath()); }
-
-                } catch (IOException ex) { showErrorAlert("I/O Fehler", "Speichern:\n" + ex.getMessage()); ex.printStackTrace(); }
-                  catch (Exception ex) { showErrorAlert("Unerwarteter Fehler", "Speichern:\n" + ex.getMessage()); ex.printStackTrace(); }
+            // Snapshot des Gesamtbilds im FX-Thread: teilt nur die Kacheln (Copy-on-Write), keine Pixelkopie
+            compositor.update();
+            TiledRaster snapshot = compositor.getOutput().snapshot();
+            PngWriter writer = new PngWriter(Integer.getInteger("paint.png.level", 6)); // Kompressionsstufe 0-9
+            Task<Void> task = new Task<>() {
+                @Override protected Void call() throws Exception {
+                    // In temporäre Datei schreiben und erst bei Erfolg umbenennen, damit Abbrechen nichts zerstört
+                    Metrics.IoTimer timer = metrics.beginIo("io.export");
+                    Path target = file.toPath(), tmp = target.resolveSibling(target.getFileName() + ".tmp");
+                    try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                        writer.write(snapshot, out, p -> updateProgress(p, 1.0), this::isCancelled);
+                    } catch (Exception ex) { Files.deleteIfExists(tmp); throw ex; }
+                    try { Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); }
+                    catch (AtomicMoveNotSupportedException ex) { Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING); }
+                    timer.finish(target, Files.size(target));
+                    return null;
+                }
+            };
+            task.setOnSucceeded(e -> { endIoTask(); System.out.println("Exportiert: " + file.getAbsolutePath()); });
+            task.setOnCancelled(e -> { endIoTask(); System.out.println("Export abgebrochen."); });
+            task.setOnFailed(e -> {
+                endIoTask();
+                Throwable ex = task.getException();
+                if (ex instanceof IOException) showErrorAlert("I/O Fehler", "Export:\n" + ex.getMessage());
+                else showErrorAlert("Unerwarteter Fehler", "Export:\n" + (ex == null ? "?" : ex.getMessage()));
+                if (ex != null) ex.printStackTrace();
             });
-        } else { System.out.println("Speichern abgebrochen."); }
+            startIoTask(task); // Konvertieren und Kodieren im Hintergrund
+        } else { System.out.println("Export abgebrochen."); }
     }
 
-    // --- Lädt eine Zeichnung aus einer PNG-Datei ---
+    // --- Startet einen Speicher-/Ladevorgang im Hintergrund und zeigt dessen Fortschritt ---
+    private void startIoTask(Task<Void> task) {
+        ioTask = task;
+        saveButton.setDisable(true); exportButton.setDisable(true); loadButton.setDisable(true);
+        ioProgress.progressProperty().bind(task.progressProperty());
+        ioProgress.setVisible(true); cancelIoButton.setVisible(true);
+        ioExecutor().submit(task);
+    }
+    // --- Setzt die Fortschrittsanzeige nach Ende des Vorgangs zurück ---
+    private void endIoTask() {
+        ioTask = null;
+        ioProgress.progressProperty().unbind(); ioProgress.setProgress(0);
+        ioProgress.setVisible(false); cancelIoButton.setVisible(false);
+        saveButton.setDisable(false); exportButton.setDisable(false); loadButton.setDisable(false);
+    }
+    // --- Führt r im FX-Thread aus und wartet darauf (für Hintergrund-Threads) ---
+    private static void runOnFxAndWait(Runnable r) {
+        CountDownLatch done = new CountDownLatch(1);
+        Platform.runLater(() -> { try { r.run(); } finally { done.countDown(); } });
+        try { done.await(); }
+        catch (InterruptedException ex) { Thread.currentThread().interrupt(); throw new CancellationException("Unterbrochen"); }
+    }
+    // --- Hintergrund-Thread für Datei-Ein-/Ausgabe (Daemon, damit das Beenden nicht blockiert) ---
+    private ExecutorService ioExecutor() {
+        if (ioExecutor == null) ioExecutor = Executors.newSingleThreadExecutor(r -> { Thread t = new Thread(r, "paint-io"); t.setDaemon(true); return t; });
+        return ioExecutor;
+    }
+
+    // --- Lädt ein Projekt oder eine Zeichnung aus einer Bilddatei ---
     private void onLoad() {
         FileChooser fileChooser = new FileChooser();
         fileChooser.setTitle("Zeichnung laden"); // Dialogtitel
-        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("PNG Dateien", "*.png")); // Filter
+        fileChooser.getExtensionFilters().addAll(
+                new FileChooser.ExtensionFilter("Projekte und PNG", "*" + ProjectFile.EXTENSION, "*.png"),
+                new FileChooser.ExtensionFilter("Projektdateien", "*" + ProjectFile.EXTENSION),
+                new FileChooser.ExtensionFilter("PNG Dateien", "*.png")); // Filter
 
         Window ownerWindow = (scrollPane != null && scrollPane.getScene() != null) ? scrollPane.getScene().getWindow() : primaryStage;
          if (ownerWindow == null) { showErrorAlert("Interner Fehler", "Fenster konnte nicht ermittelt werden."); return; }
         File file = fileChooser.showOpenDialog(ownerWindow);
 
-        if (file != null) {
+        if (file != null && ProjectFile.isProjectFile(file.toPath())) { loadProject(file.toPath()); }
+        else if (file != null) {
             System.out.println("Lade: " + file.getAbsolutePath());
-            try {
-                // Bilddatei lesen (kann im Hintergrund geschehen, hier aber einfach)
-                BufferedImage bufferedImage = ImageIO.read(file);
-                if (bufferedImage != null) {
-                     System.out.println("Bilddatei gelesen.");
-                     Platform.runLater(() -> { // UI-Updates im FX-Thread
-                        try {
-                             Image loadedImage = SwingFXUtils.toFXImage(bufferedImage, null); // Konvertieren
-                            if(loadedImage == null) { showErrorAlert("Konvertierungsfehler", "Laden: Bild konnte nicht konvertiert werden."); return; }
-                            double imgW = loadedImage.getWidth(), imgH = loadedImage.getHeight();
-                            if (imgW <= 0 || imgH <= 0 || !Double.isFinite(imgW) || !Double.isFinite(imgH)) { showErrorAlert("Größenfehler", "Geladenes Bild hat ungültige Größe."); return; }
-
-                            // Canvas-Größe an Bild anpassen
-                            canvas.setWidth(imgW); canvas.setHeight(imgH);
-                            previewCanvas.setWidth(imgW); previewCanvas.setHeight(imgH);
-                            // Beide Canvases leeren
-                            clearCanvas();
-                             // Bild auf Haupt-Canvas zeichnen
-                            if(gc!=null) gc.drawImage(loadedImage, 0, 0);
-                            // Zoom zurücksetzen
-                            setScale(1.0);
-                            System.out.println("Bild geladen und gezeichnet.");
-                        } catch (Exception ex) { showErrorAlert("Verarbeitungsfehler", "Laden (intern):\n" + ex.getMessage()); ex.printStackTrace(); }
-                    });
-                } else { showErrorAlert("Lesefehler", "Konnte Datei nicht als Bild lesen (Format?)."); }
-            } catch (IOException ex) { showErrorAlert("I/O Fehler", "Laden:\n" + ex.getMessage()); ex.printStackTrace(); }
-              catch (Exception ex) { showErrorAlert("Unerwarteter Fehler", "Laden (extern):\n" + ex.getMessage()); ex.printStackTrace(); }
+            long ceiling = Long.getLong("paint.load.maxMb", 1024L) * 1024 * 1024; // Speicherobergrenze für das Dokument
+            ImageLoader loader = new ImageLoader(ceiling, Math.min(ceiling / 4, 128L * 1024 * 1024));
+            int bg = TileRenderer.toArgbPre(backgroundColor);
+            Task<Void> task = new Task<>() {
+                private TiledRaster target; // Nur im FX-Thread verwendet
+                @Override protected Void call() throws Exception {
+                    // Dekodieren im Hintergrund; jede Übergabe wartet auf den FX-Thread (begrenzt den Speicher)
+                    Metrics.IoTimer timer = metrics.beginIo("io.load");
+                    loader.load(file, new ImageLoader.Sink() {
+                        @Override public void begin(int w, int h, int subsampling) {
+                            runOnFxAndWait(() -> {
+                                target = new TiledRaster(w, h, bg);
+                                setLayers(new LayerStack(new Layer("Hintergrund", target))); renderer.setPlaceholder(null);
+                                project = null; // Bild ist kein Projekt; Speichern fragt nach einer neuen Datei
+                                log.reset(); // Protokoll beschreibt ab jetzt Änderungen am geladenen Bild
+                                history.clear(); updateHistoryControls();
+                                clearPreview();
+                                setScale(1.0); // Zoom zurücksetzen
+                                if (subsampling > 1) System.out.println("Bild zu groß, wird mit Faktor 1/" + subsampling + " geladen (" + w + "x" + h + ").");
+                            });
+                        }
+                        @Override public void preview(int[] pixels, int w, int h) {
+                            runOnFxAndWait(() -> {
+                                WritableImage img = new WritableImage(w, h);
+                                img.getPixelWriter().setPixels(0, 0, w, h, PixelFormat.getIntArgbPreInstance(), pixels, 0, w);
+                                renderer.setPlaceholder(img); renderer.render();
+                            });
+                        }
+                        @Override public void rows(int y, int h, int[] pixels, int w) {
+                            runOnFxAndWait(() -> { target.compositeRect(0, y, w, h, pixels, 0, w); updateComposite(); renderer.render(0, y, w, h); });
+                        }
+                    }, this::isCancelled, p -> updateProgress(p, 1.0));
+                    timer.finish(file.toPath(), file.length());
+                    return null;
+                }
+            };
+            task.setOnSucceeded(e -> { endIoTask(); setLocked(false); renderer.setPlaceholder(null); renderer.render(); checkpoint(); System.out.println("Bild geladen und gezeichnet."); });
+            task.setOnCancelled(e -> { endIoTask(); setLocked(false); renderer.setPlaceholder(null); renderer.render(); checkpoint(); System.out.println("Laden abgebrochen."); });
+            task.setOnFailed(e -> {
+                endIoTask(); setLocked(false); renderer.setPlaceholder(null); renderer.render();
+                Throwable ex = task.getException();
+                if (ex instanceof IOException) showErrorAlert("I/O Fehler", "Laden:\n" + ex.getMessage());
+                else showErrorAlert("Unerwarteter Fehler", "Laden:\n" + (ex == null ? "?" : ex.getMessage()));
+                if (ex != null) ex.printStackTrace();
+            });
+            setLocked(true); // Zeilen werden deckend übernommen: Striche im noch nicht geladenen Bereich würden übermalt
+            startIoTask(task);
         } else { System.out.println("Laden abgebrochen."); }
     }
 
+    // --- Öffnet eine Projektdatei; die Kacheln werden nur gemappt und erst beim Zeichnen gelesen ---
+    private void loadProject(Path path) {
+        System.out.println("Lade Projekt: " + path.toAbsolutePath());
+        Task<Void> task = new Task<>() {
+            private ProjectFile.Document doc;
+            @Override protected Void call() throws Exception {
+                Metrics.IoTimer timer = metrics.beginIo("io.load"); // Nur Index und Protokoll; Kacheln werden gemappt
+                doc = ProjectFile.load(path);
+                timer.finish(path, Files.size(path));
+                return null;
+            }
+            @Override protected void succeeded() {
+                endIoTask(); setLocked(false);
+                setLayers(LayerStack.of(doc.layers)); renderer.setPlaceholder(null);
+                project = doc.file;
+                log.reset(); log.append(doc.log, 0, doc.log.size());
+                history.clear(); updateHistoryControls();
+                clearPreview();
+                setScale(1.0);
+                renderer.render();
+                System.out.println("Projekt geladen (" + raster.getWidth() + "x" + raster.getHeight() + ", " + layers.size() + " Ebenen, " + log.size() + " Befehle).");
+            }
+        };
+        task.setOnCancelled(e -> { endIoTask(); setLocked(false); System.out.println("Laden abgebrochen."); });
+        task.setOnFailed(e -> {
+            endIoTask(); setLocked(false);
+            Throwable ex = task.getException();
+            if (ex instanceof IOException) showErrorAlert("I/O Fehler", "Laden:\n" + ex.getMessage());
+            else showErrorAlert("Unerwarteter Fehler", "Laden:\n" + (ex == null ? "?" : ex.getMessage()));
+            if (ex != null) ex.printStackTrace();
+        });
+        setLocked(true); // setLayers ersetzt am Ende das Dokument; Striche während des Ladens gingen verloren
+        startIoTask(task);
+    }
+
+    // --- Ersetzt den Ebenenstapel (nach dem Laden) ---
+    private void setLayers(LayerStack stack) {
+        layers = stack; compositor = new Compositor(stack);
+        raster = layers.getActive().getRaster(); selectedShape = -1;
+        compositor.update(); renderer.setRaster(compositor.getOutput());
+        refreshLayerList();
+        checkpoint();
+    }
+
+    // --- Automatisches Sichern starten (-Dpaint.autosave=false schaltet ab) ---
+    // Verzeichnis per -Dpaint.autosave.dir, Commit-Frist per -Dpaint.autosave.commitMs, Sicherungspunkte per -Dpaint.autosave.checkpointS
+    // Öffnen, Sicherungspunkt laden und Journal abspielen laufen im Hintergrund; bis dahin bleibt das Bearbeiten gesperrt,
+    // damit der wiederhergestellte Stand keine neuen Striche überschreibt
+    private void startAutosave() {
+        if(!Boolean.parseBoolean(System.getProperty("paint.autosave", "true"))) return;
+        Path dir = Path.of(System.getProperty("paint.autosave.dir", Path.of(System.getProperty("user.home"), ".malprogramm", "autosave").toString()));
+        Task<Void> task = new Task<>() {
+            private Journal opened;
+            private Journal.Recovery rec;
+            @Override protected Void call() throws IOException {
+                opened = Journal.open(dir, Long.getLong("paint.autosave.commitMs", 50L), metrics);
+                if(opened==null) return null;
+                try { rec = Journal.recover(dir); }
+                catch(IOException | RuntimeException ex){ opened.close(); throw ex; }
+                return null;
+            }
+            @Override protected void succeeded() {
+                endIoTask(); setLocked(false);
+                if(opened==null){ System.out.println("Automatisches Sichern aus: " + dir + " wird von einer anderen Instanz benutzt."); return; }
+                journal = opened;
+                if(rec!=null){
+                    setLayers(LayerStack.of(rec.layers)); renderer.render();
+                    System.out.println("Letzter Stand wiederhergestellt (Sicherungspunkt " + rec.generation + ", " + rec.replayed + " Operationen).");
+                } else checkpoint(); // Ausgangsstand (nach der Wiederherstellung legt setLayers ihn an)
+                startCheckpointTimers();
+            }
+        };
+        task.setOnFailed(e -> {
+            endIoTask(); setLocked(false);
+            Throwable ex = task.getException();
+            System.err.println("Automatisches Sichern nicht möglich: " + (ex == null ? "?" : ex.getMessage()));
+        });
+        setLocked(true);
+        startIoTask(task);
+        cancelIoButton.setVisible(false); // Abbrechen würde den gesicherten Stand beim nächsten Sicherungspunkt verwerfen
+    }
+    // --- Sicherungspunkte nach Eigenschaftsänderungen und periodisch ---
+    private void startCheckpointTimers() {
+        checkpointDebounce = new PauseTransition(Duration.millis(500)); checkpointDebounce.setOnFinished(e -> checkpoint());
+        checkpointTimer = new Timeline(new KeyFrame(Duration.seconds(Math.max(1, Long.getLong("paint.autosave.checkpointS", 60L))), e -> {
+            if(journal!=null && journal.getBytesSinceCheckpoint()>0) checkpoint(); // Journal kurz halten
+        }));
+        checkpointTimer.setCycleCount(Timeline.INDEFINITE); checkpointTimer.play();
+    }
+    // --- Stand sichern (Snapshots per Copy-on-Write; im Hintergrund werden nur geänderte Kacheln angehängt) ---
+    private void checkpoint() {
+        if(journal!=null) journal.checkpoint(layers.snapshot());
+    }
+    // --- Ebenenliste und Regler an den Stapel anpassen (Liste zeigt die oberste Ebene zuerst) ---
+    private void refreshLayerList() {
+        if(layerList==null) return;
+        syncingLayerControls = true;
+        try {
+            List<Layer> items = new java.util.ArrayList<>(layers.layers());
+            java.util.Collections.reverse(items);
+            layerList.getItems().setAll(items);
+            layerList.getSelectionModel().select(layers.size() - 1 - layers.getActiveIndex());
+            Layer active = layers.getActive();
+            layerVisibleCheckBox.setSelected(active.isVisible());
+            layerOpacitySlider.setValue(active.getOpacity() * 100);
+            blendModeBox.setValue(active.getMode());
+            removeLayerButton.setDisable(layers.size() <= 1);
+            layerUpButton.setDisable(layers.getActiveIndex() >= layers.size() - 1);
+            layerDownButton.setDisable(layers.getActiveIndex() <= 0);
+        } finally { syncingLayerControls = false; }
+    }
+    // --- Strukturänderung an den Ebenen (nicht während eines Strichs) ---
+    private void editLayers(Runnable change) {
+        if(activeStroke>=0) return;
+        int revision = layers.getRevision();
+        change.run();
+        if(layers.getRevision()!=revision) checkpoint(); // Ebenenindizes im Journal gelten nur bis zur nächsten Strukturänderung
+        raster = layers.getActive().getRaster();
+        if(selectedShape>=0){ selectedShape = -1; clearPreview(); } // Auswahl gehört zur vorher aktiven Ebene
+        refreshLayerList();
+        updateComposite(); renderer.render();
+    }
+    // --- Eigenschaftsänderung der aktiven Ebene (Sichtbarkeit, Deckkraft, Mischmodus) ---
+    private void editActiveLayer(java.util.function.Consumer<Layer> change) {
+        if(syncingLayerControls) return;
+        change.accept(layers.getActive());
+        if(checkpointDebounce!=null) checkpointDebounce.playFromStart();
+        layerList.refresh(); // Anzeige "(aus)" aktualisieren
+        updateComposite(); renderer.render();
+    }
+
+    // --- Messwerte in der Kontrollleiste ein-/ausblenden ---
+    private void setHudVisible(boolean visible) {
+        hudLabel.setVisible(visible);
+        if(visible){ hudLabel.setText(metrics.hudText()); hudTimer.play(); frameClock.start(); }
+        else { hudTimer.stop(); if (System.getProperty("paint.metrics.file") == null) frameClock.stop(); }
+    }
+    // --- Exportiert alle Messwerte als CSV-Datei ---
+    private void onExportMetrics() {
+        FileChooser fileChooser = new FileChooser();
+        fileChooser.setTitle("Messwerte exportieren");
+        fileChooser.setInitialFileName("messwerte.csv");
+        fileChooser.getExtensionFilters().add(new FileChooser.ExtensionFilter("CSV Dateien", "*.csv"));
+        File file = fileChooser.showSaveDialog(primaryStage);
+        if (file == null) return;
+        try { metrics.export(file.toPath()); System.out.println("Messwerte exportiert: " + file.getAbsolutePath()); }
+        catch (IOException ex) { showErrorAlert("I/O Fehler", "Messwerte exportieren:\n" + ex.getMessage()); }
+    }
+
+    // --- Beim Beenden: Messwerte optional in die per -Dpaint.metrics.file angegebene Datei schreiben ---
+    @Override
+    public void stop() {
+        if (journal != null) { journal.close(true); journal = null; } // Sauber beendet: nichts wiederherzustellen
+        String file = System.getProperty("paint.metrics.file");
+        if (file == null) return;
+        try { metrics.export(Path.of(file)); }
+        catch (IOException ex) { System.err.println("Messwerte konnten nicht geschrieben werden: " + ex.getMessage()); }
+    }
+
     // --- Zeigt Fehlermeldungen an ---
     private void showErrorAlert(String title, String message) {
         // Sicherstellen, dass dies im FX Application Thread ausgeführt wird
@@ -369,42 +1056,64 @@ public class App extends Application {
              // und das ScrollPane führt das normale Scrollen aus.
          });
     }
-    // --- Wendet die Skalierung auf den canvasPane an ---
+    // --- Wendet die Skalierung an (canvasPane erhält die skalierte Dokumentgröße) ---
     private void setScale(double newScale) {
         if(canvasPane==null)return; // Sicherheitscheck
-        canvasPane.setScaleX(newScale);
-        canvasPane.setScaleY(newScale);
         currentScale = newScale; // Neuen Maßstab speichern
+        renderer.setScale(newScale);
+        updateContentSize();
+        updateViewport();
          // Konsolenausgabe (optional)
          // System.out.println("Maßstab gesetzt auf: "+currentScale);
     }
+    // --- Passt die Größe des Scroll-Inhalts an Dokumentgröße * Zoom an ---
+    private void updateContentSize() {
+        double w = raster.getWidth() * currentScale, h = raster.getHeight() * currentScale;
+        canvasPane.setMinSize(w, h); canvasPane.setPrefSize(w, h); canvasPane.setMaxSize(w, h);
+    }
+    // --- Legt die Canvases über den sichtbaren Bereich und zeichnet die sichtbaren Kacheln ---
+    private void updateViewport() {
+        if(scrollPane==null||canvasPane==null)return;
+        Bounds vb = scrollPane.getViewportBounds();
+        double offX = Math.max(0, -vb.getMinX()), offY = Math.max(0, -vb.getMinY());
+        double contentW = raster.getWidth() * currentScale, contentH = raster.getHeight() * currentScale;
+        double w = Math.max(1, Math.min(vb.getWidth(), contentW - offX)), h = Math.max(1, Math.min(vb.getHeight(), contentH - offY));
+        canvas.relocate(offX, offY); previewCanvas.relocate(offX, offY);
+        if(canvas.getWidth()!=w||canvas.getHeight()!=h){canvas.setWidth(w); canvas.setHeight(h); previewCanvas.setWidth(w); previewCanvas.setHeight(h);}
+        renderer.setOffset(offX, offY);
+        renderer.render();
+    }
 
     // --- Erstellt das Layout, die Szene, Bindings und Debounce Listener ---
     private void setupLayoutsAndScene(Stage pStage) { // Variable pStage statt primaryStage
         // --- Obere Kontrollleiste ---
-        HBox controlsLayout = new HBox(10); controlsLayout.setPadding(new Insets(10)); controlsLayout.setAlignment(Pos.CENTER_LEFT); controlsLayout.getStyleClass().add("controls-bar");
+        HBox controlsLayout = controlsBar = new HBox(10); controlsLayout.setPadding(new Insets(10)); controlsLayout.setAlignment(Pos.CENTER_LEFT); controlsLayout.getStyleClass().add("controls-bar");
         HBox widthLayout = new HBox(5, lineWidthSlider, widthValueLabel); widthLayout.setAlignment(Pos.CENTER_LEFT);
-        Separator s1=new Separator(javafx.geometry.Orientation.VERTICAL), s2=new Separator(javafx.geometry.Orientation.VERTICAL), s3=new Separator(javafx.geometry.Orientation.VERTICAL);
+        Separator s1=new Separator(javafx.geometry.Orientation.VERTICAL), s2=new Separator(javafx.geometry.Orientation.VERTICAL), s3=new Separator(javafx.geometry.Orientation.VERTICAL), s4=new Separator(javafx.geometry.Orientation.VERTICAL);
         // Elemente hinzufügen (Validierung, dass Buttons existieren, ist gut, aber hier vereinfacht)
         controlsLayout.getChildren().addAll(
-                new Label("Datei:"), saveButton, loadButton, // Datei-Operationen
-                s1, new Label("Werkzeuge:"), penButton, eraserButton, rectButton, ovalButton, // Werkzeuge
+                new Label("Datei:"), saveButton, exportButton, loadButton, ioProgress, cancelIoButton, // Datei-Operationen
+                s1, new Label("Werkzeuge:"), penButton, eraserButton, rectButton, ovalButton, fillButton, selectButton, toleranceSpinner, // Werkzeuge
                 s2, new Label("Farbe:"), colorPicker, // Farbe
-                s3, new Label("Breite:"), widthLayout, // Breite
+                s3, new Label("Breite:"), widthLayout, smoothCheckBox, // Breite und Glättung
+                s4, new Label("Verlauf:"), undoButton, redoButton, historyLabel, // Rückgängig/Wiederholen (Filter folgt nach dem ersten Bild)
+                new Label("Vorschau:"), previewStatsLabel, // Pixel pro Vorschau-Frame (Messwerte folgen nach dem ersten Bild)
                 new Spacer(), clearButton); // Abstand und Leeren-Button
 
         // --- Hauptlayout ---
-        BorderPane root = new BorderPane();
-        // StackPane für die Canvases
-        canvasPane = new StackPane(canvas, previewCanvas); // previewCanvas über canvas
+        BorderPane root = rootPane = new BorderPane();
+        // Pane in Dokumentgröße für die Canvases (die Canvases selbst decken nur den Viewport ab)
+        canvasPane = new Pane(canvas, previewCanvas); // previewCanvas über canvas
         canvasPane.getStyleClass().add("canvas-container");
         canvasPane.setStyle("-fx-background-color: "+cssColor(backgroundColor)+";"); // Hintergrund setzen
+        updateContentSize();
 
-        // ScrollPane um das StackPane
+        // ScrollPane um den canvasPane
         scrollPane = new ScrollPane(canvasPane);
         scrollPane.setPannable(true); // Scrollen per Ziehen initial aktivieren
         root.setCenter(scrollPane); // ScrollPane in die Mitte
         root.setTop(controlsLayout); // Kontrollleiste oben
+        // --- Ebenen rechts: erst nach dem ersten Bild (setupDeferredControls) ---
 
         // --- KEINE Bindings für Canvas-Größe mehr! ---
 
@@ -423,11 +1132,21 @@ public class App extends Application {
         };
         scrollPane.widthProperty().addListener(resizeListener); // Auf Breite hören
         scrollPane.heightProperty().addListener(resizeListener);// Auf Höhe hören
+        // Bei Scrollen oder Größenänderung sichtbare Kacheln neu zeichnen
+        scrollPane.viewportBoundsProperty().addListener((o, ov, nv) -> updateViewport());
 
         // --- Szene erstellen ---
         Scene scene = new Scene(root, 1024, 768); // Anfangsgröße des Fensters
+        // Tastenkürzel für den Verlauf
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.S, KeyCombination.SHORTCUT_DOWN), () -> { if(ioTask==null) onSave(); });
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN), this::undo);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Y, KeyCombination.SHORTCUT_DOWN), this::redo);
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.Z, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN), this::redo);
+        // Messwerte
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.F3), () -> { if(hudLabel!=null) setHudVisible(!hudLabel.isVisible()); });
+        scene.getAccelerators().put(new KeyCodeCombination(KeyCode.M, KeyCombination.SHORTCUT_DOWN, KeyCombination.SHIFT_DOWN), this::onExportMetrics);
 
-        // --- CSS laden ---
+        // --- CSS laden (bleibt vor dem ersten Bild: nachträglich geladen würde die ganze Szene neu gestylt und umgebrochen) ---
         try {
             String cssPath = getClass().getResource("/styles.css").toExternalForm();
             if (cssPath != null) {
@@ -442,13 +1161,29 @@ public class App extends Application {
 
         // --- Initiale Aktionen nach dem Anzeigen (verzögert) ---
         Platform.runLater(()->{
-            System.out.println("Initiale Verzögerung: clearCanvas / setup GCs.");
-            clearCanvas(); // Initiales Löschen
+            System.out.println("Initiale Verzögerung: Viewport / setup GCs.");
+            updateViewport(); // Initiales Zeichnen (Raster ist bereits leer, kein Verlaufseintrag)
             setupGC();     // GCs initialisieren, nachdem Canvas Größe hat
             setupPreviewGC();
+            // Der nächste Pulse bringt die Kacheln auf den Bildschirm
+            scene.addPostLayoutPulseListener(new Runnable() {
+                @Override public void run() { scene.removePostLayoutPulseListener(this); onFirstPaint(); }
+            });
         });
     }
 
+    // --- Erstes Bild ist sichtbar: Startzeit erfassen, dann das Aufgeschobene nachholen ---
+    // Ziel per -Dpaint.startup.targetMs; -Dpaint.exitAfterFirstPaint=true beendet danach (Messläufe, CDS-Archiv)
+    private void onFirstPaint() {
+        long nanos = Metrics.nanosSinceProcessStart();
+        metrics.startup("firstPaint", nanos);
+        long target = Long.getLong("paint.startup.targetMs", 1500L);
+        if(nanos>=0) System.out.printf("Erstes Bild nach %d ms (Ziel %d ms)%s%n", nanos / 1_000_000, target, nanos / 1_000_000 > target ? " - ZIEL ÜBERSCHRITTEN" : "");
+        if(Boolean.getBoolean("paint.exitAfterFirstPaint")){ Platform.exit(); return; }
+        setupDeferredControls();
+        startAutosave(); // Wiederherstellung läuft im Hintergrund und verzögert weder das erste Bild noch spätere Pulses
+    }
+
     // --- Hilfsmethode für CSS-Farbstring ---
     private String cssColor(Color c) {
         return String.format("#%02X%02X%02X", (int)(c.getRed()*255), (int)(c.getGreen()*255), (int)(c.getBlue()*255));
@@ -458,4 +1193,4 @@ public class App extends Application {
         public Spacer() { super(); HBox.setHgrow(this, Priority.ALWAYS); VBox.setVgrow(this, Priority.ALWAYS); setMinSize(Region.USE_PREF_SIZE, Region.USE_PREF_SIZE); }
     }
 
-} // Ende der Klasse App
\ No newline at end of file
+} // Ende der Klasse App
\ No newline at end of file
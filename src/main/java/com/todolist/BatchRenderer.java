@@ -0,0 +1,193 @@
+package com.todolist;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.PrintStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Stream;
+
+// --- Batch-Modus ohne Oberfläche: rendert Zeichenskripte (siehe DrawingScript) als PNG ---
+// Die Eingabedateien werden über einen ForkJoinPool (Work-Stealing) auf alle Kerne verteilt;
+// gezeichnet wird mit einem StrokeRasterizer (Java2D oder reines Java), geschrieben mit PngWriter. Aufruf über Launcher --headless.
+public class BatchRenderer {
+
+    static final String USAGE = String.join(System.lineSeparator(),
+            "Aufruf: --headless [Optionen] <Skript|Ordner>...",
+            "  -o, --out <Ordner>   Zielordner für die PNGs (Standard: neben dem Skript)",
+            "  -j, --threads <n>    Anzahl paralleler Threads (Standard: alle Kerne)",
+            "  --level <0-9>        PNG-Kompressionsstufe (Standard: paint.png.level bzw. 6)",
+            "  --rasterizer <name>  java2d oder software (Standard: paint.rasterizer bzw. java2d)",
+            "  -h, --help           Diese Hilfe",
+            "Ordner werden nach *.paint-Dateien durchsucht.");
+
+    private final List<Path> inputs = new ArrayList<>();
+    private Path outDir;                    // null: PNG neben dem Skript
+    private int threads = Runtime.getRuntime().availableProcessors();
+    private int level = Integer.getInteger("paint.png.level", 6);
+    private String rasterizer = "software".equals(System.getProperty("paint.rasterizer")) ? "software" : "java2d";
+    private final PrintStream err;
+
+    // Je Arbeitsthread ein eigener Rasterisierer (samt Hilfspuffer)
+    private final ThreadLocal<StrokeRasterizer> bridges = ThreadLocal.withInitial(() -> StrokeRasterizer.create(rasterizer));
+
+    BatchRenderer(PrintStream err) { this.err = err; }
+
+    // --- Einstiegspunkt; liefert den Exit-Code (0 = alles gerendert, 1 = Fehler in Dateien, 2 = falscher Aufruf) ---
+    public static int run(String[] args, PrintStream out, PrintStream err) {
+        System.setProperty("java.awt.headless", "true");
+        BatchRenderer batch = new BatchRenderer(err);
+        try {
+            if (!batch.parseArgs(args)) { out.println(USAGE); return 0; }
+        } catch (IllegalArgumentException ex) {
+            err.println(ex.getMessage()); err.println(USAGE); return 2;
+        }
+        List<Path> files;
+        try { files = batch.collectFiles(); }
+        catch (IOException ex) { err.println("Eingaben können nicht gelesen werden: " + ex.getMessage()); return 2; }
+        if (files.isEmpty()) { err.println("Keine Skripte gefunden."); return 2; }
+        try { batch.checkOutputs(files); }
+        catch (IllegalArgumentException ex) { err.println(ex.getMessage()); return 2; }
+
+        long t0 = System.nanoTime();
+        ForkJoinPool pool = new ForkJoinPool(batch.threads);
+        int failed;
+        try { failed = pool.invoke(batch.new RenderRange(files, 0, files.size())); }
+        finally { pool.shutdown(); }
+        out.printf("%d von %d Skripten gerendert (%d Fehler) in %.1f s mit %d Threads%n",
+                files.size() - failed, files.size(), failed, (System.nanoTime() - t0) / 1e9, batch.threads);
+        return failed == 0 ? 0 : 1;
+    }
+
+    // --- Kommandozeile auswerten; false bei --help ---
+    boolean parseArgs(String[] args) {
+        for (int i = 0; i < args.length; i++) {
+            String a = args[i];
+            switch (a) {
+                case "--headless": break;
+                case "-h": case "--help": return false;
+                case "-o": case "--out": outDir = Path.of(value(args, ++i, a)); break;
+                case "-j": case "--threads":
+                    threads = number(value(args, ++i, a), a);
+                    if (threads < 1) throw new IllegalArgumentException("Mindestens ein Thread erforderlich");
+                    break;
+                case "--level":
+                    level = number(value(args, ++i, a), a);
+                    if (level < 0 || level > 9) throw new IllegalArgumentException("Kompressionsstufe muss zwischen 0 und 9 liegen");
+                    break;
+                case "--rasterizer":
+                    rasterizer = value(args, ++i, a);
+                    StrokeRasterizer.create(rasterizer); // Unbekannter Name: IllegalArgumentException
+                    break;
+                default:
+                    if (a.startsWith("-")) throw new IllegalArgumentException("Unbekannte Option: " + a);
+                    inputs.add(Path.of(a));
+            }
+        }
+        if (inputs.isEmpty()) throw new IllegalArgumentException("Keine Eingabedateien angegeben");
+        return true;
+    }
+
+    private static String value(String[] args, int i, String option) {
+        if (i >= args.length) throw new IllegalArgumentException("Wert fehlt für " + option);
+        return args[i];
+    }
+
+    private static int number(String s, String option) {
+        try { return Integer.parseInt(s); }
+        catch (NumberFormatException ex) { throw new IllegalArgumentException("Zahl erwartet für " + option + ": " + s); }
+    }
+
+    // --- Dateien und Ordner (rekursiv nach *.paint) zu einer sortierten Liste auflösen (jede Datei nur einmal) ---
+    List<Path> collectFiles() throws IOException {
+        Set<Path> files = new LinkedHashSet<>();
+        for (Path in : inputs) {
+            if (Files.isDirectory(in)) {
+                try (Stream<Path> s = Files.walk(in)) {
+                    s.filter(p -> Files.isRegularFile(p) && p.getFileName().toString().endsWith(".paint"))
+                            .map(p -> p.toAbsolutePath().normalize()).sorted().forEach(files::add);
+                }
+            } else if (Files.isRegularFile(in)) files.add(in.toAbsolutePath().normalize());
+            else throw new IOException("Nicht gefunden: " + in);
+        }
+        if (outDir != null) Files.createDirectories(outDir);
+        return new ArrayList<>(files);
+    }
+
+    // --- Zwei Skripte mit demselben Ziel-PNG (z. B. a/x.paint und b/x.paint mit -o) würden sich gegenseitig überschreiben ---
+    void checkOutputs(List<Path> files) {
+        Map<Path, Path> owners = new HashMap<>();
+        for (Path script : files) {
+            Path other = owners.putIfAbsent(outputFor(script).toAbsolutePath().normalize(), script);
+            if (other != null) throw new IllegalArgumentException("Gleiches Ziel " + outputFor(script) + " für " + other + " und " + script);
+        }
+    }
+
+    // --- Teilt die Dateiliste rekursiv; freie Threads stehlen die noch nicht begonnenen Hälften ---
+    @SuppressWarnings("serial") // Wird nie serialisiert
+    private final class RenderRange extends RecursiveTask<Integer> {
+        private final List<Path> files; private final int from, to;
+        RenderRange(List<Path> files, int from, int to) { this.files = files; this.from = from; this.to = to; }
+
+        @Override protected Integer compute() {
+            if (to - from == 1) return renderFile(files.get(from)) ? 0 : 1;
+            int mid = (from + to) >>> 1;
+            RenderRange left = new RenderRange(files, from, mid);
+            left.fork();
+            int right = new RenderRange(files, mid, to).compute();
+            return left.join() + right;
+        }
+    }
+
+    // --- Eine Datei: Skript lesen, rendern, PNG schreiben (temporär, dann umbenennen) ---
+    boolean renderFile(Path script) {
+        try {
+            DrawingScript s;
+            try (Reader in = Files.newBufferedReader(script, StandardCharsets.UTF_8)) { s = DrawingScript.parse(in); }
+            TiledRaster raster = render(s, bridges.get());
+            Path target = outputFor(script), tmp = target.resolveSibling(target.getFileName() + ".tmp");
+            try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16)) {
+                new PngWriter(level).write(raster, out, null, null);
+            } catch (IOException | RuntimeException ex) { Files.deleteIfExists(tmp); throw ex; }
+            try { Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); }
+            catch (AtomicMoveNotSupportedException ex) { Files.move(tmp, target, StandardCopyOption.REPLACE_EXISTING); }
+            return true;
+        } catch (IOException | RuntimeException ex) {
+            err.println("FEHLER " + script + ": " + ex.getMessage());
+            return false;
+        }
+    }
+
+    // --- Rendert ein Skript in ein neues Raster ---
+    static TiledRaster render(DrawingScript s, StrokeRasterizer bridge) {
+        TiledRaster raster = new TiledRaster(s.getWidth(), s.getHeight(), TiledRaster.premultiply(s.getBackground()));
+        bridge.replay(s.getLog(), 0, s.getLog().size(), raster);
+        return raster;
+    }
+
+    private Path outputFor(Path script) {
+        String name = script.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        String png = (dot > 0 ? name.substring(0, dot) : name) + ".png";
+        Path dir = outDir != null ? outDir : script.toAbsolutePath().getParent();
+        return dir.resolve(png);
+    }
+
+    static boolean isHeadless(String[] args) {
+        for (String a : args) if (a.equals("--headless")) return true;
+        return false;
+    }
+}
@@ -0,0 +1,207 @@
+package com.todolist;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+// --- Verrechnet die sichtbaren Ebenen eines LayerStack zu einem zwischengespeicherten Gesamtbild ---
+// Pro Kachel werden die Änderungszähler aller Ebenen gemerkt; update() mischt nur die Kacheln neu, in denen
+// sich seit dem letzten Aufruf eine Ebene geändert hat. Ändert sich eine Eigenschaft einer transparenten Ebene
+// (Deckkraft, Modus, Sichtbarkeit), werden nur deren angelegte Kacheln neu gemischt; Strukturänderungen und
+// Eigenschaften der deckenden Hintergrundebene betreffen alle Kacheln.
+// Gemischt wird mit einfachen int-Schleifen auf Arrays (ein Schleifenrumpf pro Modus, ohne Verzweigungen),
+// bei vielen Kacheln parallel. Ist nur eine Ebene mit voller Deckkraft und ohne Vektorformen sichtbar, ist deren
+// Raster das Ergebnis. Die Vektorformen einer Ebene werden vor dem Mischen per Source-Over auf ihr Raster gelegt.
+public class Compositor {
+
+    private static final int T = TiledRaster.TILE_SIZE;
+    private static final int PARALLEL_MIN_TILES = 4;    // Darunter lohnt sich die Verteilung auf Threads nicht
+
+    private final LayerStack stack;
+    private TiledRaster output;             // Gemischtes Ergebnis (null solange eine Ebene direkt angezeigt wird)
+    private TiledRaster passthrough;        // Direkt angezeigtes Ebenenraster
+    // Gemerkter Zustand: alle Ebenen (auch ausgeblendete), deren Eigenschaften und Kachelversionen
+    private Layer[] seenLayers = new Layer[0];
+    private int[] seenRevisions = new int[0];
+    private int[][] seenVersions = new int[0][];
+    private int blendedLastUpdate;
+    private long blendedTotal;
+
+    private static final ThreadLocal<int[][]> SCRATCH = ThreadLocal.withInitial(() -> new int[][] { new int[T * T], new int[T * T], new int[T * T] });
+
+    public Compositor(LayerStack stack) { this.stack = stack; }
+
+    public LayerStack getStack() { return stack; }
+    public int getBlendedLastUpdate() { return blendedLastUpdate; }
+    public long getBlendedTotal() { return blendedTotal; }
+
+    // --- Aktuelles Gesamtbild (vorher update() aufrufen) ---
+    public TiledRaster getOutput() { return passthrough != null ? passthrough : output; }
+
+    // --- Bringt das Gesamtbild auf den neuesten Stand; liefert die Anzahl neu gemischter Kacheln ---
+    public int update() {
+        List<Layer> all = stack.layers();
+        List<Layer> vis = new java.util.ArrayList<>();
+        for (Layer l : all) if (contributes(l)) vis.add(l);
+        blendedLastUpdate = 0;
+        if (vis.size() == 1 && vis.get(0).getOpacity() >= 1f && vis.get(0).getShapes().getLiveCount() == 0) { // Über Transparenz ergibt jeder Modus die Ebene selbst
+            passthrough = vis.get(0).getRaster();
+            seenLayers = new Layer[0];
+            return 0;
+        }
+        passthrough = null;
+        if (output == null) output = new TiledRaster(stack.getWidth(), stack.getHeight(), 0);
+        int tiles = output.getTilesX() * output.getTilesY();
+
+        // Strukturänderung: alles neu. Eigenschaftsänderung einer transparenten Ebene (auch Ein-/Ausblenden): nur deren
+        // angelegte Kacheln, denn anderswo ist sie durchsichtig und ändert in keinem Modus etwas; sonst ebenfalls alles neu.
+        boolean full = seenLayers.length != all.size();
+        for (int l = 0; !full && l < all.size(); l++) full = seenLayers[l] != all.get(l);
+        boolean[] touched = null;
+        for (int l = 0; !full && l < all.size(); l++) {
+            Layer layer = all.get(l);
+            if (seenRevisions[l] == layer.getRevision()) continue;
+            seenRevisions[l] = layer.getRevision();
+            if (layer.getRaster().getBackground() != 0) { full = true; break; }
+            if (touched == null) touched = new boolean[tiles];
+            TiledRaster r = layer.getRaster(), sr = layer.getShapes().getRaster();
+            for (int i = 0; i < tiles; i++) touched[i] |= r.isAllocated(i % output.getTilesX(), i / output.getTilesX()) || sr.isAllocated(i % output.getTilesX(), i / output.getTilesX());
+        }
+        if (full) {
+            seenLayers = all.toArray(new Layer[0]);
+            seenRevisions = new int[all.size()];
+            seenVersions = new int[all.size()][tiles];
+            for (int l = 0; l < all.size(); l++) { seenRevisions[l] = all.get(l).getRevision(); Arrays.fill(seenVersions[l], -1); }
+        }
+        output.setBackground(blendBackgrounds(vis));
+
+        // Geänderte Kacheln bestimmen; Kacheln, in denen keine sichtbare Ebene angelegt ist, sind reiner Hintergrund
+        int[] dirty = new int[tiles];
+        IntBuffer[] targets = new IntBuffer[tiles];
+        int n = 0;
+        for (int i = 0; i < tiles; i++) {
+            int tx = i % output.getTilesX(), ty = i / output.getTilesX();
+            boolean changed = touched != null && touched[i], any = false;
+            for (int l = 0; l < seenLayers.length; l++) {
+                TiledRaster r = seenLayers[l].getRaster(), sr = seenLayers[l].getShapes().getRaster();
+                int v = r.version(tx, ty) + sr.version(tx, ty); // Beide Zähler steigen nur, die Summe also auch
+                boolean used = contributes(seenLayers[l]);
+                if (v != seenVersions[l][i]) { seenVersions[l][i] = v; changed |= used; } // Ausgeblendete Ebenen zählen erst beim Einblenden
+                any |= used && (r.isAllocated(tx, ty) || sr.isAllocated(tx, ty));
+            }
+            if (!changed) continue;
+            if (!any) { output.restoreTile(tx, ty, null); continue; }
+            targets[n] = output.writableTile(tx, ty); // Anlegen im aufrufenden Thread, Füllen parallel
+            dirty[n++] = i;
+        }
+        int count = n;
+        if (count >= PARALLEL_MIN_TILES) IntStream.range(0, count).parallel().forEach(k -> blendTile(dirty[k], targets[k]));
+        else for (int k = 0; k < count; k++) blendTile(dirty[k], targets[k]);
+        blendedLastUpdate = count;
+        blendedTotal += count;
+        return count;
+    }
+
+    private static boolean contributes(Layer l) { return l.isVisible() && l.getOpacity() > 0f; }
+
+    // --- Mischt alle sichtbaren Ebenen einer Kachel von unten nach oben in target ---
+    private void blendTile(int i, IntBuffer target) {
+        int[][] scratch = SCRATCH.get();
+        int[] dst = scratch[0], src = scratch[1], shp = scratch[2];
+        int tx = i % output.getTilesX(), ty = i / output.getTilesX();
+        Arrays.fill(dst, 0);
+        for (Layer layer : seenLayers) {
+            if (!contributes(layer)) continue;
+            TiledRaster r = layer.getRaster();
+            IntBuffer t = r.tile(tx, ty), st = layer.getShapes().getRaster().tile(tx, ty);
+            if (t == null) {
+                if (r.getBackground() == 0 && st == null) continue; // Transparente Fläche ändert in keinem Modus etwas
+                Arrays.fill(src, r.getBackground());
+            } else t.get(src, 0, T * T);
+            if (st != null) { // Vektorformen über das Ebenenraster legen
+                st.get(shp, 0, T * T);
+                for (int p = 0; p < T * T; p++) { int a = shp[p] >>> 24; if (a != 0) src[p] = a == 255 ? shp[p] : TiledRaster.srcOver(shp[p], src[p]); }
+            }
+            int alpha = Math.round(layer.getOpacity() * 255);
+            if (alpha < 255) scale(src, alpha);
+            blend(layer.getMode(), src, dst, T * T);
+        }
+        target.put(0, dst, 0, T * T);
+    }
+
+    // --- Hintergrundfarbe des Ergebnisses (Mischung der Ebenenhintergründe) ---
+    private static int blendBackgrounds(List<Layer> layers) {
+        int[] d = { 0 }, s = new int[1];
+        for (Layer l : layers) {
+            s[0] = l.getRaster().getBackground();
+            int alpha = Math.round(l.getOpacity() * 255);
+            if (alpha < 255) scale(s, alpha);
+            blend(l.getMode(), s, d, 1);
+        }
+        return d[0];
+    }
+
+    // --- Multipliziert alle Kanäle (vormultipliziert) mit alpha/255 ---
+    static void scale(int[] px, int alpha) {
+        for (int i = 0; i < px.length; i++) {
+            int p = px[i];
+            px[i] = (TiledRaster.div255((p >>> 24) * alpha) << 24) | (TiledRaster.div255(((p >> 16) & 0xFF) * alpha) << 16)
+                    | (TiledRaster.div255(((p >> 8) & 0xFF) * alpha) << 8) | TiledRaster.div255((p & 0xFF) * alpha);
+        }
+    }
+
+    // --- Mischt s über d (beide vormultipliziert, Ergebnis in d) ---
+    // Mit Farbanteilen c und Deckkraft a (0..255, /255 implizit):
+    //   NORMAL   c = cs + cd(1-as)
+    //   MULTIPLY c = cs(1-ad) + cd(1-as) + cs*cd
+    //   SCREEN   c = cs + cd - cs*cd
+    //   DARKEN   c = cs + cd - max(cs*ad, cd*as)
+    //   LIGHTEN  c = cs + cd - min(cs*ad, cd*as)
+    //   ADD      c = min(1, cs + cd)
+    // Deckkraft jeweils a = as + ad - as*ad (ADD: min(1, as + ad)).
+    static void blend(Layer.BlendMode mode, int[] s, int[] d, int n) {
+        switch (mode) {
+            case NORMAL:   for (int i = 0; i < n; i++) d[i] = normal(s[i], d[i]); break;
+            case MULTIPLY: for (int i = 0; i < n; i++) d[i] = multiply(s[i], d[i]); break;
+            case SCREEN:   for (int i = 0; i < n; i++) d[i] = screen(s[i], d[i]); break;
+            case DARKEN:   for (int i = 0; i < n; i++) d[i] = darken(s[i], d[i], true); break;
+            case LIGHTEN:  for (int i = 0; i < n; i++) d[i] = darken(s[i], d[i], false); break;
+            case ADD:      for (int i = 0; i < n; i++) d[i] = add(s[i], d[i]); break;
+        }
+    }
+
+    private static int normal(int s, int d) {
+        int inv = 255 - (s >>> 24);
+        return pack((s >>> 24) + div(d >>> 24, inv), ((s >> 16) & 0xFF) + div((d >> 16) & 0xFF, inv),
+                ((s >> 8) & 0xFF) + div((d >> 8) & 0xFF, inv), (s & 0xFF) + div(d & 0xFF, inv));
+    }
+
+    private static int multiply(int s, int d) {
+        int sa = s >>> 24, da = d >>> 24, isa = 255 - sa, ida = 255 - da;
+        int sr = (s >> 16) & 0xFF, sg = (s >> 8) & 0xFF, sb = s & 0xFF, dr = (d >> 16) & 0xFF, dg = (d >> 8) & 0xFF, db = d & 0xFF;
+        return pack(sa + da - div(sa, da),
+                TiledRaster.div255(sr * ida + dr * isa + sr * dr), TiledRaster.div255(sg * ida + dg * isa + sg * dg), TiledRaster.div255(sb * ida + db * isa + sb * db));
+    }
+
+    private static int screen(int s, int d) {
+        int sa = s >>> 24, da = d >>> 24;
+        int sr = (s >> 16) & 0xFF, sg = (s >> 8) & 0xFF, sb = s & 0xFF, dr = (d >> 16) & 0xFF, dg = (d >> 8) & 0xFF, db = d & 0xFF;
+        return pack(sa + da - div(sa, da), sr + dr - div(sr, dr), sg + dg - div(sg, dg), sb + db - div(sb, db));
+    }
+
+    private static int darken(int s, int d, boolean darken) {
+        int sa = s >>> 24, da = d >>> 24;
+        int sr = (s >> 16) & 0xFF, sg = (s >> 8) & 0xFF, sb = s & 0xFF, dr = (d >> 16) & 0xFF, dg = (d >> 8) & 0xFF, db = d & 0xFF;
+        return pack(sa + da - div(sa, da), sr + dr - pick(sr * da, dr * sa, darken), sg + dg - pick(sg * da, dg * sa, darken), sb + db - pick(sb * da, db * sa, darken));
+    }
+
+    private static int add(int s, int d) {
+        return pack(Math.min(255, (s >>> 24) + (d >>> 24)), Math.min(255, ((s >> 16) & 0xFF) + ((d >> 16) & 0xFF)),
+                Math.min(255, ((s >> 8) & 0xFF) + ((d >> 8) & 0xFF)), Math.min(255, (s & 0xFF) + (d & 0xFF)));
+    }
+
+    private static int pick(int a, int b, boolean darken) { return TiledRaster.div255(darken ? Math.max(a, b) : Math.min(a, b)); }
+    private static int div(int a, int b) { return TiledRaster.div255(a * b); }
+    private static int pack(int a, int r, int g, int b) { return (a << 24) | (r << 16) | (g << 8) | b; }
+}
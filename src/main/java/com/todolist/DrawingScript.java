@@ -0,0 +1,112 @@
+package com.todolist;
+
+import javafx.scene.paint.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+
+// --- Aufgezeichnetes Zeichenskript für den Batch-Modus ---
+// Zeilenbasiertes Textformat; jede Zeile ist ein Befehl, Zeilen mit '#' am Anfang sind Kommentare:
+//   size 1920 1080            Dokumentgröße (vor dem ersten Zeichenbefehl, Standard 1024 x 768)
+//   background white          Hintergrundfarbe (vor dem ersten Zeichenbefehl; auch Farbe von Radierer/Leeren)
+//   color #FF8800 / color red Zeichenfarbe (alles, was Color.web versteht)
+//   width 4                   Linienbreite
+//   pen x,y x,y ...           Stiftstrich durch die Punkte
+//   eraser x,y x,y ...        Radiererstrich (Hintergrundfarbe)
+//   rect x1,y1 x2,y2          Rechteck (zwei Eckpunkte)
+//   oval x1,y1 x2,y2          Oval im Rechteck der Eckpunkte
+//   fill x,y [toleranz]       Flutfüllung ab dem Punkt mit der Zeichenfarbe (Toleranz 0-255, Standard 0)
+//   clear                     Alles mit der Hintergrundfarbe füllen
+// Die Befehle landen in einem StrokeLog mit derselben Bedeutung wie beim Zeichnen in App.
+public class DrawingScript {
+
+    private int width = 1024, height = 768;
+    private int background = 0xFFFFFFFF;    // Nicht vormultipliziertes ARGB
+    private final StrokeLog log = new StrokeLog();
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getBackground() { return background; }
+    public StrokeLog getLog() { return log; }
+
+    // --- Liest ein Skript; Fehler werden mit Zeilennummer als IOException gemeldet ---
+    public static DrawingScript parse(Reader in) throws IOException {
+        DrawingScript s = new DrawingScript();
+        BufferedReader r = in instanceof BufferedReader ? (BufferedReader) in : new BufferedReader(in);
+        int color = 0xFF000000;
+        double lineWidth = 2.0;
+        String line;
+        for (int no = 1; (line = r.readLine()) != null; no++) {
+            String trimmed = line.trim();
+            if (trimmed.isEmpty() || trimmed.startsWith("#")) continue; // Leerzeile oder Kommentar
+            String[] t = trimmed.split("\\s+");
+            try {
+                switch (t[0].toLowerCase()) {
+                    case "size":
+                        s.requireEmpty();
+                        s.width = positive(t, 1); s.height = positive(t, 2);
+                        break;
+                    case "background":
+                        s.requireEmpty();
+                        s.background = parseColor(t, 1);
+                        break;
+                    case "color": color = parseColor(t, 1); break;
+                    case "width":
+                        lineWidth = Double.parseDouble(arg(t, 1));
+                        if (!(lineWidth > 0)) throw new IllegalArgumentException("Linienbreite muss positiv sein");
+                        break;
+                    case "pen": case "eraser": {
+                        if (t.length < 2) throw new IllegalArgumentException("Mindestens ein Punkt erwartet");
+                        boolean erase = t[0].equalsIgnoreCase("eraser");
+                        double[] p = point(t[1]);
+                        s.log.beginStroke(erase ? StrokeLog.ERASE : StrokeLog.STROKE, erase ? s.background : color, lineWidth, p[0], p[1]);
+                        for (int i = 2; i < t.length; i++) { p = point(t[i]); s.log.addPoint(p[0], p[1]); }
+                        break;
+                    }
+                    case "rect": case "rectangle": case "oval": {
+                        if (t.length != 3) throw new IllegalArgumentException("Genau zwei Eckpunkte erwartet");
+                        double[] a = point(t[1]), b = point(t[2]);
+                        s.log.addShape(t[0].equalsIgnoreCase("oval") ? StrokeLog.OVAL : StrokeLog.RECTANGLE, color, lineWidth, a[0], a[1], b[0], b[1]);
+                        break;
+                    }
+                    case "fill": {
+                        if (t.length < 2 || t.length > 3) throw new IllegalArgumentException("Punkt und optional Toleranz erwartet");
+                        double[] p = point(t[1]);
+                        int tolerance = t.length == 3 ? Integer.parseInt(t[2]) : 0;
+                        if (tolerance < 0 || tolerance > 255) throw new IllegalArgumentException("Toleranz muss zwischen 0 und 255 liegen");
+                        s.log.addFill(color, tolerance, p[0], p[1]);
+                        break;
+                    }
+                    case "clear": s.log.addClear(s.background); break;
+                    default: throw new IllegalArgumentException("Unbekannter Befehl '" + t[0] + "'");
+                }
+            } catch (IllegalArgumentException ex) { // Schließt NumberFormatException ein
+                throw new IOException("Zeile " + no + ": " + ex.getMessage(), ex);
+            }
+        }
+        return s;
+    }
+
+    private void requireEmpty() {
+        if (log.size() > 0) throw new IllegalArgumentException("size/background nur vor dem ersten Zeichenbefehl");
+    }
+
+    private static String arg(String[] t, int i) {
+        if (i >= t.length) throw new IllegalArgumentException("Argument fehlt für '" + t[0] + "'");
+        return t[i];
+    }
+
+    private static int positive(String[] t, int i) {
+        int v = Integer.parseInt(arg(t, i));
+        if (v <= 0) throw new IllegalArgumentException("Größe muss positiv sein");
+        return v;
+    }
+
+    private static int parseColor(String[] t, int i) { return StrokeLog.toArgb(Color.web(arg(t, i))); }
+
+    private static double[] point(String token) {
+        int comma = token.indexOf(',');
+        if (comma < 0) throw new IllegalArgumentException("Punkt als x,y erwartet: '" + token + "'");
+        return new double[] { Double.parseDouble(token.substring(0, comma)), Double.parseDouble(token.substring(comma + 1)) };
+    }
+}
@@ -0,0 +1,96 @@
+package com.todolist;
+
+import javafx.geometry.Insets;
+import javafx.scene.control.ButtonType;
+import javafx.scene.control.ComboBox;
+import javafx.scene.control.Dialog;
+import javafx.scene.control.Label;
+import javafx.scene.control.Slider;
+import javafx.scene.layout.GridPane;
+import javafx.stage.Window;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+// --- Dialog zur Filterauswahl: Filter und passende Regler; jede Änderung meldet den neuen Filter (Live-Vorschau) ---
+public class FilterDialog {
+
+    private static final String GAUSSIAN = "Gaußscher Weichzeichner", UNSHARP = "Unscharf maskieren",
+            LEVELS = "Tonwerte", CURVES = "Kurven", GRAYSCALE = "Graustufen";
+
+    private final ComboBox<String> kind = new ComboBox<>();
+    private final GridPane grid = new GridPane();
+    private final Slider radius = slider(0.5, 50, 3), amount = slider(0, 500, 100), threshold = slider(0, 64, 0);
+    private final Slider black = slider(0, 254, 0), white = slider(1, 255, 255), gamma = slider(0.2, 5, 1);
+    private final Slider shadows = slider(0, 255, 64), midtones = slider(0, 255, 128), highlights = slider(0, 255, 192);
+    private int rows;
+
+    // --- Zeigt den Dialog modal; liefert den gewählten Filter (leer bei Abbruch) ---
+    public static Optional<ImageFilter> show(Window owner, Consumer<ImageFilter> onChange) {
+        return new FilterDialog().showAndWait(owner, onChange);
+    }
+
+    private Optional<ImageFilter> showAndWait(Window owner, Consumer<ImageFilter> onChange) {
+        Dialog<ImageFilter> dialog = new Dialog<>();
+        dialog.initOwner(owner);
+        dialog.setTitle("Filter");
+        dialog.setHeaderText("Filter auf die aktive Ebene anwenden");
+        kind.getItems().setAll(GAUSSIAN, UNSHARP, LEVELS, CURVES, GRAYSCALE);
+        kind.setValue(GAUSSIAN);
+        grid.setHgap(8); grid.setVgap(6); grid.setPadding(new Insets(10));
+        grid.addRow(rows++, new Label("Filter:"), kind);
+        row("Radius (px):", radius); row("Stärke (%):", amount); row("Schwelle:", threshold);
+        row("Schwarz:", black); row("Weiß:", white); row("Gamma:", gamma);
+        row("Tiefen:", shadows); row("Mitteltöne:", midtones); row("Lichter:", highlights);
+        dialog.getDialogPane().setContent(grid);
+        dialog.getDialogPane().getButtonTypes().setAll(ButtonType.OK, ButtonType.CANCEL);
+        dialog.setResultConverter(b -> b == ButtonType.OK ? filter() : null);
+
+        kind.valueProperty().addListener((obs, ov, nV) -> { updateVisibility(); dialog.getDialogPane().getScene().getWindow().sizeToScene(); onChange.accept(filter()); });
+        for (Slider s : new Slider[] { radius, amount, threshold, black, white, gamma, shadows, midtones, highlights })
+            s.valueProperty().addListener((obs, ov, nV) -> onChange.accept(filter()));
+        updateVisibility();
+        dialog.setOnShown(e -> onChange.accept(filter()));
+        return dialog.showAndWait();
+    }
+
+    // --- Filter aus den aktuellen Reglerwerten ---
+    ImageFilter filter() {
+        switch (kind.getValue()) {
+            case UNSHARP: return ImageFilter.unsharp(radius.getValue(), amount.getValue() / 100, (int) threshold.getValue());
+            case LEVELS: {
+                int b = (int) black.getValue(), w = Math.max(b + 1, (int) white.getValue());
+                return ImageFilter.levels(b, w, gamma.getValue());
+            }
+            case CURVES: return ImageFilter.curves(new double[] { 0, 64, 128, 192, 255 },
+                    new double[] { 0, shadows.getValue(), midtones.getValue(), highlights.getValue(), 255 });
+            case GRAYSCALE: return ImageFilter.grayscale();
+            default: return ImageFilter.gaussian(radius.getValue());
+        }
+    }
+
+    // Nur die Regler des gewählten Filters zeigen
+    private void updateVisibility() {
+        String k = kind.getValue();
+        show(radius, k.equals(GAUSSIAN) || k.equals(UNSHARP));
+        show(amount, k.equals(UNSHARP)); show(threshold, k.equals(UNSHARP));
+        show(black, k.equals(LEVELS)); show(white, k.equals(LEVELS)); show(gamma, k.equals(LEVELS));
+        show(shadows, k.equals(CURVES)); show(midtones, k.equals(CURVES)); show(highlights, k.equals(CURVES));
+    }
+
+    private void show(Slider s, boolean visible) {
+        for (var n : grid.getChildren())
+            if (GridPane.getRowIndex(n) != null && GridPane.getRowIndex(n).equals(GridPane.getRowIndex(s))) { n.setVisible(visible); n.setManaged(visible); }
+    }
+
+    private void row(String label, Slider s) {
+        Label value = new Label(); value.getStyleClass().add("info-label"); value.setMinWidth(40);
+        value.textProperty().bind(s.valueProperty().asString("%.1f"));
+        grid.addRow(rows++, new Label(label), s, value);
+    }
+
+    private static Slider slider(double min, double max, double value) {
+        Slider s = new Slider(min, max, value);
+        s.setPrefWidth(220); s.getStyleClass().add("control-element");
+        return s;
+    }
+}
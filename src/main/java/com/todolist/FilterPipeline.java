@@ -0,0 +1,101 @@
+package com.todolist;
+
+import java.nio.IntBuffer;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+
+// --- Wendet einen ImageFilter kachelweise parallel auf ein TiledRaster an (Fork/Join mit Work-Stealing) ---
+// Jede Kachel liest ihr Rechteck samt Rand (halo) aus der Quelle und wird unabhängig gefiltert. Das Ergebnis ist ein
+// eigenes Raster; erst applyTo() übernimmt es, damit die Quelle (Snapshot) im Hintergrund gelesen werden kann.
+// Kacheln, die samt Rand nur Hintergrund enthalten, werden nicht gerechnet: dort gilt der gefilterte Hintergrund.
+public final class FilterPipeline {
+
+    private static final int T = TiledRaster.TILE_SIZE;
+
+    private FilterPipeline() {}
+
+    // --- Filtert src (darf nicht gleichzeitig verändert werden, z.B. ein Snapshot) ---
+    // progress erhält 0..1 (aus Arbeitsthreads), cancelled wird vor jeder Kachel abgefragt.
+    public static TiledRaster run(ImageFilter f, TiledRaster src, DoubleConsumer progress, BooleanSupplier cancelled) {
+        int halo = f.halo();
+        TiledRaster out = new TiledRaster(src.getWidth(), src.getHeight(), filterColor(f, src.getBackground()));
+        int tiles = src.getTilesX() * src.getTilesY();
+        int[] work = new int[tiles];
+        IntBuffer[] targets = new IntBuffer[tiles];
+        int n = 0;
+        for (int i = 0; i < tiles; i++) {
+            int tx = i % src.getTilesX(), ty = i / src.getTilesX();
+            boolean[] any = { false };
+            src.forEachTileIn(tx * T - halo, ty * T - halo, T + 2 * halo, T + 2 * halo, (nx, ny) -> any[0] |= src.isAllocated(nx, ny));
+            if (!any[0]) continue;
+            targets[n] = out.writableTile(tx, ty); // Anlegen im aufrufenden Thread, Füllen parallel
+            work[n++] = i;
+        }
+        AtomicInteger done = new AtomicInteger();
+        int count = n;
+        ForkJoinPool.commonPool().invoke(new FilterRange(f, src, work, targets, 0, count, () -> {
+            if (progress != null) progress.accept(done.incrementAndGet() / (double) count);
+        }, cancelled));
+        if (cancelled != null && cancelled.getAsBoolean()) throw new CancellationException("Filter abgebrochen");
+        return out;
+    }
+
+    // --- Übernimmt ein Ergebnis von run() in target (gleiche Größe; gerechnete Kacheln und Hintergrund) ---
+    public static void applyTo(TiledRaster result, TiledRaster target) {
+        target.setBackground(result.getBackground());
+        for (int ty = 0; ty < result.getTilesY(); ty++)
+            for (int tx = 0; tx < result.getTilesX(); tx++)
+                if (result.isAllocated(tx, ty)) target.restoreTile(tx, ty, result.tileBytes(tx, ty));
+    }
+
+    // --- Filtert das Rechteck x,y,w,h eines Rasters (z.B. einer Mip-Stufe für die Vorschau) in einem Zug ---
+    public static int[] filterRect(ImageFilter f, TiledRaster src, int x, int y, int w, int h) {
+        int halo = f.halo();
+        int sx = Math.max(0, x - halo), sy = Math.max(0, y - halo);
+        int sw = Math.min(src.getWidth(), x + w + halo) - sx, sh = Math.min(src.getHeight(), y + h + halo) - sy;
+        int[] buf = new int[sw * sh], out = new int[w * h];
+        src.readRect(sx, sy, sw, sh, buf, 0, sw);
+        f.apply(buf, sw, sh, x - sx, y - sy, w, h, out);
+        return out;
+    }
+
+    // Ergebnis für eine einfarbige Fläche
+    private static int filterColor(ImageFilter f, int argbPre) {
+        int[] out = new int[1];
+        f.apply(new int[] { argbPre }, 1, 1, 0, 0, 1, 1, out);
+        return out[0];
+    }
+
+    // --- Teilt die Kachelliste rekursiv; freie Threads stehlen die noch nicht begonnenen Hälften ---
+    @SuppressWarnings("serial") // Wird nie serialisiert
+    private static final class FilterRange extends RecursiveAction {
+        private final ImageFilter f; private final TiledRaster src;
+        private final int[] work; private final IntBuffer[] targets; private final int from, to;
+        private final Runnable tileDone; private final BooleanSupplier cancelled;
+
+        FilterRange(ImageFilter f, TiledRaster src, int[] work, IntBuffer[] targets, int from, int to, Runnable tileDone, BooleanSupplier cancelled) {
+            this.f = f; this.src = src; this.work = work; this.targets = targets; this.from = from; this.to = to;
+            this.tileDone = tileDone; this.cancelled = cancelled;
+        }
+
+        @Override protected void compute() {
+            if (to - from <= 1) {
+                if (to > from && (cancelled == null || !cancelled.getAsBoolean())) { filterTile(work[from], targets[from]); tileDone.run(); }
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new FilterRange(f, src, work, targets, from, mid, tileDone, cancelled), new FilterRange(f, src, work, targets, mid, to, tileDone, cancelled));
+        }
+
+        private void filterTile(int i, IntBuffer target) {
+            int tx = i % src.getTilesX(), ty = i / src.getTilesX();
+            int w = src.tileWidth(tx), h = src.tileHeight(ty);
+            int[] out = filterRect(f, src, tx * T, ty * T, w, h);
+            for (int row = 0; row < h; row++) target.put(row * T, out, row * w, w);
+        }
+    }
+}
@@ -0,0 +1,168 @@
+package com.todolist;
+
+import java.util.Arrays;
+
+// --- Füllwerkzeug: zeilenweise (Span-basierte) Flutfüllung auf vormultipliziertem ARGB ---
+// Ausgehend vom Startpixel wird jeweils die ganze zusammenhängende Spanne einer Zeile gefüllt; für die Zeilen
+// darüber und darunter wird pro zusammenhängendem Abschnitt nur eine offene Spanne gemerkt. Ein Pixel gehört
+// zur Fläche, wenn jeder Kanal höchstens um tolerance (0..255) von der Farbe des Startpixels abweicht.
+// Bei einem TiledRaster wird eine Kachel erst gelesen, wenn die Füllung sie erreicht, und nach apply() wieder
+// freigegeben; zurückgeschrieben werden nur gefüllte Kacheln, begrenzt auf das Rechteck der gefüllten Pixel.
+public class FloodFill {
+
+    private static final int T = TiledRaster.TILE_SIZE;
+
+    // Arbeitskopie: Kacheln des Rasters (T x T, Zeilenabstand T), bzw. für einen int-Puffer eine einzige "Kachel"
+    // mit Zeilenabstand w. Pixel (x, y) liegt in tiles[(y >> shift) * tilesX + (x >> shift)] bei (y & mask) * stride + (x & mask).
+    private TiledRaster source;             // null im Pufferbetrieb
+    private int[][] tiles = new int[0][];
+    private long[][] visited = new long[0][]; // Ein Bit pro Pixel: bereits gefüllt (nur falls nötig, s.u.)
+    private boolean[] dirty = new boolean[0];
+    private int shift, mask, stride, tilesX, tilePixels;
+    private int[] stack = new int[256];     // Offene Spannen, je 4 Werte
+    private int sp;
+    // Zustand des laufenden Füllvorgangs
+    private int seed, tol, minX, maxX, minY, maxY, filled;
+    private boolean trackVisited;
+    private int filledLastRun;              // Anzahl gefüllter Pixel (Statistik)
+    private int tilesLastRun;               // Anzahl gelesener Kacheln (Statistik)
+
+    public int getFilledLastRun() { return filledLastRun; }
+    public int getTilesLastRun() { return tilesLastRun; }
+
+    // --- Füllt in den Kachelkopien; liefert das Begrenzungsrechteck {x, y, w, h} oder null (nichts zu tun) ---
+    // Das Raster selbst wird erst mit apply() geändert (dazwischen kann z.B. der Vorher-Zustand gesichert werden).
+    public int[] compute(TiledRaster r, int x, int y, int argbPre, int tolerance) {
+        int w = r.getWidth(), h = r.getHeight();
+        release();
+        filledLastRun = 0; tilesLastRun = 0;
+        if (x < 0 || y < 0 || x >= w || y >= h) return null;
+        if (tolerance == 0 && r.getPixel(x, y) == argbPre) return null; // Fläche hat bereits die Füllfarbe
+        int n = r.getTilesX() * r.getTilesY();
+        if (tiles.length < n) { tiles = new int[n][]; visited = new long[n][]; dirty = new boolean[n]; }
+        source = r; shift = TiledRaster.TILE_SHIFT; mask = T - 1; stride = T; tilesX = r.getTilesX(); tilePixels = TiledRaster.TILE_PIXELS;
+        return fill(x, y, w, h, argbPre, tolerance);
+    }
+
+    // --- Schreibt die gefüllten Kacheln aus compute() in das Raster zurück und gibt die Kopien frei ---
+    public void apply(TiledRaster r, int[] box) {
+        for (int i = 0; i < tilesX * r.getTilesY(); i++) {
+            if (!dirty[i]) continue;
+            int tx = i % tilesX, ty = i / tilesX;
+            int x0 = Math.max(box[0], tx * T), x1 = Math.min(box[0] + box[2], Math.min(r.getWidth(), (tx + 1) * T));
+            int y0 = Math.max(box[1], ty * T), y1 = Math.min(box[1] + box[3], Math.min(r.getHeight(), (ty + 1) * T));
+            r.writeRect(x0, y0, x1 - x0, y1 - y0, tiles[i], (y0 - ty * T) * T + (x0 - tx * T), T);
+        }
+        release();
+    }
+
+    // --- Füllt ein Raster direkt (compute + apply); liefert das geänderte Rechteck oder null ---
+    public int[] fill(TiledRaster r, int x, int y, int argbPre, int tolerance) {
+        int[] box = compute(r, x, y, argbPre, tolerance);
+        if (box != null) apply(r, box);
+        return box;
+    }
+
+    // --- Flutfüllung auf einem beliebigen Puffer (Zeilenabstand w) ---
+    public static int[] fill(int[] px, int w, int h, int x, int y, int argbPre, int tolerance) {
+        FloodFill f = new FloodFill();
+        f.tiles = new int[][] { px }; f.visited = new long[1][]; f.dirty = new boolean[1];
+        f.shift = 30; f.mask = (1 << 30) - 1; f.stride = w; f.tilesX = 1; f.tilePixels = w * h;
+        return f.fill(x, y, w, h, argbPre, tolerance);
+    }
+
+    // Spannenfüllung nach Heckbert: Stapeleinträge (y, x1, x2, dy) beschreiben eine gefüllte Spanne der Zeile y - dy,
+    // deren Nachbarn in Zeile y noch zu prüfen sind. Ausläufer über die Spannenenden hinaus werden in Gegenrichtung
+    // nachgeprüft, so wird jedes Pixel nur wenige Male gelesen.
+    private int[] fill(int sx, int sy, int w, int h, int color, int tol) {
+        seed = tile((sy >> shift) * tilesX + (sx >> shift))[(sy & mask) * stride + (sx & mask)]; this.tol = tol;
+        // Passt die Füllfarbe selbst zur Fläche, müssen gefüllte Pixel extra markiert werden
+        trackVisited = matches(color, seed, tol);
+        minX = sx; maxX = sx; minY = sy; maxY = sy; filled = 0; sp = 0;
+        push(sy, sx, sx, 1);
+        push(sy + 1, sx, sx, -1); // Startzeile selbst (wird zuerst abgearbeitet)
+        while (sp > 0) {
+            int dy = stack[--sp], x2 = stack[--sp], x1 = stack[--sp], y = stack[--sp] + dy;
+            if (y < 0 || y >= h) continue;
+            int x = x1, l;
+            while (x >= 0 && inside(x, y)) x--;        // Nach links über x1 hinaus
+            boolean extend = x < x1;                   // x1 gehört dazu: Spanne ab x1 + 1 nach rechts fortsetzen
+            if (extend) {
+                fillSpan(x + 1, x1 + 1, y, color);
+                l = x + 1;
+                if (l < x1) push(y, l, x1 - 1, -dy); // Ausläufer links
+                x = x1 + 1;
+            } else { // x1 selbst gehört nicht dazu: nächsten passenden Anfang suchen
+                for (x++; x <= x2 && !inside(x, y); x++);
+                l = x;
+            }
+            while (extend || x <= x2) {
+                extend = false;
+                int start = x;
+                while (x < w && inside(x, y)) x++;
+                fillSpan(start, x, y, color);
+                push(y, l, x - 1, dy);
+                if (x > x2 + 1) push(y, x2 + 1, x - 1, -dy); // Ausläufer rechts
+                for (x++; x <= x2 && !inside(x, y); x++);
+                l = x;
+            }
+        }
+        filledLastRun = filled;
+        return new int[] { minX, minY, maxX - minX + 1, maxY - minY + 1 };
+    }
+
+    // Füllt [from, to) der Zeile y (leer, falls to <= from) kachelweise und erweitert das Begrenzungsrechteck
+    private void fillSpan(int from, int to, int y, int color) {
+        if (to <= from) return;
+        for (int x = from; x < to; ) {
+            int i = (y >> shift) * tilesX + (x >> shift), o = (y & mask) * stride + (x & mask);
+            int n = Math.min(to, ((x >> shift) + 1) << shift) - x;
+            Arrays.fill(tile(i), o, o + n, color);
+            if (trackVisited) { long[] v = visited(i); for (int k = o; k < o + n; k++) v[k >>> 6] |= 1L << k; }
+            dirty[i] = true;
+            x += n;
+        }
+        filled += to - from;
+        if (from < minX) minX = from; if (to - 1 > maxX) maxX = to - 1;
+        if (y < minY) minY = y; if (y > maxY) maxY = y;
+    }
+
+    private boolean inside(int x, int y) {
+        int i = (y >> shift) * tilesX + (x >> shift), o = (y & mask) * stride + (x & mask);
+        return matches(tile(i)[o], seed, tol) && !(trackVisited && (visited(i)[o >>> 6] & (1L << o)) != 0);
+    }
+
+    // Kachel i; beim ersten Zugriff aus dem Raster gelesen
+    private int[] tile(int i) {
+        int[] t = tiles[i];
+        if (t != null) return t;
+        int tx = i % tilesX, ty = i / tilesX;
+        t = new int[tilePixels];
+        source.readRect(tx * T, ty * T, source.tileWidth(tx), source.tileHeight(ty), t, 0, T);
+        tilesLastRun++;
+        return tiles[i] = t;
+    }
+
+    private long[] visited(int i) {
+        long[] v = visited[i];
+        return v != null ? v : (visited[i] = new long[(tilePixels + 63) >>> 6]);
+    }
+
+    // Kachelkopien freigeben (das Raster kann sehr groß sein; gehalten wird nur das Verweisfeld)
+    private void release() {
+        Arrays.fill(tiles, null); Arrays.fill(visited, null); Arrays.fill(dirty, false);
+        source = null;
+    }
+
+    private void push(int y, int x1, int x2, int dy) {
+        if (sp + 4 > stack.length) stack = Arrays.copyOf(stack, stack.length * 2);
+        stack[sp++] = y; stack[sp++] = x1; stack[sp++] = x2; stack[sp++] = dy;
+    }
+
+    // Jeder Kanal weicht höchstens um tol ab
+    static boolean matches(int p, int seed, int tol) {
+        if (p == seed) return true;
+        return Math.abs((p >>> 24) - (seed >>> 24)) <= tol && Math.abs(((p >> 16) & 0xFF) - ((seed >> 16) & 0xFF)) <= tol
+                && Math.abs(((p >> 8) & 0xFF) - ((seed >> 8) & 0xFF)) <= tol && Math.abs((p & 0xFF) - (seed & 0xFF)) <= tol;
+    }
+}
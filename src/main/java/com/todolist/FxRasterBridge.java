@@ -0,0 +1,59 @@
+package com.todolist;
+
+import javafx.scene.SnapshotParameters;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import java.util.function.Consumer;
+
+// --- Überträgt GraphicsContext-Zeichenoperationen in ein TiledRaster ---
+// Die Operation wird auf ein kleines, transparentes Hilfs-Canvas in Größe ihres Begrenzungsrechtecks gezeichnet,
+// per Snapshot ausgelesen und anschließend per Source-Over in die Kacheln übernommen.
+// Muss im FX Application Thread aufgerufen werden.
+public class FxRasterBridge {
+
+    private static final int MAX_CHUNK = 2048; // Maximale Kantenlänge eines Hilfs-Canvas (Texturgrenzen)
+
+    private final Canvas scratch = new Canvas(1, 1);
+    private final SnapshotParameters params = new SnapshotParameters();
+    private int[] pixels = new int[0];
+
+    public FxRasterBridge() { params.setFill(Color.TRANSPARENT); }
+
+    // --- Zeichnet painter (in Dokumentkoordinaten) in das Rechteck x,y,w,h des Rasters ---
+    public void render(TiledRaster target, double x, double y, double w, double h, Consumer<GraphicsContext> painter) {
+        render(target, x, y, w, h, painter, false);
+    }
+
+    // --- Wie render, stanzt die Zeichnung aber als Maske aus dem Raster aus (Radierer auf transparenten Ebenen) ---
+    public void erase(TiledRaster target, double x, double y, double w, double h, Consumer<GraphicsContext> painter) {
+        render(target, x, y, w, h, painter, true);
+    }
+
+    private void render(TiledRaster target, double x, double y, double w, double h, Consumer<GraphicsContext> painter, boolean erase) {
+        int x0 = Math.max(0, (int) Math.floor(x)), y0 = Math.max(0, (int) Math.floor(y));
+        int x1 = Math.min(target.getWidth(), (int) Math.ceil(x + w)), y1 = Math.min(target.getHeight(), (int) Math.ceil(y + h));
+        // Große Bereiche in Teilstücke zerlegen
+        for (int cy = y0; cy < y1; cy += MAX_CHUNK)
+            for (int cx = x0; cx < x1; cx += MAX_CHUNK)
+                renderChunk(target, cx, cy, Math.min(MAX_CHUNK, x1 - cx), Math.min(MAX_CHUNK, y1 - cy), painter, erase);
+    }
+
+    private void renderChunk(TiledRaster target, int cx, int cy, int cw, int ch, Consumer<GraphicsContext> painter, boolean erase) {
+        scratch.setWidth(cw); scratch.setHeight(ch);
+        GraphicsContext sg = scratch.getGraphicsContext2D();
+        sg.setTransform(1, 0, 0, 1, 0, 0);
+        sg.clearRect(0, 0, cw, ch);
+        sg.save();
+        sg.translate(-cx, -cy);
+        painter.accept(sg);
+        sg.restore();
+        WritableImage wi = scratch.snapshot(params, null);
+        if (pixels.length < cw * ch) pixels = new int[cw * ch];
+        wi.getPixelReader().getPixels(0, 0, cw, ch, PixelFormat.getIntArgbPreInstance(), pixels, 0, cw);
+        if (erase) target.eraseRect(cx, cy, cw, ch, pixels, 0, cw);
+        else target.compositeRect(cx, cy, cw, ch, pixels, 0, cw);
+    }
+}
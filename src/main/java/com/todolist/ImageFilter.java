@@ -0,0 +1,216 @@
+package com.todolist;
+
+import java.util.Arrays;
+
+// --- Bildfilter auf vormultipliziertem ARGB: Gaußscher Weichzeichner, Unscharf maskieren, Tonwerte, Kurven, Graustufen ---
+// Ein Filter bearbeitet ein Rechteck eines Quellpuffers, der ringsum halo() Pixel mehr enthält (am Bildrand weniger:
+// dort wird der Randpixel wiederholt). So kann FilterPipeline Kacheln unabhängig voneinander und parallel filtern.
+// Der Weichzeichner ist separierbar (waagrecht, dann senkrecht) und rechnet je Kanal in float-Zeilen; die inneren
+// Schleifen sind Multiplikation und Addition über zusammenhängende Arrays, die der JIT-Compiler vektorisiert.
+// Punktfilter (Tonwerte, Kurven, Graustufen) arbeiten mit Tabellen auf den nicht vormultiplizierten Farbwerten.
+public abstract class ImageFilter {
+
+    private static final ThreadLocal<Scratch> SCRATCH = ThreadLocal.withInitial(Scratch::new);
+
+    // --- Anzahl Pixel, die rings um das Zielrechteck gelesen werden ---
+    public abstract int halo();
+
+    // --- Filtert das Rechteck x,y,w,h von src (Breite sw, Höhe sh) nach dst (w x h, Zeilenabstand w) ---
+    public abstract void apply(int[] src, int sw, int sh, int x, int y, int w, int h, int[] dst);
+
+    // --- Derselbe Filter für ein um den Faktor f verkleinertes Bild (Vorschau auf einer Mip-Stufe) ---
+    public ImageFilter scaled(double f) { return this; }
+
+    // --- Fabrikmethoden ---
+    public static ImageFilter gaussian(double sigma) {
+        if (!(sigma >= 0)) throw new IllegalArgumentException("Radius muss >= 0 sein: " + sigma);
+        return new Gaussian(sigma);
+    }
+
+    // Verstärkt die Differenz zum weichgezeichneten Bild um amount (1 = 100 %), wenn sie mindestens threshold beträgt
+    public static ImageFilter unsharp(double sigma, double amount, int threshold) {
+        if (amount < 0 || threshold < 0 || threshold > 255) throw new IllegalArgumentException("Ungültige Werte für Unscharf maskieren");
+        return new Unsharp(new Gaussian(sigma), amount, threshold);
+    }
+
+    // Bildet black..white auf 0..255 ab, dazwischen mit Gammakorrektur (gamma > 1 hellt die Mitteltöne auf)
+    public static ImageFilter levels(int black, int white, double gamma) {
+        if (black < 0 || white > 255 || black >= white || !(gamma > 0)) throw new IllegalArgumentException("Ungültige Tonwerte: " + black + ".." + white + ", Gamma " + gamma);
+        int[] lut = new int[256];
+        for (int v = 0; v < 256; v++) {
+            double t = Math.max(0, Math.min(1, (v - black) / (double) (white - black)));
+            lut[v] = (int) Math.round(255 * Math.pow(t, 1 / gamma));
+        }
+        return new Lut(lut);
+    }
+
+    // Gradationskurve durch die Stützpunkte (x aufsteigend, 0..255), monoton kubisch interpoliert (Fritsch-Carlson)
+    public static ImageFilter curves(double[] xs, double[] ys) {
+        int n = xs.length;
+        if (n < 2 || ys.length != n) throw new IllegalArgumentException("Mindestens zwei Stützpunkte erforderlich");
+        for (int i = 1; i < n; i++) if (!(xs[i] > xs[i - 1])) throw new IllegalArgumentException("Stützpunkte müssen aufsteigend sein");
+        double[] d = new double[n - 1], m = new double[n];
+        for (int i = 0; i < n - 1; i++) d[i] = (ys[i + 1] - ys[i]) / (xs[i + 1] - xs[i]);
+        m[0] = d[0]; m[n - 1] = d[n - 2];
+        for (int i = 1; i < n - 1; i++) m[i] = d[i - 1] * d[i] <= 0 ? 0 : (d[i - 1] + d[i]) / 2;
+        for (int i = 0; i < n - 1; i++) { // Steigungen begrenzen, damit die Kurve zwischen den Punkten nicht überschwingt
+            if (d[i] == 0) { m[i] = m[i + 1] = 0; continue; }
+            double a = m[i] / d[i], b = m[i + 1] / d[i], s = a * a + b * b;
+            if (s > 9) { double t = 3 / Math.sqrt(s); m[i] = t * a * d[i]; m[i + 1] = t * b * d[i]; }
+        }
+        int[] lut = new int[256];
+        for (int v = 0, seg = 0; v < 256; v++) {
+            double y;
+            if (v <= xs[0]) y = ys[0];
+            else if (v >= xs[n - 1]) y = ys[n - 1];
+            else {
+                while (v > xs[seg + 1]) seg++;
+                double h = xs[seg + 1] - xs[seg], t = (v - xs[seg]) / h, t2 = t * t, t3 = t2 * t;
+                y = (2 * t3 - 3 * t2 + 1) * ys[seg] + (t3 - 2 * t2 + t) * h * m[seg] + (-2 * t3 + 3 * t2) * ys[seg + 1] + (t3 - t2) * h * m[seg + 1];
+            }
+            lut[v] = (int) Math.max(0, Math.min(255, Math.round(y)));
+        }
+        return new Lut(lut);
+    }
+
+    public static ImageFilter grayscale() { return new Grayscale(); }
+
+    // --- Gaußscher Weichzeichner (Kernradius 3 Sigma) ---
+    static final class Gaussian extends ImageFilter {
+        final double sigma;
+        final float[] kernel;
+
+        Gaussian(double sigma) {
+            this.sigma = sigma;
+            int r = sigma < 0.1 ? 0 : (int) Math.ceil(3 * sigma);
+            double[] k = new double[2 * r + 1];
+            double sum = 0;
+            for (int i = -r; i <= r; i++) sum += k[i + r] = r == 0 ? 1 : Math.exp(-i * i / (2 * sigma * sigma));
+            kernel = new float[k.length];
+            for (int i = 0; i < k.length; i++) kernel[i] = (float) (k[i] / sum);
+        }
+
+        @Override public int halo() { return kernel.length / 2; }
+        @Override public ImageFilter scaled(double f) { return new Gaussian(sigma * f); }
+
+        @Override
+        public void apply(int[] src, int sw, int sh, int x, int y, int w, int h, int[] dst) {
+            int r = kernel.length / 2, y0 = Math.max(0, y - r), rows = Math.min(sh, y + h + r) - y0, lw = w + 2 * r;
+            Scratch s = SCRATCH.get();
+            float[] line = s.floats(0, lw), tmp = s.floats(1, rows * w), acc = s.floats(2, w);
+            float[] k = kernel;
+            Arrays.fill(dst, 0, w * h, 0);
+            for (int shift = 0; shift < 32; shift += 8) {
+                // Waagrecht: alle benötigten Zeilen (samt Rand oben und unten)
+                for (int row = 0; row < rows; row++) {
+                    int base = (y0 + row) * sw, o = row * w;
+                    for (int j = 0; j < lw; j++) line[j] = (src[base + clamp(x - r + j, sw)] >>> shift) & 0xFF;
+                    Arrays.fill(tmp, o, o + w, 0f);
+                    for (int t = 0; t < k.length; t++) {
+                        float kt = k[t];
+                        for (int i = 0; i < w; i++) tmp[o + i] += kt * line[i + t];
+                    }
+                }
+                // Senkrecht: nur die Zielzeilen
+                for (int row = 0; row < h; row++) {
+                    Arrays.fill(acc, 0, w, 0f);
+                    for (int t = 0; t < k.length; t++) {
+                        float kt = k[t];
+                        int o = (clamp(y + row - r + t, sh) - y0) * w;
+                        for (int i = 0; i < w; i++) acc[i] += kt * tmp[o + i];
+                    }
+                    int o = row * w;
+                    for (int i = 0; i < w; i++) dst[o + i] |= Math.min(255, (int) (acc[i] + 0.5f)) << shift;
+                }
+            }
+            for (int i = 0, n = w * h; i < n; i++) dst[i] = limitToAlpha(dst[i]); // Rundung kann eine Farbe knapp über Alpha heben
+        }
+    }
+
+    // --- Unscharf maskieren: Original + amount * (Original - Weichgezeichnet), Alpha bleibt ---
+    static final class Unsharp extends ImageFilter {
+        final Gaussian blur; final double amount; final int threshold;
+
+        Unsharp(Gaussian blur, double amount, int threshold) { this.blur = blur; this.amount = amount; this.threshold = threshold; }
+
+        @Override public int halo() { return blur.halo(); }
+        @Override public ImageFilter scaled(double f) { return new Unsharp(new Gaussian(blur.sigma * f), amount, threshold); }
+
+        @Override
+        public void apply(int[] src, int sw, int sh, int x, int y, int w, int h, int[] dst) {
+            blur.apply(src, sw, sh, x, y, w, h, dst);
+            int amt = (int) Math.round(amount * 256);
+            for (int row = 0; row < h; row++) {
+                int si = (y + row) * sw + x, di = row * w;
+                for (int i = 0; i < w; i++, si++, di++) {
+                    int o = src[si], b = dst[di], a = o >>> 24, res = o & 0xFF000000;
+                    for (int shift = 0; shift < 24; shift += 8) {
+                        int c = (o >>> shift) & 0xFF, diff = c - ((b >>> shift) & 0xFF);
+                        if (Math.abs(diff) >= threshold && diff != 0) c = Math.max(0, Math.min(a, c + ((diff * amt + 128) >> 8)));
+                        res |= c << shift;
+                    }
+                    dst[di] = res;
+                }
+            }
+        }
+    }
+
+    // --- Tonwertkorrektur über eine Tabelle je Farbkanal (Tonwerte, Kurven) ---
+    static final class Lut extends ImageFilter {
+        final int[] lut;
+
+        Lut(int[] lut) { this.lut = lut; }
+
+        @Override public int halo() { return 0; }
+
+        @Override
+        public void apply(int[] src, int sw, int sh, int x, int y, int w, int h, int[] dst) {
+            int[] t = lut;
+            for (int row = 0; row < h; row++) {
+                int si = (y + row) * sw + x, di = row * w;
+                for (int i = 0; i < w; i++, si++, di++) {
+                    int p = src[si], a = p >>> 24;
+                    if (a == 0) { dst[di] = 0; continue; }
+                    int r = (p >> 16) & 0xFF, g = (p >> 8) & 0xFF, b = p & 0xFF;
+                    if (a == 255) { dst[di] = 0xFF000000 | (t[r] << 16) | (t[g] << 8) | t[b]; continue; }
+                    int half = a >> 1; // Entmultiplizieren (gerundet), Tabelle, wieder multiplizieren
+                    r = t[Math.min(255, (r * 255 + half) / a)]; g = t[Math.min(255, (g * 255 + half) / a)]; b = t[Math.min(255, (b * 255 + half) / a)];
+                    dst[di] = (a << 24) | (TiledRaster.div255(r * a) << 16) | (TiledRaster.div255(g * a) << 8) | TiledRaster.div255(b * a);
+                }
+            }
+        }
+    }
+
+    // --- Graustufen (Luminanz nach ITU-R BT.601); linear, daher direkt auf den vormultiplizierten Werten ---
+    static final class Grayscale extends ImageFilter {
+        @Override public int halo() { return 0; }
+
+        @Override
+        public void apply(int[] src, int sw, int sh, int x, int y, int w, int h, int[] dst) {
+            for (int row = 0; row < h; row++) {
+                int si = (y + row) * sw + x, di = row * w;
+                for (int i = 0; i < w; i++, si++, di++) {
+                    int p = src[si];
+                    int l = (77 * ((p >> 16) & 0xFF) + 150 * ((p >> 8) & 0xFF) + 29 * (p & 0xFF) + 128) >> 8;
+                    dst[di] = (p & 0xFF000000) | (l * 0x010101);
+                }
+            }
+        }
+    }
+
+    private static int clamp(int v, int n) { return v < 0 ? 0 : v >= n ? n - 1 : v; }
+
+    private static int limitToAlpha(int p) {
+        int a = p >>> 24;
+        return (a << 24) | (Math.min(a, (p >> 16) & 0xFF) << 16) | (Math.min(a, (p >> 8) & 0xFF) << 8) | Math.min(a, p & 0xFF);
+    }
+
+    // Arbeitspuffer je Thread (wachsen bei Bedarf)
+    private static final class Scratch {
+        final float[][] floats = new float[3][0];
+        float[] floats(int i, int size) {
+            if (floats[i].length < size) floats[i] = new float[size];
+            return floats[i];
+        }
+    }
+}
@@ -0,0 +1,154 @@
+package com.todolist;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageReadParam;
+import javax.imageio.ImageReader;
+import javax.imageio.event.IIOReadUpdateListener;
+import javax.imageio.stream.ImageInputStream;
+
+// --- Lädt Bilder im Hintergrund: erst eine schnelle, stark verkleinerte Vorschau, dann das Bild in Zeilenbändern ---
+// Übersteigt das Bild die Speicherobergrenze, wird automatisch ein Unterabtastungsfaktor gewählt.
+// Die Klasse selbst kennt kein JavaFX; die Ergebnisse gehen an einen Sink (der ggf. in den FX-Thread wechselt).
+public class ImageLoader {
+
+    private static final long PREVIEW_PIXELS = 1_000_000L;     // Zielgröße der Vorschau
+    private static final long PREVIEW_THRESHOLD = 4_000_000L;  // Kleinere Bilder brauchen keine Vorschau
+
+    // --- Empfänger der geladenen Daten (Pixel immer vormultipliziertes ARGB) ---
+    public interface Sink {
+        void begin(int width, int height, int subsampling);                 // Dokumentgröße steht fest
+        void preview(int[] pixels, int width, int height);                  // Grobe Vorschau des ganzen Bildes
+        void rows(int y, int height, int[] pixels, int width);              // Fertige Zeilen in voller Dokumentauflösung
+    }
+
+    private final long memoryCeilingBytes;  // Obergrenze für das Dokumentraster
+    private final long bandBudgetBytes;     // Obergrenze für einen dekodierten Zwischenpuffer
+
+    public ImageLoader(long memoryCeilingBytes, long bandBudgetBytes) {
+        this.memoryCeilingBytes = memoryCeilingBytes;
+        this.bandBudgetBytes = bandBudgetBytes;
+    }
+
+    // --- Kleinster Unterabtastungsfaktor, bei dem das Raster unter die Obergrenze passt ---
+    public static int subsamplingFor(long width, long height, long ceilingBytes) {
+        int s = 1;
+        while (ceil(width, s) * ceil(height, s) * 4L > ceilingBytes) s++;
+        return s;
+    }
+
+    // --- Lädt die Datei (blockierend, im Hintergrund-Thread aufrufen) ---
+    public void load(File file, Sink sink, BooleanSupplier cancelled, DoubleConsumer progress) throws IOException {
+        try (ImageInputStream in = ImageIO.createImageInputStream(file)) {
+            if (in == null) throw new IOException("Datei kann nicht geöffnet werden: " + file);
+            Iterator<ImageReader> readers = ImageIO.getImageReaders(in);
+            if (!readers.hasNext()) throw new IOException("Konnte Datei nicht als Bild lesen (Format?).");
+            ImageReader reader = readers.next();
+            try {
+                reader.setInput(in, false, true);
+                load(reader, sink, cancelled, progress);
+            } finally {
+                reader.dispose();
+            }
+        }
+    }
+
+    private void load(ImageReader reader, Sink sink, BooleanSupplier cancelled, DoubleConsumer progress) throws IOException {
+        int srcW = reader.getWidth(0), srcH = reader.getHeight(0);
+        if (srcW <= 0 || srcH <= 0) throw new IOException("Bild hat ungültige Größe.");
+        int s = subsamplingFor(srcW, srcH, memoryCeilingBytes);
+        int docW = (int) ceil(srcW, s), docH = (int) ceil(srcH, s);
+        sink.begin(docW, docH, s);
+        checkCancelled(cancelled);
+
+        // 1. Schnelle Vorschau (nur bei großen Bildern)
+        if ((long) docW * docH > PREVIEW_THRESHOLD) {
+            int p = Math.max(s, (int) Math.ceil(Math.sqrt((double) srcW * srcH / PREVIEW_PIXELS)));
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceSubsampling(p, p, 0, 0);
+            BufferedImage preview = reader.read(0, param);
+            int pw = preview.getWidth(), ph = preview.getHeight();
+            int[] px = preview.getRGB(0, 0, pw, ph, null, 0, pw);
+            premultiply(px, px.length);
+            sink.preview(px, pw, ph);
+            checkCancelled(cancelled);
+        }
+
+        // 2. Volle Auflösung in Bändern; innerhalb eines Bandes werden fertige Kachelzeilen sofort weitergegeben
+        int tile = TiledRaster.TILE_SIZE;
+        int bandRows = (int) Math.max(tile, Math.min(docH, bandBudgetBytes / (docW * 4L)) / tile * tile);
+        for (int y = 0; y < docH; y += bandRows) {
+            checkCancelled(cancelled);
+            int rows = Math.min(bandRows, docH - y);
+            int bandY = y;
+            ImageReadParam param = reader.getDefaultReadParam();
+            param.setSourceRegion(new java.awt.Rectangle(0, y * s, srcW, Math.min(rows * s, srcH - y * s)));
+            param.setSourceSubsampling(s, s, 0, 0);
+            RowForwarder forwarder = new RowForwarder(sink, bandY, docH, cancelled, reader, progress);
+            reader.addIIOReadUpdateListener(forwarder);
+            BufferedImage band;
+            try { band = reader.read(0, param); }
+            finally { reader.removeIIOReadUpdateListener(forwarder); }
+            checkCancelled(cancelled); // Nach reader.abort() ist das Band unvollständig
+            forwarder.flush(band, band.getHeight()); // Restzeilen (oder alles, falls der Reader keine Updates meldet)
+        }
+    }
+
+    // --- Gibt fertig dekodierte Zeilen kachelzeilenweise an den Sink weiter ---
+    private static final class RowForwarder implements IIOReadUpdateListener {
+        private final Sink sink; private final int bandY, docH;
+        private final BooleanSupplier cancelled; private final ImageReader reader; private final DoubleConsumer progress;
+        private int forwarded;                  // Bereits weitergegebene Zeilen dieses Bandes
+        private int[] buffer = new int[0];
+
+        RowForwarder(Sink sink, int bandY, int docH, BooleanSupplier cancelled, ImageReader reader, DoubleConsumer progress) {
+            this.sink = sink; this.bandY = bandY; this.docH = docH;
+            this.cancelled = cancelled; this.reader = reader; this.progress = progress;
+        }
+
+        @Override
+        public void imageUpdate(ImageReader source, BufferedImage theImage, int minX, int minY, int width, int height, int periodX, int periodY, int[] bands) {
+            if (cancelled != null && cancelled.getAsBoolean()) { reader.abort(); return; }
+            int done = minY + (height - 1) * periodY + 1; // Zeilen [0, done) sind fertig (nicht verschachtelte Bilder)
+            if (periodY != 1 || minX != 0 || width != theImage.getWidth()) return;
+            int tile = TiledRaster.TILE_SIZE;
+            int ready = Math.min(done, theImage.getHeight()) / tile * tile;
+            if (ready > forwarded) flush(theImage, ready);
+        }
+
+        void flush(BufferedImage img, int upTo) {
+            int rows = upTo - forwarded;
+            if (rows <= 0) return;
+            int w = img.getWidth();
+            if (buffer.length < w * rows) buffer = new int[w * rows];
+            img.getRGB(0, forwarded, w, rows, buffer, 0, w);
+            premultiply(buffer, w * rows);
+            sink.rows(bandY + forwarded, rows, buffer, w);
+            forwarded = upTo;
+            if (progress != null) progress.accept((double) (bandY + forwarded) / docH);
+        }
+
+        @Override public void passStarted(ImageReader source, BufferedImage theImage, int pass, int minPass, int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) { }
+        @Override public void passComplete(ImageReader source, BufferedImage theImage) { }
+        @Override public void thumbnailPassStarted(ImageReader source, BufferedImage theThumbnail, int pass, int minPass, int maxPass, int minX, int minY, int periodX, int periodY, int[] bands) { }
+        @Override public void thumbnailUpdate(ImageReader source, BufferedImage theThumbnail, int minX, int minY, int width, int height, int periodX, int periodY, int[] bands) { }
+        @Override public void thumbnailPassComplete(ImageReader source, BufferedImage theThumbnail) { }
+    }
+
+    // --- ARGB -> vormultipliziertes ARGB (in place) ---
+    static void premultiply(int[] px, int n) {
+        for (int i = 0; i < n; i++) if ((px[i] >>> 24) != 255) px[i] = TiledRaster.premultiply(px[i]);
+    }
+
+    private static void checkCancelled(BooleanSupplier cancelled) {
+        if (cancelled != null && cancelled.getAsBoolean()) throw new CancellationException("Laden abgebrochen");
+    }
+
+    private static long ceil(long v, int d) { return (v + d - 1) / d; }
+}
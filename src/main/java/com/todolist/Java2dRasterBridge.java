@@ -0,0 +1,113 @@
+package com.todolist;
+
+import java.awt.BasicStroke;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.Shape;
+import java.awt.geom.Ellipse2D;
+import java.awt.geom.Path2D;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.Arrays;
+
+// --- Gegenstück zu FxRasterBridge ohne JavaFX-Toolkit: spielt StrokeLog-Befehle mit Java2D in ein TiledRaster ---
+// Gleiche Bedeutung wie StrokeLog.replay (runde Enden/Ecken, Kantenglättung, Source-Over); gezeichnet wird in einen
+// vormultiplizierten Hilfspuffer in Größe des Begrenzungsrechtecks, der per compositeRect übernommen wird.
+// Nicht threadsicher; jeder Thread braucht eine eigene Instanz.
+public class Java2dRasterBridge implements StrokeRasterizer {
+
+    private static final int MAX_CHUNK = 2048; // Maximale Kantenlänge des Hilfspuffers
+
+    private BufferedImage buffer = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB_PRE);
+    private final FloodFill fill = new FloodFill();
+
+    // --- Spielt einen einzelnen Befehl ab ---
+    @Override
+    public void replay(StrokeLog log, int i, TiledRaster target) {
+        if (log.type(i) == StrokeLog.CLEAR) { target.clear(TiledRaster.premultiply(log.argb(i))); return; }
+        if (log.type(i) == StrokeLog.FILL) { fill.fill(target, (int) log.x(i, 0), (int) log.y(i, 0), TiledRaster.premultiply(log.argb(i)), (int) log.width(i)); return; }
+        Shape shape = shapeOf(log, i);
+        if (shape == null) return;
+        BasicStroke stroke = new BasicStroke(log.width(i), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND);
+        boolean erase = log.isTransparentErase(i);
+        java.awt.Color color = erase ? java.awt.Color.BLACK : new java.awt.Color(log.argb(i), true); // Radieren: deckende Maske
+        double[] b = log.bounds(i);
+        int x0 = Math.max(0, (int) Math.floor(b[0])), y0 = Math.max(0, (int) Math.floor(b[1]));
+        int x1 = Math.min(target.getWidth(), (int) Math.ceil(b[0] + b[2])), y1 = Math.min(target.getHeight(), (int) Math.ceil(b[1] + b[3]));
+        for (int cy = y0; cy < y1; cy += MAX_CHUNK)
+            for (int cx = x0; cx < x1; cx += MAX_CHUNK)
+                renderChunk(target, cx, cy, Math.min(MAX_CHUNK, x1 - cx), Math.min(MAX_CHUNK, y1 - cy), shape, stroke, color, erase);
+    }
+
+    // --- Zeichnet mehrere Befehle (in der angegebenen Reihenfolge) auf Transparenz und ersetzt damit das Rechteck x,y,w,h ---
+    // Für Vektorformen, deren Kacheln einzeln neu gezeichnet werden; w und h höchstens MAX_CHUNK.
+    @Override
+    public void renderClipped(StrokeLog log, int[] indices, int n, TiledRaster target, int x, int y, int w, int h) {
+        Graphics2D g = begin(x, y, w, h);
+        try {
+            for (int k = 0; k < n; k++) {
+                int i = indices[k];
+                Shape shape = shapeOf(log, i);
+                if (shape == null) continue;
+                g.setColor(new java.awt.Color(log.argb(i), true));
+                g.setStroke(new BasicStroke(log.width(i), BasicStroke.CAP_ROUND, BasicStroke.JOIN_ROUND));
+                g.draw(shape);
+            }
+        } finally {
+            g.dispose();
+        }
+        target.writeRect(x, y, w, h, pixels(), 0, buffer.getWidth());
+    }
+
+    private void renderChunk(TiledRaster target, int cx, int cy, int cw, int ch, Shape shape, BasicStroke stroke, java.awt.Color color, boolean erase) {
+        Graphics2D g = begin(cx, cy, cw, ch);
+        try {
+            g.setColor(color);
+            g.setStroke(stroke);
+            g.draw(shape);
+        } finally {
+            g.dispose();
+        }
+        if (erase) target.eraseRect(cx, cy, cw, ch, pixels(), 0, buffer.getWidth());
+        else target.compositeRect(cx, cy, cw, ch, pixels(), 0, buffer.getWidth());
+    }
+
+    // Leert den Hilfspuffer im Bereich cw x ch und liefert einen Grafikkontext in Dokumentkoordinaten
+    private Graphics2D begin(int cx, int cy, int cw, int ch) {
+        if (buffer.getWidth() < cw || buffer.getHeight() < ch)
+            buffer = new BufferedImage(Math.max(cw, buffer.getWidth()), Math.max(ch, buffer.getHeight()), BufferedImage.TYPE_INT_ARGB_PRE);
+        int stride = buffer.getWidth();
+        int[] px = pixels();
+        for (int y = 0; y < ch; y++) Arrays.fill(px, y * stride, y * stride + cw, 0);
+        Graphics2D g = buffer.createGraphics();
+        g.setClip(0, 0, cw, ch);
+        g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+        g.setRenderingHint(RenderingHints.KEY_STROKE_CONTROL, RenderingHints.VALUE_STROKE_PURE);
+        g.translate(-cx, -cy);
+        return g;
+    }
+
+    private int[] pixels() { return ((DataBufferInt) buffer.getRaster().getDataBuffer()).getData(); }
+
+    // --- Geometrie eines Befehls (null, wenn nichts zu zeichnen ist) ---
+    private static Shape shapeOf(StrokeLog log, int i) {
+        int n = log.pointCount(i);
+        switch (log.type(i)) {
+            case StrokeLog.STROKE: case StrokeLog.ERASE: {
+                if (n == 0) return null;
+                Path2D.Float path = new Path2D.Float(Path2D.WIND_NON_ZERO, n);
+                path.moveTo(log.x(i, 0), log.y(i, 0));
+                for (int p = n == 1 ? 0 : 1; p < n; p++) path.lineTo(log.x(i, p), log.y(i, p)); // Einzelpunkt: Punkt mit runder Kappe
+                return path;
+            }
+            case StrokeLog.RECTANGLE: case StrokeLog.OVAL: {
+                double x1 = log.x(i, 0), y1 = log.y(i, 0), x2 = log.x(i, 1), y2 = log.y(i, 1);
+                double tX = Math.min(x1, x2), tY = Math.min(y1, y2), w = Math.abs(x1 - x2), h = Math.abs(y1 - y2);
+                if (w <= 0 || h <= 0) return null;
+                return log.type(i) == StrokeLog.RECTANGLE ? new Rectangle2D.Double(tX, tY, w, h) : new Ellipse2D.Double(tX, tY, w, h);
+            }
+            default: return null;
+        }
+    }
+}
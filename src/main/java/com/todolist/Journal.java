@@ -0,0 +1,286 @@
+package com.todolist;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+// --- Automatisches Sichern: Journal der Zeichenoperationen plus regelmäßiger Sicherungspunkt ---
+// Der FX-Thread legt nur unveränderliche Kopien in eine Warteschlange (Mikrosekunden je Strich); ein eigener
+// Schreib-Thread sammelt alles, was innerhalb von commitMillis eintrifft, hängt es mit einem einzigen Schreibzugriff
+// an journal-<gen>.log an und erzwingt dann einmal das Schreiben auf die Platte (Gruppen-Commit). Jeder Datensatz
+// trägt Länge und CRC32, ein beim Absturz abgeschnittenes Ende wird beim Wiederherstellen verworfen.
+// Ein Sicherungspunkt hält den vollständigen Stand; danach beginnt ein neues Journal journal-<gen>.log. Eine Sitzung
+// schreibt alle Sicherungspunkte in dieselbe Datei checkpoint-<n>.tdpaint (ProjectFile: nur die seit dem letzten
+// Sicherungspunkt geänderten Kacheln werden angehängt, veraltete beim Verdichten entfernt). Die Generation steht im
+// Kopf der Datei und wird mit ihm gültig, so passt das Journal auch nach einem Absturz mitten im Schreiben zum Stand.
+// Sicherungspunkte entstehen periodisch und nach allen Änderungen, die sich nicht als Operation abspielen lassen
+// (Rückgängig, Ebenen, Filter, Laden). Liegen mehrere in der Warteschlange, zählt nur der letzte.
+// Beim Start spielt recover() das Journal des neuesten gültigen Sicherungspunkts ab. Operationen, die eintreffen,
+// während ein Sicherungspunkt geschrieben wird, landen erst danach im neuen Journal.
+public class Journal implements AutoCloseable {
+
+    private static final long MAGIC = 0x54444A524E4C3031L;        // "TDJRNL01"
+    private static final int HEADER_SIZE = 16;
+    private static final byte COMMAND = 1, SHAPE_ADD = 2, SHAPE_MOVE = 3;
+
+    // --- Ergebnis der Wiederherstellung ---
+    public static final class Recovery {
+        public final List<Layer> layers; public final long generation; public final int replayed;
+        Recovery(List<Layer> layers, long generation, int replayed) { this.layers = layers; this.generation = generation; this.replayed = replayed; }
+    }
+
+    // Eintrag der Warteschlange: Operation (Kopie) oder Sicherungspunkt
+    private static final class Item {
+        final byte kind; final int layer; final StrokeLog cmd; final int rank; final double dx, dy;
+        final List<Layer> checkpoint; final boolean stop;
+        final long enqueued = System.nanoTime();
+        Item(byte kind, int layer, StrokeLog cmd, int rank, double dx, double dy, List<Layer> checkpoint, boolean stop) {
+            this.kind = kind; this.layer = layer; this.cmd = cmd; this.rank = rank; this.dx = dx; this.dy = dy; this.checkpoint = checkpoint; this.stop = stop;
+        }
+    }
+
+    private final Path dir;
+    private final long commitNanos;
+    private final Metrics metrics;                  // Optional: Commit- und Sicherungszeiten
+    private final LinkedBlockingQueue<Item> queue = new LinkedBlockingQueue<>();
+    private final Thread writer;
+    private final FileChannel lockChannel; private final FileLock lock;
+    // Nur im Schreib-Thread
+    private long generation;
+    private ProjectFile checkpoint;                  // Sicherungsdatei dieser Sitzung (null bis zum ersten Sicherungspunkt)
+    private FileChannel journal;
+    private long journalBytes;
+    private volatile long bytesSinceCheckpoint, lastCheckpointNanos = System.nanoTime();
+    private volatile long records, commits;
+    private volatile IOException failure;            // Erster Schreibfehler (danach wird nichts mehr geschrieben)
+    private volatile boolean discard;
+
+    private Journal(Path dir, long commitMillis, Metrics metrics, FileChannel lockChannel, FileLock lock) throws IOException {
+        this.dir = dir; this.commitNanos = TimeUnit.MILLISECONDS.toNanos(commitMillis); this.metrics = metrics;
+        this.lockChannel = lockChannel; this.lock = lock;
+        for (long g : generations(dir, "checkpoint-", ".tdpaint")) generation = Math.max(generation, g);
+        for (long g : generations(dir, "journal-", ".log")) generation = Math.max(generation, g); // Sicherungsdateien wachsen über mehrere Generationen
+        writer = new Thread(this::run, "paint-journal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // --- Öffnet das Journal im Verzeichnis dir (null, falls eine andere Instanz es benutzt) ---
+    // Vor dem ersten Zeichnen muss checkpoint() den Ausgangsstand festhalten.
+    public static Journal open(Path dir, long commitMillis, Metrics metrics) throws IOException {
+        Files.createDirectories(dir);
+        FileChannel ch = FileChannel.open(dir.resolve("lock"), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+        FileLock lock;
+        try { lock = ch.tryLock(); }
+        catch (java.nio.channels.OverlappingFileLockException ex) { lock = null; } // Schon in dieser JVM geöffnet
+        catch (IOException ex) { ch.close(); throw ex; }
+        if (lock == null) { ch.close(); return null; }
+        return new Journal(dir, commitMillis, metrics, ch, lock);
+    }
+
+    public long getRecords() { return records; }
+    public long getCommits() { return commits; }
+    public long getBytesSinceCheckpoint() { return bytesSinceCheckpoint; }
+    public long getNanosSinceCheckpoint() { return System.nanoTime() - lastCheckpointNanos; }
+    public IOException getFailure() { return failure; }
+
+    // --- Operationen (FX-Thread; kopieren nur den Befehl) ---
+    public void command(int layer, StrokeLog log, int index) { offer(new Item(COMMAND, layer, log.copyRange(index, index + 1), 0, 0, 0, null, false)); }
+    public void shapeAdded(int layer, VectorShapes shapes, int id) { offer(new Item(SHAPE_ADD, layer, shapes.getLog().copyRange(id, id + 1), 0, 0, 0, null, false)); }
+    public void shapeMoved(int layer, VectorShapes shapes, int id, double dx, double dy) { offer(new Item(SHAPE_MOVE, layer, null, shapes.rankOf(id), dx, dy, null, false)); }
+    // --- Vollständiger Stand (Snapshots, z.B. LayerStack.snapshot()) ---
+    public void checkpoint(List<Layer> layers) { offer(new Item((byte) 0, 0, null, 0, 0, 0, layers, false)); }
+
+    private void offer(Item item) { if (failure == null) queue.add(item); }
+
+    // --- Schreibt alles Ausstehende und beendet den Schreib-Thread; discard: Dateien löschen (sauberes Beenden) ---
+    @Override public void close() { close(false); }
+    public void close(boolean discard) {
+        this.discard = discard;
+        queue.add(new Item((byte) 0, 0, null, 0, 0, 0, null, true));
+        try { writer.join(); } catch (InterruptedException ex) { Thread.currentThread().interrupt(); }
+        try { lock.release(); lockChannel.close(); if (discard) Files.deleteIfExists(dir.resolve("lock")); } catch (IOException ignored) { }
+    }
+
+    // --- Schreib-Thread ---
+    private void run() {
+        List<Item> batch = new ArrayList<>();
+        boolean stop = false;
+        while (!stop) {
+            try {
+                batch.clear();
+                Item first = queue.take();
+                batch.add(first);
+                // Gruppen-Commit: bis zur Frist des ältesten Eintrags sammeln (Sicherungspunkte und Beenden sofort)
+                for (long wait; !first.stop && first.checkpoint == null && (wait = first.enqueued + commitNanos - System.nanoTime()) > 0; ) {
+                    Item next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                    if (next.stop || next.checkpoint != null) break;
+                }
+                queue.drainTo(batch);
+                stop = batch.get(batch.size() - 1).stop;
+                if (failure == null) write(batch);
+            } catch (InterruptedException ex) {
+                stop = true;
+            } catch (IOException | RuntimeException ex) {
+                failure = ex instanceof IOException ? (IOException) ex : new IOException(ex);
+                System.err.println("Automatisches Sichern fehlgeschlagen: " + ex.getMessage());
+            }
+        }
+        try { if (journal != null) journal.close(); } catch (IOException ignored) { }
+        if (discard) deleteBefore(Long.MAX_VALUE, null);
+    }
+
+    private void write(List<Item> batch) throws IOException {
+        int from = 0;
+        for (int i = batch.size() - 1; i >= 0; i--) if (batch.get(i).checkpoint != null) { from = i; break; } // Ältere Stände sind überholt
+        if (batch.get(from).checkpoint != null) { writeCheckpoint(batch.get(from).checkpoint); from++; }
+        if (journal == null) return; // Noch kein Ausgangsstand
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        ByteArrayOutputStream rec = new ByteArrayOutputStream();
+        DataOutputStream r = new DataOutputStream(rec);
+        CRC32 crc = new CRC32();
+        long oldest = Long.MAX_VALUE;
+        int n = 0;
+        for (int i = from; i < batch.size(); i++) {
+            Item it = batch.get(i);
+            if (it.stop) continue;
+            rec.reset();
+            r.writeByte(it.kind); r.writeInt(it.layer);
+            if (it.kind == SHAPE_MOVE) { r.writeInt(it.rank); r.writeDouble(it.dx); r.writeDouble(it.dy); }
+            else it.cmd.write(r);
+            r.flush();
+            crc.reset(); crc.update(rec.toByteArray());
+            out.writeInt(rec.size()); out.writeInt((int) crc.getValue());
+            rec.writeTo(out);
+            oldest = Math.min(oldest, it.enqueued); n++;
+        }
+        if (n == 0) return;
+        out.flush();
+        ByteBuffer b = ByteBuffer.wrap(bytes.toByteArray());
+        while (b.hasRemaining()) journalBytes += journal.write(b, journalBytes);
+        journal.force(false);
+        records += n; commits++; bytesSinceCheckpoint += bytes.size();
+        if (metrics != null) metrics.series("journal.commit", Metrics.Unit.NANOS).add(System.nanoTime() - oldest); // Vom Eintreffen bis auf der Platte
+    }
+
+    // Neuer Sicherungspunkt, dann neues Journal; ältere Dateien erst danach löschen
+    private void writeCheckpoint(List<Layer> layers) throws IOException {
+        Metrics.IoTimer timer = metrics == null ? null : metrics.beginIo("io.checkpoint");
+        long gen = generation + 1;
+        if (checkpoint == null) { // Eigene Datei: eine wiederhergestellte ist gemappt und wird nicht fortgeschrieben
+            Path file;
+            while (Files.exists(file = dir.resolve("checkpoint-" + gen + ".tdpaint"))) gen++;
+            checkpoint = new ProjectFile(file);
+        }
+        checkpoint.setStamp(gen);
+        checkpoint.save(layers, new StrokeLog(), null, null);
+        if (journal != null) journal.close();
+        journal = FileChannel.open(dir.resolve("journal-" + gen + ".log"), StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE).putLong(MAGIC).putLong(gen);
+        h.flip();
+        while (h.hasRemaining()) journal.write(h);
+        journal.force(true);
+        journalBytes = HEADER_SIZE;
+        generation = gen;
+        bytesSinceCheckpoint = 0; lastCheckpointNanos = System.nanoTime();
+        deleteBefore(gen, checkpoint.getPath());
+        if (timer != null) timer.finish(checkpoint.getPath(), checkpoint.getLastSaveBytes());
+    }
+
+    // Löscht Journale und Sicherungsdateien vor gen, außer der Sicherungsdatei keep
+    private void deleteBefore(long gen, Path keep) {
+        try {
+            for (long g : generations(dir, "checkpoint-", ".tdpaint")) {
+                Path p = dir.resolve("checkpoint-" + g + ".tdpaint");
+                if (g < gen && !p.equals(keep)) Files.deleteIfExists(p);
+            }
+            for (long g : generations(dir, "journal-", ".log")) if (g < gen) Files.deleteIfExists(dir.resolve("journal-" + g + ".log"));
+        } catch (IOException ex) { // z.B. noch gemappte Datei unter Windows: beim nächsten Sicherungspunkt erneut versuchen
+            System.err.println("Alte Sicherung konnte nicht gelöscht werden: " + ex.getMessage());
+        }
+    }
+
+    // --- Wiederherstellen: neuester ladbarer Sicherungspunkt plus sein Journal (null, wenn nichts vorliegt) ---
+    public static Recovery recover(Path dir) throws IOException {
+        if (!Files.isDirectory(dir)) return null;
+        TreeMap<Long, Path> points = new TreeMap<>();
+        for (long g : generations(dir, "checkpoint-", ".tdpaint")) points.put(g, dir.resolve("checkpoint-" + g + ".tdpaint"));
+        for (Long g : points.descendingKeySet()) {
+            ProjectFile.Document doc;
+            try { doc = ProjectFile.load(points.get(g)); }
+            catch (IOException ex) { continue; } // Unbrauchbar: älteren versuchen
+            long gen = doc.file.getStamp();      // Generation des zuletzt gültig geschriebenen Stands
+            Path log = dir.resolve("journal-" + gen + ".log");
+            int replayed = Files.exists(log) ? replay(Files.readAllBytes(log), gen, doc.layers) : 0;
+            return new Recovery(doc.layers, gen, replayed);
+        }
+        return null;
+    }
+
+    // Spielt alle vollständigen Datensätze ab; liefert deren Anzahl
+    static int replay(byte[] data, long gen, List<Layer> layers) throws IOException {
+        ByteBuffer b = ByteBuffer.wrap(data);
+        if (data.length < HEADER_SIZE || b.getLong() != MAGIC || b.getLong() != gen) return 0;
+        StrokeRasterizer bridge = StrokeRasterizer.fromProperty();
+        CRC32 crc = new CRC32();
+        int n = 0;
+        while (b.remaining() >= 8) {
+            int len = b.getInt(), sum = b.getInt();
+            if (len <= 0 || len > b.remaining()) break;           // Abgeschnittenes Ende
+            crc.reset(); crc.update(data, b.position(), len);
+            if ((int) crc.getValue() != sum) break;
+            DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(data, b.position(), len));
+            b.position(b.position() + len);
+            byte kind = in.readByte(); int l = in.readInt();
+            if (l < 0 || l >= layers.size()) break;
+            Layer layer = layers.get(l);
+            if (kind == COMMAND) {
+                StrokeLog c = StrokeLog.read(in);
+                if (c.size() == 1) { // Wie in der App: berührte Formen zuerst übernehmen, beim Leeren nur entfernen
+                    if (c.type(0) == StrokeLog.CLEAR) layer.getShapes().removeAll();
+                    else layer.getShapes().flattenInto(layer.getRaster(), c.bounds(0));
+                    bridge.replay(c, 0, layer.getRaster());
+                }
+            }
+            else if (kind == SHAPE_ADD) {
+                StrokeLog c = StrokeLog.read(in);
+                if (c.size() == 1 && c.pointCount(0) == 2) layer.getShapes().add(c.type(0), c.argb(0), c.width(0), c.x(0, 0), c.y(0, 0), c.x(0, 1), c.y(0, 1));
+            } else if (kind == SHAPE_MOVE) {
+                int id = layer.getShapes().idOfRank(in.readInt());
+                double dx = in.readDouble(), dy = in.readDouble();
+                if (id >= 0) layer.getShapes().move(id, dx, dy);
+            } else break;
+            n++;
+        }
+        return n;
+    }
+
+    private static List<Long> generations(Path dir, String prefix, String suffix) throws IOException {
+        List<Long> gens = new ArrayList<>();
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(dir, prefix + "*" + suffix)) {
+            for (Path p : ds) {
+                String name = p.getFileName().toString();
+                try { gens.add(Long.parseLong(name.substring(prefix.length(), name.length() - suffix.length()))); }
+                catch (NumberFormatException ignored) { }
+            }
+        }
+        return gens;
+    }
+}
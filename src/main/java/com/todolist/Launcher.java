@@ -2,6 +2,8 @@ package com.todolist;
 
 public class Launcher {
     public static void main(String[] args) {
+        // Batch-Modus ohne Oberfläche (siehe BatchRenderer), sonst die JavaFX-Anwendung
+        if (BatchRenderer.isHeadless(args)) System.exit(BatchRenderer.run(args, System.out, System.err));
         // Simplemente llama al main de tu clase App principal
         App.main(args);
     }
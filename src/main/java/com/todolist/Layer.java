@@ -0,0 +1,68 @@
+package com.todolist;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// --- Eine Ebene: eigenes TiledRaster mit Deckkraft, Mischmodus und Sichtbarkeit ---
+// Rechtecke und Ovale liegen als Vektorformen (VectorShapes) über dem Raster der Ebene, bis ein Raster-Befehl, der sie berührt, sie übernimmt.
+// Die unterste Ebene hat die Hintergrundfarbe als Kachelhintergrund, alle anderen sind transparent.
+// Jede Änderung einer Eigenschaft erhöht revision, damit der Compositor seinen Zwischenspeicher verwirft.
+// id bleibt beim Verschieben und in Snapshots gleich (z.B. für ProjectFile, das gespeicherte Kacheln je Ebene kennt).
+public class Layer {
+
+    private static final AtomicInteger NEXT_ID = new AtomicInteger();
+
+    // --- Mischmodi (wirken auf vormultipliziertes ARGB, Formeln siehe Compositor) ---
+    public enum BlendMode {
+        NORMAL("Normal"), MULTIPLY("Multiplizieren"), SCREEN("Negativ multiplizieren"),
+        DARKEN("Abdunkeln"), LIGHTEN("Aufhellen"), ADD("Addieren");
+
+        private final String label;
+        BlendMode(String label) { this.label = label; }
+        @Override public String toString() { return label; }
+    }
+
+    private final int id;
+    private String name;
+    private final TiledRaster raster;
+    private VectorShapes shapes;
+    private float opacity = 1f;             // 0..1
+    private BlendMode mode = BlendMode.NORMAL;
+    private boolean visible = true;
+    private int revision;                   // Änderungszähler der Eigenschaften (nicht der Pixel)
+
+    public Layer(String name, TiledRaster raster) { this(NEXT_ID.incrementAndGet(), name, raster); }
+
+    private Layer(int id, String name, TiledRaster raster) {
+        this.id = id; this.name = name; this.raster = raster;
+        this.shapes = new VectorShapes(raster.getWidth(), raster.getHeight());
+    }
+
+    public Layer(String name, TiledRaster raster, float opacity, BlendMode mode, boolean visible) {
+        this(name, raster);
+        this.opacity = opacity; this.mode = mode; this.visible = visible;
+    }
+
+    // --- Kopie mit Raster-Snapshot (Copy-on-Write), z.B. zum Speichern im Hintergrund ---
+    public Layer snapshot() {
+        Layer l = new Layer(id, name, raster.snapshot());
+        l.opacity = opacity; l.mode = mode; l.visible = visible;
+        l.shapes = shapes.snapshot();
+        return l;
+    }
+
+    public int getId() { return id; }
+    public String getName() { return name; }
+    public void setName(String name) { this.name = name; }
+    public TiledRaster getRaster() { return raster; }
+    public VectorShapes getShapes() { return shapes; }
+    public void setShapes(VectorShapes shapes) { this.shapes = shapes; revision++; } // Nur beim Laden, vor dem ersten Mischen
+    public float getOpacity() { return opacity; }
+    public void setOpacity(float opacity) { if (opacity != this.opacity) { this.opacity = Math.max(0f, Math.min(1f, opacity)); revision++; } }
+    public BlendMode getMode() { return mode; }
+    public void setMode(BlendMode mode) { if (mode != this.mode) { this.mode = mode; revision++; } }
+    public boolean isVisible() { return visible; }
+    public void setVisible(boolean visible) { if (visible != this.visible) { this.visible = visible; revision++; } }
+    public int getRevision() { return revision; }
+
+    @Override public String toString() { return (visible ? "" : "(aus) ") + name; }
+}
@@ -0,0 +1,87 @@
+package com.todolist;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// --- Geordnete Ebenenliste eines Dokuments (Index 0 = unterste Ebene) und die aktive Ebene ---
+// Alle Ebenen haben dieselbe Größe. Strukturänderungen (Hinzufügen, Entfernen, Verschieben) erhöhen revision.
+public class LayerStack {
+
+    private final int width, height;
+    private final List<Layer> layers = new ArrayList<>();
+    private int active;
+    private int revision;
+    private int created;                    // Für Standardnamen neuer Ebenen
+
+    // --- Neuer Stapel mit einer deckenden Hintergrundebene ---
+    public LayerStack(int width, int height, int background) {
+        this(new Layer("Hintergrund", new TiledRaster(width, height, background)));
+    }
+
+    // --- Stapel aus vorhandenen Ebenen (z.B. nach dem Laden) ---
+    public LayerStack(Layer base, Layer... more) {
+        this.width = base.getRaster().getWidth(); this.height = base.getRaster().getHeight();
+        layers.add(base);
+        for (Layer l : more) add(l);
+        active = layers.size() - 1;
+        created = layers.size();
+    }
+
+    public static LayerStack of(List<Layer> layers) {
+        return new LayerStack(layers.get(0), layers.subList(1, layers.size()).toArray(new Layer[0]));
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int size() { return layers.size(); }
+    public Layer get(int i) { return layers.get(i); }
+    public List<Layer> layers() { return Collections.unmodifiableList(layers); }
+    public int getRevision() { return revision; }
+    public int getActiveIndex() { return active; }
+    public Layer getActive() { return layers.get(active); }
+    public void setActiveIndex(int i) { active = Math.max(0, Math.min(layers.size() - 1, i)); }
+
+    // --- Fügt eine leere, transparente Ebene über der aktiven ein und macht sie aktiv ---
+    public Layer addLayer() {
+        Layer l = new Layer("Ebene " + (++created), new TiledRaster(width, height, 0));
+        layers.add(active + 1, l);
+        active++;
+        revision++;
+        return l;
+    }
+
+    private void add(Layer l) {
+        TiledRaster r = l.getRaster();
+        if (r.getWidth() != width || r.getHeight() != height) throw new IllegalArgumentException("Ebenen müssen gleich groß sein");
+        layers.add(l);
+    }
+
+    // --- Entfernt die Ebene i (die letzte verbleibende Ebene bleibt immer erhalten) ---
+    public boolean remove(int i) {
+        if (layers.size() <= 1) return false;
+        layers.remove(i);
+        if (active >= layers.size() || active > i) active = Math.max(0, active - 1);
+        revision++;
+        return true;
+    }
+
+    // --- Verschiebt Ebene i um delta Positionen (positiv = nach oben) ---
+    public boolean move(int i, int delta) {
+        int j = i + delta;
+        if (j < 0 || j >= layers.size() || delta == 0) return false;
+        layers.add(j, layers.remove(i));
+        if (active == i) active = j;
+        else if (active > i && active <= j) active--;
+        else if (active < i && active >= j) active++;
+        revision++;
+        return true;
+    }
+
+    // --- Kopien aller Ebenen mit Raster-Snapshots ---
+    public List<Layer> snapshot() {
+        List<Layer> copy = new ArrayList<>(layers.size());
+        for (Layer l : layers) copy.add(l.snapshot());
+        return copy;
+    }
+}
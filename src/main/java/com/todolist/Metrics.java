@@ -0,0 +1,233 @@
+package com.todolist;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+// --- Messwerte für Darstellung und Datei-Ein-/Ausgabe ---
+// Jede Messreihe hält die letzten SAMPLES Werte in einem Ring aus long (keine Objekte pro Wert) sowie Anzahl,
+// Summe und Maximum seit dem Start. Jeder Messwert wird zusätzlich als JFR-Ereignis veröffentlicht, sofern eine
+// Aufzeichnung läuft (z.B. -XX:StartFlightRecording); ohne Aufzeichnung kostet das nur eine Abfrage.
+// Aufrufe aus dem FX-Thread und aus Hintergrund-Threads (Speichern/Laden) sind erlaubt.
+public class Metrics {
+
+    public static final int SAMPLES = 1024;                 // Ringgröße je Messreihe (Perzentile beziehen sich darauf)
+
+    // --- Einheiten: Zeiten werden in Nanosekunden, Flächen in Pixeln, Datenmengen in Bytes erfasst ---
+    public enum Unit { NANOS, PIXELS, BYTES }
+
+    // --- Eine Messreihe ---
+    public static final class Series {
+        private final String name; private final Unit unit;
+        private final long[] ring = new long[SAMPLES];
+        private long count, sum, max, last;
+
+        Series(String name, Unit unit) { this.name = name; this.unit = unit; }
+
+        public String getName() { return name; }
+        public Unit getUnit() { return unit; }
+
+        public synchronized void add(long value) {
+            ring[(int) (count % SAMPLES)] = value;
+            count++; sum += value; last = value;
+            if (value > max) max = value;
+        }
+        public synchronized long getCount() { return count; }
+        public synchronized long getLast() { return last; }
+        public synchronized long getMax() { return max; }
+        public synchronized double getMean() { return count == 0 ? 0 : (double) sum / count; }
+        // --- Perzentil (0..100) über die letzten SAMPLES Werte ---
+        public long percentile(double p) {
+            long[] v;
+            synchronized (this) { v = Arrays.copyOf(ring, (int) Math.min(count, SAMPLES)); }
+            if (v.length == 0) return 0;
+            Arrays.sort(v);
+            int i = (int) Math.ceil(p / 100.0 * v.length) - 1; // Nächster-Rang-Verfahren
+            return v[Math.max(0, Math.min(v.length - 1, i))];
+        }
+    }
+
+    // --- JFR-Ereignisse (Kategorie "Malprogramm") ---
+    @Name("com.todolist.Pulse") @Label("Pulse") @Category("Malprogramm")
+    @Description("Abstand zweier JavaFX-Pulses (enthält alle Arbeit im FX-Thread dazwischen)")
+    static final class PulseEvent extends Event {
+        @Label("Frame-Zeit") @Timespan(Timespan.NANOSECONDS) long frameTime;
+    }
+
+    @Name("com.todolist.Frame") @Label("Frame") @Category("Malprogramm")
+    @Description("Neuzeichnen sichtbarer Kacheln")
+    static final class FrameEvent extends Event {
+        @Label("Zeichenzeit") @Timespan(Timespan.NANOSECONDS) long renderTime;
+        @Label("Hochgeladene Kacheln") int uploadedTiles;
+    }
+
+    @Name("com.todolist.InputLatency") @Label("Eingabelatenz") @Category("Malprogramm")
+    @Description("Zeit vom Mausereignis bis die Pixel gezeichnet sind")
+    static final class LatencyEvent extends Event {
+        @Label("Werkzeug") String tool;
+        @Label("Latenz") @Timespan(Timespan.NANOSECONDS) long latency;
+    }
+
+    @Name("com.todolist.DirtyArea") @Label("Geänderte Fläche") @Category("Malprogramm")
+    static final class DirtyAreaEvent extends Event {
+        @Label("Quelle") String source;
+        @Label("Pixel") long pixels;
+    }
+
+    @Name("com.todolist.Operation") @Label("Bildoperation") @Category("Malprogramm")
+    @Description("Rechenzeit einer Bildoperation (Füllen, Filter, Filtervorschau)")
+    static final class OperationEvent extends Event {
+        @Label("Vorgang") String operation;
+        @Label("Rechenzeit") @Timespan(Timespan.NANOSECONDS) long time;
+        @Label("Pixel") long pixels;
+    }
+
+    @Name("com.todolist.FileIo") @Label("Datei-Ein-/Ausgabe") @Category("Malprogramm")
+    static final class IoEvent extends Event {
+        @Label("Vorgang") String operation;
+        @Label("Datei") String path;
+        @Label("Bytes") @DataAmount(DataAmount.BYTES) long bytes;
+    }
+
+    @Name("com.todolist.Startup") @Label("Programmstart") @Category("Malprogramm")
+    @Description("Zeit vom Prozessstart bis zu einem Startabschnitt (launch, firstPaint)")
+    static final class StartupEvent extends Event {
+        @Label("Abschnitt") String phase;
+        @Label("Seit Prozessstart") @Timespan(Timespan.NANOSECONDS) long sinceStart;
+    }
+
+    // --- Laufende Messung eines Speicher-/Ladevorgangs (JFR-Dauer = tatsächliche Dauer) ---
+    public final class IoTimer {
+        private final String operation; private final long start = System.nanoTime();
+        private final IoEvent event = new IoEvent();
+        private IoTimer(String operation) { this.operation = operation; event.begin(); }
+        // --- Beendet die Messung (nur bei Erfolg aufrufen) ---
+        public void finish(Path path, long bytes) {
+            long nanos = System.nanoTime() - start;
+            series(operation, Unit.NANOS).add(nanos);
+            series(operation + ".bytes", Unit.BYTES).add(bytes);
+            event.end();
+            if (event.shouldCommit()) { event.operation = operation; event.path = String.valueOf(path); event.bytes = bytes; event.commit(); }
+        }
+    }
+
+    private final Map<String, Series> series = new LinkedHashMap<>();
+
+    // --- Liefert (oder legt an) die Messreihe name ---
+    public synchronized Series series(String name, Unit unit) {
+        return series.computeIfAbsent(name, n -> new Series(n, unit));
+    }
+    public synchronized Series find(String name) { return series.get(name); }
+    public synchronized List<Series> all() { return new ArrayList<>(series.values()); }
+
+    // --- Abstand zum vorigen Pulse (Frame-Zeit): wächst mit jeder Arbeit im FX-Thread, nicht nur mit dem Zeichnen ---
+    public void pulse(long frameNanos) {
+        series("frame.time", Unit.NANOS).add(frameNanos);
+        PulseEvent e = new PulseEvent();
+        if (e.shouldCommit()) { e.frameTime = frameNanos; e.commit(); }
+    }
+
+    // --- Ein Neuzeichnen des Viewports (nur die Zeit in TileRenderer.render) ---
+    public void render(long renderNanos, int uploadedTiles) {
+        series("frame.render", Unit.NANOS).add(renderNanos);
+        FrameEvent e = new FrameEvent();
+        if (e.shouldCommit()) { e.renderTime = renderNanos; e.uploadedTiles = uploadedTiles; e.commit(); }
+    }
+
+    // --- Zeit vom Mausereignis bis die Pixel des Werkzeugs gezeichnet sind ---
+    public void latency(String tool, long nanos) {
+        series("latency." + tool, Unit.NANOS).add(nanos);
+        LatencyEvent e = new LatencyEvent();
+        if (e.shouldCommit()) { e.tool = tool; e.latency = nanos; e.commit(); }
+    }
+
+    // --- Größe eines neu gezeichneten bzw. geänderten Bereichs ---
+    public void dirty(String source, long pixels) {
+        series("dirty." + source, Unit.PIXELS).add(pixels);
+        DirtyAreaEvent e = new DirtyAreaEvent();
+        if (e.shouldCommit()) { e.source = source; e.pixels = pixels; e.commit(); }
+    }
+
+    // --- Rechenzeit einer Bildoperation ("fill", "filter", ...) und Anzahl bearbeiteter Pixel ---
+    public void operation(String name, long nanos, long pixels) {
+        series("op." + name, Unit.NANOS).add(nanos);
+        series("op." + name + ".pixels", Unit.PIXELS).add(pixels);
+        OperationEvent e = new OperationEvent();
+        if (e.shouldCommit()) { e.operation = name; e.time = nanos; e.pixels = pixels; e.commit(); }
+    }
+
+    // --- Startabschnitt erreicht ("launch": start() aufgerufen, "firstPaint": erstes Bild); Zeit seit Prozessstart ---
+    public void startup(String phase, long sinceStartNanos) {
+        if (sinceStartNanos < 0) return; // Prozessstart unbekannt
+        series("startup." + phase, Unit.NANOS).add(sinceStartNanos);
+        StartupEvent e = new StartupEvent();
+        if (e.shouldCommit()) { e.phase = phase; e.sinceStart = sinceStartNanos; e.commit(); }
+    }
+
+    // --- Zeit seit dem Start des Prozesses (Millisekunden-Auflösung des Betriebssystems; -1 = unbekannt) ---
+    public static long nanosSinceProcessStart() {
+        return ProcessHandle.current().info().startInstant()
+                .map(t -> (System.currentTimeMillis() - t.toEpochMilli()) * 1_000_000L).orElse(-1L);
+    }
+
+    // --- Beginnt die Messung eines Vorgangs ("io.save", "io.load", ...) ---
+    public IoTimer beginIo(String operation) { return new IoTimer(operation); }
+
+    // --- Kurzfassung für die Anzeige in der Kontrollleiste ---
+    public String hudText() {
+        StringBuilder sb = new StringBuilder();
+        Series f = find("frame.time"), r = find("frame.render");
+        if (f != null) sb.append(String.format(Locale.ROOT, "Frame %.1f ms (p95 %.1f)", f.getLast() / 1e6, f.percentile(95) / 1e6));
+        if (r != null) sb.append(String.format(Locale.ROOT, "%sZeichnen %.1f ms (p95 %.1f)", f != null ? " | " : "", r.getLast() / 1e6, r.percentile(95) / 1e6));
+        for (Series s : all()) {
+            if (s.getName().startsWith("latency.")) sb.append(String.format(Locale.ROOT, " | %s %.1f ms", s.getName().substring(8), s.getLast() / 1e6));
+            else if (s.getName().startsWith("op.") && s.getUnit() == Unit.NANOS) sb.append(String.format(Locale.ROOT, " | %s %.1f ms", s.getName().substring(3), s.getLast() / 1e6));
+        }
+        Series st = find("startup.firstPaint");
+        if (st != null) sb.append(String.format(Locale.ROOT, " | Start %.0f ms", st.getLast() / 1e6));
+        Series d = find("dirty.commit");
+        if (d != null) sb.append(String.format(" | Fläche %,d px", d.getLast()));
+        for (Series s : all()) {
+            if (s.getName().startsWith("io.") && s.getUnit() == Unit.NANOS) {
+                Series b = find(s.getName() + ".bytes");
+                sb.append(String.format(Locale.ROOT, " | %s %.0f ms / %.1f MB", s.getName().substring(3), s.getLast() / 1e6, b == null ? 0 : b.getLast() / 1e6));
+            }
+        }
+        return sb.toString();
+    }
+
+    // --- Schreibt alle Messreihen als CSV (Semikolon, Zeiten in ms) ---
+    public void export(Path file) throws IOException {
+        try (Writer w = Files.newBufferedWriter(file)) { export(w); }
+    }
+    public void export(Writer writer) {
+        PrintWriter out = new PrintWriter(writer);
+        out.println("# Messwerte Malprogramm, " + LocalDateTime.now());
+        out.println("# Java " + System.getProperty("java.version") + ", " + System.getProperty("os.name") + " " + System.getProperty("os.arch")
+                + ", " + Runtime.getRuntime().availableProcessors() + " Kerne, max. Heap " + (Runtime.getRuntime().maxMemory() >> 20) + " MB");
+        out.println("reihe;einheit;anzahl;mittel;p50;p95;p99;max;letzter");
+        for (Series s : all()) {
+            boolean ms = s.getUnit() == Unit.NANOS;
+            double f = ms ? 1e-6 : 1;
+            out.printf(Locale.ROOT, "%s;%s;%d;%.3f;%.3f;%.3f;%.3f;%.3f;%.3f%n", s.getName(), ms ? "ms" : s.getUnit() == Unit.PIXELS ? "px" : "bytes",
+                    s.getCount(), s.getMean() * f, s.percentile(50) * f, s.percentile(95) * f, s.percentile(99) * f, s.getMax() * f, s.getLast() * f);
+        }
+        out.flush();
+    }
+}
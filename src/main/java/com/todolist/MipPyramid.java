@@ -0,0 +1,97 @@
+package com.todolist;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+
+// --- Mip-Pyramide eines TiledRaster: jede Stufe ist halb so groß wie die vorherige (2x2-Mittelwert) ---
+// Stufe 0 ist das Raster selbst. update() vergleicht die Änderungszähler der Kacheln und berechnet
+// nur die Kacheln der höheren Stufen neu, deren Quellkacheln sich seit dem letzten Aufruf geändert haben.
+public class MipPyramid {
+
+    private static final int T = TiledRaster.TILE_SIZE;
+
+    private final List<TiledRaster> levels = new ArrayList<>();
+    private final List<int[]> seenVersions = new ArrayList<>();     // Zuletzt verarbeitete Versionen je Stufe (ohne höchste)
+    private final int[] src = new int[4 * T * T];                   // Quellbereich 2T x 2T
+    private final int[] dst = new int[T * T];
+    private long rebuiltTiles;                                       // Statistik: insgesamt neu berechnete Kacheln
+
+    public MipPyramid(TiledRaster base) {
+        levels.add(base);
+        TiledRaster cur = base;
+        while (cur.getWidth() > T || cur.getHeight() > T) {
+            cur = new TiledRaster((cur.getWidth() + 1) / 2, (cur.getHeight() + 1) / 2, base.getBackground());
+            levels.add(cur);
+        }
+        for (int l = 0; l < levels.size() - 1; l++) {
+            int[] seen = new int[levels.get(l).getTilesX() * levels.get(l).getTilesY()];
+            java.util.Arrays.fill(seen, -1); // Erzwingt den ersten Aufbau
+            seenVersions.add(seen);
+        }
+    }
+
+    public int levelCount() { return levels.size(); }
+    public TiledRaster level(int l) { return levels.get(l); }
+    public long getRebuiltTiles() { return rebuiltTiles; }
+
+    // --- Passende Stufe für einen Zoomfaktor (Stufe l hat den Maßstab 1/2^l) ---
+    public int levelFor(double scale) {
+        int l = 0;
+        while (l + 1 < levels.size() && scale <= 0.5 / (1 << l)) l++;
+        return l;
+    }
+
+    // --- Bringt die Stufen 1..maxLevel auf den Stand der Basis; liefert die Anzahl neu berechneter Kacheln ---
+    public int update(int maxLevel) {
+        int rebuilt = 0;
+        for (int l = 1; l <= Math.min(maxLevel, levels.size() - 1); l++) {
+            TiledRaster from = levels.get(l - 1), to = levels.get(l);
+            to.setBackground(from.getBackground());
+            int[] seen = seenVersions.get(l - 1);
+            BitSet dirty = new BitSet(to.getTilesX() * to.getTilesY());
+            for (int ty = 0; ty < from.getTilesY(); ty++)
+                for (int tx = 0; tx < from.getTilesX(); tx++) {
+                    int i = ty * from.getTilesX() + tx, v = from.version(tx, ty);
+                    if (seen[i] != v) { seen[i] = v; dirty.set((ty >> 1) * to.getTilesX() + (tx >> 1)); }
+                }
+            for (int i = dirty.nextSetBit(0); i >= 0; i = dirty.nextSetBit(i + 1)) {
+                downsample(from, to, i % to.getTilesX(), i / to.getTilesX());
+                rebuilt++;
+            }
+        }
+        rebuiltTiles += rebuilt;
+        return rebuilt;
+    }
+
+    // --- Berechnet Kachel (tx,ty) der Stufe "to" aus den bis zu vier Quellkacheln ---
+    private void downsample(TiledRaster from, TiledRaster to, int tx, int ty) {
+        int ctx = tx * 2, cty = ty * 2;
+        boolean any = false;
+        for (int dy = 0; dy < 2; dy++) for (int dx = 0; dx < 2; dx++)
+            if (ctx + dx < from.getTilesX() && cty + dy < from.getTilesY() && from.isAllocated(ctx + dx, cty + dy)) any = true;
+        if (!any) { to.restoreTile(tx, ty, null); return; } // Nur Hintergrund
+        int sx = ctx * T, sy = cty * T;
+        int sw = Math.min(2 * T, from.getWidth() - sx), sh = Math.min(2 * T, from.getHeight() - sy);
+        from.readRect(sx, sy, sw, sh, src, 0, sw);
+        int w = to.tileWidth(tx), h = to.tileHeight(ty);
+        for (int y = 0; y < h; y++) {
+            int y0 = Math.min(2 * y, sh - 1), y1 = Math.min(2 * y + 1, sh - 1);
+            for (int x = 0; x < w; x++) {
+                int x0 = Math.min(2 * x, sw - 1), x1 = Math.min(2 * x + 1, sw - 1);
+                dst[y * w + x] = average(src[y0 * sw + x0], src[y0 * sw + x1], src[y1 * sw + x0], src[y1 * sw + x1]);
+            }
+        }
+        to.writeRect(tx * T, ty * T, w, h, dst, 0, w);
+    }
+
+    // --- Mittelwert von vier vormultiplizierten ARGB-Pixeln (je Kanal, gerundet) ---
+    static int average(int a, int b, int c, int d) {
+        if (a == b && a == c && a == d) return a;
+        int ag = ((a >>> 24) + (b >>> 24) + (c >>> 24) + (d >>> 24) + 2) >> 2;
+        int r = (((a >> 16) & 0xFF) + ((b >> 16) & 0xFF) + ((c >> 16) & 0xFF) + ((d >> 16) & 0xFF) + 2) >> 2;
+        int g = (((a >> 8) & 0xFF) + ((b >> 8) & 0xFF) + ((c >> 8) & 0xFF) + ((d >> 8) & 0xFF) + 2) >> 2;
+        int bl = ((a & 0xFF) + (b & 0xFF) + (c & 0xFF) + (d & 0xFF) + 2) >> 2;
+        return (ag << 24) | (r << 16) | (g << 8) | bl;
+    }
+}
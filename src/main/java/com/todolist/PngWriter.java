@@ -0,0 +1,155 @@
+package com.todolist;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+// --- Streamender PNG-Encoder für TiledRaster ---
+// Das Bild wird in Zeilenbändern (Kachelhöhe) gelesen, auf die Hintergrundfarbe Weiß gelegt (RGB, 8 Bit)
+// und direkt durch einen Deflater in IDAT-Chunks geschrieben. Es existiert nie eine vollständige Bildkopie.
+public class PngWriter {
+
+    private static final byte[] SIGNATURE = { (byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n' };
+    private static final int IDAT_SIZE = 64 * 1024;    // Maximale Nutzdatengröße eines IDAT-Chunks
+
+    private final int compressionLevel;
+
+    // --- compressionLevel: 0 (keine) bis 9 (maximal), siehe java.util.zip.Deflater ---
+    public PngWriter(int compressionLevel) {
+        if (compressionLevel < 0 || compressionLevel > 9) throw new IllegalArgumentException("Ungültige Kompressionsstufe: " + compressionLevel);
+        this.compressionLevel = compressionLevel;
+    }
+
+    public int getCompressionLevel() { return compressionLevel; }
+
+    // --- Schreibt das Raster als PNG ---
+    // progress erhält Werte von 0 bis 1 (darf null sein); liefert cancelled true, wird mit CancellationException abgebrochen.
+    public void write(TiledRaster src, OutputStream out, DoubleConsumer progress, BooleanSupplier cancelled) throws IOException {
+        int w = src.getWidth(), h = src.getHeight();
+        out.write(SIGNATURE);
+        byte[] ihdr = new byte[13];
+        putInt(ihdr, 0, w); putInt(ihdr, 4, h);
+        ihdr[8] = 8;    // Bittiefe
+        ihdr[9] = 2;    // Farbtyp RGB
+        writeChunk(out, "IHDR", ihdr, ihdr.length);
+
+        Deflater deflater = new Deflater(compressionLevel);
+        try (IdatStream idat = new IdatStream(out);
+             DeflaterOutputStream z = new DeflaterOutputStream(idat, deflater, IDAT_SIZE)) {
+            int band = TiledRaster.TILE_SIZE;
+            int[] pixels = new int[w * band];
+            byte[] prev = new byte[w * 3], cur = new byte[w * 3];
+            byte[] filtered = new byte[1 + w * 3], best = new byte[1 + w * 3];
+            for (int y = 0; y < h; y += band) {
+                if (cancelled != null && cancelled.getAsBoolean()) throw new CancellationException("Speichern abgebrochen");
+                int bh = Math.min(band, h - y);
+                src.readRect(0, y, w, bh, pixels, 0, w);
+                for (int row = 0; row < bh; row++) {
+                    toRgbOnWhite(pixels, row * w, w, cur);
+                    z.write(filterRow(cur, prev, filtered, best), 0, 1 + w * 3);
+                    byte[] t = prev; prev = cur; cur = t;
+                }
+                if (progress != null) progress.accept((double) (y + bh) / h);
+            }
+            z.finish();
+        } finally {
+            deflater.end();
+        }
+        writeChunk(out, "IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    // --- Vormultipliziertes ARGB auf weißen Hintergrund legen (wie TYPE_INT_RGB mit weißer Füllung) ---
+    static void toRgbOnWhite(int[] src, int off, int w, byte[] rgb) {
+        for (int x = 0, j = 0; x < w; x++) {
+            int p = src[off + x], inv = 255 - (p >>> 24);
+            rgb[j++] = (byte) (((p >> 16) & 0xFF) + inv);
+            rgb[j++] = (byte) (((p >> 8) & 0xFF) + inv);
+            rgb[j++] = (byte) ((p & 0xFF) + inv);
+        }
+    }
+
+    // --- Wählt pro Zeile den PNG-Filter mit der kleinsten Summe der Beträge (übliche Heuristik) ---
+    private static byte[] filterRow(byte[] cur, byte[] prev, byte[] tmp, byte[] best) {
+        long bestSum = Long.MAX_VALUE;
+        int n = cur.length;
+        for (int type = 0; type <= 4; type++) {
+            tmp[0] = (byte) type;
+            long sum = 0;
+            for (int i = 0; i < n; i++) {
+                int a = i >= 3 ? cur[i - 3] & 0xFF : 0, b = prev[i] & 0xFF, c = i >= 3 ? prev[i - 3] & 0xFF : 0;
+                int x = cur[i] & 0xFF, pred;
+                switch (type) {
+                    case 1: pred = a; break;
+                    case 2: pred = b; break;
+                    case 3: pred = (a + b) >> 1; break;
+                    case 4: pred = paeth(a, b, c); break;
+                    default: pred = 0;
+                }
+                byte v = (byte) (x - pred);
+                tmp[i + 1] = v;
+                sum += Math.abs((int) v);
+            }
+            if (sum < bestSum) { bestSum = sum; System.arraycopy(tmp, 0, best, 0, n + 1); }
+        }
+        return best;
+    }
+
+    private static int paeth(int a, int b, int c) {
+        int p = a + b - c, pa = Math.abs(p - a), pb = Math.abs(p - b), pc = Math.abs(p - c);
+        return pa <= pb && pa <= pc ? a : pb <= pc ? b : c;
+    }
+
+    // --- Chunk mit Länge, Typ, Daten und CRC schreiben ---
+    private static void writeChunk(OutputStream out, String type, byte[] data, int len) throws IOException {
+        byte[] header = new byte[8];
+        putInt(header, 0, len);
+        byte[] t = type.getBytes(StandardCharsets.US_ASCII);
+        System.arraycopy(t, 0, header, 4, 4);
+        CRC32 crc = new CRC32();
+        crc.update(t);
+        crc.update(data, 0, len);
+        out.write(header);
+        out.write(data, 0, len);
+        byte[] c = new byte[4];
+        putInt(c, 0, (int) crc.getValue());
+        out.write(c);
+    }
+
+    private static void putInt(byte[] b, int off, int v) {
+        b[off] = (byte) (v >>> 24); b[off + 1] = (byte) (v >>> 16); b[off + 2] = (byte) (v >>> 8); b[off + 3] = (byte) v;
+    }
+
+    // --- Puffert komprimierte Daten und schreibt sie als IDAT-Chunks ---
+    private static final class IdatStream extends OutputStream {
+        private final OutputStream out;
+        private final byte[] buf = new byte[IDAT_SIZE];
+        private int n;
+
+        IdatStream(OutputStream out) { this.out = out; }
+
+        @Override public void write(int b) throws IOException {
+            if (n == buf.length) flushChunk();
+            buf[n++] = (byte) b;
+        }
+        @Override public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (n == buf.length) flushChunk();
+                int c = Math.min(len, buf.length - n);
+                System.arraycopy(b, off, buf, n, c);
+                n += c; off += c; len -= c;
+            }
+        }
+        private void flushChunk() throws IOException {
+            if (n > 0) { writeChunk(out, "IDAT", buf, n); n = 0; }
+        }
+        // Schließt nur die IDAT-Folge ab, nicht den darunterliegenden Stream
+        @Override public void close() throws IOException { flushChunk(); }
+    }
+}
@@ -0,0 +1,396 @@
+package com.todolist;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.function.BooleanSupplier;
+import java.util.function.DoubleConsumer;
+import java.util.zip.CRC32;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+// --- Natives Projektformat (*.tdpaint): Ebenen, Kachelpixel, Vektorformen und Befehlsprotokoll in einer Containerdatei ---
+// Aufbau: 64-Byte-Kopf, danach nur angehängte Datensätze. Kacheln liegen unkomprimiert und seitenweise ausgerichtet
+// in der Datei, damit sie beim Laden direkt gemappt werden können (das Betriebssystem liest sie erst, wenn sie
+// tatsächlich gezeichnet werden). Jedes Speichern hängt nur die seit dem letzten Speichern geänderten Kacheln an,
+// danach das Protokoll und einen Index (Kachel -> Dateiposition); erst das Umschreiben des Kopfes macht den neuen
+// Stand gültig. Wird die Datei überwiegend aus veralteten Kacheln bestehen, wird sie beim Speichern neu geschrieben,
+// außer ihre Kacheln sind gemappt (geladen): Windows kann eine gemappte Datei weder ersetzen noch kürzen, und Java
+// gibt ein Mapping erst frei, wenn keine Kachel es mehr benutzt. Eine geladene Datei wird daher nur fortgeschrieben
+// und stattdessen beim nächsten Laden verdichtet, bevor ihre Kacheln gemappt werden.
+public class ProjectFile {
+
+    public static final String EXTENSION = ".tdpaint";
+
+    private static final long MAGIC = 0x54445041494E5431L;         // "TDPAINT1"
+    private static final int VERSION = 1;
+    private static final int INDEX_MAGIC = 0x49445831;             // "IDX1"
+    private static final int HEADER_SIZE = 64;
+    private static final int TILE_BYTES = TiledRaster.TILE_PIXELS * 4;
+    private static final int ALIGN = 4096;                         // Kacheln beginnen an Seitengrenzen
+    private static final long SEGMENT = 1L << 30;                  // Größe eines Mapping-Abschnitts
+    private static final long COMPACT_MIN_BYTES = 64L << 20;       // Darunter lohnt Neuschreiben nicht
+
+    // --- Geladener Dokumentinhalt ---
+    public static final class Document {
+        public final List<Layer> layers; public final StrokeLog log;
+        public final ProjectFile file;      // Zum inkrementellen Weiterspeichern in dieselbe Datei
+        Document(List<Layer> layers, StrokeLog log, ProjectFile file) { this.layers = layers; this.log = log; this.file = file; }
+    }
+
+    private final Path path;
+    // Stand der Datei (nur nach erfolgreichem Speichern/Laden geändert); je Ebene: Dateiposition und Version jeder Kachel.
+    // Schlüssel ist Layer.getId(), nicht die Position: nach Verschieben oder Entfernen gehören die Kacheln sonst einer anderen Ebene.
+    private Map<Integer, long[]> offsets = new HashMap<>();
+    private Map<Integer, int[]> versions = new HashMap<>();
+    private long liveBytes;                 // Bytes der aktuell referenzierten Kacheln
+    private long lastSaveBytes;             // Beim letzten Speichern geschriebene Bytes (Statistik)
+    private boolean mapped;                 // Kacheln dieser Datei wurden beim Laden gemappt (Datei nie ersetzen)
+    private long stamp;                     // Frei belegbare Kennung des Stands, steht im Kopf (Journal: Generation)
+
+    public ProjectFile(Path path) { this.path = path; }
+
+    public Path getPath() { return path; }
+    public long getLastSaveBytes() { return lastSaveBytes; }
+    public long getStamp() { return stamp; }
+    // Gilt ab dem nächsten Speichern; wird mit dem Kopf, also zusammen mit dem neuen Stand gültig
+    public void setStamp(long stamp) { this.stamp = stamp; }
+
+    public static boolean isProjectFile(Path p) { return p.getFileName().toString().toLowerCase().endsWith(EXTENSION); }
+
+    // --- Speichert die Ebenen (Snapshots, dürfen im Hintergrund gelesen werden) und das Protokoll ---
+    // Nur Kacheln, deren Version sich seit dem letzten Speichern in diese Datei geändert hat, werden angehängt;
+    // neue Ebenen werden vollständig geschrieben.
+    public void save(List<Layer> layers, StrokeLog log, DoubleConsumer progress, BooleanSupplier cancelled) throws IOException {
+        boolean fresh = !Files.exists(path) || offsets.isEmpty();
+        long fileSize = fresh ? 0 : Files.size(path);
+        if (!fresh && !mapped && fileSize > COMPACT_MIN_BYTES && liveBytes < fileSize / 2) { compact(layers, log, progress, cancelled); return; }
+        if (fresh) { // Neue Datei: alles schreiben, über temporäre Datei
+            Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+            ProjectFile full = new ProjectFile(tmp);
+            full.stamp = stamp;
+            try { full.write(layers, log, progress, cancelled, true); }
+            catch (IOException | RuntimeException ex) { Files.deleteIfExists(tmp); throw ex; }
+            move(tmp, path);
+            adopt(full);
+            return;
+        }
+        write(layers, log, progress, cancelled, false);
+    }
+
+    // --- Schreibt alles neu (entfernt veraltete Kacheln) ---
+    private void compact(List<Layer> layers, StrokeLog log, DoubleConsumer progress, BooleanSupplier cancelled) throws IOException {
+        offsets = new HashMap<>(); // Erzwingt vollständiges Schreiben
+        save(layers, log, progress, cancelled);
+    }
+
+    private void adopt(ProjectFile other) {
+        offsets = other.offsets; versions = other.versions; liveBytes = other.liveBytes; lastSaveBytes = other.lastSaveBytes;
+    }
+
+    private void write(List<Layer> layers, StrokeLog log, DoubleConsumer progress, BooleanSupplier cancelled, boolean create) throws IOException {
+        Map<Integer, long[]> newOffsets = new HashMap<>();
+        Map<Integer, int[]> newVersions = new HashMap<>();
+        long written = 0, live = 0;
+        int total = 0, done = 0;
+        for (Layer layer : layers) total += layer.getRaster().getTilesX() * layer.getRaster().getTilesY();
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            long end = create ? HEADER_SIZE : ch.size();
+            if (create) { ch.truncate(0); writeHeader(ch, 0, 0, stamp); }
+            // 1. Geänderte Kacheln anhängen
+            for (Layer layer : layers) {
+                TiledRaster r = layer.getRaster();
+                int n = r.getTilesX() * r.getTilesY();
+                long[] offs = new long[n], oldOffs = create ? null : offsets.get(layer.getId());
+                int[] vers = new int[n], oldVers = create ? null : versions.get(layer.getId());
+                if (oldOffs != null && oldOffs.length != n) oldOffs = null;              // Andere Bildgröße
+                newOffsets.put(layer.getId(), offs); newVersions.put(layer.getId(), vers);
+                for (int ty = 0; ty < r.getTilesY(); ty++) for (int tx = 0; tx < r.getTilesX(); tx++) {
+                    int i = ty * r.getTilesX() + tx;
+                    vers[i] = r.version(tx, ty);
+                    if (!r.isAllocated(tx, ty)) continue;                              // Nur Hintergrund
+                    if (oldOffs != null && oldVers[i] == vers[i] && oldOffs[i] != 0) {
+                        offs[i] = oldOffs[i];                                           // Unverändert
+                    } else {
+                        if (cancelled != null && cancelled.getAsBoolean()) throw new CancellationException("Speichern abgebrochen");
+                        end = align(end);
+                        writeTile(ch, r.tileBytes(tx, ty), end);
+                        offs[i] = end; end += TILE_BYTES; written += TILE_BYTES;
+                    }
+                    live += TILE_BYTES;
+                    if (progress != null && (++done & 63) == 0) progress.accept(0.95 * done / total);
+                }
+            }
+            // 2. Protokoll (samt Vektorformen) und Index anhängen
+            byte[] logBlob = deflate(log, layers);
+            long logOffset = end;
+            writeFully(ch, ByteBuffer.wrap(logBlob), logOffset);
+            end += logBlob.length;
+            byte[] index = index(layers, newOffsets, logOffset, logBlob.length);
+            long indexOffset = end;
+            writeFully(ch, ByteBuffer.wrap(index), indexOffset);
+            written += logBlob.length + index.length;
+            ch.force(false);
+            // 3. Erst jetzt den Kopf umschreiben (macht den neuen Stand gültig)
+            writeHeader(ch, indexOffset, index.length, stamp);
+            ch.force(true);
+        }
+        offsets = newOffsets; versions = newVersions; liveBytes = live; lastSaveBytes = written;
+        if (progress != null) progress.accept(1.0);
+    }
+
+    // --- Lädt ein Projekt; Kachelpixel werden nur gemappt, nicht gelesen ---
+    // Eine überwiegend veraltete Datei wird vorher verdichtet (gemappt ließe sie sich in dieser Sitzung nicht mehr ersetzen)
+    public static Document load(Path path) throws IOException {
+        compactStale(path);
+        ProjectFile pf = new ProjectFile(path);
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            Head head = readHead(ch, path, size);
+            pf.stamp = head.stamp;
+            DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(head.index));
+            in.readInt();
+
+            int w = in.readInt(), h = in.readInt(), layerCount = in.readInt();
+            List<Layer> layers = new ArrayList<>();
+            List<MappedByteBuffer> segments = new ArrayList<>();
+            boolean map = ByteOrder.nativeOrder() == ByteOrder.LITTLE_ENDIAN; // Kacheln liegen als Little-Endian in der Datei
+            for (int l = 0; l < layerCount; l++) {
+                String name = in.readUTF(); boolean visible = in.readBoolean(); float opacity = in.readFloat();
+                int m = in.readUnsignedByte();
+                if (m >= Layer.BlendMode.values().length) throw new IOException("Unbekannter Mischmodus in der Projektdatei");
+                Layer.BlendMode mode = Layer.BlendMode.values()[m];
+                int bg = in.readInt();
+                TiledRaster r = new TiledRaster(w, h, bg);
+                int n = in.readInt();
+                if (n != r.getTilesX() * r.getTilesY()) throw new IOException("Index der Projektdatei passt nicht zur Bildgröße");
+                long[] offs = new long[n];
+                for (int i = 0; i < n; i++) {
+                    long off = offs[i] = in.readLong();
+                    if (off == 0) continue;
+                    if (off < HEADER_SIZE || off + TILE_BYTES > size) throw new IOException("Kachelposition außerhalb der Datei");
+                    int tx = i % r.getTilesX(), ty = i / r.getTilesX();
+                    if (map) { r.adoptTile(tx, ty, slice(ch, segments, off, size)); pf.mapped = true; }
+                    else { // Big-Endian-Plattform: Kachel lesen und umsortieren
+                        ByteBuffer b = ByteBuffer.allocate(TILE_BYTES);
+                        readFully(ch, b, off);
+                        b.flip();
+                        ByteBuffer nat = ByteBuffer.allocateDirect(TILE_BYTES).order(ByteOrder.nativeOrder());
+                        nat.asIntBuffer().put(b.order(ByteOrder.LITTLE_ENDIAN).asIntBuffer());
+                        r.restoreTile(tx, ty, nat);
+                    }
+                    pf.liveBytes += TILE_BYTES;
+                }
+                Layer layer = new Layer(name, r, opacity, mode, visible);
+                int[] vers = new int[n];
+                for (int i = 0; i < n; i++) vers[i] = r.version(i % r.getTilesX(), i / r.getTilesX());
+                pf.offsets.put(layer.getId(), offs); pf.versions.put(layer.getId(), vers);
+                layers.add(layer);
+            }
+            long logOffset = in.readLong(); int logLength = in.readInt();
+            if (logOffset < HEADER_SIZE || logLength < 0 || logOffset + logLength > size) throw new IOException("Protokollposition außerhalb der Datei");
+            ByteBuffer logBlob = ByteBuffer.allocate(logLength);
+            readFully(ch, logBlob, logOffset);
+            StrokeLog log;
+            try (DataInputStream lin = new DataInputStream(new InflaterInputStream(new java.io.ByteArrayInputStream(logBlob.array())))) {
+                log = StrokeLog.read(lin);
+                for (Layer layer : layers) layer.setShapes(VectorShapes.read(lin, w, h)); // Formen werden hier neu gezeichnet
+            }
+            return new Document(layers, log, pf);
+        }
+    }
+
+    // --- Kopf und geprüfter Index einer Projektdatei ---
+    private static final class Head {
+        final long stamp; final byte[] index;
+        Head(long stamp, byte[] index) { this.stamp = stamp; this.index = index; }
+    }
+
+    private static Head readHead(FileChannel ch, Path path, long size) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        readFully(ch, header, 0);
+        header.flip();
+        if (header.getLong() != MAGIC) throw new IOException("Keine Projektdatei: " + path.getFileName());
+        if (header.getInt() != VERSION) throw new IOException("Nicht unterstützte Version der Projektdatei");
+        header.getInt();
+        long indexOffset = header.getLong(), indexLength = header.getLong();
+        long stamp = header.getLong();
+        if (indexOffset <= 0 || indexLength <= 0 || indexOffset + indexLength > size || indexLength > Integer.MAX_VALUE)
+            throw new IOException("Projektdatei ist unvollständig (kein gültiger Index)");
+        ByteBuffer index = ByteBuffer.allocate((int) indexLength);
+        readFully(ch, index, indexOffset);
+        if (index.getInt(0) != INDEX_MAGIC) throw new IOException("Index der Projektdatei ist beschädigt");
+        CRC32 crc = new CRC32();
+        crc.update(index.array(), 0, (int) indexLength - 8);
+        if (index.getLong((int) indexLength - 8) != crc.getValue()) throw new IOException("Index der Projektdatei ist beschädigt (Prüfsumme)");
+        return new Head(stamp, index.array());
+    }
+
+    // --- Verdichtet die Datei, wenn sie groß ist und überwiegend aus veralteten Kacheln besteht ---
+    // Lebende Kacheln und Protokoll werden unverändert von Kanal zu Kanal kopiert (nichts wird in den Speicher gelesen),
+    // der Index erhält die neuen Positionen. Scheitert das Ersetzen (z.B. Datei schreibgeschützt oder in dieser Sitzung
+    // schon gemappt), bleibt die alte Datei gültig und wird wie bisher geladen; liefert, ob verdichtet wurde.
+    static boolean compactStale(Path path) throws IOException {
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel ch = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = ch.size();
+            if (size <= COMPACT_MIN_BYTES) return false;
+            Head head = readHead(ch, path, size);
+            // 1. Neuen Index aufbauen: Eigenschaften übernehmen, Kacheln dicht (seitenweise ausgerichtet) hintereinander
+            DataInputStream in = new DataInputStream(new java.io.ByteArrayInputStream(head.index));
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeInt(in.readInt());
+            out.writeInt(in.readInt()); out.writeInt(in.readInt());
+            int layerCount = in.readInt();
+            out.writeInt(layerCount);
+            List<long[]> moves = new ArrayList<>(); // Je Ebene: alte und neue Position jeder lebenden Kachel
+            long end = HEADER_SIZE, live = 0;
+            for (int l = 0; l < layerCount; l++) {
+                out.writeUTF(in.readUTF()); out.writeBoolean(in.readBoolean()); out.writeFloat(in.readFloat());
+                out.writeByte(in.readUnsignedByte()); out.writeInt(in.readInt());
+                int n = in.readInt();
+                out.writeInt(n);
+                long[] m = new long[2 * n];
+                int k = 0;
+                for (int i = 0; i < n; i++) {
+                    long off = in.readLong();
+                    if (off == 0) { out.writeLong(0); continue; }
+                    if (off < HEADER_SIZE || off + TILE_BYTES > size) throw new IOException("Kachelposition außerhalb der Datei");
+                    end = align(end);
+                    m[k++] = off; m[k++] = end;
+                    out.writeLong(end);
+                    end += TILE_BYTES; live += TILE_BYTES;
+                }
+                moves.add(java.util.Arrays.copyOf(m, k));
+            }
+            if (live >= size / 2) return false;
+            long logOffset = in.readLong(); int logLength = in.readInt();
+            if (logOffset < HEADER_SIZE || logLength < 0 || logOffset + logLength > size) throw new IOException("Protokollposition außerhalb der Datei");
+            out.writeLong(end); out.writeInt(logLength);
+            out.flush();
+            CRC32 crc = new CRC32();
+            crc.update(bytes.toByteArray());
+            out.writeLong(crc.getValue());
+            byte[] index = bytes.toByteArray();
+            // 2. Kacheln und Protokoll kopieren, Index anhängen, zuletzt den Kopf schreiben
+            try (FileChannel dst = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeHeader(dst, 0, 0, head.stamp);
+                for (long[] m : moves) for (int k = 0; k < m.length; k += 2) transfer(ch, m[k], TILE_BYTES, dst, m[k + 1]);
+                transfer(ch, logOffset, logLength, dst, end);
+                writeFully(dst, ByteBuffer.wrap(index), end + logLength);
+                dst.force(false);
+                writeHeader(dst, end + logLength, index.length, head.stamp);
+                dst.force(true);
+            }
+        } catch (IOException | RuntimeException ex) { Files.deleteIfExists(tmp); throw ex; }
+        try { move(tmp, path); }
+        catch (IOException ex) { Files.deleteIfExists(tmp); return false; } // Ersetzen nicht möglich: unverdichtet laden
+        return true;
+    }
+
+    private static void transfer(FileChannel src, long from, long count, FileChannel dst, long to) throws IOException {
+        dst.position(to);
+        while (count > 0) {
+            long n = src.transferTo(from, count, dst);
+            if (n <= 0) throw new IOException("Projektdatei ist zu kurz");
+            from += n; count -= n;
+        }
+    }
+
+    // --- Liefert eine schreibgeschützte Sicht auf die Kachel bei off (Abschnitte bis 1 GiB, bei Bedarf gemappt) ---
+    private static ByteBuffer slice(FileChannel ch, List<MappedByteBuffer> segments, long off, long size) throws IOException {
+        int s = (int) (off / SEGMENT);
+        while (segments.size() <= s) segments.add(null);
+        MappedByteBuffer seg = segments.get(s);
+        if (seg == null) { // Abschnitt überlappt um eine Kachel, damit jede Kachel vollständig in ihrem Abschnitt liegt
+            long start = s * SEGMENT;
+            seg = ch.map(FileChannel.MapMode.READ_ONLY, start, Math.min(size - start, SEGMENT + TILE_BYTES));
+            segments.set(s, seg);
+        }
+        return seg.slice((int) (off - (long) s * SEGMENT), TILE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    private static byte[] index(List<Layer> layers, Map<Integer, long[]> offs, long logOffset, int logLength) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream out = new DataOutputStream(bytes);
+        TiledRaster first = layers.get(0).getRaster();
+        out.writeInt(INDEX_MAGIC);
+        out.writeInt(first.getWidth()); out.writeInt(first.getHeight()); out.writeInt(layers.size());
+        for (int l = 0; l < layers.size(); l++) {
+            Layer layer = layers.get(l);
+            out.writeUTF(layer.getName()); out.writeBoolean(layer.isVisible()); out.writeFloat(layer.getOpacity());
+            out.writeByte(layer.getMode().ordinal()); out.writeInt(layer.getRaster().getBackground());
+            long[] o = offs.get(layer.getId());
+            out.writeInt(o.length);
+            for (long off : o) out.writeLong(off);
+        }
+        out.writeLong(logOffset); out.writeInt(logLength);
+        out.flush();
+        CRC32 crc = new CRC32();
+        crc.update(bytes.toByteArray());
+        out.writeLong(crc.getValue());
+        return bytes.toByteArray();
+    }
+
+    // Protokoll, danach die Vektorformen jeder Ebene (klein, daher bei jedem Speichern vollständig)
+    private static byte[] deflate(StrokeLog log, List<Layer> layers) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes))) {
+            log.write(out);
+            for (Layer layer : layers) layer.getShapes().write(out);
+        }
+        return bytes.toByteArray();
+    }
+
+    private static void writeHeader(FileChannel ch, long indexOffset, long indexLength, long stamp) throws IOException {
+        ByteBuffer h = ByteBuffer.allocate(HEADER_SIZE);
+        h.putLong(MAGIC).putInt(VERSION).putInt(0).putLong(indexOffset).putLong(indexLength).putLong(stamp);
+        h.clear();
+        writeFully(ch, h, 0);
+    }
+
+    // Kachelbytes liegen im Speicher in nativer Reihenfolge; die Datei ist Little-Endian
+    private static void writeTile(FileChannel ch, ByteBuffer tile, long pos) throws IOException {
+        if (ByteOrder.nativeOrder() != ByteOrder.LITTLE_ENDIAN) {
+            ByteBuffer le = ByteBuffer.allocate(TILE_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+            le.asIntBuffer().put(tile.order(ByteOrder.nativeOrder()).asIntBuffer());
+            tile = le;
+        }
+        writeFully(ch, tile, pos);
+    }
+
+    private static void writeFully(FileChannel ch, ByteBuffer b, long pos) throws IOException {
+        while (b.hasRemaining()) pos += ch.write(b, pos);
+    }
+
+    private static void readFully(FileChannel ch, ByteBuffer b, long pos) throws IOException {
+        while (b.hasRemaining()) {
+            int n = ch.read(b, pos);
+            if (n < 0) throw new IOException("Projektdatei ist zu kurz");
+            pos += n;
+        }
+    }
+
+    private static long align(long pos) { return (pos + ALIGN - 1) / ALIGN * ALIGN; }
+
+    private static void move(Path from, Path to) throws IOException {
+        try { Files.move(from, to, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE); }
+        catch (AtomicMoveNotSupportedException ex) { Files.move(from, to, StandardCopyOption.REPLACE_EXISTING); }
+    }
+}
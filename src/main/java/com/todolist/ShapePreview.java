@@ -0,0 +1,111 @@
+package com.todolist;
+
+import javafx.animation.AnimationTimer;
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+
+// --- Vorschau für Rechteck/Oval mit Dirty-Rectangles ---
+// Mausereignisse setzen nur die gewünschte Form; gezeichnet wird höchstens einmal pro Pulse.
+// Dabei wird nur die Vereinigung aus altem und neuem Begrenzungsrechteck gelöscht und neu gezeichnet.
+public class ShapePreview {
+
+    private final Canvas canvas;
+    private final GraphicsContext g;
+    private final TileRenderer renderer;    // Liefert Zoom und Scroll-Position
+
+    // Gewünschte Form (in Dokumentkoordinaten)
+    private boolean pending, visible;
+    private int type;                       // StrokeLog.RECTANGLE oder StrokeLog.OVAL
+    private double x1, y1, x2, y2, lineWidth;
+    private Color color;
+
+    // Zuletzt gezeichnetes Rechteck in Viewport-Koordinaten (w <= 0: nichts gezeichnet)
+    private double lastX, lastY, lastW, lastH;
+
+    // Statistik
+    private long pixelsLastFrame, framesPainted, eventsMerged;
+    private Runnable onFrame;               // Wird nach jedem gezeichneten Frame aufgerufen
+
+    private final AnimationTimer pulse = new AnimationTimer() {
+        @Override public void handle(long now) { paint(); stop(); } // Nur aktiv, solange etwas aussteht
+    };
+
+    public ShapePreview(Canvas canvas, TileRenderer renderer) {
+        this.canvas = canvas;
+        this.g = canvas.getGraphicsContext2D();
+        this.renderer = renderer;
+    }
+
+    public void setOnFrame(Runnable onFrame) { this.onFrame = onFrame; }
+    public long getPixelsLastFrame() { return pixelsLastFrame; }
+    public long getFramesPainted() { return framesPainted; }
+    public long getEventsMerged() { return eventsMerged; }
+
+    // --- Neue Form anfordern (wird beim nächsten Pulse gezeichnet) ---
+    public void show(int type, double x1, double y1, double x2, double y2, Color color, double lineWidth) {
+        if (pending) eventsMerged++; // Vorheriges Ereignis dieses Pulses wird übersprungen
+        this.type = type; this.x1 = x1; this.y1 = y1; this.x2 = x2; this.y2 = y2;
+        this.color = color; this.lineWidth = lineWidth;
+        visible = true;
+        request();
+    }
+
+    // --- Vorschau entfernen (sofort, z.B. vor dem endgültigen Zeichnen) ---
+    public void clear() {
+        pulse.stop();
+        pending = false; visible = false;
+        if (lastW > 0) { clearRect(lastX, lastY, lastW, lastH); pixelsLastFrame = (long) (lastW * lastH); }
+        lastW = lastH = 0;
+    }
+
+    // --- Vergisst das letzte Rechteck, z.B. nachdem das ganze Canvas anderweitig gelöscht wurde ---
+    public void reset() { pulse.stop(); pending = false; visible = false; lastW = lastH = 0; }
+
+    private void request() {
+        if (!pending) { pending = true; pulse.start(); }
+    }
+
+    // --- Zeichnet die aktuelle Form; löscht nur alte ∪ neue Begrenzung ---
+    void paint() {
+        if (!pending) return;
+        pending = false;
+        double nx = 0, ny = 0, nw = 0, nh = 0;
+        double tX = Math.min(x1, x2), tY = Math.min(y1, y2), w = Math.abs(x1 - x2), h = Math.abs(y1 - y2);
+        boolean draw = visible && w > 0 && h > 0;
+        if (draw) { // Neue Begrenzung in Viewport-Pixeln (inkl. halber Linienbreite und Kantenglättung)
+            double s = renderer.getScale(), pad = lineWidth * s / 2 + 2;
+            nx = Math.floor(tX * s - renderer.getOffsetX() - pad); ny = Math.floor(tY * s - renderer.getOffsetY() - pad);
+            nw = Math.ceil(w * s + 2 * pad) + 1; nh = Math.ceil(h * s + 2 * pad) + 1;
+        }
+        // Vereinigung aus altem und neuem Rechteck löschen
+        double ux, uy, uw, uh;
+        if (lastW <= 0) { ux = nx; uy = ny; uw = nw; uh = nh; }
+        else if (!draw) { ux = lastX; uy = lastY; uw = lastW; uh = lastH; }
+        else {
+            ux = Math.min(lastX, nx); uy = Math.min(lastY, ny);
+            uw = Math.max(lastX + lastW, nx + nw) - ux; uh = Math.max(lastY + lastH, ny + nh) - uy;
+        }
+        if (uw > 0 && uh > 0) clearRect(ux, uy, uw, uh);
+        if (draw) {
+            g.save();
+            renderer.applyDocTransform(g);
+            StrokeLog.configureStroke(g, lineWidth, color);
+            if (type == StrokeLog.RECTANGLE) g.strokeRect(tX, tY, w, h); else g.strokeOval(tX, tY, w, h);
+            g.restore();
+        }
+        lastX = nx; lastY = ny; lastW = draw ? nw : 0; lastH = draw ? nh : 0;
+        // Tatsächlich berührte Pixel (auf das Canvas begrenzt)
+        double cw = Math.max(0, Math.min(canvas.getWidth(), ux + uw) - Math.max(0, ux)), ch = Math.max(0, Math.min(canvas.getHeight(), uy + uh) - Math.max(0, uy));
+        pixelsLastFrame = (long) (cw * ch);
+        framesPainted++;
+        if (onFrame != null) onFrame.run();
+    }
+
+    private void clearRect(double x, double y, double w, double h) {
+        g.save();
+        g.setTransform(1, 0, 0, 1, 0, 0);
+        g.clearRect(x, y, w, h);
+        g.restore();
+    }
+}
@@ -0,0 +1,277 @@
+package com.todolist;
+
+import java.util.Arrays;
+import java.util.stream.IntStream;
+
+// --- Rasterisierer in reinem Java: pixelgleiche Ausgabe unabhängig von Prism-Pipeline, Java2D und Grafikkarte ---
+// Jeder Befehl wird als Polylinie mit runden Enden und Ecken gezeichnet (wie setupGC). Die Deckung eines Pixels
+// hängt vom Abstand d seines Mittelpunkts zur Linie ab: halbe Breite r, Deckung = r + 0.5 - d, auf 0..1 begrenzt
+// (Kantenglättung über etwa ein Pixel). Je Segment wird nur die Kapsel um das Segment zeilenweise abgetastet;
+// überlappende Segmente ergeben das Maximum, so entstehen runde Ecken ohne doppelte Deckung. Rechtecke sind
+// geschlossene Polylinien, Ovale werden in Sehnen mit höchstens 0.1 px Abweichung zerlegt (StrictMath, damit
+// jede Plattform dieselben Punkte erhält). Große Formen werden in Zeilenbänder geteilt und parallel gerastert;
+// jedes Band schreibt nur seine eigenen Zeilen, das Ergebnis ist bitgleich zum seriellen Durchlauf.
+// Nicht threadsicher (eine Instanz je Thread); die Bänder benutzen eigene Puffer.
+public class SoftwareRasterizer implements StrokeRasterizer {
+
+    private static final int MAX_CHUNK = 2048;                  // Maximale Kantenlänge des Hilfspuffers
+    private static final int BAND = 64;                         // Zeilen je Band
+    private static final long PARALLEL_MIN_PIXELS = 512 * 512;  // Darunter lohnt sich die Verteilung auf Threads nicht
+    private static final double MAX_SAGITTA = 0.1;              // Höchste Abweichung der Oval-Sehnen in Pixeln
+
+    private static final ThreadLocal<byte[]> COVERAGE = ThreadLocal.withInitial(() -> new byte[0]);
+
+    private int[] buffer = new int[0];
+    private final FloodFill fill = new FloodFill();
+    private boolean parallel = true;
+
+    public boolean isParallel() { return parallel; }
+    public void setParallel(boolean parallel) { this.parallel = parallel; }
+
+    // --- Umriss eines Befehls: Punkte (x, y abwechselnd), geschlossen oder offen, halbe Linienbreite ---
+    private static final class Outline {
+        final double[] pts; final int n; final boolean closed; final double r;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        Outline(double[] pts, int n, boolean closed, double r) {
+            this.pts = pts; this.n = n; this.closed = closed; this.r = r;
+            for (int p = 0; p < n; p++) {
+                minX = Math.min(minX, pts[2 * p]); maxX = Math.max(maxX, pts[2 * p]);
+                minY = Math.min(minY, pts[2 * p + 1]); maxY = Math.max(maxY, pts[2 * p + 1]);
+            }
+        }
+        int segments() { return n == 1 ? 1 : closed ? n : n - 1; } // Einzelpunkt: Segment der Länge 0 (runder Punkt)
+    }
+
+    // --- Spielt einen einzelnen Befehl ab ---
+    @Override
+    public void replay(StrokeLog log, int i, TiledRaster target) {
+        if (log.type(i) == StrokeLog.CLEAR) { target.clear(TiledRaster.premultiply(log.argb(i))); return; }
+        if (log.type(i) == StrokeLog.FILL) { fill.fill(target, (int) log.x(i, 0), (int) log.y(i, 0), TiledRaster.premultiply(log.argb(i)), (int) log.width(i)); return; }
+        Outline o = outline(log, i);
+        if (o == null) return;
+        boolean erase = log.isTransparentErase(i);
+        int color = erase ? 0xFF000000 : TiledRaster.premultiply(log.argb(i)); // Radieren: deckende Maske
+        double[] b = log.bounds(i);
+        int x0 = Math.max(0, (int) Math.floor(b[0])), y0 = Math.max(0, (int) Math.floor(b[1]));
+        int x1 = Math.min(target.getWidth(), (int) Math.ceil(b[0] + b[2])), y1 = Math.min(target.getHeight(), (int) Math.ceil(b[1] + b[3]));
+        for (int cy = y0; cy < y1; cy += MAX_CHUNK)
+            for (int cx = x0; cx < x1; cx += MAX_CHUNK) {
+                int cw = Math.min(MAX_CHUNK, x1 - cx), ch = Math.min(MAX_CHUNK, y1 - cy);
+                int[] px = clearBuffer(cw * ch);
+                rasterize(o, color, false, px, 0, cw, cx, cy, cw, ch);
+                if (erase) target.eraseRect(cx, cy, cw, ch, px, 0, cw);
+                else target.compositeRect(cx, cy, cw, ch, px, 0, cw);
+            }
+    }
+
+    // --- Zeichnet mehrere Befehle (in der angegebenen Reihenfolge) auf Transparenz und ersetzt damit das Rechteck x,y,w,h ---
+    @Override
+    public void renderClipped(StrokeLog log, int[] indices, int n, TiledRaster target, int x, int y, int w, int h) {
+        int[] px = clearBuffer(w * h);
+        for (int k = 0; k < n; k++) {
+            Outline o = outline(log, indices[k]);
+            if (o != null) rasterize(o, TiledRaster.premultiply(log.argb(indices[k])), false, px, 0, w, x, y, w, h);
+        }
+        target.writeRect(x, y, w, h, px, 0, w);
+    }
+
+    // --- Zeichnet Befehl i in einen vormultiplizierten ARGB-Puffer, der das Dokumentrechteck x,y,w,h abbildet ---
+    // Source-Over; transparentes Radieren stanzt aus (Destination-Out). CLEAR und FILL werden hier nicht unterstützt.
+    public void draw(StrokeLog log, int i, int[] dst, int off, int stride, int x, int y, int w, int h) {
+        Outline o = outline(log, i);
+        if (o == null) return;
+        boolean erase = log.isTransparentErase(i);
+        rasterize(o, erase ? 0xFF000000 : TiledRaster.premultiply(log.argb(i)), erase, dst, off, stride, x, y, w, h);
+    }
+
+    private int[] clearBuffer(int size) {
+        if (buffer.length < size) buffer = new int[size];
+        else Arrays.fill(buffer, 0, size, 0);
+        return buffer;
+    }
+
+    // --- Geometrie eines Befehls (null, wenn nichts zu zeichnen ist; wie Java2dRasterBridge.shapeOf) ---
+    private static Outline outline(StrokeLog log, int i) {
+        int n = log.pointCount(i);
+        double r = log.width(i) / 2.0;
+        switch (log.type(i)) {
+            case StrokeLog.STROKE: case StrokeLog.ERASE: {
+                if (n == 0) return null;
+                double[] pts = new double[2 * n];
+                for (int p = 0; p < n; p++) { pts[2 * p] = log.x(i, p); pts[2 * p + 1] = log.y(i, p); }
+                return new Outline(pts, n, false, r);
+            }
+            case StrokeLog.RECTANGLE: case StrokeLog.OVAL: {
+                double x1 = log.x(i, 0), y1 = log.y(i, 0), x2 = log.x(i, 1), y2 = log.y(i, 1);
+                double l = Math.min(x1, x2), t = Math.min(y1, y2), w = Math.abs(x1 - x2), h = Math.abs(y1 - y2);
+                if (w <= 0 || h <= 0) return null;
+                if (log.type(i) == StrokeLog.RECTANGLE) return new Outline(new double[] { l, t, l + w, t, l + w, t + h, l, t + h }, 4, true, r);
+                return ellipse(l + w / 2, t + h / 2, w / 2, h / 2, r);
+            }
+            default: return null;
+        }
+    }
+
+    // Ellipse als geschlossene Polylinie; Sehnenzahl aus der zulässigen Abweichung beim größeren Radius
+    private static Outline ellipse(double cx, double cy, double a, double b, double r) {
+        double big = Math.max(a, b);
+        double step = big <= MAX_SAGITTA ? Math.PI / 4 : 2 * StrictMath.acos(1 - MAX_SAGITTA / big);
+        int n = Math.max(8, (int) Math.ceil(2 * Math.PI / step));
+        double[] pts = new double[2 * n];
+        for (int k = 0; k < n; k++) {
+            double t = 2 * Math.PI * k / n;
+            pts[2 * k] = cx + a * StrictMath.cos(t); pts[2 * k + 1] = cy + b * StrictMath.sin(t);
+        }
+        return new Outline(pts, n, true, r);
+    }
+
+    // --- Rastert einen Umriss in dst (Dokumentrechteck x,y,w,h); große Flächen in parallelen Zeilenbändern ---
+    private void rasterize(Outline o, int color, boolean out, int[] dst, int off, int stride, int x, int y, int w, int h) {
+        double reach = o.r + 0.5; // Bis zu diesem Abstand ist die Deckung > 0
+        int x0 = Math.max(x, (int) Math.floor(o.minX - reach)), x1 = Math.min(x + w, (int) Math.ceil(o.maxX + reach));
+        int y0 = Math.max(y, (int) Math.floor(o.minY - reach)), y1 = Math.min(y + h, (int) Math.ceil(o.maxY + reach));
+        if (x1 <= x0 || y1 <= y0) return;
+        int bands = (y1 - y0 + BAND - 1) / BAND;
+        java.util.function.IntConsumer band = k -> rasterBand(o, color, out, dst, off, stride, x, y, x0, x1, y0 + k * BAND, Math.min(y1, y0 + (k + 1) * BAND));
+        if (parallel && bands > 1 && (long) (x1 - x0) * (y1 - y0) >= PARALLEL_MIN_PIXELS) IntStream.range(0, bands).parallel().forEach(band);
+        else for (int k = 0; k < bands; k++) band.accept(k);
+    }
+
+    // Deckung aller Segmente für die Zeilen [by0, by1) sammeln, dann mit der Farbe in dst übernehmen
+    private static void rasterBand(Outline o, int color, boolean out, int[] dst, int off, int stride, int x, int y, int bx0, int bx1, int by0, int by1) {
+        int bw = bx1 - bx0, cells = bw * (by1 - by0);
+        byte[] cov = COVERAGE.get();
+        if (cov.length < cells) { cov = new byte[Math.max(cells, BAND * MAX_CHUNK)]; COVERAGE.set(cov); }
+        else Arrays.fill(cov, 0, cells, (byte) 0);
+        double reach = o.r + 0.5;
+        double[] p = o.pts;
+        for (int s = 0, segs = o.segments(); s < segs; s++) {
+            int e = o.n == 1 ? 0 : (s + 1) % o.n;
+            double ax = p[2 * s], ay = p[2 * s + 1], bx = p[2 * e], by = p[2 * e + 1];
+            if (Math.max(ay, by) + reach < by0 || Math.min(ay, by) - reach > by1) continue; // Segment berührt das Band nicht
+            if (Math.max(ax, bx) + reach < bx0 || Math.min(ax, bx) - reach > bx1) continue; // ... oder liegt seitlich daneben
+            capsule(ax, ay, bx, by, reach, cov, bw, bx0, bx1, by0, by1);
+        }
+        for (int py = by0; py < by1; py++) {
+            int ci = (py - by0) * bw, di = off + (py - y) * stride + (bx0 - x);
+            for (int px = bx0; px < bx1; px++, ci++, di++) {
+                int c = cov[ci] & 0xFF;
+                if (c == 0) continue;
+                if (out) dst[di] = scale(dst[di], 255 - c);
+                else {
+                    int s = c == 255 ? color : scale(color, c);
+                    dst[di] = (s >>> 24) == 255 ? s : TiledRaster.srcOver(s, dst[di]);
+                }
+            }
+        }
+    }
+
+    // Deckung der Kapsel um das Segment a-b (Reichweite reach = r + 0.5) als Maximum in cov eintragen.
+    // Je Zeile wird zuerst das x-Intervall bestimmt, in dem die Kapsel die Zeile schneidet (Hülle aus den Sehnen der
+    // beiden Endkreise und dem Streifen entlang des Segments), und nur dort der genaue Abstand berechnet.
+    private static void capsule(double ax, double ay, double bx, double by, double reach, byte[] cov, int bw, int bx0, int bx1, int by0, int by1) {
+        double dx = bx - ax, dy = by - ay, len2 = dx * dx + dy * dy, len = Math.sqrt(len2);
+        double outer2 = reach * reach, inner2 = reach >= 1 ? (reach - 1) * (reach - 1) : -1;
+        int ry0 = Math.max(by0, (int) Math.floor(Math.min(ay, by) - reach)), ry1 = Math.min(by1, (int) Math.ceil(Math.max(ay, by) + reach));
+        double[] iv = new double[2];
+        for (int py = ry0; py < ry1; py++) {
+            double cy = py + 0.5, qy = cy - ay;
+            double lo = Double.MAX_VALUE, hi = -Double.MAX_VALUE;
+            double ha = reach * reach - qy * qy, hb = reach * reach - (cy - by) * (cy - by);
+            if (ha >= 0) { double c = Math.sqrt(ha); lo = ax - c; hi = ax + c; }
+            if (hb >= 0) { double c = Math.sqrt(hb); lo = Math.min(lo, bx - c); hi = Math.max(hi, bx + c); }
+            if (len2 > 0) { // Streifen: |Normale·(p-a)| <= reach*len und 0 <= Richtung·(p-a) <= len2, beides linear in x
+                iv[0] = -Double.MAX_VALUE; iv[1] = Double.MAX_VALUE;
+                if (limit(iv, -dy, dx * qy, -reach * len, reach * len) && limit(iv, dx, dy * qy, 0, len2)) {
+                    lo = Math.min(lo, ax + iv[0]); hi = Math.max(hi, ax + iv[1]);
+                }
+            }
+            if (lo > hi) continue;
+            int px0 = Math.max(bx0, (int) Math.floor(lo - 0.5)), px1 = Math.min(bx1, (int) Math.floor(hi - 0.5) + 2);
+            int row = (py - by0) * bw - bx0;
+            for (int px = px0; px < px1; px++) {
+                if (cov[row + px] == (byte) 255) continue;
+                double qx = px + 0.5 - ax;
+                double t = len2 > 0 ? Math.max(0, Math.min(1, (qx * dx + qy * dy) / len2)) : 0;
+                double ex = qx - t * dx, ey = qy - t * dy, d2 = ex * ex + ey * ey;
+                if (d2 >= outer2) continue;
+                int a = d2 <= inner2 ? 255 : (int) ((reach - Math.sqrt(d2)) * 255 + 0.5); // Wurzel nur im Kantenpixel-Saum
+                if (a > (cov[row + px] & 0xFF)) cov[row + px] = (byte) a;
+            }
+        }
+    }
+
+    // --- Deckung eines laufenden Strichs (Vorschau): bleibt über den ganzen Strich erhalten, je Aufruf von update ---
+    // werden nur die seitdem angehängten Segmente eingetragen (Maximum wie in rasterBand, also keine doppelte Deckung
+    // an den Stößen). paint liefert dieselben Pixel wie draw für den ganzen Strich auf Transparenz. Nur für Striche
+    // (STROKE, ERASE mit Farbe); Deckung wird kachelweise und nur dort angelegt, wo der Strich verläuft.
+    public static final class StrokeCoverage {
+        private final StrokeLog log; private final int index, color, width, height, tilesX;
+        private final double reach;
+        private final byte[][] tiles;
+        private int done;                                       // Bereits eingetragene Punkte
+
+        public StrokeCoverage(StrokeLog log, int index, int width, int height) {
+            this.log = log; this.index = index; this.width = width; this.height = height;
+            this.color = TiledRaster.premultiply(log.argb(index));
+            this.reach = log.width(index) / 2.0 + 0.5;
+            this.tilesX = (width + TiledRaster.TILE_SIZE - 1) >> TiledRaster.TILE_SHIFT;
+            this.tiles = new byte[tilesX * ((height + TiledRaster.TILE_SIZE - 1) >> TiledRaster.TILE_SHIFT)][];
+        }
+
+        // Trägt die neuen Punkte ein; liefert das betroffene Dokumentrechteck {x, y, w, h} oder null
+        public double[] update() {
+            int n = log.pointCount(index);
+            if (done >= n) return null;
+            double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+            for (int p = Math.max(0, done - 1); p < n; p++) {
+                minX = Math.min(minX, log.x(index, p)); maxX = Math.max(maxX, log.x(index, p));
+                minY = Math.min(minY, log.y(index, p)); maxY = Math.max(maxY, log.y(index, p));
+            }
+            if (done == 0) segment(log.x(index, 0), log.y(index, 0), log.x(index, 0), log.y(index, 0)); // Einzelpunkt
+            for (int p = Math.max(1, done); p < n; p++) segment(log.x(index, p - 1), log.y(index, p - 1), log.x(index, p), log.y(index, p));
+            done = n;
+            return new double[] { minX - reach, minY - reach, maxX - minX + 2 * reach, maxY - minY + 2 * reach };
+        }
+
+        // Kapsel eines Segments in alle Kacheln eintragen, die sie berühren kann
+        private void segment(double ax, double ay, double bx, double by) {
+            int x0 = Math.max(0, (int) Math.floor(Math.min(ax, bx) - reach)), x1 = Math.min(width, (int) Math.ceil(Math.max(ax, bx) + reach));
+            int y0 = Math.max(0, (int) Math.floor(Math.min(ay, by) - reach)), y1 = Math.min(height, (int) Math.ceil(Math.max(ay, by) + reach));
+            if (x1 <= x0 || y1 <= y0) return;
+            for (int ty = y0 >> TiledRaster.TILE_SHIFT; ty <= (y1 - 1) >> TiledRaster.TILE_SHIFT; ty++)
+                for (int tx = x0 >> TiledRaster.TILE_SHIFT; tx <= (x1 - 1) >> TiledRaster.TILE_SHIFT; tx++) {
+                    int t = ty * tilesX + tx, ox = tx << TiledRaster.TILE_SHIFT, oy = ty << TiledRaster.TILE_SHIFT;
+                    if (tiles[t] == null) tiles[t] = new byte[TiledRaster.TILE_PIXELS];
+                    capsule(ax, ay, bx, by, reach, tiles[t], TiledRaster.TILE_SIZE, ox, Math.min(width, ox + TiledRaster.TILE_SIZE),
+                            oy, Math.min(height, oy + TiledRaster.TILE_SIZE));
+                }
+        }
+
+        // Schreibt den Strich auf Transparenz in dst (Dokumentrechteck x,y,w,h; ungedeckte Pixel werden 0)
+        public void paint(int[] dst, int off, int stride, int x, int y, int w, int h) {
+            for (int py = y; py < y + h; py++) {
+                int di = off + (py - y) * stride, ty = py >> TiledRaster.TILE_SHIFT, row = (py & (TiledRaster.TILE_SIZE - 1)) << TiledRaster.TILE_SHIFT;
+                for (int px = x; px < x + w; px++, di++) {
+                    byte[] cov = tiles[ty * tilesX + (px >> TiledRaster.TILE_SHIFT)];
+                    int c = cov == null ? 0 : cov[row + (px & (TiledRaster.TILE_SIZE - 1))] & 0xFF;
+                    dst[di] = c == 0 ? 0 : c == 255 ? color : scale(color, c);
+                }
+            }
+        }
+    }
+
+    // Schränkt iv = [lo, hi] auf die t ein, für die min <= coef * t + constant <= max gilt; false, wenn leer
+    private static boolean limit(double[] iv, double coef, double constant, double min, double max) {
+        if (coef == 0) return constant >= min && constant <= max;
+        double a = (min - constant) / coef, b = (max - constant) / coef;
+        iv[0] = Math.max(iv[0], Math.min(a, b)); iv[1] = Math.min(iv[1], Math.max(a, b));
+        return iv[0] <= iv[1];
+    }
+
+    // Alle Kanäle (vormultipliziert) mit alpha/255 multiplizieren
+    private static int scale(int p, int alpha) {
+        return (TiledRaster.div255((p >>> 24) * alpha) << 24) | (TiledRaster.div255(((p >> 16) & 0xFF) * alpha) << 16)
+                | (TiledRaster.div255(((p >> 8) & 0xFF) * alpha) << 8) | TiledRaster.div255((p & 0xFF) * alpha);
+    }
+}
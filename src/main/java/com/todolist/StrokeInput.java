@@ -0,0 +1,122 @@
+package com.todolist;
+
+import java.util.Arrays;
+
+// --- Eingabestufe zwischen Mausereignissen und Zeichnen ---
+// Rohpunkte landen in einem Ringpuffer und werden einmal pro Pulse gesammelt verarbeitet:
+// zu dicht liegende Punkte werden verworfen (Dezimierung), optional wird eine Catmull-Rom-Kurve
+// durch die verbleibenden Punkte gelegt. Der Zeichenaufwand hängt so von der Bildrate ab,
+// nicht von der Ereignisrate des Eingabegeräts.
+public class StrokeInput {
+
+    // --- Empfänger der fertigen Punkte (xy abwechselnd, count = Anzahl Punkte) ---
+    public interface Sink { void points(float[] xy, int count); }
+
+    private static final int MAX_SUBDIVISIONS = 16;
+
+    private final float[] ring;             // Rohpunkte (x,y), Kapazität ist eine Zweierpotenz
+    private final int mask;
+    private int head, tail;                 // Lese-/Schreibposition in Floats (fortlaufend, per mask abgebildet)
+
+    private boolean smoothing = true;       // Catmull-Rom an/aus
+    private double minDistance = 1.0;       // Mindestabstand zwischen übernommenen Punkten (Dokumentkoordinaten)
+    private double maxStep = 2.0;           // Maximale Segmentlänge der geglätteten Kurve
+
+    // Letzte übernommene Kontrollpunkte p0..p2 (p3 ist jeweils der neue Punkt)
+    private float p0x, p0y, p1x, p1y, p2x, p2y;
+    private int accepted;                   // Anzahl übernommener Punkte seit begin()
+    private float lastRawX, lastRawY;       // Letzter Rohpunkt (damit das Strichende exakt bleibt)
+    private boolean lastRawAccepted;
+
+    private float[] out = new float[256];
+    private int outCount;
+    private long rawPoints, emittedPoints;  // Statistik
+
+    public StrokeInput(int capacityPoints) {
+        int cap = Integer.highestOneBit(Math.max(16, capacityPoints - 1)) << 1;
+        ring = new float[cap * 2];
+        mask = ring.length - 1;
+    }
+
+    public void setSmoothing(boolean smoothing) { this.smoothing = smoothing; }
+    public boolean isSmoothing() { return smoothing; }
+    // --- Mindestabstand und maximale Segmentlänge in Dokumentkoordinaten (z.B. abhängig vom Zoom) ---
+    public void setTolerances(double minDistance, double maxStep) { this.minDistance = minDistance; this.maxStep = maxStep; }
+    public long getRawPoints() { return rawPoints; }
+    public long getEmittedPoints() { return emittedPoints; }
+    public boolean hasPending() { return head != tail; }
+
+    // --- Neuer Strich; der Startpunkt wird vom Aufrufer selbst übernommen (nicht an den Sink gemeldet) ---
+    public void begin(double x, double y) {
+        head = tail = 0;
+        p0x = p1x = p2x = (float) x; p0y = p1y = p2y = (float) y;
+        accepted = 1;
+        lastRawX = (float) x; lastRawY = (float) y; lastRawAccepted = true;
+    }
+
+    // --- Rohpunkt aus einem Mausereignis; ist der Ring voll, wird sofort verarbeitet ---
+    public void add(double x, double y, Sink sink) {
+        if (tail - head >= ring.length) drain(sink);
+        ring[tail & mask] = (float) x; ring[(tail + 1) & mask] = (float) y;
+        tail += 2;
+        rawPoints++;
+    }
+
+    // --- Verarbeitet alle gepufferten Punkte (einmal pro Pulse aufrufen) ---
+    public void drain(Sink sink) {
+        outCount = 0;
+        while (head != tail) {
+            float x = ring[head & mask], y = ring[(head + 1) & mask];
+            head += 2;
+            lastRawX = x; lastRawY = y; lastRawAccepted = false;
+            double dx = x - p2x, dy = y - p2y;
+            if (dx * dx + dy * dy < minDistance * minDistance) continue; // Dezimierung
+            accept(x, y);
+            lastRawAccepted = true;
+        }
+        flushOut(sink);
+    }
+
+    // --- Strichende: restliche Punkte verarbeiten und das letzte Kurvenstück ausgeben ---
+    public void end(Sink sink) {
+        drain(sink);
+        outCount = 0;
+        if (!lastRawAccepted) accept(lastRawX, lastRawY); // Endpunkt nie wegdezimieren
+        if (smoothing && accepted >= 2) emitCurve(p1x, p1y, p1x, p1y, p2x, p2y, p2x, p2y, true); // Letztes Stück p1 -> p2
+        flushOut(sink);
+    }
+
+    private void accept(float x, float y) {
+        if (!smoothing) { emit(x, y); }
+        else if (accepted >= 2) emitCurve(p0x, p0y, p1x, p1y, p2x, p2y, x, y, false); // Stück p1 -> p2 ist jetzt bestimmt
+        p0x = p1x; p0y = p1y; p1x = p2x; p1y = p2y; p2x = x; p2y = y;
+        if (accepted == 1) { p0x = p1x; p0y = p1y; } // Erster Punkt doppelt als Randbedingung
+        accepted++;
+    }
+
+    // --- Uniformes Catmull-Rom-Stück zwischen b und c (a, d sind die Nachbarn); b selbst wurde schon ausgegeben ---
+    private void emitCurve(float ax, float ay, float bx, float by, float cx, float cy, float dx, float dy, boolean last) {
+        if (last) { ax = p0x; ay = p0y; } // Beim Abschluss ist p0 der Vorgänger von p1
+        double len = Math.hypot(cx - bx, cy - by);
+        int n = (int) Math.max(1, Math.min(MAX_SUBDIVISIONS, Math.ceil(len / maxStep)));
+        for (int i = 1; i <= n; i++) {
+            float t = (float) i / n, t2 = t * t, t3 = t2 * t;
+            float x = 0.5f * (2 * bx + (-ax + cx) * t + (2 * ax - 5 * bx + 4 * cx - dx) * t2 + (-ax + 3 * bx - 3 * cx + dx) * t3);
+            float y = 0.5f * (2 * by + (-ay + cy) * t + (2 * ay - 5 * by + 4 * cy - dy) * t2 + (-ay + 3 * by - 3 * cy + dy) * t3);
+            emit(x, y);
+        }
+    }
+
+    private void emit(float x, float y) {
+        if (2 * outCount + 2 > out.length) out = Arrays.copyOf(out, out.length * 2);
+        out[2 * outCount] = x; out[2 * outCount + 1] = y;
+        outCount++;
+    }
+
+    private void flushOut(Sink sink) {
+        if (outCount == 0) return;
+        emittedPoints += outCount;
+        sink.points(out, outCount);
+        outCount = 0;
+    }
+}
@@ -0,0 +1,202 @@
+package com.todolist;
+
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.paint.Color;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// --- Kompaktes Befehlsprotokoll aller Zeichenoperationen ---
+// Befehle liegen in parallelen primitiven Arrays, Punkte als (x,y)-Paare in einem float[].
+// Pro Punkt wird kein Objekt angelegt; das Protokoll lässt sich in jeden GraphicsContext
+// (mit beliebiger Transformation, also auch Zoomstufe) erneut abspielen.
+public class StrokeLog {
+
+    // --- Befehlsarten ---
+    public static final int STROKE = 0;     // Stiftstrich (Polylinie)
+    public static final int ERASE = 1;      // Radiererstrich (Polylinie in Hintergrundfarbe; Alpha 0 = auf Transparenz radieren)
+    public static final int RECTANGLE = 2;  // Rechteck, zwei Eckpunkte
+    public static final int OVAL = 3;       // Oval im Rechteck zweier Eckpunkte
+    public static final int CLEAR = 4;      // Alles mit Farbe füllen
+    public static final int FILL = 5;       // Flutfüllung ab einem Punkt (Breite = Farbtoleranz)
+
+    private static final int STRIDE = 4;    // Felder pro Befehl in cmds: Art, Farbe, Punktindex, Punktanzahl
+
+    private int[] cmds = new int[STRIDE * 64];
+    private float[] widths = new float[64];
+    private float[] points = new float[1024];
+    private int size;                       // Anzahl Befehle
+    private int pointCount;                 // Anzahl belegter Floats in points
+
+    // --- Lesezugriff ---
+    public int size() { return size; }
+    public int type(int i) { return cmds[i * STRIDE]; }
+    public int argb(int i) { return cmds[i * STRIDE + 1]; }
+    public float width(int i) { return widths[i]; }
+    public int pointCount(int i) { return cmds[i * STRIDE + 3]; }
+    public float x(int i, int p) { return points[cmds[i * STRIDE + 2] + 2 * p]; }
+    public float y(int i, int p) { return points[cmds[i * STRIDE + 2] + 2 * p + 1]; }
+    public int last() { return size - 1; }
+    // Radieren auf Transparenz (obere Ebenen): wird als Maske gezeichnet und aus dem Raster ausgestanzt
+    public boolean isTransparentErase(int i) { return type(i) == ERASE && (argb(i) >>> 24) == 0; }
+    // Belegter Speicher in Bytes (nur Nutzdaten)
+    public long byteSize() { return size * (STRIDE * 4L + 4L) + pointCount * 4L; }
+    // Belegter Speicher der Befehle [from, to)
+    public long byteSize(int from, int to) {
+        long bytes = 0;
+        for (int i = from; i < to; i++) bytes += STRIDE * 4L + 4L + pointCount(i) * 8L;
+        return bytes;
+    }
+
+    // --- Beginnt einen neuen Strich (STROKE oder ERASE) und liefert dessen Index ---
+    public int beginStroke(int type, int argb, double width, double x, double y) {
+        int i = addCommand(type, argb, width);
+        addPoint(x, y);
+        return i;
+    }
+
+    // --- Hängt einen Punkt an den letzten Befehl an ---
+    public void addPoint(double x, double y) {
+        if (pointCount + 2 > points.length) points = Arrays.copyOf(points, points.length * 2);
+        points[pointCount++] = (float) x;
+        points[pointCount++] = (float) y;
+        cmds[(size - 1) * STRIDE + 3]++;
+    }
+
+    // --- Fügt eine Form (RECTANGLE oder OVAL) hinzu ---
+    public int addShape(int type, int argb, double width, double x1, double y1, double x2, double y2) {
+        int i = addCommand(type, argb, width);
+        addPoint(x1, y1); addPoint(x2, y2);
+        return i;
+    }
+
+    // --- Fügt eine Flutfüllung hinzu ---
+    public int addFill(int argb, int tolerance, double x, double y) { return beginStroke(FILL, argb, tolerance, x, y); }
+
+    // --- Fügt einen Löschbefehl hinzu ---
+    public int addClear(int argb) { return addCommand(CLEAR, argb, 0); }
+
+    // --- Verschiebt alle Punkte des Befehls i (Vektorformen) ---
+    public void translate(int i, double dx, double dy) {
+        for (int p = cmds[i * STRIDE + 2], end = p + 2 * pointCount(i); p < end; p += 2) { points[p] += (float) dx; points[p + 1] += (float) dy; }
+    }
+
+    // --- Entfernt alle Befehle ---
+    public void reset() { size = 0; pointCount = 0; }
+
+    // --- Entfernt alle Befehle ab Index from (z.B. nach Rückgängig) ---
+    public void truncate(int from) {
+        if (from >= size) return;
+        size = from;
+        pointCount = size == 0 ? 0 : cmds[(size - 1) * STRIDE + 2] + 2 * cmds[(size - 1) * STRIDE + 3];
+    }
+
+    // --- Kopiert die Befehle [from, to) in ein neues Protokoll ---
+    public StrokeLog copyRange(int from, int to) {
+        StrokeLog copy = new StrokeLog();
+        copy.append(this, from, to);
+        return copy;
+    }
+
+    // --- Hängt die Befehle [from, to) eines anderen Protokolls an ---
+    public void append(StrokeLog other, int from, int to) {
+        for (int i = from; i < to; i++) {
+            addCommand(other.type(i), other.argb(i), other.width(i));
+            for (int p = 0, n = other.pointCount(i); p < n; p++) addPoint(other.x(i, p), other.y(i, p));
+        }
+    }
+
+    // --- Binärform (für ProjectFile): Anzahl Befehle und Floats, dann die Arrays ---
+    public void write(DataOutput out) throws IOException {
+        out.writeInt(size); out.writeInt(pointCount);
+        for (int i = 0; i < size * STRIDE; i++) out.writeInt(cmds[i]);
+        for (int i = 0; i < size; i++) out.writeFloat(widths[i]);
+        for (int i = 0; i < pointCount; i++) out.writeFloat(points[i]);
+    }
+    public static StrokeLog read(DataInput in) throws IOException {
+        StrokeLog log = new StrokeLog();
+        int n = in.readInt(), floats = in.readInt();
+        if (n < 0 || floats < 0 || (floats & 1) != 0) throw new IOException("Ungültiges Befehlsprotokoll");
+        log.cmds = new int[Math.max(STRIDE * 64, n * STRIDE)]; log.widths = new float[Math.max(64, n)]; log.points = new float[Math.max(1024, floats)];
+        for (int i = 0; i < n * STRIDE; i++) log.cmds[i] = in.readInt();
+        for (int i = 0; i < n; i++) log.widths[i] = in.readFloat();
+        for (int i = 0; i < floats; i++) log.points[i] = in.readFloat();
+        for (int i = 0; i < n; i++) // Punktbereiche prüfen, damit beschädigte Dateien nicht erst beim Abspielen auffallen
+            if (log.cmds[i * STRIDE + 2] < 0 || log.cmds[i * STRIDE + 3] < 0 || (long) log.cmds[i * STRIDE + 2] + 2L * log.cmds[i * STRIDE + 3] > floats)
+                throw new IOException("Ungültiges Befehlsprotokoll");
+        log.size = n; log.pointCount = floats;
+        return log;
+    }
+
+    private int addCommand(int type, int argb, double width) {
+        if ((size + 1) * STRIDE > cmds.length) cmds = Arrays.copyOf(cmds, cmds.length * 2);
+        if (size + 1 > widths.length) widths = Arrays.copyOf(widths, widths.length * 2);
+        int b = size * STRIDE;
+        cmds[b] = type; cmds[b + 1] = argb; cmds[b + 2] = pointCount; cmds[b + 3] = 0;
+        widths[size] = (float) width;
+        return size++;
+    }
+
+    // --- Begrenzungsrechteck eines Befehls inkl. halber Linienbreite: {x, y, w, h} ---
+    // Für CLEAR und FILL ist das Ergebnis null (betrifft das ganze Bild bzw. steht erst nach dem Füllen fest).
+    public double[] bounds(int i) {
+        int n = pointCount(i);
+        if (type(i) == CLEAR || type(i) == FILL || n == 0) return null;
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int p = 0; p < n; p++) {
+            double px = x(i, p), py = y(i, p);
+            if (px < minX) minX = px; if (px > maxX) maxX = px;
+            if (py < minY) minY = py; if (py > maxY) maxY = py;
+        }
+        double pad = width(i) / 2.0 + 1; // Halbe Linienbreite plus Kantenglättung
+        return new double[] { minX - pad, minY - pad, maxX - minX + 2 * pad, maxY - minY + 2 * pad };
+    }
+
+    // --- Spielt die Befehle [from, to) in g ab (g zeichnet in Dokumentkoordinaten) ---
+    public void replay(GraphicsContext g, int from, int to, double canvasWidth, double canvasHeight) {
+        for (int i = from; i < to; i++) replay(g, i, canvasWidth, canvasHeight);
+    }
+
+    // --- Spielt einen einzelnen Befehl ab ---
+    public void replay(GraphicsContext g, int i, double canvasWidth, double canvasHeight) {
+        Color c = isTransparentErase(i) ? Color.BLACK : toColor(argb(i)); // Maske deckend zeichnen
+        switch (type(i)) {
+            case STROKE: case ERASE: {
+                int n = pointCount(i);
+                configureStroke(g, width(i), c);
+                g.beginPath(); g.moveTo(x(i, 0), y(i, 0));
+                for (int p = n == 1 ? 0 : 1; p < n; p++) g.lineTo(x(i, p), y(i, p)); // Einzelpunkt: Punkt mit runder Kappe
+                g.stroke();
+                break;
+            }
+            case RECTANGLE: case OVAL: {
+                double x1 = x(i, 0), y1 = y(i, 0), x2 = x(i, 1), y2 = y(i, 1);
+                double tX = Math.min(x1, x2), tY = Math.min(y1, y2), w = Math.abs(x1 - x2), h = Math.abs(y1 - y2);
+                if (w <= 0 || h <= 0) break;
+                configureStroke(g, width(i), c);
+                if (type(i) == RECTANGLE) g.strokeRect(tX, tY, w, h); else g.strokeOval(tX, tY, w, h);
+                break;
+            }
+            case CLEAR:
+                g.setFill(c); g.fillRect(0, 0, canvasWidth, canvasHeight);
+                break;
+            // FILL hängt vom Rasterinhalt ab und wird nur direkt auf dem Raster ausgeführt (FloodFill)
+        }
+    }
+
+    // --- Gemeinsame Strich-Einstellungen (runde Enden und Ecken wie in App.setupGC) ---
+    static void configureStroke(GraphicsContext g, double lineWidth, Color color) {
+        g.setLineCap(javafx.scene.shape.StrokeLineCap.ROUND); g.setLineJoin(javafx.scene.shape.StrokeLineJoin.ROUND);
+        g.setLineWidth(lineWidth); g.setStroke(color);
+    }
+
+    // --- Farbumrechnung (nicht vormultipliziertes ARGB) ---
+    static int toArgb(Color c) {
+        return ((int) Math.round(c.getOpacity() * 255) << 24) | ((int) Math.round(c.getRed() * 255) << 16)
+                | ((int) Math.round(c.getGreen() * 255) << 8) | (int) Math.round(c.getBlue() * 255);
+    }
+    static Color toColor(int argb) {
+        return Color.rgb((argb >> 16) & 0xFF, (argb >> 8) & 0xFF, argb & 0xFF, (argb >>> 24) / 255.0);
+    }
+}
@@ -0,0 +1,33 @@
+package com.todolist;
+
+// --- Rasterisierer für StrokeLog-Befehle ohne JavaFX (Batch-Modus, Vektorformen, Wiederherstellung) ---
+// Bedeutung der Befehle wie StrokeLog.replay: runde Enden und Ecken, Kantenglättung, Source-Over; transparentes
+// Radieren stanzt aus. Auswahl per -Dpaint.rasterizer=software (reines Java, pixelgleich auf jeder Plattform),
+// sonst Java2D. Implementierungen sind nicht threadsicher; jeder Thread braucht eine eigene Instanz.
+public interface StrokeRasterizer {
+
+    // --- Spielt einen einzelnen Befehl ab ---
+    void replay(StrokeLog log, int i, TiledRaster target);
+
+    // --- Zeichnet mehrere Befehle (in der angegebenen Reihenfolge) auf Transparenz und ersetzt damit das Rechteck x,y,w,h ---
+    void renderClipped(StrokeLog log, int[] indices, int n, TiledRaster target, int x, int y, int w, int h);
+
+    // --- Spielt die Befehle [from, to) ab ---
+    default void replay(StrokeLog log, int from, int to, TiledRaster target) {
+        for (int i = from; i < to; i++) replay(log, i, target);
+    }
+
+    // --- Neue Instanz nach Namen ("software" oder "java2d") ---
+    static StrokeRasterizer create(String name) {
+        switch (name) {
+            case "software": return new SoftwareRasterizer();
+            case "java2d": return new Java2dRasterBridge();
+            default: throw new IllegalArgumentException("Unbekannter Rasterisierer: " + name + " (software oder java2d)");
+        }
+    }
+
+    // --- Instanz gemäß -Dpaint.rasterizer (fehlt oder "fx": Java2D, da ohne FX-Thread nutzbar) ---
+    static StrokeRasterizer fromProperty() {
+        return "software".equals(System.getProperty("paint.rasterizer")) ? new SoftwareRasterizer() : new Java2dRasterBridge();
+    }
+}
@@ -0,0 +1,190 @@
+package com.todolist;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+// --- Verlaufseintrag: komprimierte Vorher-/Nachher-Kopien der Kacheln, die eine Operation verändert hat ---
+// Zusätzlich werden die zugehörigen Befehle des StrokeLog beim Rückgängigmachen entfernt und beim Wiederholen angehängt.
+public final class TileDelta implements UndoHistory.Entry {
+
+    private static final int TILE_BYTES = TiledRaster.TILE_PIXELS * 4;
+    private static final Deflater DEFLATER = new Deflater(Deflater.BEST_SPEED);
+    private static final Inflater INFLATER = new Inflater();
+    private static final byte[] CHUNK = new byte[64 * 1024];
+    private static final int MAX_RAW_COPIES = 64;  // Ab so vielen Kacheln wird der Vorher-Zustand sofort komprimiert
+
+    private final TiledRaster raster;
+    private final int[] tileIndices;        // Kachelindex ty * tilesX + tx
+    private final byte[][] before, after;   // Komprimierte Kacheln (null = nur Hintergrund)
+    private final int backgroundBefore, backgroundAfter;
+    private final StrokeLog log;
+    private final int logFrom, logTo;       // Befehlsbereich dieser Operation im Protokoll
+    private StrokeLog removedCommands;      // Beim Rückgängigmachen entfernte Befehle (für Wiederholen)
+    private final long byteSize;
+
+    private TileDelta(TiledRaster raster, int[] tileIndices, byte[][] before, byte[][] after, int backgroundBefore, int backgroundAfter, StrokeLog log, int logFrom, int logTo) {
+        this.raster = raster; this.tileIndices = tileIndices; this.before = before; this.after = after;
+        this.backgroundBefore = backgroundBefore; this.backgroundAfter = backgroundAfter;
+        this.log = log; this.logFrom = logFrom; this.logTo = logTo;
+        long bytes = 64 + tileIndices.length * 40L;
+        for (int i = 0; i < tileIndices.length; i++) bytes += length(before[i]) + length(after[i]);
+        if (log != null) bytes += log.byteSize(logFrom, logTo);
+        this.byteSize = bytes;
+    }
+
+    public int getTileCount() { return tileIndices.length; }
+    @Override public long byteSize() { return byteSize; }
+
+    @Override
+    public void undo() {
+        if (log != null) { removedCommands = log.copyRange(logFrom, Math.min(logTo, log.size())); log.truncate(logFrom); }
+        raster.setBackground(backgroundBefore);
+        apply(before);
+    }
+
+    @Override
+    public void redo() {
+        if (log != null && removedCommands != null) { log.append(removedCommands, 0, removedCommands.size()); removedCommands = null; }
+        raster.setBackground(backgroundAfter);
+        apply(after);
+    }
+
+    private void apply(byte[][] states) {
+        int tilesX = raster.getTilesX();
+        byte[] raw = new byte[TILE_BYTES];
+        for (int i = 0; i < tileIndices.length; i++) {
+            int tx = tileIndices[i] % tilesX, ty = tileIndices[i] / tilesX;
+            raster.restoreTile(tx, ty, states[i] == null ? null : ByteBuffer.wrap(inflate(states[i], raw)));
+        }
+    }
+
+    // --- Beginnt die Aufzeichnung: sichert die Kacheln im Rechteck vor der Operation ---
+    // log/logFrom: Protokoll und erster Befehl der Operation (log darf null sein).
+    public static Recorder record(TiledRaster raster, double x, double y, double w, double h, StrokeLog log, int logFrom) {
+        return new Recorder(raster, new double[][] { { x, y, w, h } }, log, logFrom);
+    }
+    // --- Wie oben für mehrere Rechtecke {x, y, w, h}; jede Kachel wird nur einmal gesichert ---
+    public static Recorder record(TiledRaster raster, double[][] rects, StrokeLog log, int logFrom) {
+        return new Recorder(raster, rects, log, logFrom);
+    }
+
+    // --- Eintrag für eine Operation, deren Vorher- und Nachher-Zustand als eigene Raster vorliegen (z.B. Filter) ---
+    // Liest nur before (Snapshot von target) und after; darf daher im Hintergrund laufen, während target unverändert bleibt.
+    // Erfasst werden die in after angelegten Kacheln, passend zu FilterPipeline.applyTo().
+    public static TileDelta between(TiledRaster target, TiledRaster before, TiledRaster after) {
+        int tilesX = after.getTilesX(), count = 0;
+        int[] indices = new int[tilesX * after.getTilesY()];
+        for (int i = 0; i < indices.length; i++) if (after.isAllocated(i % tilesX, i / tilesX)) indices[count++] = i;
+        indices = Arrays.copyOf(indices, count);
+        byte[][] b = new byte[count][], a = new byte[count][];
+        byte[] raw = new byte[TILE_BYTES];
+        for (int k = 0; k < count; k++) {
+            int tx = indices[k] % tilesX, ty = indices[k] / tilesX;
+            ByteBuffer old = before.tileBytes(tx, ty);
+            if (old != null) { old.get(raw); b[k] = deflate(raw); }
+            after.tileBytes(tx, ty).get(raw); a[k] = deflate(raw);
+        }
+        return new TileDelta(target, indices, b, a, before.getBackground(), after.getBackground(), null, 0, 0);
+    }
+
+    // --- Hält den Vorher-Zustand bis zum Abschluss der Operation ---
+    public static final class Recorder {
+        private final TiledRaster raster;
+        private final StrokeLog log;
+        private final int logFrom, backgroundBefore;
+        private final List<int[]> tiles = new ArrayList<>();        // {index, version}
+        private final List<byte[]> copies = new ArrayList<>();      // Vorher-Kopien (roh oder komprimiert)
+        private final boolean compressed;                            // true: copies sind bereits komprimiert
+
+        private Recorder(TiledRaster raster, double[][] rects, StrokeLog log, int logFrom) {
+            this.raster = raster; this.log = log; this.logFrom = logFrom;
+            this.backgroundBefore = raster.getBackground();
+            int tilesX = raster.getTilesX();
+            boolean[] seen = rects.length > 1 ? new boolean[tilesX * raster.getTilesY()] : null;
+            List<Integer> indices = new ArrayList<>();
+            for (double[] r : rects) {
+                int x0 = (int) Math.floor(r[0]), y0 = (int) Math.floor(r[1]);
+                raster.forEachTileIn(x0, y0, (int) Math.ceil(r[0] + r[2]) - x0, (int) Math.ceil(r[1] + r[3]) - y0, (tx, ty) -> {
+                    int i = ty * tilesX + tx;
+                    if (seen != null) { if (seen[i]) return; seen[i] = true; }
+                    indices.add(i);
+                });
+            }
+            // Große Bereiche (z.B. Leeren) gleich komprimieren, damit der Heap nicht mit Rohkopien volläuft
+            compressed = indices.size() > MAX_RAW_COPIES;
+            byte[] raw = compressed ? new byte[TILE_BYTES] : null;
+            for (int i : indices) {
+                int tx = i % tilesX, ty = i / tilesX;
+                tiles.add(new int[] { i, raster.version(tx, ty) });
+                ByteBuffer b = raster.tileBytes(tx, ty);
+                byte[] copy = null;
+                if (b != null) {
+                    if (compressed) { b.get(raw); copy = deflate(raw); }
+                    else { copy = new byte[TILE_BYTES]; b.get(copy); }
+                }
+                copies.add(copy);
+            }
+        }
+
+        // --- Schließt die Aufzeichnung ab; nur tatsächlich veränderte Kacheln werden komprimiert gespeichert ---
+        public TileDelta finish() {
+            int tilesX = raster.getTilesX();
+            List<Integer> changed = new ArrayList<>();
+            for (int i = 0; i < tiles.size(); i++) {
+                int idx = tiles.get(i)[0];
+                if (raster.version(idx % tilesX, idx / tilesX) != tiles.get(i)[1]) changed.add(i);
+            }
+            int[] indices = new int[changed.size()];
+            byte[][] before = new byte[changed.size()][], after = new byte[changed.size()][];
+            byte[] raw = new byte[TILE_BYTES];
+            for (int k = 0; k < indices.length; k++) {
+                int i = changed.get(k), idx = tiles.get(i)[0];
+                indices[k] = idx;
+                before[k] = copies.get(i) == null || compressed ? copies.get(i) : deflate(copies.get(i));
+                ByteBuffer now = raster.tileBytes(idx % tilesX, idx / tilesX);
+                if (now != null) { now.get(raw); after[k] = deflate(raw); }
+            }
+            copies.clear();
+            return new TileDelta(raster, indices, before, after, backgroundBefore, raster.getBackground(), log, logFrom, log == null ? 0 : log.size());
+        }
+    }
+
+    // --- Kompression ---
+    private static synchronized byte[] deflate(byte[] data) {
+        DEFLATER.reset();
+        DEFLATER.setInput(data);
+        DEFLATER.finish();
+        byte[] out = new byte[4096];
+        int n = 0;
+        while (!DEFLATER.finished()) {
+            int c = DEFLATER.deflate(CHUNK);
+            if (n + c > out.length) out = Arrays.copyOf(out, Math.max(out.length * 2, n + c));
+            System.arraycopy(CHUNK, 0, out, n, c);
+            n += c;
+        }
+        return Arrays.copyOf(out, n);
+    }
+
+    private static synchronized byte[] inflate(byte[] data, byte[] raw) {
+        INFLATER.reset();
+        INFLATER.setInput(data);
+        try {
+            int n = 0;
+            while (n < raw.length && !INFLATER.finished()) {
+                int c = INFLATER.inflate(raw, n, raw.length - n);
+                if (c == 0 && INFLATER.needsInput()) throw new DataFormatException("Unerwartetes Ende der Daten");
+                n += c;
+            }
+            return raw;
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("Beschädigter Verlaufseintrag", e);
+        }
+    }
+
+    private static int length(byte[] b) { return b == null ? 0 : b.length; }
+}
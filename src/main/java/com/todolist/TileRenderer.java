@@ -0,0 +1,151 @@
+package com.todolist;
+
+import javafx.scene.canvas.Canvas;
+import javafx.scene.canvas.GraphicsContext;
+import javafx.scene.image.Image;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.Color;
+import java.nio.IntBuffer;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// --- Zeichnet nur die im Sichtbereich liegenden Kacheln eines TiledRaster auf ein Canvas in Viewport-Größe ---
+// Jede hochgeladene Kachel wird als WritableImage zwischengespeichert und nur neu hochgeladen,
+// wenn sich ihr Änderungszähler geändert hat. Beim Verkleinern wird die passende Stufe einer
+// MipPyramid gezeichnet, damit nie mehr Kacheln als für den Viewport nötig bearbeitet werden.
+public class TileRenderer {
+
+    private static final int MAX_CACHED_TILES = 512;   // Obergrenze für hochgeladene Kacheln (LRU)
+
+    private final Canvas view;
+    private final GraphicsContext g;
+    private TiledRaster raster;
+    private MipPyramid pyramid;             // Verkleinerte Stufen von raster
+    private int levelLastFrame;             // Zuletzt gezeichnete Mip-Stufe
+    private double scale = 1.0;             // Zoomfaktor
+    private double offsetX, offsetY;        // Scroll-Position des Viewports in Bildschirmpixeln
+    private int uploadsLastFrame;           // Anzahl hochgeladener Kacheln im letzten Durchlauf
+    private long nanosLastFrame;            // Dauer des letzten Durchlaufs
+    private Runnable onFrame;               // Wird nach jedem Durchlauf aufgerufen (Messwerte)
+    private Image placeholder;              // Grobe Vorschau des ganzen Dokuments für noch nicht geladene Kacheln
+
+    // Zwischenspeicher: (Stufe, Kachelindex) -> hochgeladenes Bild (zugriffsgeordnet für LRU)
+    private final Map<Long, CachedTile> cache = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Long, CachedTile> eldest) { return size() > MAX_CACHED_TILES; }
+    };
+
+    private static final class CachedTile {
+        final WritableImage image; int version;
+        CachedTile(WritableImage image, int version) { this.image = image; this.version = version; }
+    }
+
+    public TileRenderer(Canvas view) {
+        this.view = view;
+        this.g = view.getGraphicsContext2D();
+    }
+
+    // --- Setzt das darzustellende Raster (verwirft den Zwischenspeicher) ---
+    public void setRaster(TiledRaster raster) { this.raster = raster; this.pyramid = raster == null ? null : new MipPyramid(raster); cache.clear(); }
+    public TiledRaster getRaster() { return raster; }
+    public void setScale(double scale) { this.scale = scale; }
+    public double getScale() { return scale; }
+    public void setOffset(double offsetX, double offsetY) { this.offsetX = offsetX; this.offsetY = offsetY; }
+    public double getOffsetX() { return offsetX; }
+    public double getOffsetY() { return offsetY; }
+    public int getUploadsLastFrame() { return uploadsLastFrame; }
+    public long getNanosLastFrame() { return nanosLastFrame; }
+    public void setOnFrame(Runnable onFrame) { this.onFrame = onFrame; }
+    public int getLevelLastFrame() { return levelLastFrame; }
+    public MipPyramid getPyramid() { return pyramid; }
+    // --- Vorschaubild, das statt der Hintergrundfarbe in nicht angelegten Kacheln gezeigt wird (null = aus) ---
+    public void setPlaceholder(Image placeholder) { this.placeholder = placeholder; }
+
+    // --- Umrechnung Viewport-Koordinaten -> Dokumentkoordinaten ---
+    public double toDocX(double viewX) { return (offsetX + viewX) / scale; }
+    public double toDocY(double viewY) { return (offsetY + viewY) / scale; }
+
+    // --- Setzt eine Transformation, mit der in Dokumentkoordinaten auf gc gezeichnet werden kann ---
+    public void applyDocTransform(GraphicsContext target) {
+        target.setTransform(scale, 0, 0, scale, -offsetX, -offsetY);
+    }
+
+    // --- Zeichnet den gesamten Viewport neu ---
+    public void render() {
+        render(0, 0, raster == null ? 0 : raster.getWidth(), raster == null ? 0 : raster.getHeight());
+    }
+
+    // --- Zeichnet nur die Kacheln neu, die das Dokument-Rechteck schneiden ---
+    public void render(double docX, double docY, double docW, double docH) {
+        uploadsLastFrame = 0;
+        if (raster == null || view.getWidth() <= 0 || view.getHeight() <= 0) return;
+        long t0 = System.nanoTime();
+        // Mip-Stufe wählen und nur bis zu dieser Stufe aktualisieren (nur geänderte Kacheln)
+        int level = pyramid.levelFor(scale);
+        if (level > 0) pyramid.update(level);
+        levelLastFrame = level;
+        TiledRaster src = pyramid.level(level);
+        double f = 1.0 / (1 << level), ls = scale / f; // Dokument -> Stufe, Stufe -> Bildschirm
+        g.save();
+        g.setTransform(1, 0, 0, 1, 0, 0);
+        g.setImageSmoothing(ls < 1.0); // Beim Vergrößern Pixel scharf darstellen
+        // Sichtbaren Bereich (in Stufenkoordinaten) bestimmen und mit dem angefragten Bereich schneiden
+        double vx0 = Math.max(docX * f, offsetX / ls), vy0 = Math.max(docY * f, offsetY / ls);
+        double vx1 = Math.min((docX + docW) * f, (offsetX + view.getWidth()) / ls);
+        double vy1 = Math.min((docY + docH) * f, (offsetY + view.getHeight()) / ls);
+        int ix0 = (int) Math.floor(vx0), iy0 = (int) Math.floor(vy0);
+        int ix1 = (int) Math.ceil(vx1), iy1 = (int) Math.ceil(vy1);
+        src.forEachTileIn(ix0, iy0, ix1 - ix0, iy1 - iy0, (tx, ty) -> drawTile(src, level, ls, tx, ty));
+        g.restore();
+        nanosLastFrame = System.nanoTime() - t0;
+        if (onFrame != null) onFrame.run();
+    }
+
+    // --- Zeichnet eine einzelne Kachel einer Stufe (lädt sie bei Bedarf hoch) ---
+    private void drawTile(TiledRaster src, int level, double ls, int tx, int ty) {
+        int tw = src.tileWidth(tx), th = src.tileHeight(ty);
+        int px = tx << TiledRaster.TILE_SHIFT, py = ty << TiledRaster.TILE_SHIFT;
+        // Auf ganze Bildschirmpixel runden, damit zwischen Kacheln keine Fugen entstehen
+        double sx0 = Math.floor(px * ls - offsetX), sy0 = Math.floor(py * ls - offsetY);
+        double sx1 = Math.floor((px + tw) * ls - offsetX), sy1 = Math.floor((py + th) * ls - offsetY);
+        if (sx1 <= sx0 || sy1 <= sy0) return;
+        if (!src.isAllocated(tx, ty)) { // Nur Hintergrund: kein Hochladen nötig
+            g.setFill(toColor(src.getBackground()));
+            g.fillRect(sx0, sy0, sx1 - sx0, sy1 - sy0);
+            if (placeholder != null) { // Während des Ladens: passenden Ausschnitt der Vorschau hochskalieren
+                double fx = placeholder.getWidth() / src.getWidth(), fy = placeholder.getHeight() / src.getHeight();
+                g.setImageSmoothing(true);
+                g.drawImage(placeholder, px * fx, py * fy, tw * fx, th * fy, sx0, sy0, sx1 - sx0, sy1 - sy0);
+                g.setImageSmoothing(ls < 1.0);
+            }
+            return;
+        }
+        g.clearRect(sx0, sy0, sx1 - sx0, sy1 - sy0);
+        g.drawImage(upload(src, level, tx, ty, tw, th), 0, 0, tw, th, sx0, sy0, sx1 - sx0, sy1 - sy0);
+    }
+
+    private WritableImage upload(TiledRaster src, int level, int tx, int ty, int tw, int th) {
+        long key = ((long) level << 32) | (ty * src.getTilesX() + tx);
+        int version = src.version(tx, ty);
+        CachedTile ct = cache.get(key);
+        if (ct != null && ct.version == version) return ct.image;
+        if (ct == null) { ct = new CachedTile(new WritableImage(TiledRaster.TILE_SIZE, TiledRaster.TILE_SIZE), version); cache.put(key, ct); }
+        IntBuffer pixels = src.tile(tx, ty);
+        ct.image.getPixelWriter().setPixels(0, 0, tw, th, PixelFormat.getIntArgbPreInstance(), pixels, TiledRaster.TILE_SIZE);
+        ct.version = version;
+        uploadsLastFrame++;
+        return ct.image;
+    }
+
+    // --- Vormultipliziertes ARGB -> JavaFX-Farbe ---
+    static Color toColor(int argbPre) {
+        int a = argbPre >>> 24;
+        if (a == 0) return Color.TRANSPARENT;
+        return Color.rgb(Math.min(255, ((argbPre >> 16) & 0xFF) * 255 / a), Math.min(255, ((argbPre >> 8) & 0xFF) * 255 / a), Math.min(255, (argbPre & 0xFF) * 255 / a), a / 255.0);
+    }
+    // --- JavaFX-Farbe -> vormultipliziertes ARGB ---
+    static int toArgbPre(Color c) {
+        int a = (int) Math.round(c.getOpacity() * 255);
+        return (a << 24) | ((int) Math.round(c.getRed() * a) << 16) | ((int) Math.round(c.getGreen() * a) << 8) | (int) Math.round(c.getBlue() * a);
+    }
+}
@@ -0,0 +1,268 @@
+package com.todolist;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+// --- Gekachelte Rasterfläche: Pixel liegen off-heap in Kacheln fester Größe ---
+// Pixelformat: vormultipliziertes ARGB (ein int pro Pixel), passend zu PixelFormat.getIntArgbPreInstance().
+// Kacheln werden erst beim ersten Schreibzugriff angelegt; nicht angelegte Kacheln haben die Hintergrundfarbe.
+// snapshot() teilt die Kacheln mit einer Kopie; geteilte Kacheln werden erst beim nächsten Schreiben kopiert.
+public class TiledRaster {
+
+    public static final int TILE_SHIFT = 8;                 // 2^8 = 256
+    public static final int TILE_SIZE = 1 << TILE_SHIFT;    // Kantenlänge einer Kachel in Pixeln
+    private static final int TILE_MASK = TILE_SIZE - 1;
+    public static final int TILE_PIXELS = TILE_SIZE * TILE_SIZE;
+
+    private final int width, height;        // Größe in Pixeln
+    private final int tilesX, tilesY;       // Anzahl Kacheln pro Achse
+    private final IntBuffer[] tiles;        // null = Kachel noch nicht angelegt
+    private final ByteBuffer[] tileBytes;   // Dieselben Kacheln als Bytesicht (für Kopien/Kompression)
+    private final int[] versions;           // Änderungszähler pro Kachel (für Caches)
+    private final boolean[] shared;         // true = Kachel wird mit einem Snapshot geteilt (Copy-on-Write)
+    private int background;                 // Hintergrundfarbe (ARGB, vormultipliziert)
+    private long allocatedBytes;            // Belegter Off-Heap-Speicher
+
+    public TiledRaster(int width, int height, int background) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("Ungültige Rastergröße: " + width + "x" + height);
+        this.width = width; this.height = height;
+        this.tilesX = (width + TILE_MASK) >> TILE_SHIFT;
+        this.tilesY = (height + TILE_MASK) >> TILE_SHIFT;
+        this.tiles = new IntBuffer[tilesX * tilesY];
+        this.tileBytes = new ByteBuffer[tilesX * tilesY];
+        this.versions = new int[tilesX * tilesY];
+        this.shared = new boolean[tilesX * tilesY];
+        this.background = background;
+    }
+
+    // --- Unveränderliche Momentaufnahme ohne Pixelkopie (Copy-on-Write) ---
+    // Der Snapshot darf anschließend in einem anderen Thread gelesen werden.
+    public TiledRaster snapshot() {
+        TiledRaster copy = new TiledRaster(width, height, background);
+        for (int i = 0; i < tiles.length; i++) {
+            if (tiles[i] == null) continue;
+            copy.tiles[i] = tiles[i]; copy.tileBytes[i] = tileBytes[i];
+            shared[i] = copy.shared[i] = true;
+        }
+        System.arraycopy(versions, 0, copy.versions, 0, versions.length);
+        copy.allocatedBytes = allocatedBytes;
+        return copy;
+    }
+
+    // --- Größe und Kachelraster ---
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public int getTilesX() { return tilesX; }
+    public int getTilesY() { return tilesY; }
+    public int getBackground() { return background; }
+    public long getAllocatedBytes() { return allocatedBytes; }
+    // Breite/Höhe der Kachel am Rand (kann kleiner als TILE_SIZE sein)
+    public int tileWidth(int tx) { return Math.min(TILE_SIZE, width - (tx << TILE_SHIFT)); }
+    public int tileHeight(int ty) { return Math.min(TILE_SIZE, height - (ty << TILE_SHIFT)); }
+
+    public boolean isAllocated(int tx, int ty) { return tiles[ty * tilesX + tx] != null; }
+    public int version(int tx, int ty) { return versions[ty * tilesX + tx]; }
+
+    // --- Lesezugriff auf eine Kachel (null, falls nur Hintergrund) ---
+    // Zeilenabstand ist immer TILE_SIZE, auch bei Randkacheln.
+    public IntBuffer tile(int tx, int ty) {
+        IntBuffer t = tiles[ty * tilesX + tx];
+        return t == null ? null : t.duplicate().clear();
+    }
+
+    // --- Bytesicht einer Kachel (null, falls nur Hintergrund); Byte-Reihenfolge ist nativ ---
+    public ByteBuffer tileBytes(int tx, int ty) {
+        ByteBuffer b = tileBytes[ty * tilesX + tx];
+        return b == null ? null : b.duplicate().clear();
+    }
+
+    // --- Schreibzugriff: legt die Kachel bei Bedarf an und markiert sie als geändert ---
+    public IntBuffer writableTile(int tx, int ty) {
+        int i = ty * tilesX + tx;
+        IntBuffer t = tiles[i];
+        if (t == null) {
+            t = allocate(i);
+            if (background != 0) { for (int p = 0; p < TILE_PIXELS; p++) t.put(p, background); }
+        } else if (shared[i]) { // Geteilte Kachel vor dem Schreiben kopieren
+            ByteBuffer old = tileBytes[i];
+            allocatedBytes -= TILE_PIXELS * 4L;
+            t = allocate(i);
+            tileBytes[i].put(old.duplicate().clear()).clear();
+        }
+        versions[i]++;
+        return t;
+    }
+
+    // --- Ersetzt den Inhalt einer Kachel (data == null: Kachel freigeben, also Hintergrund) ---
+    public void restoreTile(int tx, int ty, ByteBuffer data) {
+        int i = ty * tilesX + tx;
+        if (data == null) {
+            if (tiles[i] != null) { tiles[i] = null; tileBytes[i] = null; shared[i] = false; allocatedBytes -= TILE_PIXELS * 4L; }
+        } else {
+            if (tiles[i] == null) allocate(i);
+            else if (shared[i]) { allocatedBytes -= TILE_PIXELS * 4L; allocate(i); }
+            tileBytes[i].clear().put(data.duplicate().clear()).clear();
+        }
+        versions[i]++;
+    }
+
+    // --- Übernimmt einen fremden Puffer (z.B. schreibgeschützt aus einer gemappten Datei) als Kachel ---
+    // Die Kachel gilt als geteilt und wird erst beim ersten Schreiben in eigenen Speicher kopiert.
+    // data muss TILE_PIXELS * 4 Bytes in nativer Byte-Reihenfolge enthalten.
+    public void adoptTile(int tx, int ty, ByteBuffer data) {
+        int i = ty * tilesX + tx;
+        if (tiles[i] == null) allocatedBytes += TILE_PIXELS * 4L;
+        tileBytes[i] = data.duplicate().clear().order(ByteOrder.nativeOrder());
+        tiles[i] = tileBytes[i].asIntBuffer();
+        shared[i] = true;
+        versions[i]++;
+    }
+
+    // --- Setzt nur die Hintergrundfarbe (betrifft alle nicht angelegten Kacheln) ---
+    public void setBackground(int argb) {
+        if (argb == background) return;
+        background = argb;
+        for (int i = 0; i < tiles.length; i++) if (tiles[i] == null) versions[i]++;
+    }
+
+    private IntBuffer allocate(int i) {
+        ByteBuffer b = ByteBuffer.allocateDirect(TILE_PIXELS * 4).order(ByteOrder.nativeOrder());
+        tileBytes[i] = b;
+        tiles[i] = b.asIntBuffer();
+        shared[i] = false;
+        allocatedBytes += TILE_PIXELS * 4L;
+        return tiles[i];
+    }
+
+    // --- Einzelpixel ---
+    public int getPixel(int x, int y) {
+        IntBuffer t = tiles[(y >> TILE_SHIFT) * tilesX + (x >> TILE_SHIFT)];
+        return t == null ? background : t.get(((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK));
+    }
+    public void setPixel(int x, int y, int argb) {
+        writableTile(x >> TILE_SHIFT, y >> TILE_SHIFT).put(((y & TILE_MASK) << TILE_SHIFT) | (x & TILE_MASK), argb);
+    }
+
+    // --- Liest ein Rechteck in ein int-Array (Zeilenabstand stride) ---
+    public void readRect(int x, int y, int w, int h, int[] dst, int off, int stride) {
+        for (int row = 0; row < h; row++) {
+            int py = y + row, di = off + row * stride;
+            int px = x, remaining = w;
+            while (remaining > 0) {
+                int tx = px >> TILE_SHIFT, lx = px & TILE_MASK;
+                int n = Math.min(remaining, TILE_SIZE - lx);
+                IntBuffer t = tiles[(py >> TILE_SHIFT) * tilesX + tx];
+                if (t == null) java.util.Arrays.fill(dst, di, di + n, background);
+                else t.get(((py & TILE_MASK) << TILE_SHIFT) | lx, dst, di, n);
+                di += n; px += n; remaining -= n;
+            }
+        }
+    }
+
+    // --- Schreibt ein Rechteck aus einem int-Array in die Kacheln ---
+    public void writeRect(int x, int y, int w, int h, int[] src, int off, int stride) {
+        forEachTileIn(x, y, w, h, (tx, ty) -> {
+            IntBuffer t = writableTile(tx, ty);
+            int x0 = Math.max(x, tx << TILE_SHIFT), x1 = Math.min(x + w, (tx + 1) << TILE_SHIFT);
+            int y0 = Math.max(y, ty << TILE_SHIFT), y1 = Math.min(y + h, (ty + 1) << TILE_SHIFT);
+            for (int py = y0; py < y1; py++) {
+                t.put(((py & TILE_MASK) << TILE_SHIFT) | (x0 & TILE_MASK), src, off + (py - y) * stride + (x0 - x), x1 - x0);
+            }
+        });
+    }
+
+    // --- Legt ein vormultipliziertes ARGB-Rechteck per Source-Over über den Inhalt ---
+    // Vollständig transparente Quellpixel werden übersprungen; Kacheln, die danach nur Hintergrund enthielten,
+    // werden gar nicht erst angelegt (z.B. weiße Flächen eingescannter Dokumente).
+    public void compositeRect(int x, int y, int w, int h, int[] src, int off, int stride) {
+        forEachTileIn(x, y, w, h, (tx, ty) -> {
+            int x0 = Math.max(x, tx << TILE_SHIFT), x1 = Math.min(x + w, (tx + 1) << TILE_SHIFT);
+            int y0 = Math.max(y, ty << TILE_SHIFT), y1 = Math.min(y + h, (ty + 1) << TILE_SHIFT);
+            if (isNoop(src, off, stride, x0 - x, y0 - y, x1 - x0, y1 - y0, isAllocated(tx, ty) ? 0 : background)) return;
+            IntBuffer t = writableTile(tx, ty);
+            for (int py = y0; py < y1; py++) {
+                int si = off + (py - y) * stride + (x0 - x);
+                int ti = ((py & TILE_MASK) << TILE_SHIFT) | (x0 & TILE_MASK);
+                for (int px = x0; px < x1; px++, si++, ti++) {
+                    int s = src[si], sa = s >>> 24;
+                    if (sa == 0) continue;
+                    t.put(ti, sa == 255 ? s : srcOver(s, t.get(ti)));
+                }
+            }
+        });
+    }
+
+    // --- Stanzt die Deckkraft eines Masken-Rechtecks aus dem Inhalt aus (Destination-Out: d = d * (1 - Maskenalpha)) ---
+    // Radierer auf transparenten Ebenen; nicht angelegte Kacheln mit transparentem Hintergrund bleiben unberührt.
+    public void eraseRect(int x, int y, int w, int h, int[] mask, int off, int stride) {
+        forEachTileIn(x, y, w, h, (tx, ty) -> {
+            if (!isAllocated(tx, ty) && background == 0) return;
+            int x0 = Math.max(x, tx << TILE_SHIFT), x1 = Math.min(x + w, (tx + 1) << TILE_SHIFT);
+            int y0 = Math.max(y, ty << TILE_SHIFT), y1 = Math.min(y + h, (ty + 1) << TILE_SHIFT);
+            if (isNoop(mask, off, stride, x0 - x, y0 - y, x1 - x0, y1 - y0, 0)) return;
+            IntBuffer t = writableTile(tx, ty);
+            for (int py = y0; py < y1; py++) {
+                int si = off + (py - y) * stride + (x0 - x);
+                int ti = ((py & TILE_MASK) << TILE_SHIFT) | (x0 & TILE_MASK);
+                for (int px = x0; px < x1; px++, si++, ti++) {
+                    int inv = 255 - (mask[si] >>> 24);
+                    if (inv == 255) continue;
+                    int d = t.get(ti);
+                    t.put(ti, inv == 0 ? 0 : (div255((d >>> 24) * inv) << 24) | (div255(((d >> 16) & 0xFF) * inv) << 16)
+                            | (div255(((d >> 8) & 0xFF) * inv) << 8) | div255((d & 0xFF) * inv));
+                }
+            }
+        });
+    }
+
+    // --- Setzt das gesamte Raster auf eine Farbe zurück und gibt alle Kacheln frei ---
+    public void clear(int argb) {
+        background = argb;
+        for (int i = 0; i < tiles.length; i++) { tiles[i] = null; tileBytes[i] = null; shared[i] = false; versions[i]++; }
+        allocatedBytes = 0;
+    }
+
+    // --- Ruft action für jede Kachel auf, die das Rechteck schneidet (auf das Raster begrenzt) ---
+    public void forEachTileIn(int x, int y, int w, int h, TileAction action) {
+        int x0 = Math.max(0, x), y0 = Math.max(0, y);
+        int x1 = Math.min(width, x + w), y1 = Math.min(height, y + h);
+        if (x1 <= x0 || y1 <= y0) return;
+        for (int ty = y0 >> TILE_SHIFT; ty <= (y1 - 1) >> TILE_SHIFT; ty++)
+            for (int tx = x0 >> TILE_SHIFT; tx <= (x1 - 1) >> TILE_SHIFT; tx++)
+                action.apply(tx, ty);
+    }
+
+    @FunctionalInterface
+    public interface TileAction { void apply(int tx, int ty); }
+
+    // --- Hilfsmethoden für vormultipliziertes ARGB ---
+    static int srcOver(int s, int d) {
+        int inv = 255 - (s >>> 24);
+        int a = (s >>> 24) + div255((d >>> 24) * inv);
+        int r = ((s >> 16) & 0xFF) + div255(((d >> 16) & 0xFF) * inv);
+        int g = ((s >> 8) & 0xFF) + div255(((d >> 8) & 0xFF) * inv);
+        int b = (s & 0xFF) + div255((d & 0xFF) * inv);
+        return (a << 24) | (r << 16) | (g << 8) | b;
+    }
+    static int div255(int v) { return (v + 128 + ((v + 128) >> 8)) >> 8; } // Exakt gerundetes v/255
+    static int premultiply(int argb) { // Nicht vormultipliziertes -> vormultipliziertes ARGB
+        int a = argb >>> 24;
+        if (a == 255) return argb;
+        if (a == 0) return 0;
+        return (a << 24) | (div255(((argb >> 16) & 0xFF) * a) << 16) | (div255(((argb >> 8) & 0xFF) * a) << 8) | div255((argb & 0xFF) * a);
+    }
+
+    // true, wenn alle Quellpixel transparent sind oder (bei nicht angelegter Kachel) deckend der Hintergrundfarbe entsprechen
+    private static boolean isNoop(int[] src, int off, int stride, int x, int y, int w, int h, int background) {
+        boolean opaqueBackground = (background >>> 24) == 255;
+        for (int row = 0; row < h; row++) {
+            int i = off + (y + row) * stride + x;
+            for (int end = i + w; i < end; i++) {
+                int p = src[i];
+                if (p != 0 && !(opaqueBackground && p == background)) return false;
+            }
+        }
+        return true;
+    }
+}
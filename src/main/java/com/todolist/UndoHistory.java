@@ -0,0 +1,89 @@
+package com.todolist;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+
+// --- Rückgängig/Wiederholen-Verlauf mit Speicherobergrenze ---
+// Jeder Eintrag kennt seine Größe in Bytes; überschreitet der Verlauf das Budget,
+// werden die ältesten Einträge verworfen (zuerst Rückgängig-, dann Wiederholen-Schritte).
+public class UndoHistory {
+
+    // --- Ein rückgängig machbarer Schritt ---
+    public interface Entry {
+        void undo();
+        void redo();
+        long byteSize();    // Belegter Speicher dieses Eintrags
+    }
+
+    private final Deque<Entry> undoStack = new ArrayDeque<>();   // Neuester Eintrag vorne
+    private final Deque<Entry> redoStack = new ArrayDeque<>();
+    private long budgetBytes;
+    private long usedBytes;
+    private long evictedEntries;            // Wegen Budget verworfene Einträge (Statistik)
+
+    public UndoHistory(long budgetBytes) { this.budgetBytes = budgetBytes; }
+
+    // --- Neuen Schritt aufnehmen (verwirft alle Wiederholen-Schritte) ---
+    public void push(Entry entry) {
+        if (entry == null) return;
+        for (Entry e : redoStack) usedBytes -= e.byteSize();
+        redoStack.clear();
+        undoStack.push(entry);
+        usedBytes += entry.byteSize();
+        evict();
+    }
+
+    // --- Fasst zwei Schritte zu einem zusammen (null wird übergangen; rückgängig in umgekehrter Reihenfolge) ---
+    public static Entry group(Entry first, Entry second) {
+        if (first == null) return second;
+        if (second == null) return first;
+        return new Entry() {
+            @Override public void undo() { second.undo(); first.undo(); }
+            @Override public void redo() { first.redo(); second.redo(); }
+            @Override public long byteSize() { return first.byteSize() + second.byteSize(); }
+        };
+    }
+
+    public boolean canUndo() { return !undoStack.isEmpty(); }
+    public boolean canRedo() { return !redoStack.isEmpty(); }
+
+    public boolean undo() {
+        Entry e = undoStack.poll();
+        if (e == null) return false;
+        e.undo();
+        redoStack.push(e);
+        return true;
+    }
+
+    public boolean redo() {
+        Entry e = redoStack.poll();
+        if (e == null) return false;
+        e.redo();
+        undoStack.push(e);
+        return true;
+    }
+
+    // --- Verwirft den gesamten Verlauf (z.B. nach dem Laden eines Bildes) ---
+    public void clear() { undoStack.clear(); redoStack.clear(); usedBytes = 0; }
+
+    // --- Budget ändern (wirkt sofort) ---
+    public void setBudgetBytes(long budgetBytes) { this.budgetBytes = budgetBytes; evict(); }
+
+    // --- Metriken ---
+    public long getBudgetBytes() { return budgetBytes; }
+    public long getUsedBytes() { return usedBytes; }
+    public int getUndoCount() { return undoStack.size(); }
+    public int getRedoCount() { return redoStack.size(); }
+    public long getEvictedEntries() { return evictedEntries; }
+
+    // --- Kurzbeschreibung für die Statusanzeige ---
+    public String describe() {
+        return String.format("%d/%d Schritte, %.1f/%.0f MB", undoStack.size(), redoStack.size(), usedBytes / 1048576.0, budgetBytes / 1048576.0);
+    }
+
+    // --- Älteste Einträge entfernen, bis das Budget eingehalten wird ---
+    private void evict() {
+        while (usedBytes > budgetBytes && !undoStack.isEmpty()) { usedBytes -= undoStack.removeLast().byteSize(); evictedEntries++; }
+        while (usedBytes > budgetBytes && !redoStack.isEmpty()) { usedBytes -= redoStack.removeLast().byteSize(); evictedEntries++; }
+    }
+}
@@ -0,0 +1,315 @@
+package com.todolist;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+// --- Rechtecke und Ovale einer Ebene als nachträglich bearbeitbare Vektorobjekte ---
+// Die Formen liegen in einem eigenen StrokeLog (Index = Kennung = Stapelreihenfolge); gelöschte Formen werden nur
+// als tot markiert, damit Kennungen in Rückgängig-Schritten gültig bleiben. Ein gleichmäßiges Gitter (CELL Pixel je
+// Zelle) führt pro Zelle die aufsteigend sortierten Kennungen aller Formen, deren Begrenzungsrechteck die Zelle
+// schneidet. Die Trefferprüfung liest nur die Zellen unter dem Mauszeiger, der Aufwand hängt also von der Dichte
+// an dieser Stelle ab, nicht von der Gesamtzahl der Formen. Gezeichnet wird in ein eigenes transparentes Raster,
+// das der Compositor über das Ebenenraster legt; nach einer Änderung werden nur die Kacheln unter dem alten und
+// dem neuen Begrenzungsrechteck neu gezeichnet (jeweils alle Formen der Kachel, von unten nach oben).
+// Vor jedem Raster-Befehl der Ebene (Strich, Radierer, Füllen, Filter) übernimmt flattenInto() nur die Formen, die
+// der Befehl berühren kann (samt tiefer liegender Formen, die diese überlappen), in das Ebenenraster; so wirkt der
+// Befehl über bzw. auf ihnen wie in der Zeichenreihenfolge, und alle anderen Formen bleiben bearbeitbar.
+// Muss im FX Application Thread bzw. in dem Thread benutzt werden, dem die Ebene gehört.
+public class VectorShapes {
+
+    private static final int T = TiledRaster.TILE_SIZE;
+    private static final int CELL_SHIFT = 6;                // 64 Pixel je Gitterzelle (16 Zellen je Kachel)
+    private static final int CELL = 1 << CELL_SHIFT;
+
+    private final StrokeLog log;
+    private boolean[] alive = new boolean[64];
+    private int liveCount;
+    private final TiledRaster raster;       // Gezeichnete Formen (transparent außerhalb)
+    private final int cellsX, cellsY;
+    private final int[][] cells;            // Pro Zelle: [Anzahl, Kennungen aufsteigend ...], null = leer
+    private StrokeRasterizer bridge;        // Erst bei der ersten Form angelegt (Java2D soll beim Programmstart nicht laden)
+    private int[] gather = new int[64];     // Sammelpuffer für das Neuzeichnen einer Kachel
+    private int[] touched = new int[16];    // Sammelpuffer für flattenInto (betroffene Formen)
+    private int tilesLastChange;            // Neu gezeichnete Kacheln der letzten Änderung (Statistik)
+
+    public VectorShapes(int width, int height) { this(width, height, new StrokeLog(), null); }
+
+    private VectorShapes(int width, int height, StrokeLog log, TiledRaster raster) {
+        this.log = log;
+        this.raster = raster != null ? raster : new TiledRaster(width, height, 0);
+        cellsX = (width + CELL - 1) >> CELL_SHIFT; cellsY = (height + CELL - 1) >> CELL_SHIFT;
+        cells = new int[cellsX * cellsY][];
+    }
+
+    public TiledRaster getRaster() { return raster; }
+    public StrokeLog getLog() { return log; }
+    public int size() { return log.size(); }
+    public int getLiveCount() { return liveCount; }
+    public boolean isAlive(int id) { return id >= 0 && id < log.size() && alive[id]; }
+    public int getTilesLastChange() { return tilesLastChange; }
+
+    // --- Fügt eine Form (StrokeLog.RECTANGLE oder OVAL) oben hinzu; liefert ihre Kennung ---
+    // Die neue Form liegt über allen anderen und wird daher nur über die vorhandenen Kacheln gezeichnet.
+    public int add(int type, int argb, double width, double x1, double y1, double x2, double y2) {
+        int id = log.addShape(type, argb, width, x1, y1, x2, y2);
+        if (id >= alive.length) alive = Arrays.copyOf(alive, alive.length * 2);
+        alive[id] = true; liveCount++;
+        index(id, log.bounds(id), true);
+        bridge().replay(log, id, raster);
+        return id;
+    }
+
+    // --- Entfernt eine Form bzw. stellt sie wieder her ---
+    public void setAlive(int id, boolean live) {
+        if (alive[id] == live) return;
+        alive[id] = live; liveCount += live ? 1 : -1;
+        double[] b = log.bounds(id);
+        index(id, b, live);
+        redraw(b);
+    }
+
+    // --- Verschiebt eine Form; neu gezeichnet werden nur die Kacheln unter altem und neuem Rechteck ---
+    public void move(int id, double dx, double dy) {
+        if (dx == 0 && dy == 0) return;
+        double[] before = log.bounds(id);
+        if (alive[id]) index(id, before, false);
+        log.translate(id, dx, dy);
+        double[] after = log.bounds(id);
+        if (alive[id]) { index(id, after, true); redraw(before, after); }
+    }
+
+    // --- Oberste lebende Form, deren Umriss höchstens tolerance Pixel von (x, y) entfernt ist; -1 = keine ---
+    public int hitTest(double x, double y, double tolerance) {
+        int cx0 = cell(x - tolerance, cellsX), cx1 = cell(x + tolerance, cellsX);
+        int cy0 = cell(y - tolerance, cellsY), cy1 = cell(y + tolerance, cellsY);
+        int best = -1;
+        for (int cy = cy0; cy <= cy1; cy++)
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int[] c = cells[cy * cellsX + cx];
+                if (c == null) continue;
+                for (int k = c[0]; k >= 1 && c[k] > best; k--) // Von oben nach unten; tiefer als der bisherige Treffer ist uninteressant
+                    if (hits(log, c[k], x, y, tolerance)) { best = c[k]; break; }
+            }
+        return best;
+    }
+
+    // --- Liegt (x, y) höchstens tol vom Umriss (inkl. halber Linienbreite) der Form i entfernt? ---
+    static boolean hits(StrokeLog log, int i, double x, double y, double tol) {
+        double x1 = log.x(i, 0), y1 = log.y(i, 0), x2 = log.x(i, 1), y2 = log.y(i, 1);
+        double l = Math.min(x1, x2), t = Math.min(y1, y2), r = Math.max(x1, x2), b = Math.max(y1, y2);
+        double d = log.width(i) / 2.0 + tol;
+        if (x < l - d || x > r + d || y < t - d || y > b + d) return false;
+        if (log.type(i) == StrokeLog.RECTANGLE) return !(x > l + d && x < r - d && y > t + d && y < b - d);
+        // Oval: Abstand zum Umriss entlang des Strahls vom Mittelpunkt (Näherung, exakt für Kreise)
+        double rx = (r - l) / 2, ry = (b - t) / 2, px = x - (l + r) / 2, py = y - (t + b) / 2;
+        if (rx <= 0 || ry <= 0) return true;
+        double q = Math.sqrt((px * px) / (rx * rx) + (py * py) / (ry * ry)), dist = Math.sqrt(px * px + py * py);
+        if (q == 0) return Math.min(rx, ry) <= d;
+        return Math.abs(dist - dist / q) <= d;
+    }
+
+    // --- Position unter den lebenden Formen bzw. Umkehrung (gespeichert werden nur lebende, Kennungen ändern sich beim Laden) ---
+    public int rankOf(int id) { int r = 0; for (int i = 0; i < id; i++) if (alive[i]) r++; return r; }
+    public int idOfRank(int rank) { for (int i = 0; i < log.size(); i++) if (alive[i] && rank-- == 0) return i; return -1; }
+
+    // --- Begrenzungsrechteck einer Form inkl. Linienbreite {x, y, w, h} ---
+    public double[] bounds(int id) { return log.bounds(id); }
+
+    // --- Zeichnet alle Kacheln neu (z.B. nach dem Laden) ---
+    public void renderAll() { redraw(new double[] { 0, 0, raster.getWidth(), raster.getHeight() }); }
+
+    // --- Kopie zum Speichern im Hintergrund (Raster per Copy-on-Write, ohne Gitterindex: nur write() benutzen) ---
+    public VectorShapes snapshot() {
+        VectorShapes s = new VectorShapes(raster.getWidth(), raster.getHeight(), log.copyRange(0, log.size()), raster.snapshot());
+        s.alive = alive.clone(); s.liveCount = liveCount;
+        return s;
+    }
+
+    // --- Binärform (für ProjectFile): nur die lebenden Formen, in Stapelreihenfolge ---
+    public void write(DataOutput out) throws IOException {
+        StrokeLog live = new StrokeLog();
+        for (int i = 0; i < log.size(); i++) if (alive[i]) live.append(log, i, i + 1);
+        live.write(out);
+    }
+    public static VectorShapes read(DataInput in, int width, int height) throws IOException {
+        StrokeLog log = StrokeLog.read(in);
+        for (int i = 0; i < log.size(); i++)
+            if ((log.type(i) != StrokeLog.RECTANGLE && log.type(i) != StrokeLog.OVAL) || log.pointCount(i) != 2) throw new IOException("Ungültige Vektorform");
+        VectorShapes s = new VectorShapes(width, height, log, null);
+        s.alive = new boolean[Math.max(64, log.size())];
+        for (int i = 0; i < log.size(); i++) { s.alive[i] = true; s.index(i, log.bounds(i), true); }
+        s.liveCount = log.size();
+        s.renderAll();
+        return s;
+    }
+
+    // --- Legt die lebenden Formen, die das Rechteck b {x, y, w, h} berühren (null = alle), per Source-Over auf target ---
+    // (das Ebenenraster) und entfernt sie. Tiefer liegende Formen, die eine übernommene überlappen, kommen mit, sonst
+    // lägen sie danach über ihr. Gesichert und neu gezeichnet werden nur die Kacheln unter den übernommenen Formen.
+    // Liefert den Rückgängig-Schritt (Raster und Formen) oder null, wenn keine Form betroffen ist.
+    public UndoHistory.Entry flattenInto(TiledRaster target, double[] b) {
+        if (liveCount == 0) return null;
+        int[] ids = b == null ? liveIds() : touching(b);
+        if (ids.length == 0) return null;
+        double[][] rects = new double[ids.length][];
+        for (int k = 0; k < ids.length; k++) rects[k] = log.bounds(ids[k]);
+        TileDelta.Recorder rec = TileDelta.record(target, rects, null, 0);
+        for (int id : ids) bridge().replay(log, id, target); // Von unten nach oben
+        TileDelta delta = rec.finish();
+        setAll(ids, false);
+        return new UndoHistory.Entry() {
+            @Override public void undo() { delta.undo(); setAll(ids, true); }
+            @Override public void redo() { delta.redo(); setAll(ids, false); }
+            @Override public long byteSize() { return delta.byteSize() + 4L * ids.length; }
+        };
+    }
+
+    // --- Entfernt alle lebenden Formen ohne sie zu zeichnen (Leeren der Ebene); Rückgängig-Schritt oder null ---
+    public UndoHistory.Entry removeAll() {
+        if (liveCount == 0) return null;
+        int[] ids = liveIds();
+        setAll(ids, false);
+        return new UndoHistory.Entry() {
+            @Override public void undo() { setAll(ids, true); }
+            @Override public void redo() { setAll(ids, false); }
+            @Override public long byteSize() { return 64 + 4L * ids.length; }
+        };
+    }
+
+    private int[] liveIds() {
+        int[] ids = new int[liveCount];
+        for (int i = 0, n = 0; i < log.size(); i++) if (alive[i]) ids[n++] = i;
+        return ids;
+    }
+
+    // Lebende Formen, die b überlappen, plus (über den Gitterindex) alle tiefer liegenden, die eine davon überlappen; aufsteigend
+    private int[] touching(double[] b) {
+        boolean[] marked = new boolean[log.size()];
+        int n = collect(b, log.size(), marked, 0);
+        for (int k = 0; k < n; k++) n = collect(log.bounds(touched[k]), touched[k], marked, n);
+        int[] ids = Arrays.copyOf(touched, n);
+        Arrays.sort(ids);
+        return ids;
+    }
+
+    // Hängt an touched[n] alle lebenden, noch nicht markierten Formen mit Kennung < below an, deren Begrenzung r
+    // (mit 1 Pixel Rand für die Kantenglättung) überlappt; liefert die neue Anzahl
+    private int collect(double[] r, int below, boolean[] marked, int n) {
+        int cx0 = cell(r[0] - 1, cellsX), cx1 = cell(r[0] + r[2] + 1, cellsX), cy0 = cell(r[1] - 1, cellsY), cy1 = cell(r[1] + r[3] + 1, cellsY);
+        for (int cy = cy0; cy <= cy1; cy++)
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int[] c = cells[cy * cellsX + cx];
+                if (c == null) continue;
+                for (int k = 1; k <= c[0] && c[k] < below; k++) {
+                    int id = c[k];
+                    if (marked[id] || !alive[id]) continue;
+                    double[] o = log.bounds(id);
+                    if (o[0] > r[0] + r[2] + 1 || r[0] > o[0] + o[2] + 1 || o[1] > r[1] + r[3] + 1 || r[1] > o[1] + o[3] + 1) continue;
+                    marked[id] = true;
+                    if (n == touched.length) touched = Arrays.copyOf(touched, n * 2);
+                    touched[n++] = id;
+                }
+            }
+        return n;
+    }
+
+    // Belebt bzw. entfernt die Formen ids; neu gezeichnet werden nur die Kacheln unter ihnen
+    private void setAll(int[] ids, boolean live) {
+        double[][] rects = new double[ids.length][];
+        for (int k = 0; k < ids.length; k++) {
+            int id = ids[k];
+            rects[k] = log.bounds(id);
+            if (alive[id] == live) continue;
+            alive[id] = live; liveCount += live ? 1 : -1;
+            index(id, rects[k], live);
+        }
+        redraw(rects);
+    }
+
+    // --- Rückgängig-Schritte ---
+    public UndoHistory.Entry addedEntry(int id) {
+        return new UndoHistory.Entry() {
+            @Override public void undo() { setAlive(id, false); }
+            @Override public void redo() { setAlive(id, true); }
+            @Override public long byteSize() { return 64; }
+        };
+    }
+    public UndoHistory.Entry movedEntry(int id, double dx, double dy) {
+        return new UndoHistory.Entry() {
+            @Override public void undo() { move(id, -dx, -dy); }
+            @Override public void redo() { move(id, dx, dy); }
+            @Override public long byteSize() { return 64; }
+        };
+    }
+
+    // --- Gitterindex ---
+    private static int cell(double v, int cells) { return Math.max(0, Math.min(cells - 1, (int) Math.floor(v) >> CELL_SHIFT)); }
+
+    private void index(int id, double[] b, boolean insert) {
+        int cx0 = cell(b[0], cellsX), cx1 = cell(b[0] + b[2], cellsX), cy0 = cell(b[1], cellsY), cy1 = cell(b[1] + b[3], cellsY);
+        for (int cy = cy0; cy <= cy1; cy++)
+            for (int cx = cx0; cx <= cx1; cx++) {
+                int ci = cy * cellsX + cx;
+                if (insert) cells[ci] = insert(cells[ci], id);
+                else remove(cells[ci], id);
+            }
+    }
+
+    // Sortiert einfügen; neue Formen haben die größte Kennung und landen ohne Verschieben am Ende
+    private static int[] insert(int[] c, int id) {
+        if (c == null) c = new int[8];
+        int n = c[0];
+        if (n + 2 > c.length) c = Arrays.copyOf(c, c.length * 2);
+        int pos = n == 0 || c[n] < id ? n + 1 : -Arrays.binarySearch(c, 1, n + 1, id) - 1;
+        System.arraycopy(c, pos, c, pos + 1, n + 1 - pos);
+        c[pos] = id; c[0] = n + 1;
+        return c;
+    }
+
+    private static void remove(int[] c, int id) {
+        if (c == null) return;
+        int n = c[0], pos = Arrays.binarySearch(c, 1, n + 1, id);
+        if (pos < 0) return;
+        System.arraycopy(c, pos + 1, c, pos, n - pos);
+        c[0] = n - 1;
+    }
+
+    // --- Zeichnet die Kacheln unter den Rechtecken {x, y, w, h} neu (jede Kachel einmal) ---
+    private void redraw(double[]... rects) {
+        tilesLastChange = 0;
+        boolean[] done = rects.length > 1 ? new boolean[raster.getTilesX() * raster.getTilesY()] : null;
+        for (double[] r : rects) {
+            int x = (int) Math.floor(r[0]), y = (int) Math.floor(r[1]);
+            raster.forEachTileIn(x, y, (int) Math.ceil(r[0] + r[2]) - x, (int) Math.ceil(r[1] + r[3]) - y, (tx, ty) -> {
+                if (done != null) { if (done[ty * raster.getTilesX() + tx]) return; done[ty * raster.getTilesX() + tx] = true; }
+                renderTile(tx, ty);
+            });
+        }
+    }
+
+    private StrokeRasterizer bridge() {
+        if (bridge == null) bridge = StrokeRasterizer.fromProperty();
+        return bridge;
+    }
+
+    // Alle Formen, die die Kachel berühren, aus ihren Gitterzellen sammeln, sortieren und in die Kachel zeichnen
+    private void renderTile(int tx, int ty) {
+        tilesLastChange++;
+        int per = T / CELL, n = 0;
+        for (int cy = ty * per; cy < Math.min(cellsY, (ty + 1) * per); cy++)
+            for (int cx = tx * per; cx < Math.min(cellsX, (tx + 1) * per); cx++) {
+                int[] c = cells[cy * cellsX + cx];
+                if (c == null || c[0] == 0) continue;
+                if (n + c[0] > gather.length) gather = Arrays.copyOf(gather, Math.max(gather.length * 2, n + c[0]));
+                System.arraycopy(c, 1, gather, n, c[0]);
+                n += c[0];
+            }
+        if (n == 0) { if (raster.isAllocated(tx, ty)) raster.restoreTile(tx, ty, null); return; }
+        Arrays.sort(gather, 0, n);
+        int u = 1;
+        for (int k = 1; k < n; k++) if (gather[k] != gather[u - 1]) gather[u++] = gather[k];
+        bridge().renderClipped(log, gather, u, raster, tx * T, ty * T, raster.tileWidth(tx), raster.tileHeight(ty));
+    }
+}
@@ -0,0 +1,106 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class BatchRendererTest {
+
+    private static final String SCRIPT = String.join("\n",
+            "# Testskript",
+            "size 300 200",
+            "background white",
+            "color #FF0000",
+            "width 6",
+            "pen 10,10 100,10 100,100",
+            "color blue",
+            "rect 150,50 250,150",
+            "eraser 90,10 110,10");
+
+    @Test
+    public void parsesScriptIntoStrokeLog() throws IOException {
+        DrawingScript s = DrawingScript.parse(new StringReader(SCRIPT));
+        assertEquals(300, s.getWidth());
+        assertEquals(200, s.getHeight());
+        StrokeLog log = s.getLog();
+        assertEquals(3, log.size());
+        assertEquals(StrokeLog.STROKE, log.type(0));
+        assertEquals(0xFFFF0000, log.argb(0));
+        assertEquals(3, log.pointCount(0));
+        assertEquals(StrokeLog.RECTANGLE, log.type(1));
+        assertEquals(0xFF0000FF, log.argb(1));
+        assertEquals(StrokeLog.ERASE, log.type(2));
+        assertEquals(0xFFFFFFFF, log.argb(2)); // Radierer nimmt die Hintergrundfarbe
+    }
+
+    @Test
+    public void reportsLineNumberOfErrors() {
+        IOException ex = assertThrows(IOException.class, () -> DrawingScript.parse(new StringReader("width 2\npen 1,2 3")));
+        assertTrue(ex.getMessage().startsWith("Zeile 2:"), ex.getMessage());
+        assertThrows(IOException.class, () -> DrawingScript.parse(new StringReader("pen 1,1\nsize 10 10")));
+    }
+
+    @Test
+    public void rendersWithAppSemantics() throws IOException {
+        TiledRaster r = BatchRenderer.render(DrawingScript.parse(new StringReader(SCRIPT)), new Java2dRasterBridge());
+        assertEquals(0xFFFF0000, r.getPixel(50, 10));   // Stiftstrich
+        assertEquals(0xFFFF0000, r.getPixel(100, 50));
+        assertEquals(0xFFFFFFFF, r.getPixel(100, 10));  // Ecke wegradiert
+        assertEquals(0xFF0000FF, r.getPixel(200, 50));  // Rechteckkante
+        assertEquals(0xFFFFFFFF, r.getPixel(200, 100)); // Rechteck ist nicht gefüllt
+        assertEquals(0xFFFFFFFF, r.getPixel(250, 10));
+    }
+
+    @Test
+    public void fillsInsideShapes() throws IOException {
+        String script = SCRIPT + "\ncolor #00FF00\nfill 200,100 64\nfill 1,1 300";
+        assertThrows(IOException.class, () -> DrawingScript.parse(new StringReader(script)));
+        TiledRaster r = BatchRenderer.render(DrawingScript.parse(new StringReader(SCRIPT + "\ncolor #00FF00\nfill 200,100 64")), new Java2dRasterBridge());
+        assertEquals(0xFF00FF00, r.getPixel(200, 100)); // Rechteckinneres gefüllt
+        assertEquals(0xFF0000FF, r.getPixel(200, 50));  // Kante bleibt
+        assertEquals(0xFFFFFFFF, r.getPixel(10, 190));  // Außen unverändert
+    }
+
+    @Test
+    public void rendersAllScriptsOfADirectory(@TempDir Path dir) throws IOException {
+        Path in = Files.createDirectories(dir.resolve("in/sub")), out = dir.resolve("out");
+        for (int i = 0; i < 5; i++) Files.writeString(in.resolve("bild" + i + ".paint"), SCRIPT);
+        Files.writeString(in.resolve("kaputt.paint"), "unbekannt 1 2");
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        PrintStream ps = new PrintStream(log, true);
+        int code = BatchRenderer.run(new String[] { "--headless", "-j", "3", "-o", out.toString(), dir.resolve("in").toString() }, ps, ps);
+        assertEquals(1, code); // Eine Datei fehlerhaft
+        assertTrue(log.toString().contains("5 von 6"), log.toString());
+        BufferedImage img = ImageIO.read(out.resolve("bild3.png").toFile());
+        assertEquals(300, img.getWidth());
+        assertEquals(0xFFFF0000, img.getRGB(50, 10));
+        assertEquals(2, BatchRenderer.run(new String[] { "--headless", "--level", "12", "x.paint" }, ps, ps));
+    }
+
+    @Test
+    public void refusesScriptsThatWouldWriteTheSamePng(@TempDir Path dir) throws IOException {
+        Path a = Files.createDirectories(dir.resolve("a")), b = Files.createDirectories(dir.resolve("b")), out = dir.resolve("out");
+        Files.writeString(a.resolve("x.paint"), SCRIPT);
+        Files.writeString(b.resolve("x.paint"), SCRIPT);
+        ByteArrayOutputStream log = new ByteArrayOutputStream();
+        PrintStream ps = new PrintStream(log, true);
+        assertEquals(2, BatchRenderer.run(new String[] { "--headless", "-o", out.toString(), a.toString(), b.toString() }, ps, ps));
+        assertTrue(log.toString().contains("Gleiches Ziel"), log.toString());
+        assertFalse(Files.exists(out.resolve("x.png")));
+        // Ohne -o landen beide neben ihrem Skript; dieselbe Datei zweimal angegeben wird nur einmal gerendert
+        assertEquals(0, BatchRenderer.run(new String[] { "--headless", a.toString(), b.toString(), a.resolve("x.paint").toString() }, ps, ps));
+        assertTrue(log.toString().contains("2 von 2"), log.toString());
+        assertTrue(Files.exists(a.resolve("x.png")) && Files.exists(b.resolve("x.png")));
+    }
+}
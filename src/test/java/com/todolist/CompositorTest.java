@@ -0,0 +1,110 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import org.junit.jupiter.api.Test;
+
+public class CompositorTest {
+
+    private static final int WHITE = 0xFFFFFFFF, RED = 0xFFFF0000, BLUE = 0xFF0000FF;
+
+    @Test
+    public void singleOpaqueLayerIsShownDirectly() {
+        LayerStack stack = new LayerStack(500, 300, WHITE);
+        Compositor c = new Compositor(stack);
+        c.update();
+        assertSame(stack.get(0).getRaster(), c.getOutput());
+        stack.addLayer().setVisible(false); // Unsichtbare Ebenen zählen nicht
+        c.update();
+        assertSame(stack.get(0).getRaster(), c.getOutput());
+    }
+
+    @Test
+    public void blendsWithOpacityAndModes() {
+        LayerStack stack = new LayerStack(300, 300, WHITE);
+        stack.get(0).getRaster().setPixel(20, 20, RED);
+        Layer top = stack.addLayer();
+        top.getRaster().setPixel(10, 10, RED);
+        top.setOpacity(0.5f);
+        Compositor c = new Compositor(stack);
+        c.update();
+        assertNotSame(stack.get(0).getRaster(), c.getOutput());
+        assertEquals(0xFFFF7F7F, c.getOutput().getPixel(10, 10)); // Rot zu 50 % über Weiß
+        assertEquals(WHITE, c.getOutput().getPixel(299, 299));
+
+        top.setOpacity(1f);
+        top.setMode(Layer.BlendMode.MULTIPLY);
+        top.getRaster().setPixel(20, 20, BLUE);
+        top.getRaster().setPixel(21, 20, BLUE);
+        c.update();
+        assertEquals(0xFF000000, c.getOutput().getPixel(20, 20)); // Rot * Blau
+        assertEquals(BLUE, c.getOutput().getPixel(21, 20));       // Weiß * Blau
+        top.setMode(Layer.BlendMode.SCREEN);
+        c.update();
+        assertEquals(0xFFFF00FF, c.getOutput().getPixel(20, 20));
+        assertEquals(WHITE, c.getOutput().getPixel(21, 20));
+        top.setMode(Layer.BlendMode.DARKEN);
+        c.update();
+        assertEquals(BLUE, c.getOutput().getPixel(21, 20));
+        top.setMode(Layer.BlendMode.LIGHTEN);
+        c.update();
+        assertEquals(WHITE, c.getOutput().getPixel(21, 20));
+        top.setMode(Layer.BlendMode.ADD);
+        c.update();
+        assertEquals(0xFFFF00FF, c.getOutput().getPixel(20, 20));
+    }
+
+    @Test
+    public void reblendsOnlyChangedTiles() {
+        LayerStack stack = new LayerStack(1024, 1024, WHITE);
+        Layer top = stack.addLayer();
+        for (int y = 0; y < 1024; y += 256) for (int x = 0; x < 1024; x += 256) top.getRaster().setPixel(x + 5, y + 5, RED);
+        top.setOpacity(0.5f);
+        Compositor c = new Compositor(stack);
+        assertEquals(16, c.update());
+        assertEquals(0, c.update());
+
+        top.getRaster().setPixel(600, 600, BLUE);
+        assertEquals(1, c.update());
+        assertEquals(0xFF7F7FFF, c.getOutput().getPixel(600, 600));
+
+        stack.get(0).getRaster().setPixel(3, 3, BLUE); // Änderung der unteren Ebene
+        assertEquals(1, c.update());
+        assertEquals(BLUE, c.getOutput().getPixel(3, 3));
+
+        top.setMode(Layer.BlendMode.SCREEN); // Eigenschaft geändert: alles neu
+        assertEquals(16, c.update());
+        stack.move(1, -1); // Reihenfolge geändert: alles neu
+        assertEquals(16, c.update());
+        assertEquals(WHITE, c.getOutput().getPixel(600, 600)); // Weiße, deckende Ebene liegt nun oben
+    }
+
+    @Test
+    public void propertyChangeOfTransparentLayerReblendsOnlyItsTiles() {
+        LayerStack stack = new LayerStack(1024, 1024, WHITE);
+        stack.addLayer().getRaster().setPixel(100, 900, BLUE);  // Mittlere Ebene: eine Kachel
+        Layer top = stack.addLayer();
+        top.getRaster().setPixel(600, 600, RED);                // Obere Ebene: eine Kachel angelegt
+        top.getShapes().add(StrokeLog.RECTANGLE, BLUE, 4, 10, 10, 100, 100); // und eine mit Formen
+        Compositor c = new Compositor(stack);
+        assertEquals(3, c.update());                            // Leere Kacheln sind reiner Hintergrund
+
+        top.setOpacity(0.5f);
+        assertEquals(2, c.update());
+        assertEquals(0xFFFF7F7F, c.getOutput().getPixel(600, 600));
+        top.setVisible(false);
+        assertEquals(0, c.update());                            // Ihre zwei Kacheln sind danach reiner Hintergrund
+        assertEquals(WHITE, c.getOutput().getPixel(600, 600));
+        top.getRaster().setPixel(900, 100, RED);                // Änderung einer ausgeblendeten Ebene: nichts zu mischen
+        assertEquals(0, c.update());
+        top.setVisible(true);
+        assertEquals(3, c.update());
+        assertEquals(0xFFFF7F7F, c.getOutput().getPixel(900, 100));
+
+        stack.get(0).getRaster().setPixel(1000, 1000, BLUE);
+        assertEquals(1, c.update());
+        stack.get(0).setMode(Layer.BlendMode.MULTIPLY);         // Deckende Hintergrundebene: alle Kacheln mit Inhalt neu
+        assertEquals(5, c.update());
+    }
+}
@@ -0,0 +1,120 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.jupiter.api.Test;
+
+public class FilterPipelineTest {
+
+    private static final int WHITE = 0xFFFFFFFF, RED = 0xFFFF0000;
+
+    // Weißes Bild mit Rauschen in einigen Kacheln und einer halbtransparenten Fläche; Kachel (3,2) bleibt frei
+    private static TiledRaster image() {
+        TiledRaster r = new TiledRaster(1000, 700, WHITE);
+        Random rnd = new Random(5);
+        for (int y = 0; y < 300; y++) for (int x = 0; x < 500; x++) r.setPixel(x, y, 0xFF000000 | rnd.nextInt(0x1000000));
+        for (int y = 400; y < 500; y++) for (int x = 100; x < 300; x++) r.setPixel(x, y, 0x80400000);
+        return r;
+    }
+
+    private static int[] pixels(TiledRaster r) {
+        int[] px = new int[r.getWidth() * r.getHeight()];
+        r.readRect(0, 0, r.getWidth(), r.getHeight(), px, 0, r.getWidth());
+        return px;
+    }
+
+    @Test
+    public void tiledResultMatchesWholeImageFilter() {
+        TiledRaster src = image();
+        for (ImageFilter f : new ImageFilter[] { ImageFilter.gaussian(4), ImageFilter.unsharp(2, 1.5, 2), ImageFilter.gaussian(120) }) {
+            AtomicInteger calls = new AtomicInteger();
+            TiledRaster out = FilterPipeline.run(f, src, p -> calls.incrementAndGet(), () -> false);
+            int[] expected = FilterPipeline.filterRect(f, src, 0, 0, src.getWidth(), src.getHeight());
+            TiledRaster target = src.snapshot();
+            FilterPipeline.applyTo(out, target);
+            assertArrayEquals(expected, pixels(target)); // Ränder zwischen den Kacheln sind nahtlos
+            assertTrue(calls.get() > 0);
+        }
+    }
+
+    @Test
+    public void backgroundOnlyTilesAreSkipped() {
+        TiledRaster src = image();
+        TiledRaster blurred = FilterPipeline.run(ImageFilter.gaussian(3), src, null, null);
+        assertFalse(blurred.isAllocated(3, 2));      // Samt Rand nur Hintergrund
+        assertEquals(WHITE, blurred.getBackground());
+        TiledRaster gray = FilterPipeline.run(ImageFilter.levels(0, 255, 2), new TiledRaster(600, 600, 0xFF808080), null, null);
+        assertFalse(gray.isAllocated(0, 0));
+        assertEquals(0xFFB5B5B5, gray.getBackground()); // 255 * sqrt(128/255) = 180.7
+    }
+
+    @Test
+    public void undoEntryBuiltFromSnapshotAndResult() {
+        TiledRaster target = image(), source = target.snapshot();
+        int[] before = pixels(target);
+        TiledRaster result = FilterPipeline.run(ImageFilter.gaussian(3), source, null, null);
+        TileDelta delta = TileDelta.between(target, source, result); // Wie im Hintergrund: target bleibt unberührt
+        assertArrayEquals(before, pixels(target));
+        FilterPipeline.applyTo(result, target);
+        int[] after = pixels(target);
+        delta.undo();
+        assertArrayEquals(before, pixels(target));
+        delta.redo();
+        assertArrayEquals(after, pixels(target));
+    }
+
+    @Test
+    public void blurKeepsUniformColorAndPremultipliedRange() {
+        int[] src = new int[64 * 64], dst = new int[64 * 64];
+        java.util.Arrays.fill(src, RED);
+        ImageFilter.gaussian(5).apply(src, 64, 64, 0, 0, 64, 64, dst);
+        for (int p : dst) assertEquals(RED, p);
+        Random rnd = new Random(1);
+        for (int i = 0; i < src.length; i++) { int a = rnd.nextInt(256); src[i] = a == 0 ? 0 : TiledRaster.premultiply((a << 24) | rnd.nextInt(0x1000000)); }
+        ImageFilter.gaussian(1.5).apply(src, 64, 64, 0, 0, 64, 64, dst);
+        for (int p : dst) {
+            int a = p >>> 24;
+            assertTrue(((p >> 16) & 0xFF) <= a && ((p >> 8) & 0xFF) <= a && (p & 0xFF) <= a, Integer.toHexString(p));
+        }
+    }
+
+    @Test
+    public void pointFilters() {
+        int[] src = { 0xFF204060, 0x80102030, 0, 0xFFFF0000 }, dst = new int[4];
+        ImageFilter.levels(0, 255, 1).apply(src, 4, 1, 0, 0, 4, 1, dst);
+        assertArrayEquals(src, dst);
+        ImageFilter.curves(new double[] { 0, 64, 128, 192, 255 }, new double[] { 0, 64, 128, 192, 255 }).apply(src, 4, 1, 0, 0, 4, 1, dst);
+        assertArrayEquals(src, dst);
+        ImageFilter.levels(32, 96, 1).apply(src, 4, 1, 0, 0, 4, 1, dst);
+        assertEquals(0xFF0080FF, dst[0]);
+        ImageFilter.grayscale().apply(src, 4, 1, 0, 0, 4, 1, dst);
+        assertEquals(0xFF4D4D4D, dst[3]);            // 77/256 von Rot
+        assertEquals(0, dst[2]);
+        ImageFilter.curves(new double[] { 0, 128, 255 }, new double[] { 255, 128, 0 }).apply(src, 4, 1, 0, 0, 4, 1, dst);
+        assertEquals(0xFF00FFFF, dst[3]);            // Umkehrung
+        assertThrows(IllegalArgumentException.class, () -> ImageFilter.levels(100, 50, 1));
+    }
+
+    @Test
+    public void unsharpMaskRaisesEdgeContrast() {
+        int[] src = new int[32 * 8], dst = new int[32 * 8];
+        for (int i = 0; i < src.length; i++) src[i] = i % 32 < 16 ? 0xFF404040 : 0xFFC0C0C0;
+        ImageFilter.unsharp(2, 1, 0).apply(src, 32, 8, 0, 0, 32, 8, dst);
+        assertTrue((dst[4 * 32 + 15] & 0xFF) < 0x40);  // Dunkle Seite der Kante wird dunkler
+        assertTrue((dst[4 * 32 + 16] & 0xFF) > 0xC0);  // Helle Seite heller
+        assertEquals(0xFF404040, dst[4 * 32 + 2]);     // Fern der Kante unverändert
+    }
+
+    @Test
+    public void cancellationStopsTheRun() {
+        AtomicInteger tiles = new AtomicInteger();
+        assertThrows(CancellationException.class, () -> FilterPipeline.run(ImageFilter.gaussian(2), image(), p -> tiles.incrementAndGet(), () -> tiles.get() >= 2));
+        assertTrue(tiles.get() < 12);
+    }
+}
@@ -0,0 +1,75 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+public class FloodFillTest {
+
+    private static final int WHITE = 0xFFFFFFFF, BLACK = 0xFF000000, RED = 0xFFFF0000;
+
+    @Test
+    public void fillsInsideOutlineAndReportsBoundingBox() {
+        int w = 20, h = 10;
+        int[] px = new int[w * h];
+        java.util.Arrays.fill(px, WHITE);
+        for (int x = 2; x <= 8; x++) { px[2 * w + x] = BLACK; px[7 * w + x] = BLACK; } // Rechteck-Umriss
+        for (int y = 2; y <= 7; y++) { px[y * w + 2] = BLACK; px[y * w + 8] = BLACK; }
+        int[] box = FloodFill.fill(px, w, h, 5, 5, RED, 0);
+        assertArrayEquals(new int[] { 3, 3, 5, 4 }, box);
+        assertEquals(RED, px[3 * w + 3]);
+        assertEquals(RED, px[6 * w + 7]);
+        assertEquals(BLACK, px[2 * w + 5]);
+        assertEquals(WHITE, px[0]);
+    }
+
+    @Test
+    public void followsConcaveShapesAndRespectsTolerance() {
+        int w = 9, h = 5;
+        int[] px = new int[w * h];
+        java.util.Arrays.fill(px, WHITE);
+        for (int y = 0; y < 4; y++) px[y * w + 4] = BLACK; // U-Form: nur unten verbunden
+        px[4 * w + 8] = 0xFFF0F0F0;                        // Fast Weiß
+        FloodFill.fill(px, w, h, 0, 0, RED, 0);
+        assertEquals(RED, px[8]);                          // Über den Boden erreicht
+        assertEquals(0xFFF0F0F0, px[4 * w + 8]);           // Ohne Toleranz nicht gefüllt
+
+        java.util.Arrays.fill(px, WHITE);
+        px[4 * w + 8] = 0xFFF0F0F0;
+        FloodFill.fill(px, w, h, 0, 0, RED, 16);
+        assertEquals(RED, px[4 * w + 8]);
+    }
+
+    @Test
+    public void similarFillColorTerminates() {
+        int[] px = new int[64 * 64];
+        java.util.Arrays.fill(px, WHITE);
+        int[] box = FloodFill.fill(px, 64, 64, 10, 10, 0xFFFEFEFE, 8); // Füllfarbe passt selbst zur Toleranz
+        assertArrayEquals(new int[] { 0, 0, 64, 64 }, box);
+        assertEquals(0xFFFEFEFE, px[64 * 64 - 1]);
+    }
+
+    @Test
+    public void writesBackOnlyChangedTiles() {
+        TiledRaster r = new TiledRaster(3840, 2160, WHITE);
+        for (int x = 0; x < 600; x++) { r.setPixel(x, 500, BLACK); }
+        for (int y = 0; y <= 500; y++) { r.setPixel(600, y, BLACK); }
+        FloodFill f = new FloodFill();
+        assertNull(f.fill(r, 10, 10, WHITE, 0)); // Bereits in Füllfarbe
+        int[] box = f.fill(r, 10, 10, RED, 0);
+        assertArrayEquals(new int[] { 0, 0, 600, 500 }, box);
+        assertEquals(600 * 500, f.getFilledLastRun());
+        assertEquals(6, f.getTilesLastRun());    // Nur die erreichten Kacheln werden gelesen
+        assertEquals(RED, r.getPixel(599, 499));
+        assertEquals(WHITE, r.getPixel(601, 10));
+        assertFalse(r.isAllocated(5, 5));
+
+        int[] all = f.fill(r, 3000, 2000, RED, 0); // Restfläche einer 4K-Ebene
+        assertEquals(3840 * 2160 - 600 * 500 - 600 - 501, f.getFilledLastRun()); // Ohne Rot und Umriss
+        assertArrayEquals(new int[] { 0, 0, 3840, 2160 }, all);
+        assertEquals(RED, r.getPixel(3839, 2159));
+        assertEquals(BLACK, r.getPixel(600, 10));
+    }
+}
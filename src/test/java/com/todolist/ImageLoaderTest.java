@@ -0,0 +1,75 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Path;
+import java.util.concurrent.CancellationException;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ImageLoaderTest {
+
+    @TempDir Path dir;
+
+    @Test
+    public void subsamplingFitsCeiling() {
+        assertEquals(1, ImageLoader.subsamplingFor(1000, 1000, 4_000_000));
+        assertEquals(2, ImageLoader.subsamplingFor(1001, 1000, 4_000_000));
+        assertEquals(4, ImageLoader.subsamplingFor(20000, 15000, 100L << 20));
+    }
+
+    @Test
+    public void loadsInTileRowBandsIntoRaster() throws Exception {
+        File f = writePng(700, 1000);
+        TiledRaster[] target = new TiledRaster[1];
+        int[] calls = { 0 };
+        new ImageLoader(1L << 30, 300 * 700 * 4).load(f, new ImageLoader.Sink() {
+            @Override public void begin(int w, int h, int s) { target[0] = new TiledRaster(w, h, 0xFFFFFFFF); assertEquals(1, s); }
+            @Override public void preview(int[] px, int w, int h) { }
+            @Override public void rows(int y, int h, int[] px, int w) {
+                assertEquals(0, y % TiledRaster.TILE_SIZE);
+                target[0].compositeRect(0, y, w, h, px, 0, w);
+                calls[0]++;
+            }
+        }, () -> false, null);
+        assertTrue(calls[0] >= 4);
+        assertEquals(0xFF0000FF, target[0].getPixel(123, 999));
+        assertEquals(0xFFFF0000, target[0].getPixel(10, 10));
+    }
+
+    @Test
+    public void subsamplesWhenOverCeiling() throws Exception {
+        File f = writePng(700, 1000);
+        int[] size = new int[3];
+        new ImageLoader(700 * 1000, 1L << 20).load(f, new ImageLoader.Sink() {
+            @Override public void begin(int w, int h, int s) { size[0] = w; size[1] = h; size[2] = s; }
+            @Override public void preview(int[] px, int w, int h) { }
+            @Override public void rows(int y, int h, int[] px, int w) { assertEquals(size[0], w); }
+        }, () -> false, null);
+        assertEquals(2, size[2]);
+        assertEquals(350, size[0]);
+        assertEquals(500, size[1]);
+    }
+
+    @Test
+    public void cancelStopsLoading() throws Exception {
+        File f = writePng(300, 300);
+        assertThrows(CancellationException.class, () -> new ImageLoader(1L << 30, 1L << 20).load(f, new ImageLoader.Sink() {
+            @Override public void begin(int w, int h, int s) { }
+            @Override public void preview(int[] px, int w, int h) { }
+            @Override public void rows(int y, int h, int[] px, int w) { }
+        }, () -> true, null));
+    }
+
+    private File writePng(int w, int h) throws Exception {
+        BufferedImage img = new BufferedImage(w, h, BufferedImage.TYPE_INT_RGB);
+        for (int y = 0; y < h; y++) for (int x = 0; x < w; x++) img.setRGB(x, y, y < h / 2 ? 0xFF0000 : 0x0000FF);
+        File f = dir.resolve("bild.png").toFile();
+        ImageIO.write(img, "png", f);
+        return f;
+    }
+}
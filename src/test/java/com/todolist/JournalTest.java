@@ -0,0 +1,171 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class JournalTest {
+
+    private static final int WHITE = 0xFFFFFFFF, RED = 0xFFFF0000, BLUE = 0xFF0000FF;
+
+    // Zeichnet wie die Anwendung: Befehl ins Protokoll, ins Raster und ins Journal
+    private static void draw(Journal j, LayerStack stack, StrokeLog log, Java2dRasterBridge bridge, int index) {
+        bridge.replay(log, index, stack.getActive().getRaster());
+        j.command(stack.getActiveIndex(), log, index);
+    }
+
+    @Test
+    public void recoversCheckpointPlusJournal(@TempDir Path dir) throws IOException {
+        LayerStack stack = new LayerStack(600, 400, WHITE);
+        StrokeLog log = new StrokeLog();
+        Java2dRasterBridge bridge = new Java2dRasterBridge();
+        Journal j = Journal.open(dir, 5, null);
+        j.checkpoint(stack.snapshot());
+        log.beginStroke(StrokeLog.STROKE, RED, 6, 10, 10); log.addPoint(300, 200); log.addPoint(500, 50);
+        draw(j, stack, log, bridge, log.last());
+        stack.addLayer();
+        j.checkpoint(stack.snapshot());                      // Strukturänderung
+        log.addFill(BLUE, 0, 590, 390);
+        draw(j, stack, log, bridge, log.last());
+        VectorShapes shapes = stack.getActive().getShapes();
+        int dead = shapes.add(StrokeLog.OVAL, RED, 2, 0, 0, 50, 50);
+        shapes.setAlive(dead, false);
+        j.checkpoint(stack.snapshot());                      // Rückgängig
+        int id = shapes.add(StrokeLog.RECTANGLE, RED, 4, 100, 100, 200, 200);
+        j.shapeAdded(1, shapes, id);
+        shapes.move(id, 50, 20);
+        j.shapeMoved(1, shapes, id, 50, 20);
+        j.close(false);                                      // Wie ein Absturz: Dateien bleiben liegen
+        assertTrue(j.getRecords() >= 2);                     // Operationen vor einem noch wartenden Sicherungspunkt entfallen
+
+        Journal.Recovery rec = Journal.recover(dir);
+        assertNotNull(rec);
+        assertEquals(2, rec.replayed);                       // Nur die Operationen nach dem letzten Sicherungspunkt
+        assertEquals(2, rec.layers.size());
+        for (int l = 0; l < 2; l++) {
+            TiledRaster a = stack.get(l).getRaster(), b = rec.layers.get(l).getRaster();
+            for (int y = 0; y < 400; y += 3) for (int x = 0; x < 600; x += 3) assertEquals(a.getPixel(x, y), b.getPixel(x, y), "Ebene " + l + " bei " + x + "," + y);
+        }
+        VectorShapes r = rec.layers.get(1).getShapes();
+        assertEquals(1, r.getLiveCount());
+        assertEquals(0, r.hitTest(150, 120, 1));
+        assertEquals(shapes.getRaster().getPixel(150, 120), r.getRaster().getPixel(150, 120));
+    }
+
+    @Test
+    public void replaysCommandsAboveEarlierShapes(@TempDir Path dir) throws IOException {
+        LayerStack stack = new LayerStack(600, 400, WHITE);
+        StrokeLog log = new StrokeLog();
+        Java2dRasterBridge bridge = new Java2dRasterBridge();
+        Journal j = Journal.open(dir, 5, null);
+        j.checkpoint(stack.snapshot());
+        Layer layer = stack.getActive();
+        int id = layer.getShapes().add(StrokeLog.RECTANGLE, RED, 10, 100, 100, 300, 300);
+        j.shapeAdded(0, layer.getShapes(), id);
+        log.beginStroke(StrokeLog.STROKE, BLUE, 10, 0, 200); log.addPoint(600, 200);
+        layer.getShapes().flattenInto(layer.getRaster(), log.bounds(log.last())); // Wie die Anwendung vor jedem Raster-Befehl
+        draw(j, stack, log, bridge, log.last());
+        j.close(false);
+
+        Journal.Recovery rec = Journal.recover(dir);
+        assertNotNull(rec);
+        assertEquals(2, rec.replayed);
+        Layer r = rec.layers.get(0);
+        assertEquals(0, r.getShapes().getLiveCount());
+        assertEquals(BLUE, r.getRaster().getPixel(100, 200)); // Strich über dem Rechteck
+        assertEquals(RED, r.getRaster().getPixel(100, 150));
+        assertEquals(layer.getRaster().getPixel(100, 150), r.getRaster().getPixel(100, 150));
+    }
+
+    // Wartet, bis der Schreib-Thread n Sicherungspunkte geschrieben hat (sonst zählt nur der letzte in der Warteschlange).
+    // Gewartet wird auf die Bytes-Reihe: IoTimer.finish trägt sie nach der Dauer ein, danach sind beide vollständig
+    private static void awaitCheckpoints(Metrics metrics, int n) throws InterruptedException {
+        for (int i = 0; i < 1000 && (metrics.find("io.checkpoint.bytes") == null || metrics.find("io.checkpoint.bytes").getCount() < n); i++) Thread.sleep(10);
+        assertEquals(n, metrics.find("io.checkpoint.bytes").getCount());
+        assertEquals(n, metrics.find("io.checkpoint").getCount());
+    }
+
+    @Test
+    public void checkpointsAppendOnlyChangedTiles(@TempDir Path dir) throws Exception {
+        Metrics metrics = new Metrics();
+        LayerStack stack = new LayerStack(2048, 1024, WHITE);
+        TiledRaster r = stack.getActive().getRaster();
+        for (int y = 0; y < 1024; y += 128) for (int x = 0; x < 2048; x += 128) r.setPixel(x, y, RED); // Alle 32 Kacheln belegt
+        Journal j = Journal.open(dir, 5, metrics);
+        j.checkpoint(stack.snapshot());
+        awaitCheckpoints(metrics, 1);
+        assertTrue(metrics.find("io.checkpoint.bytes").getLast() >= 32L * TiledRaster.TILE_PIXELS * 4);
+        r.setPixel(5, 5, BLUE);
+        stack.addLayer();
+        j.checkpoint(stack.snapshot());
+        awaitCheckpoints(metrics, 2);
+        assertTrue(metrics.find("io.checkpoint.bytes").getLast() < 2L * TiledRaster.TILE_PIXELS * 4, "Geschrieben: " + metrics.find("io.checkpoint.bytes").getLast());
+        StrokeLog log = new StrokeLog();
+        log.beginStroke(StrokeLog.STROKE, BLUE, 4, 1000, 500); log.addPoint(1100, 500);
+        draw(j, stack, log, new Java2dRasterBridge(), 0);
+        j.close(false);
+        try (var files = Files.list(dir)) { assertEquals(1, files.filter(p -> p.getFileName().toString().startsWith("checkpoint-")).count()); }
+
+        Journal.Recovery rec = Journal.recover(dir);
+        assertEquals(2, rec.layers.size());
+        assertEquals(1, rec.replayed);                       // Journal der zweiten Generation
+        assertEquals(BLUE, rec.layers.get(0).getRaster().getPixel(5, 5));
+        assertEquals(RED, rec.layers.get(0).getRaster().getPixel(1920, 896));
+        assertEquals(BLUE, rec.layers.get(1).getRaster().getPixel(1050, 500));
+    }
+
+    @Test
+    public void ignoresTornTailAndCleansUpOnDiscard(@TempDir Path dir) throws IOException {
+        LayerStack stack = new LayerStack(300, 300, WHITE);
+        StrokeLog log = new StrokeLog();
+        Journal j = Journal.open(dir, 5, null);
+        j.checkpoint(stack.snapshot());
+        log.addShape(StrokeLog.RECTANGLE, RED, 2, 10, 10, 100, 100);
+        draw(j, stack, log, new Java2dRasterBridge(), 0);
+        j.close(false);
+        Path journal;
+        try (var files = Files.list(dir)) { journal = files.filter(p -> p.getFileName().toString().startsWith("journal-")).findFirst().orElseThrow(); }
+        Files.write(journal, new byte[] { 0, 0, 0, 40, 1, 2, 3 }, StandardOpenOption.APPEND); // Beim Absturz halb geschriebener Datensatz
+        Journal.Recovery rec = Journal.recover(dir);
+        assertEquals(1, rec.replayed);
+        assertEquals(RED, rec.layers.get(0).getRaster().getPixel(10, 50));
+
+        Journal again = Journal.open(dir, 5, null);
+        assertNull(Journal.open(dir, 5, null));              // Nur eine Instanz je Verzeichnis
+        again.checkpoint(List.of(rec.layers.get(0)));
+        again.close(true);
+        assertNull(Journal.recover(dir));
+    }
+
+    @Test
+    public void groupCommitBatchesManyStrokes(@TempDir Path dir) throws IOException {
+        Metrics metrics = new Metrics();
+        Journal j = Journal.open(dir, 20, metrics);
+        j.checkpoint(new LayerStack(256, 256, WHITE).snapshot());
+        StrokeLog log = new StrokeLog();
+        int strokes = 5000;
+        long[] nanos = new long[strokes];                    // Nur der Aufruf im FX-Thread, nicht der Aufbau des Strichs
+        for (int s = 0; s < strokes; s++) {
+            log.beginStroke(StrokeLog.STROKE, RED, 3, s % 200, 0);
+            for (int p = 1; p < 200; p++) log.addPoint(s % 200 + p * 0.5, p);
+            long t0 = System.nanoTime();
+            j.command(0, log, log.last());
+            nanos[s] = System.nanoTime() - t0;
+        }
+        j.close(false);
+        Arrays.sort(nanos);                        // 90. Perzentil: einzelne GC-Pausen zählen nicht
+        assertTrue(nanos[strokes * 9 / 10] < 1_000_000, "Je Strich (p90) " + nanos[strokes * 9 / 10] + " ns, Median " + nanos[strokes / 2] + " ns");
+        assertEquals(strokes, j.getRecords());
+        assertTrue(j.getCommits() < strokes / 4, "Gruppen-Commit: " + j.getCommits() + " Schreibvorgänge");
+        assertEquals(j.getCommits(), metrics.find("journal.commit").getCount());
+    }
+}
@@ -0,0 +1,89 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.file.Path;
+import java.util.List;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class MetricsTest {
+
+    @Test
+    public void seriesKeepsRecentSamplesForPercentiles() {
+        Metrics m = new Metrics();
+        Metrics.Series s = m.series("frame.render", Metrics.Unit.NANOS);
+        for (int i = 1; i <= 100; i++) s.add(i);
+        assertEquals(100, s.getCount());
+        assertEquals(50, s.percentile(50));
+        assertEquals(95, s.percentile(95));
+        assertEquals(50.5, s.getMean());
+        for (int i = 0; i < Metrics.SAMPLES; i++) s.add(1000); // Ring überschrieben
+        assertEquals(1000, s.percentile(50));
+        assertEquals(1000, s.getMax());
+    }
+
+    @Test
+    public void exportsCsvAndHudText() {
+        Metrics m = new Metrics();
+        m.pulse(17_000_000);
+        m.render(2_000_000, 3);
+        m.latency("pen", 8_000_000);
+        m.dirty("commit", 1234);
+        m.operation("fill", 3_000_000, 5000);
+        m.beginIo("io.save").finish(Path.of("x.tdpaint"), 5_000_000);
+        StringWriter out = new StringWriter();
+        m.export(out);
+        String csv = out.toString();
+        assertTrue(csv.contains("\nframe.time;ms;1;17.000;"), csv);
+        assertTrue(csv.contains("\nframe.render;ms;1;2.000;"), csv);
+        assertTrue(csv.contains("\nlatency.pen;ms;1;8.000;"), csv);
+        assertTrue(csv.contains("\ndirty.commit;px;1;1234.000;"), csv);
+        assertTrue(csv.contains("\nop.fill.pixels;px;1;5000.000;"), csv);
+        assertTrue(csv.contains("\nio.save.bytes;bytes;1;5000000.000;"), csv);
+        String hud = m.hudText();
+        assertTrue(hud.startsWith("Frame 17.0 ms"), hud);
+        assertTrue(hud.contains("Zeichnen 2.0 ms"), hud);
+        assertTrue(hud.contains("pen 8.0 ms"), hud);
+        assertTrue(hud.contains("fill 3.0 ms"), hud);
+        assertTrue(hud.contains("save"), hud);
+    }
+
+    @Test
+    public void recordsStartupPhases() {
+        Metrics m = new Metrics();
+        long since = Metrics.nanosSinceProcessStart();
+        assertTrue(since > 0, "Prozessstart: " + since);
+        m.startup("launch", 400_000_000);
+        m.startup("firstPaint", 900_000_000);
+        m.startup("firstPaint", -1);                  // Unbekannt: nicht erfasst
+        assertEquals(1, m.find("startup.firstPaint").getCount());
+        assertTrue(m.hudText().contains("Start 900 ms"), m.hudText());
+    }
+
+    @Test
+    public void publishesJfrEvents(@TempDir Path dir) throws IOException {
+        Metrics m = new Metrics();
+        Path file = dir.resolve("metrics.jfr");
+        try (Recording r = new Recording()) {
+            r.enable("com.todolist.Pulse"); r.enable("com.todolist.Frame"); r.enable("com.todolist.InputLatency"); r.enable("com.todolist.FileIo");
+            r.start();
+            m.pulse(40_000_000);
+            m.render(1_500_000, 2);
+            m.latency("fill", 4_000_000);
+            m.beginIo("io.load").finish(Path.of("bild.png"), 42);
+            r.stop();
+            r.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        assertEquals(1, events.stream().filter(e -> e.getEventType().getName().equals("com.todolist.Pulse") && e.getLong("frameTime") == 40_000_000).count());
+        assertEquals(1, events.stream().filter(e -> e.getEventType().getName().equals("com.todolist.Frame") && e.getInt("uploadedTiles") == 2).count());
+        assertEquals(1, events.stream().filter(e -> e.getEventType().getName().equals("com.todolist.InputLatency") && "fill".equals(e.getString("tool"))).count());
+        assertEquals(1, events.stream().filter(e -> e.getEventType().getName().equals("com.todolist.FileIo") && e.getLong("bytes") == 42).count());
+    }
+}
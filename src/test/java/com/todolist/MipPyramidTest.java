@@ -0,0 +1,41 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import org.junit.jupiter.api.Test;
+
+public class MipPyramidTest {
+
+    private static final int WHITE = 0xFFFFFFFF, BLACK = 0xFF000000;
+
+    @Test
+    public void buildsLevelsDownToOneTile() {
+        MipPyramid p = new MipPyramid(new TiledRaster(2000, 1000, WHITE));
+        assertEquals(4, p.levelCount()); // 2000 -> 1000 -> 500 -> 250
+        assertEquals(250, p.level(3).getWidth());
+        assertEquals(125, p.level(3).getHeight());
+        assertEquals(0, p.levelFor(1.0));
+        assertEquals(1, p.levelFor(0.5));
+        assertEquals(3, p.levelFor(0.1));
+    }
+
+    @Test
+    public void onlyDirtyTilesAreRebuilt() {
+        TiledRaster base = new TiledRaster(2048, 2048, WHITE);
+        MipPyramid p = new MipPyramid(base);
+        p.update(p.levelCount() - 1);
+        assertFalse(p.level(1).isAllocated(0, 0));
+
+        for (int y = 0; y < 2; y++) for (int x = 0; x < 2; x++) base.setPixel(600 + x, 600 + y, BLACK);
+        int rebuilt = p.update(1);
+        assertEquals(1, rebuilt);
+        assertEquals(BLACK, p.level(1).getPixel(300, 300));
+        assertEquals(WHITE, p.level(1).getPixel(301, 300));
+        assertEquals(0, p.update(1));
+    }
+
+    @Test
+    public void averagesPremultipliedChannels() {
+        assertEquals(0x80808080, MipPyramid.average(0xFFFFFFFF, 0, 0xFFFFFFFF, 0));
+    }
+}
@@ -0,0 +1,41 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.util.concurrent.CancellationException;
+import javax.imageio.ImageIO;
+import org.junit.jupiter.api.Test;
+
+public class PngWriterTest {
+
+    @Test
+    public void encodedImageDecodesWithImageIO() throws Exception {
+        TiledRaster r = new TiledRaster(300, 520, 0xFFFFFFFF);
+        for (int i = 0; i < 300; i++) r.setPixel(i, i, 0xFFFF0000);
+        r.setPixel(5, 400, 0x80000000); // Halbtransparentes Schwarz -> Grau auf Weiß
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        double[] last = { 0 };
+        new PngWriter(6).write(r, out, p -> last[0] = p, () -> false);
+        assertEquals(1.0, last[0]);
+
+        BufferedImage img = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(300, img.getWidth());
+        assertEquals(520, img.getHeight());
+        assertEquals(0xFFFF0000, img.getRGB(299, 299));
+        assertEquals(0xFFFFFFFF, img.getRGB(10, 0));
+        assertEquals(0xFF7F7F7F, img.getRGB(5, 400));
+    }
+
+    @Test
+    public void cancellationStopsEncoding() {
+        TiledRaster r = new TiledRaster(64, 2048, 0xFFFFFFFF);
+        int[] bands = { 0 };
+        assertThrows(CancellationException.class,
+                () -> new PngWriter(1).write(r, new ByteArrayOutputStream(), p -> bands[0]++, () -> bands[0] >= 2));
+        assertTrue(bands[0] < 8);
+    }
+}
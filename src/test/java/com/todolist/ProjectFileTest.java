@@ -0,0 +1,185 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+public class ProjectFileTest {
+
+    private static final int WHITE = 0xFFFFFFFF, RED = 0xFFFF0000, BLUE = 0xFF0000FF;
+    private static final int TILE_BYTES = TiledRaster.TILE_PIXELS * 4;
+
+    private static List<Layer> layers(TiledRaster r) {
+        return layers(new Layer("Hintergrund", r));
+    }
+
+    private static List<Layer> layers(Layer layer) {
+        return List.of(layer.snapshot());
+    }
+
+    @Test
+    public void roundTripsTilesAndLog(@TempDir Path dir) throws IOException {
+        TiledRaster r = new TiledRaster(1000, 600, WHITE);
+        for (int i = 0; i < 900; i++) r.setPixel(i, i / 2, RED);
+        StrokeLog log = new StrokeLog();
+        log.beginStroke(StrokeLog.STROKE, RED, 3, 0, 0);
+        log.addPoint(900, 450);
+        log.addShape(StrokeLog.OVAL, BLUE, 2, 10, 10, 50, 40);
+        Path file = dir.resolve("bild" + ProjectFile.EXTENSION);
+        new ProjectFile(file).save(layers(r), log, null, null);
+
+        ProjectFile.Document doc = ProjectFile.load(file);
+        TiledRaster loaded = doc.layers.get(0).getRaster();
+        assertEquals(1000, loaded.getWidth());
+        assertEquals(600, loaded.getHeight());
+        for (int ty = 0; ty < r.getTilesY(); ty++) for (int tx = 0; tx < r.getTilesX(); tx++)
+            assertEquals(r.isAllocated(tx, ty), loaded.isAllocated(tx, ty));
+        assertEquals(RED, loaded.getPixel(800, 400));
+        assertEquals(WHITE, loaded.getPixel(800, 100));
+        assertEquals(2, doc.log.size());
+        assertEquals(StrokeLog.OVAL, doc.log.type(1));
+        assertEquals(450f, doc.log.y(0, 1));
+    }
+
+    @Test
+    public void appendsOnlyChangedTiles(@TempDir Path dir) throws IOException {
+        TiledRaster r = new TiledRaster(1024, 1024, WHITE);
+        for (int y = 0; y < 1024; y += 100) for (int x = 0; x < 1024; x += 100) r.setPixel(x, y, RED); // Alle 16 Kacheln belegt
+        Layer layer = new Layer("Hintergrund", r);
+        Path file = dir.resolve("p" + ProjectFile.EXTENSION);
+        ProjectFile pf = new ProjectFile(file);
+        pf.save(layers(layer), new StrokeLog(), null, null);
+        assertTrue(pf.getLastSaveBytes() >= 16L * TILE_BYTES);
+
+        r.setPixel(5, 5, BLUE); // Eine Kachel geändert
+        long before = Files.size(file);
+        pf.save(layers(layer), new StrokeLog(), null, null);
+        assertTrue(pf.getLastSaveBytes() < 2L * TILE_BYTES, "geschrieben: " + pf.getLastSaveBytes());
+        assertTrue(Files.size(file) - before < 2L * TILE_BYTES);
+
+        // Geladene Kacheln sind schreibgeschützt gemappt; Schreiben kopiert sie, die Datei bleibt unverändert
+        ProjectFile.Document doc = ProjectFile.load(file);
+        TiledRaster loaded = doc.layers.get(0).getRaster();
+        assertEquals(BLUE, loaded.getPixel(5, 5));
+        loaded.setPixel(600, 600, BLUE);
+        doc.file.save(layers(doc.layers.get(0)), doc.log, null, null);
+        assertTrue(doc.file.getLastSaveBytes() < 2L * TILE_BYTES);
+        TiledRaster again = ProjectFile.load(file).layers.get(0).getRaster();
+        assertEquals(BLUE, again.getPixel(600, 600));
+        assertEquals(RED, again.getPixel(500, 500));
+    }
+
+    @Test
+    public void compactsMostlyStaleFileWhenLoaded(@TempDir Path dir) throws IOException {
+        TiledRaster r = new TiledRaster(2048, 2048, WHITE); // 64 Kacheln = 16 MiB
+        Layer layer = new Layer("Hintergrund", r);
+        Path file = dir.resolve("gross" + ProjectFile.EXTENSION);
+        ProjectFile pf = new ProjectFile(file);
+        for (int round = 0; round < 4; round++) { // Jede Runde ändert alle Kacheln: danach sind drei Viertel veraltet
+            for (int y = 0; y < 2048; y += 256) for (int x = 0; x < 2048; x += 256) r.setPixel(x + round, y, RED);
+            pf.save(layers(layer), new StrokeLog(), null, null);
+        }
+        long stale = Files.size(file);
+        assertTrue(stale > 64L << 20, "Größe " + stale);
+
+        ProjectFile.Document doc = ProjectFile.load(file);
+        TiledRaster loaded = doc.layers.get(0).getRaster();
+        loaded.setPixel(1000, 1000, BLUE);
+        doc.file.save(layers(doc.layers.get(0)), doc.log, null, null);
+        assertTrue(Files.size(file) < stale / 2, "Größe " + Files.size(file) + " statt " + stale);
+        TiledRaster again = ProjectFile.load(file).layers.get(0).getRaster();
+        assertEquals(BLUE, again.getPixel(1000, 1000));
+        assertEquals(RED, again.getPixel(256 + 3, 512));
+        assertEquals(RED, again.getPixel(0, 1792));
+        assertEquals(WHITE, again.getPixel(5, 5));
+    }
+
+    @Test
+    public void keepsTilesWithTheirLayerAfterReorderAndRemove(@TempDir Path dir) throws IOException {
+        LayerStack stack = new LayerStack(300, 200, WHITE);
+        stack.getActive().getRaster().setPixel(10, 10, BLUE);
+        stack.addLayer().getRaster().setPixel(10, 10, RED);  // Gleiche Kachelversion wie darunter
+        Path file = dir.resolve("ordnung" + ProjectFile.EXTENSION);
+        ProjectFile pf = new ProjectFile(file);
+        pf.save(stack.snapshot(), new StrokeLog(), null, null);
+
+        stack.move(1, -1);                                   // "Ebene 2" nach unten
+        pf.save(stack.snapshot(), new StrokeLog(), null, null);
+        assertTrue(pf.getLastSaveBytes() < TILE_BYTES);      // Keine Kachel neu geschrieben
+        List<Layer> loaded = ProjectFile.load(file).layers;
+        assertEquals("Ebene 2", loaded.get(0).getName());
+        assertEquals(RED, loaded.get(0).getRaster().getPixel(10, 10));
+        assertEquals("Hintergrund", loaded.get(1).getName());
+        assertEquals(BLUE, loaded.get(1).getRaster().getPixel(10, 10));
+
+        stack.remove(1);                                     // An ihre Stelle tritt eine neue Ebene
+        stack.addLayer().getRaster().setPixel(10, 10, 0xFF00FF00);
+        pf.save(stack.snapshot(), new StrokeLog(), null, null);
+        loaded = ProjectFile.load(file).layers;
+        assertEquals(RED, loaded.get(0).getRaster().getPixel(10, 10));
+        assertEquals("Ebene 3", loaded.get(1).getName());
+        assertEquals(0xFF00FF00, loaded.get(1).getRaster().getPixel(10, 10));
+    }
+
+    @Test
+    public void roundTripsLayerProperties(@TempDir Path dir) throws IOException {
+        TiledRaster base = new TiledRaster(300, 200, WHITE), top = new TiledRaster(300, 200, 0);
+        top.setPixel(10, 10, RED);
+        Path file = dir.resolve("ebenen" + ProjectFile.EXTENSION);
+        new ProjectFile(file).save(List.of(new Layer("Hintergrund", base), new Layer("Oben", top, 0.5f, Layer.BlendMode.MULTIPLY, false)), new StrokeLog(), null, null);
+
+        List<Layer> loaded = ProjectFile.load(file).layers;
+        assertEquals(2, loaded.size());
+        Layer l = loaded.get(1);
+        assertEquals("Oben", l.getName());
+        assertEquals(0.5f, l.getOpacity());
+        assertEquals(Layer.BlendMode.MULTIPLY, l.getMode());
+        assertFalse(l.isVisible());
+        assertEquals(0, l.getRaster().getBackground());
+        assertEquals(RED, l.getRaster().getPixel(10, 10));
+        assertEquals(WHITE, loaded.get(0).getRaster().getPixel(10, 10));
+    }
+
+    @Test
+    public void roundTripsVectorShapes(@TempDir Path dir) throws IOException {
+        Layer layer = new Layer("Hintergrund", new TiledRaster(400, 300, WHITE));
+        VectorShapes s = layer.getShapes();
+        s.add(StrokeLog.RECTANGLE, RED, 4, 10, 10, 100, 100);
+        int gone = s.add(StrokeLog.OVAL, BLUE, 2, 200, 50, 300, 150);
+        int oval = s.add(StrokeLog.OVAL, BLUE, 2, 150, 150, 250, 250);
+        s.setAlive(gone, false); // Gelöschte Formen werden nicht gespeichert
+        Path file = dir.resolve("formen" + ProjectFile.EXTENSION);
+        new ProjectFile(file).save(List.of(layer.snapshot()), new StrokeLog(), null, null);
+
+        VectorShapes loaded = ProjectFile.load(file).layers.get(0).getShapes();
+        assertEquals(2, loaded.getLiveCount());
+        assertEquals(0, loaded.hitTest(10, 50, 1));
+        assertEquals(1, loaded.hitTest(200, 150, 1)); // Neue Kennung (kompaktiert): oval -> 1
+        assertEquals(-1, loaded.hitTest(300, 100, 1));
+        assertEquals(s.getRaster().getPixel(10, 50), loaded.getRaster().getPixel(10, 50));
+        assertEquals(s.getRaster().getPixel(150, 200), loaded.getRaster().getPixel(150, 200));
+        assertEquals(2, oval);
+    }
+
+    @Test
+    public void rejectsForeignAndTruncatedFiles(@TempDir Path dir) throws IOException {
+        Path png = dir.resolve("x" + ProjectFile.EXTENSION);
+        Files.write(png, new byte[100]);
+        assertThrows(IOException.class, () -> ProjectFile.load(png));
+        TiledRaster r = new TiledRaster(300, 300, WHITE);
+        r.setPixel(1, 1, RED);
+        Path file = dir.resolve("y" + ProjectFile.EXTENSION);
+        new ProjectFile(file).save(layers(r), new StrokeLog(), null, null);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, java.util.Arrays.copyOf(bytes, bytes.length - 10)); // Index abgeschnitten
+        assertThrows(IOException.class, () -> ProjectFile.load(file));
+        assertFalse(ProjectFile.isProjectFile(dir.resolve("bild.png")));
+    }
+}
@@ -0,0 +1,153 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Random;
+import java.util.zip.CRC32;
+import org.junit.jupiter.api.Test;
+
+public class SoftwareRasterizerTest {
+
+    private static final int WHITE = 0xFFFFFFFF, RED = 0xFFFF0000, BLUE = 0xFF0000FF;
+
+    // Zufällige Striche, Rechtecke, Ovale und Radierer auf weißem Grund
+    private static StrokeLog scene(int w, int h, long seed) {
+        StrokeLog log = new StrokeLog();
+        Random rnd = new Random(seed);
+        for (int k = 0; k < 40; k++) {
+            int color = rnd.nextInt(4) == 0 ? 0x80000000 | rnd.nextInt(0x1000000) : 0xFF000000 | rnd.nextInt(0x1000000);
+            float width = 1 + rnd.nextInt(30);
+            switch (rnd.nextInt(4)) {
+                case 0: case 1:
+                    log.beginStroke(rnd.nextBoolean() ? StrokeLog.STROKE : StrokeLog.ERASE, color, width, rnd.nextInt(w), rnd.nextInt(h));
+                    for (int p = 0; p < 20; p++) log.addPoint(rnd.nextInt(w), rnd.nextInt(h));
+                    break;
+                default:
+                    log.addShape(rnd.nextBoolean() ? StrokeLog.RECTANGLE : StrokeLog.OVAL, color, width, rnd.nextInt(w), rnd.nextInt(h), rnd.nextInt(w), rnd.nextInt(h));
+            }
+        }
+        return log;
+    }
+
+    private static int[] pixels(TiledRaster r) {
+        int[] px = new int[r.getWidth() * r.getHeight()];
+        r.readRect(0, 0, r.getWidth(), r.getHeight(), px, 0, r.getWidth());
+        return px;
+    }
+
+    @Test
+    public void parallelBandsAreBitIdenticalToSerial() {
+        int w = 1500, h = 1100;
+        StrokeLog log = scene(w, h, 3);
+        log.beginStroke(StrokeLog.STROKE, BLUE, 400, 100, 100); log.addPoint(1400, 1000); // Groß genug für die Verteilung
+        TiledRaster serial = new TiledRaster(w, h, WHITE), parallel = new TiledRaster(w, h, WHITE);
+        SoftwareRasterizer s = new SoftwareRasterizer();
+        s.setParallel(false);
+        s.replay(log, 0, log.size(), serial);
+        new SoftwareRasterizer().replay(log, 0, log.size(), parallel);
+        assertArrayEquals(pixels(serial), pixels(parallel));
+    }
+
+    // Feste Szene, Prüfsumme aller Pixel: jede Änderung an Abtastung, Deckung oder Oval-Zerlegung fällt hier auf.
+    // Bei einer gewollten Änderung die Ausgabe prüfen und den Wert neu eintragen.
+    @Test
+    public void goldenSceneChecksum() {
+        int w = 640, h = 480;
+        StrokeLog log = scene(w, h, 7);
+        log.beginStroke(StrokeLog.STROKE, 0xFF336699, 9.5f, 20.25, 460.75); log.addPoint(620.5, 20.125); log.addPoint(300, 240);
+        log.beginStroke(StrokeLog.ERASE, 0, 12, 0, 0); log.addPoint(640, 480);
+        TiledRaster r = new TiledRaster(w, h, WHITE);
+        new SoftwareRasterizer().replay(log, 0, log.size(), r);
+        CRC32 crc = new CRC32();
+        for (int px : pixels(r)) { crc.update(px >>> 24); crc.update(px >>> 16); crc.update(px >>> 8); crc.update(px); }
+        assertEquals(0x8aec2c7bL, crc.getValue(), "Prüfsumme 0x" + Long.toHexString(crc.getValue()));
+    }
+
+    @Test
+    public void matchesJava2dClosely() {
+        int w = 800, h = 600;
+        StrokeLog log = scene(w, h, 11);
+        TiledRaster soft = new TiledRaster(w, h, WHITE), awt = new TiledRaster(w, h, WHITE);
+        new SoftwareRasterizer().replay(log, 0, log.size(), soft);
+        new Java2dRasterBridge().replay(log, 0, log.size(), awt);
+        int[] a = pixels(soft), b = pixels(awt);
+        long sum = 0; int far = 0;
+        for (int i = 0; i < a.length; i++) {
+            int d = 0;
+            for (int sh = 0; sh < 32; sh += 8) d = Math.max(d, Math.abs(((a[i] >>> sh) & 0xFF) - ((b[i] >>> sh) & 0xFF)));
+            sum += d;
+            if (d > 128) far++;                        // Nur an Kanten darf ein Pixel deutlich abweichen
+        }
+        assertTrue(sum / (double) a.length < 2, "Mittlere Abweichung " + sum / (double) a.length);
+        assertTrue(far < a.length / 500, far + " stark abweichende Pixel");
+    }
+
+    @Test
+    public void drawsRoundCapsDotsAndOutlines() {
+        TiledRaster r = new TiledRaster(400, 300, WHITE);
+        StrokeLog log = new StrokeLog();
+        log.beginStroke(StrokeLog.STROKE, RED, 21, 50, 50); log.addPoint(150, 50);
+        log.beginStroke(StrokeLog.STROKE, BLUE, 10, 300, 50);                                // Einzelner Punkt
+        log.addShape(StrokeLog.RECTANGLE, RED, 4, 50, 150, 150, 250);
+        log.addShape(StrokeLog.OVAL, BLUE, 2, 200, 150, 350, 250);
+        new SoftwareRasterizer().replay(log, 0, log.size(), r);
+        assertEquals(RED, r.getPixel(100, 50));
+        assertEquals(RED, r.getPixel(40, 50));             // Runde Kappe reicht über den Endpunkt hinaus
+        assertEquals(WHITE, r.getPixel(40, 40));           // ... aber nicht bis in die Ecke
+        assertEquals(BLUE, r.getPixel(300, 50));
+        assertEquals(WHITE, r.getPixel(307, 50));
+        assertEquals(RED, r.getPixel(50, 200));
+        assertEquals(RED, r.getPixel(100, 150));
+        assertEquals(WHITE, r.getPixel(100, 200));
+        assertEquals(BLUE, r.getPixel(275, 150));          // Scheitel des Ovals
+        assertEquals(WHITE, r.getPixel(205, 155));
+        assertEquals(WHITE, r.getPixel(275, 200));
+        int edge = r.getPixel(100, 60);                    // Kante: halb gedeckt
+        assertTrue(edge != RED && edge != WHITE, Integer.toHexString(edge));
+    }
+
+    @Test
+    public void transparentEraseCutsOutAndRenderClippedReplacesRect() {
+        TiledRaster r = new TiledRaster(300, 300, RED);
+        StrokeLog log = new StrokeLog();
+        log.beginStroke(StrokeLog.ERASE, 0, 20, 50, 150); log.addPoint(250, 150);
+        SoftwareRasterizer s = new SoftwareRasterizer();
+        s.replay(log, 0, r);
+        assertEquals(0, r.getPixel(150, 150));
+        assertEquals(RED, r.getPixel(150, 100));
+
+        log.addShape(StrokeLog.RECTANGLE, BLUE, 4, 10, 10, 100, 100);
+        s.renderClipped(log, new int[] { 1 }, 1, r, 0, 0, 256, 256);
+        assertEquals(BLUE, r.getPixel(10, 50));
+        assertEquals(0, r.getPixel(50, 50));               // Rechteck wird ersetzt, nicht überlagert
+        assertEquals(RED, r.getPixel(280, 50));
+    }
+
+    @Test
+    public void incrementalStrokeCoverageMatchesDraw() {
+        int w = 700, h = 500;
+        StrokeLog log = new StrokeLog();
+        Random rnd = new Random(5);
+        int i = log.beginStroke(StrokeLog.STROKE, 0x80336699, 17, 350, 250);
+        SoftwareRasterizer.StrokeCoverage cov = new SoftwareRasterizer.StrokeCoverage(log, i, w, h);
+        cov.update();
+        for (int pulse = 0; pulse < 30; pulse++) { // Punkte kommen in Gruppen wie je Pulse, teils außerhalb des Bildes
+            for (int p = rnd.nextInt(4); p >= 0; p--) log.addPoint(rnd.nextInt(w + 100) - 50, rnd.nextInt(h + 100) - 50);
+            assertTrue(cov.update() != null);
+        }
+        assertEquals(null, cov.update());
+        int[] expected = new int[w * h], actual = new int[w * h];
+        new SoftwareRasterizer().draw(log, i, expected, 0, w, 0, 0, w, h);
+        cov.paint(actual, 0, w, 0, 0, w, h);
+        assertArrayEquals(expected, actual);
+    }
+
+    @Test
+    public void selectsImplementationByName() {
+        assertTrue(StrokeRasterizer.create("software") instanceof SoftwareRasterizer);
+        assertTrue(StrokeRasterizer.create("java2d") instanceof Java2dRasterBridge);
+        assertThrows(IllegalArgumentException.class, () -> StrokeRasterizer.create("gpu"));
+    }
+}
@@ -0,0 +1,60 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.Test;
+
+public class StrokeInputTest {
+
+    private final List<float[]> out = new ArrayList<>();
+    private final StrokeInput.Sink sink = (xy, count) -> { for (int i = 0; i < count; i++) out.add(new float[]{xy[2 * i], xy[2 * i + 1]}); };
+
+    @Test
+    public void decimatesDensePointsButKeepsEndPoint() {
+        StrokeInput in = new StrokeInput(64);
+        in.setSmoothing(false);
+        in.setTolerances(1.0, 2.0);
+        in.begin(0, 0);
+        for (int i = 1; i <= 100; i++) in.add(i * 0.1, 0, sink); // 100 Punkte über 10 px
+        in.drain(sink);
+        in.add(10.2, 0, sink);
+        in.end(sink);
+        assertEquals(100 + 1, in.getRawPoints());
+        assertTrue(out.size() <= 11, "zu viele Punkte: " + out.size());
+        float[] last = out.get(out.size() - 1);
+        assertEquals(10.2f, last[0], 1e-4);
+    }
+
+    @Test
+    public void smoothedCurvePassesThroughControlPoints() {
+        StrokeInput in = new StrokeInput(16);
+        in.setTolerances(0.5, 1.0);
+        in.begin(0, 0);
+        in.add(10, 0, sink); in.add(10, 10, sink); in.add(0, 10, sink);
+        in.drain(sink);
+        in.end(sink);
+        assertTrue(out.size() > 3); // Kurve wurde unterteilt
+        assertTrue(contains(10, 0) && contains(10, 10) && contains(0, 10));
+        for (int i = 1; i < out.size(); i++) // Kein Segment länger als etwa maxStep
+            assertTrue(Math.hypot(out.get(i)[0] - out.get(i - 1)[0], out.get(i)[1] - out.get(i - 1)[1]) < 1.5);
+    }
+
+    @Test
+    public void fullRingIsProcessedImmediately() {
+        StrokeInput in = new StrokeInput(16);
+        in.setSmoothing(false);
+        in.setTolerances(0, 1);
+        in.begin(0, 0);
+        for (int i = 1; i <= 40; i++) in.add(i, 0, sink);
+        in.end(sink);
+        assertEquals(40, out.size());
+        for (int i = 0; i < 40; i++) assertEquals(i + 1, out.get(i)[0], 0);
+    }
+
+    private boolean contains(float x, float y) {
+        for (float[] p : out) if (Math.abs(p[0] - x) < 1e-3 && Math.abs(p[1] - y) < 1e-3) return true;
+        return false;
+    }
+}
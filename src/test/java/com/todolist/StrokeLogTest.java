@@ -0,0 +1,43 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import org.junit.jupiter.api.Test;
+
+public class StrokeLogTest {
+
+    @Test
+    public void recordsStrokesWithGrowingPointArrays() {
+        StrokeLog log = new StrokeLog();
+        int s = log.beginStroke(StrokeLog.STROKE, 0xFF000000, 4, 0, 0);
+        for (int i = 1; i < 5000; i++) log.addPoint(i, i % 7);
+        int r = log.addShape(StrokeLog.RECTANGLE, 0xFFFF0000, 2, 10, 20, 30, 5);
+        assertEquals(2, log.size());
+        assertEquals(5000, log.pointCount(s));
+        assertEquals(4999f, log.x(s, 4999));
+        assertEquals(2, log.pointCount(r));
+        assertEquals(5f, log.y(r, 1));
+    }
+
+    @Test
+    public void boundsIncludeHalfLineWidth() {
+        StrokeLog log = new StrokeLog();
+        int i = log.addShape(StrokeLog.OVAL, 0xFF000000, 4, 30, 40, 10, 20);
+        assertArrayEquals(new double[] { 7, 17, 26, 26 }, log.bounds(i), 1e-9);
+        assertNull(log.bounds(log.addClear(0xFFFFFFFF)));
+    }
+
+    @Test
+    public void truncateDropsCommandsAndTheirPoints() {
+        StrokeLog log = new StrokeLog();
+        log.beginStroke(StrokeLog.STROKE, 0xFF000000, 1, 1, 1);
+        log.addPoint(2, 2);
+        log.beginStroke(StrokeLog.ERASE, 0xFFFFFFFF, 1, 3, 3);
+        log.truncate(1);
+        int i = log.beginStroke(StrokeLog.STROKE, 0xFF000000, 1, 9, 9);
+        assertEquals(2, log.size());
+        assertEquals(9f, log.x(i, 0));
+        assertEquals(2f, log.x(0, 1));
+    }
+}
@@ -0,0 +1,84 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class TiledRasterTest {
+
+    private static final int WHITE = 0xFFFFFFFF;
+
+    @Test
+    public void tilesAreAllocatedLazily() {
+        TiledRaster r = new TiledRaster(1000, 600, WHITE);
+        assertEquals(4, r.getTilesX());
+        assertEquals(3, r.getTilesY());
+        assertEquals(0, r.getAllocatedBytes());
+        assertEquals(WHITE, r.getPixel(999, 599));
+        r.setPixel(300, 10, 0xFF000000);
+        assertTrue(r.isAllocated(1, 0));
+        assertFalse(r.isAllocated(0, 0));
+        assertEquals(0xFF000000, r.getPixel(300, 10));
+        assertEquals(WHITE, r.getPixel(301, 10));
+    }
+
+    @Test
+    public void writeAndReadRectAcrossTileBorders() {
+        TiledRaster r = new TiledRaster(600, 600, 0);
+        int w = 100, h = 50;
+        int[] src = new int[w * h];
+        for (int i = 0; i < src.length; i++) src[i] = 0xFF000000 | i;
+        r.writeRect(200, 230, w, h, src, 0, w);
+        int[] dst = new int[w * h];
+        r.readRect(200, 230, w, h, dst, 0, w);
+        for (int i = 0; i < src.length; i++) assertEquals(src[i], dst[i]);
+        assertEquals(4, r.getAllocatedBytes() / (TiledRaster.TILE_PIXELS * 4L));
+    }
+
+    @Test
+    public void compositeSkipsTransparentTilesAndBlends() {
+        TiledRaster r = new TiledRaster(512, 256, WHITE);
+        int[] src = new int[512];
+        src[400] = 0x80000000; // Halbtransparentes Schwarz (vormultipliziert)
+        r.compositeRect(0, 0, 512, 1, src, 0, 512);
+        assertFalse(r.isAllocated(0, 0));
+        assertEquals(0xFF7F7F7F, r.getPixel(400, 0));
+    }
+
+    @Test
+    public void snapshotIsCopyOnWrite() {
+        TiledRaster r = new TiledRaster(512, 256, WHITE);
+        r.setPixel(1, 1, 0xFF000000);
+        TiledRaster snap = r.snapshot();
+        r.setPixel(1, 1, 0xFFFF0000);
+        r.setPixel(300, 1, 0xFFFF0000);
+        assertEquals(0xFF000000, snap.getPixel(1, 1));
+        assertEquals(WHITE, snap.getPixel(300, 1));
+        assertEquals(0xFFFF0000, r.getPixel(1, 1));
+    }
+
+    @Test
+    public void clearReleasesTilesAndBumpsVersions() {
+        TiledRaster r = new TiledRaster(256, 256, WHITE);
+        r.setPixel(0, 0, 0xFF000000);
+        int v = r.version(0, 0);
+        r.clear(0xFF00FF00);
+        assertFalse(r.isAllocated(0, 0));
+        assertTrue(r.version(0, 0) > v);
+        assertEquals(0xFF00FF00, r.getPixel(0, 0));
+    }
+
+    @Test
+    public void eraseRectCutsOutMaskAlpha() {
+        TiledRaster r = new TiledRaster(600, 256, 0);
+        r.setPixel(1, 1, 0xFFFF0000);
+        r.setPixel(2, 1, 0xFFFF0000);
+        int[] mask = { 0xFF000000, 0x80000000, 0 };
+        r.eraseRect(1, 1, 3, 1, mask, 0, 3);
+        assertEquals(0, r.getPixel(1, 1));
+        assertEquals(0x7F7F0000, r.getPixel(2, 1));
+        r.eraseRect(400, 0, 3, 1, mask, 0, 3); // Leere transparente Kachel: nichts anlegen
+        assertFalse(r.isAllocated(1, 0));
+    }
+}
@@ -0,0 +1,69 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import org.junit.jupiter.api.Test;
+
+public class UndoHistoryTest {
+
+    private static final int WHITE = 0xFFFFFFFF, BLACK = 0xFF000000;
+
+    @Test
+    public void tileDeltaRestoresOnlyChangedTiles() {
+        TiledRaster r = new TiledRaster(1024, 1024, WHITE);
+        StrokeLog log = new StrokeLog();
+        UndoHistory h = new UndoHistory(64L << 20);
+
+        int cmd = log.beginStroke(StrokeLog.STROKE, BLACK, 1, 10, 10);
+        TileDelta.Recorder rec = TileDelta.record(r, 0, 0, 600, 600, log, cmd);
+        r.setPixel(10, 10, BLACK);
+        TileDelta delta = rec.finish();
+        assertEquals(1, delta.getTileCount());
+        h.push(delta);
+
+        assertTrue(h.undo());
+        assertEquals(WHITE, r.getPixel(10, 10));
+        assertFalse(r.isAllocated(0, 0));
+        assertEquals(0, log.size());
+
+        assertTrue(h.redo());
+        assertEquals(BLACK, r.getPixel(10, 10));
+        assertEquals(1, log.size());
+    }
+
+    @Test
+    public void clearIsUndoable() {
+        TiledRaster r = new TiledRaster(2048, 2048, WHITE);
+        for (int y = 0; y < 2048; y += 100) r.setPixel(y, y, BLACK);
+        UndoHistory h = new UndoHistory(64L << 20);
+        TileDelta.Recorder rec = TileDelta.record(r, 0, 0, 2048, 2048, null, 0);
+        r.clear(0xFF00FF00);
+        h.push(rec.finish());
+        assertEquals(0xFF00FF00, r.getPixel(500, 500));
+        h.undo();
+        assertEquals(BLACK, r.getPixel(500, 500));
+        assertEquals(WHITE, r.getPixel(501, 500));
+    }
+
+    @Test
+    public void oldestEntriesAreEvictedWhenOverBudget() {
+        UndoHistory h = new UndoHistory(1000);
+        for (int i = 0; i < 5; i++) h.push(entry(300));
+        assertEquals(3, h.getUndoCount());
+        assertEquals(900, h.getUsedBytes());
+        assertEquals(2, h.getEvictedEntries());
+        h.undo();
+        h.push(entry(100));
+        assertEquals(0, h.getRedoCount());
+        assertEquals(700, h.getUsedBytes());
+    }
+
+    private static UndoHistory.Entry entry(long size) {
+        return new UndoHistory.Entry() {
+            @Override public void undo() { }
+            @Override public void redo() { }
+            @Override public long byteSize() { return size; }
+        };
+    }
+}
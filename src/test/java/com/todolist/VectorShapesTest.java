@@ -0,0 +1,175 @@
+package com.todolist;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import java.util.Random;
+import org.junit.jupiter.api.Test;
+
+public class VectorShapesTest {
+
+    private static final int WHITE = 0xFFFFFFFF, RED = 0xFFFF0000, BLUE = 0xFF0000FF;
+
+    @Test
+    public void hitTestFindsTopmostOutline() {
+        VectorShapes s = new VectorShapes(800, 600);
+        int a = s.add(StrokeLog.RECTANGLE, RED, 4, 100, 100, 300, 300);
+        int b = s.add(StrokeLog.RECTANGLE, BLUE, 4, 200, 100, 400, 300);
+        int o = s.add(StrokeLog.OVAL, RED, 2, 500, 100, 700, 200);
+        assertEquals(b, s.hitTest(200, 150, 1));    // Linke Kante von b liegt über a
+        assertEquals(a, s.hitTest(100, 200, 1));
+        assertEquals(b, s.hitTest(250, 101, 1));    // Oberkanten beider: die obere gewinnt
+        assertEquals(-1, s.hitTest(150, 200, 3));   // Innen, weit weg von jedem Umriss
+        assertEquals(o, s.hitTest(600, 100, 1));    // Scheitel des Ovals
+        assertEquals(o, s.hitTest(700, 150, 2));
+        assertEquals(-1, s.hitTest(600, 150, 3));   // Mittelpunkt
+        assertEquals(-1, s.hitTest(505, 105, 2));   // Ecke des umschließenden Rechtecks gehört nicht zum Oval
+        s.setAlive(b, false);
+        assertEquals(a, s.hitTest(250, 101, 1));
+    }
+
+    @Test
+    public void hitTestMatchesBruteForceWithManyShapes() {
+        int w = 4096, h = 4096, n = 100_000;
+        VectorShapes s = new VectorShapes(w, h);
+        Random rnd = new Random(7);
+        for (int i = 0; i < n; i++) {
+            double x = rnd.nextInt(w), y = rnd.nextInt(h);
+            s.add(rnd.nextBoolean() ? StrokeLog.RECTANGLE : StrokeLog.OVAL, RED, 1 + rnd.nextInt(4), x, y, x + 2 + rnd.nextInt(60), y + 2 + rnd.nextInt(60));
+        }
+        assertEquals(n, s.getLiveCount());
+        for (int k = 0; k < 300; k++) {
+            double x = rnd.nextInt(w), y = rnd.nextInt(h);
+            int expected = -1;
+            for (int i = n - 1; i >= 0 && expected < 0; i--) if (VectorShapes.hits(s.getLog(), i, x, y, 2)) expected = i;
+            assertEquals(expected, s.hitTest(x, y, 2), "Punkt " + x + "," + y);
+        }
+    }
+
+    @Test
+    public void moveRedrawsOnlyTilesUnderOldAndNewBounds() {
+        int t = TiledRaster.TILE_SIZE;
+        VectorShapes s = new VectorShapes(8 * t, 8 * t);
+        int id = s.add(StrokeLog.RECTANGLE, RED, 2, 20, 20, 60, 60);
+        s.add(StrokeLog.OVAL, BLUE, 2, 7 * t + 10, 7 * t + 10, 7 * t + 50, 7 * t + 50); // Unbeteiligte Form
+        TiledRaster r = s.getRaster();
+        int[] before = new int[64];
+        for (int i = 0; i < 64; i++) before[i] = r.version(i % 8, i / 8);
+        assertTrue(r.getPixel(20, 40) != 0);
+
+        s.move(id, 5 * t, 5 * t);
+        assertEquals(2, s.getTilesLastChange());
+        for (int i = 0; i < 64; i++) {
+            boolean touched = i == 0 || i == 5 * 8 + 5;
+            assertEquals(touched, r.version(i % 8, i / 8) != before[i], "Kachel " + i);
+        }
+        assertEquals(0, r.getPixel(20, 40));
+        assertTrue(r.getPixel(5 * t + 20, 5 * t + 40) != 0);
+        assertEquals(id, s.hitTest(5 * t + 20, 5 * t + 40, 1));
+        assertEquals(-1, s.hitTest(20, 40, 1));
+        assertFalse(r.isAllocated(0, 0)); // Leer gewordene Kachel wird freigegeben
+    }
+
+    @Test
+    public void shapesAreCompositedAndUndoable() {
+        LayerStack stack = new LayerStack(600, 400, WHITE);
+        Compositor c = new Compositor(stack);
+        VectorShapes s = stack.get(0).getShapes();
+        int id = s.add(StrokeLog.RECTANGLE, RED, 4, 100, 100, 200, 200);
+        UndoHistory history = new UndoHistory(1 << 20);
+        history.push(s.addedEntry(id));
+        c.update();
+        assertEquals(RED, c.getOutput().getPixel(100, 150));
+        assertEquals(WHITE, c.getOutput().getPixel(150, 150));
+
+        s.move(id, 200, 0);
+        history.push(s.movedEntry(id, 200, 0));
+        assertEquals(1, c.update());               // Nur die Kachel unter altem und neuem Rechteck
+        assertEquals(WHITE, c.getOutput().getPixel(100, 150));
+        assertEquals(RED, c.getOutput().getPixel(300, 150));
+
+        history.undo();
+        c.update();
+        assertEquals(RED, c.getOutput().getPixel(100, 150));
+        history.undo();
+        c.update();
+        assertEquals(WHITE, c.getOutput().getPixel(100, 150));
+        assertEquals(-1, s.hitTest(100, 150, 1));
+        history.redo();
+        c.update();
+        assertEquals(RED, c.getOutput().getPixel(100, 150));
+    }
+
+    @Test
+    public void rasterCommandsPaintOverFlattenedShapes() {
+        LayerStack stack = new LayerStack(600, 400, WHITE);
+        Compositor c = new Compositor(stack);
+        Layer layer = stack.get(0);
+        VectorShapes s = layer.getShapes();
+        UndoHistory history = new UndoHistory(1 << 20);
+        int id = s.add(StrokeLog.RECTANGLE, RED, 10, 100, 100, 300, 300);
+        history.push(s.addedEntry(id));
+        int far = s.add(StrokeLog.OVAL, RED, 4, 420, 300, 560, 380); // Vom Strich nicht berührt
+        history.push(s.addedEntry(far));
+
+        // Strich nach dem Rechteck (wie App.commitCommand): berührte Formen zuerst übernehmen, dann zeichnen
+        double[] stroke = { 0, 190, 600, 20 };
+        UndoHistory.Entry flat = s.flattenInto(layer.getRaster(), stroke);
+        TileDelta.Recorder rec = TileDelta.record(layer.getRaster(), 0, 190, 600, 20, null, 0);
+        for (int y = 195; y < 205; y++) for (int x = 0; x < 600; x++) layer.getRaster().setPixel(x, y, BLUE);
+        history.push(UndoHistory.group(flat, rec.finish()));
+        c.update();
+        assertEquals(BLUE, c.getOutput().getPixel(100, 200));  // Strich liegt über dem Rand des Rechtecks
+        assertEquals(RED, c.getOutput().getPixel(100, 150));   // Übrige Form bleibt als Pixel sichtbar
+        assertEquals(1, s.getLiveCount());                      // Das Oval bleibt bearbeitbar
+        assertEquals(far, s.hitTest(420, 340, 1));
+        assertEquals(-1, s.hitTest(100, 150, 1));
+        assertFalse(s.getRaster().isAllocated(0, 0));
+        assertEquals(WHITE, layer.getRaster().getPixel(420, 340)); // und liegt nicht im Raster
+        assertEquals(null, s.flattenInto(layer.getRaster(), stroke)); // Nichts mehr zu übernehmen
+
+        // Füllen wirkt auf die übernommenen Umrisse: das Innere ist begrenzt
+        new FloodFill().fill(layer.getRaster(), 150, 150, BLUE, 0);
+        assertEquals(BLUE, layer.getRaster().getPixel(150, 150));
+        assertEquals(WHITE, layer.getRaster().getPixel(50, 50));
+
+        history.undo();                                         // Strich samt Übernahme zurück: Form wieder beweglich
+        c.update();
+        assertEquals(2, s.getLiveCount());
+        assertEquals(id, s.hitTest(100, 150, 1));
+        assertEquals(RED, c.getOutput().getPixel(100, 200));
+        assertEquals(WHITE, layer.getRaster().getPixel(100, 200)); // Rechteck liegt wieder nur als Form vor
+        history.redo();
+        c.update();
+        assertEquals(1, s.getLiveCount());
+        assertEquals(BLUE, c.getOutput().getPixel(100, 200));
+        assertEquals(RED, layer.getRaster().getPixel(100, 150));
+    }
+
+    @Test
+    public void flattensLowerOverlappingShapesToKeepStackingOrder() {
+        LayerStack stack = new LayerStack(600, 400, WHITE);
+        Compositor c = new Compositor(stack);
+        Layer layer = stack.get(0);
+        VectorShapes s = layer.getShapes();
+        int lower = s.add(StrokeLog.RECTANGLE, RED, 10, 100, 100, 200, 200);
+        int middle = s.add(StrokeLog.RECTANGLE, BLUE, 10, 150, 150, 250, 250);   // Überlappt lower
+        int upper = s.add(StrokeLog.RECTANGLE, RED, 10, 120, 120, 180, 180);    // Über middle, vom Strich nicht berührt
+        int apart = s.add(StrokeLog.OVAL, RED, 4, 400, 50, 550, 150);
+        c.update();
+        int[] before = new int[600 * 400], after = new int[600 * 400];
+        c.getOutput().readRect(0, 0, 600, 400, before, 0, 600);
+        UndoHistory.Entry flat = s.flattenInto(layer.getRaster(), new double[] { 230, 235, 70, 10 }); // Berührt nur middle
+        assertFalse(s.isAlive(middle));
+        assertFalse(s.isAlive(lower));                          // Läge sonst über middle
+        assertTrue(s.isAlive(upper));
+        assertTrue(s.isAlive(apart));
+        c.update();
+        c.getOutput().readRect(0, 0, 600, 400, after, 0, 600);
+        assertArrayEquals(before, after);                       // Gesamtbild unverändert
+        flat.undo();
+        assertEquals(4, s.getLiveCount());
+        assertEquals(WHITE, layer.getRaster().getPixel(150, 200));
+    }
+}